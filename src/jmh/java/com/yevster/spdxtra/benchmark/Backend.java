@@ -0,0 +1,55 @@
+package com.yevster.spdxtra.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.jena.query.Dataset;
+import org.apache.jena.query.DatasetFactory;
+import org.apache.jena.tdb.TDBFactory;
+
+/**
+ * The dataset implementations the benchmarks run against.
+ */
+public enum Backend {
+	/**
+	 * Transactional in-memory dataset from {@link DatasetFactory}.
+	 */
+	MEMORY {
+		@Override
+		public Dataset create() {
+			return DatasetFactory.createTxnMem();
+		}
+
+		@Override
+		public void dispose(Dataset dataset) {
+			dataset.close();
+		}
+	},
+	/**
+	 * TDB dataset persisted in a fresh temporary directory.
+	 */
+	TDB {
+		@Override
+		public Dataset create() throws IOException {
+			Path directory = Files.createTempDirectory("spdxtra-jmh-tdb");
+			return TDBFactory.createDataset(directory.toString());
+		}
+
+		@Override
+		public void dispose(Dataset dataset) throws IOException {
+			String directory = TDBFactory.location(dataset).getDirectoryPath();
+			TDBFactory.release(dataset);
+			FileUtils.deleteDirectory(new File(directory));
+		}
+	};
+
+	public abstract Dataset create() throws IOException;
+
+	/**
+	 * Releases the dataset and any storage associated with it.
+	 */
+	public abstract void dispose(Dataset dataset) throws IOException;
+}
@@ -0,0 +1,70 @@
+package com.yevster.spdxtra.benchmark;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.jena.query.Dataset;
+import org.apache.jena.tdb.TDBFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.yevster.spdxtra.Write;
+
+/**
+ * Measures loading an RDF/XML SPDX document into a new TDB dataset with
+ * {@link Write#rdfIntoNewDataset(Path, Path)}, which bulk loads into empty
+ * directories. Compare with the TDB results of {@link IngestBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class BulkIngestBenchmark {
+
+	@Param({ "1000", "10000", "100000", "1000000" })
+	public int fileCount;
+
+	private Path input;
+
+	private Path directory;
+
+	private Dataset dataset;
+
+	@Setup(Level.Trial)
+	public void generate() throws IOException {
+		input = SyntheticDocuments.rdfXml(fileCount);
+	}
+
+	@Setup(Level.Invocation)
+	public void createDirectory() throws IOException {
+		directory = Files.createTempDirectory("spdxtra-jmh-bulk");
+	}
+
+	@TearDown(Level.Invocation)
+	public void disposeDataset() throws IOException {
+		TDBFactory.release(dataset);
+		FileUtils.deleteDirectory(directory.toFile());
+	}
+
+	@Benchmark
+	public Dataset rdfIntoNewDataset() {
+		dataset = Write.rdfIntoNewDataset(input, directory);
+		return dataset;
+	}
+}
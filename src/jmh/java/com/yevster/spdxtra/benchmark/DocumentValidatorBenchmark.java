@@ -0,0 +1,114 @@
+package com.yevster.spdxtra.benchmark;
+
+import java.io.IOException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.apache.jena.query.Dataset;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.yevster.spdxtra.DocumentValidator;
+import com.yevster.spdxtra.ReadSession;
+import com.yevster.spdxtra.Write;
+import com.yevster.spdxtra.model.Checksum;
+import com.yevster.spdxtra.model.Relationship;
+import com.yevster.spdxtra.model.SpdxElement;
+import com.yevster.spdxtra.model.SpdxFile;
+import com.yevster.spdxtra.model.SpdxPackage;
+
+/**
+ * Measures validating a whole document and counting its violations (one per
+ * package, as the synthetic packages have no verification codes): with
+ * {@link DocumentValidator}, on one thread or on the common pool, or element
+ * by element through the model getters, checking the file, package and
+ * relationship rules only.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class DocumentValidatorBenchmark {
+	@Param({ "20000" })
+	public int fileCount;
+
+	@Param({ "MEMORY", "TDB" })
+	public Backend backend;
+
+	private Dataset dataset;
+	private ForkJoinPool singleThread;
+
+	@Setup(Level.Trial)
+	public void load() throws IOException {
+		dataset = backend.create();
+		Write.rdfIntoDataset(SyntheticDocuments.rdfXml(fileCount), dataset);
+		singleThread = new ForkJoinPool(1);
+	}
+
+	@TearDown(Level.Trial)
+	public void dispose() throws IOException {
+		singleThread.shutdown();
+		backend.dispose(dataset);
+	}
+
+	private static long count(DocumentValidator validator, Dataset dataset) {
+		try (Stream<DocumentValidator.Violation> violations = validator.maxViolations(Integer.MAX_VALUE)
+				.validate(dataset)) {
+			return violations.count();
+		}
+	}
+
+	@Benchmark
+	public long validator() {
+		return count(DocumentValidator.create(), dataset);
+	}
+
+	@Benchmark
+	public long validatorOneThread() {
+		return count(DocumentValidator.create().pool(singleThread), dataset);
+	}
+
+	@Benchmark
+	public long getters() {
+		long violations = 0;
+		try (ReadSession session = ReadSession.open(dataset); Stream<SpdxPackage> packages = session.getAllPackages()) {
+			for (SpdxPackage pkg : (Iterable<SpdxPackage>) packages::iterator) {
+				if (pkg.getName() == null || pkg.getPackageDownloadLocation() == null)
+					++violations;
+				if (pkg.getFilesAnalyzed() && !pkg.getPackageVerificationCode().isPresent())
+					++violations;
+				violations += relationshipViolations(session, pkg);
+				try (Stream<SpdxFile> files = pkg.getFiles()) {
+					for (SpdxFile file : (Iterable<SpdxFile>) files::iterator) {
+						if (file.getFileName() == null || !file.getChecksums().stream()
+								.anyMatch(c -> c.getAlgorithm() == Checksum.Algorithm.SHA1))
+							++violations;
+						violations += relationshipViolations(session, file);
+					}
+				}
+			}
+		}
+		return violations;
+	}
+
+	private static long relationshipViolations(ReadSession session, SpdxElement element) {
+		try (Stream<Relationship> relationships = session.getRelationships(element)) {
+			// Reading the related element reads its type.
+			return relationships.filter(r -> r.getType() == null || r.getRelatedElement() == null).count();
+		}
+	}
+}
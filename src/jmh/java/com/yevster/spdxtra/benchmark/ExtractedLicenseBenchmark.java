@@ -0,0 +1,145 @@
+package com.yevster.spdxtra.benchmark;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.jena.query.Dataset;
+import org.apache.jena.query.ReadWrite;
+import org.apache.jena.rdf.listeners.StatementListener;
+import org.apache.jena.rdf.model.Model;
+import org.apache.jena.rdf.model.RDFNode;
+import org.apache.jena.rdf.model.Resource;
+import org.apache.jena.rdf.model.ResourceFactory;
+import org.apache.jena.rdf.model.Statement;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.yevster.spdxtra.DatasetAutoAbortTransaction;
+import com.yevster.spdxtra.SpdxProperties;
+import com.yevster.spdxtra.SpdxUris;
+import com.yevster.spdxtra.Write;
+import com.yevster.spdxtra.Write.ModelUpdate;
+import com.yevster.spdxtra.model.write.License;
+
+/**
+ * Measures assigning one extracted license, with a multi-kilobyte text, as the
+ * concluded license of every file in a package. "writeOnce" uses
+ * {@link License#extracted}; "rewrite" uses a copy of the previous
+ * implementation, which removed and re-added the license's text on every
+ * reference. The statements added to and removed from the model are counted
+ * as auxiliary results; their rate divided by the operation rate is the write
+ * amplification per pass.
+ *
+ * Each invocation runs in its own write transaction, which is aborted so that
+ * every invocation sees the same data.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class ExtractedLicenseBenchmark {
+	private static final String LICENSE_TEXT = StringUtils.repeat(
+			"Permission is hereby granted, free of charge, to any person obtaining a copy of this software. ", 64);
+
+	@Param({ "1000", "10000" })
+	public int fileCount;
+
+	@Param({ "MEMORY", "TDB" })
+	public Backend backend;
+
+	@Param({ "writeOnce", "rewrite" })
+	public String implementation;
+
+	private Dataset dataset;
+	private List<ModelUpdate> updates;
+
+	@AuxCounters
+	@State(Scope.Thread)
+	public static class Writes {
+		public long statementsAdded;
+		public long statementsRemoved;
+	}
+
+	/**
+	 * The extracted license implementation before it was made write-once.
+	 */
+	private static final class RewritingExtractedLicense extends License {
+		private static final Resource extractedLicenseType = ResourceFactory
+				.createResource(SpdxUris.SPDX_TERMS + "ExtractedLicensingInfo");
+
+		@Override
+		public RDFNode getRdfNode(Model m) {
+			Resource resource = m.createResource(SyntheticDocuments.BASE_URL + "#LicenseRef-Bench",
+					extractedLicenseType);
+			if (resource.listProperties().hasNext()) {
+				resource.removeAll(SpdxProperties.LICENSE_EXTRACTED_TEXT);
+				resource.removeAll(SpdxProperties.LICENSE_ID);
+			}
+			resource.addLiteral(SpdxProperties.LICENSE_ID, "LicenseRef-Bench");
+			resource.addLiteral(SpdxProperties.LICENSE_EXTRACTED_TEXT, LICENSE_TEXT);
+			resource.addLiteral(SpdxProperties.NAME, "Bench");
+			return resource;
+		}
+
+		@Override
+		public String getPrettyName() {
+			return "Bench";
+		}
+	}
+
+	@Setup(Level.Trial)
+	public void load() throws IOException {
+		dataset = backend.create();
+		Write.rdfIntoDataset(SyntheticDocuments.rdfXml(fileCount), dataset);
+		License license = "rewrite".equals(implementation) ? new RewritingExtractedLicense()
+				: License.extracted(LICENSE_TEXT, "Bench", SyntheticDocuments.BASE_URL, "LicenseRef-Bench");
+		updates = new ArrayList<>(fileCount);
+		for (int i = 0; i < fileCount; ++i) {
+			updates.add(Write.File.concludedLicense(SyntheticDocuments.fileUri(i), license));
+		}
+	}
+
+	@TearDown(Level.Trial)
+	public void dispose() throws IOException {
+		backend.dispose(dataset);
+	}
+
+	@Benchmark
+	public void assignToAllFiles(final Writes writes) {
+		try (DatasetAutoAbortTransaction transaction = DatasetAutoAbortTransaction.begin(dataset, ReadWrite.WRITE)) {
+			Model model = dataset.getDefaultModel();
+			model.register(new StatementListener() {
+				@Override
+				public void addedStatement(Statement s) {
+					++writes.statementsAdded;
+				}
+
+				@Override
+				public void removedStatement(Statement s) {
+					++writes.statementsRemoved;
+				}
+			});
+			for (ModelUpdate update : updates) {
+				update.apply(model);
+			}
+			transaction.abort();
+		}
+	}
+}
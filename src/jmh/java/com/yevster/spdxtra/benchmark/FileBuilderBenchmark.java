@@ -0,0 +1,84 @@
+package com.yevster.spdxtra.benchmark;
+
+import java.io.IOException;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import org.apache.jena.query.Dataset;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.yevster.spdxtra.BatchingUpdateApplier;
+import com.yevster.spdxtra.BulkFileBuilder;
+import com.yevster.spdxtra.Write;
+import com.yevster.spdxtra.Write.ModelUpdate;
+import com.yevster.spdxtra.model.Creator;
+
+/**
+ * Measures adding files to a new package in batches with
+ * {@link BatchingUpdateApplier}: one
+ * {@link Write.Package#addFile(String, String, String, String)} update per
+ * file, or the updates of a {@link BulkFileBuilder}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class FileBuilderBenchmark {
+	private static final String PACKAGE_SPDX_ID = "SPDXRef-Package";
+
+	@Param({ "100000" })
+	public int fileCount;
+
+	@Param({ "MEMORY", "TDB" })
+	public Backend backend;
+
+	private Dataset dataset;
+
+	@Setup(Level.Invocation)
+	public void createPackage() throws IOException {
+		dataset = backend.create();
+		Write.applyUpdatesInOneTransaction(dataset,
+				Write.New.document(SyntheticDocuments.BASE_URL, "SPDXRef-DOCUMENT", "Files",
+						Creator.person("Benchmark", Optional.empty())),
+				Write.Document.addDescribedPackage(SyntheticDocuments.BASE_URL, "SPDXRef-DOCUMENT", PACKAGE_SPDX_ID,
+						"Package"));
+	}
+
+	@TearDown(Level.Invocation)
+	public void dispose() throws IOException {
+		backend.dispose(dataset);
+	}
+
+	private BatchingUpdateApplier.Statistics apply(Stream<ModelUpdate> updates) {
+		return BatchingUpdateApplier.forDataset(dataset).apply(updates);
+	}
+
+	@Benchmark
+	public BatchingUpdateApplier.Statistics addFile() {
+		return apply(IntStream.range(0, fileCount).mapToObj(i -> Write.Package.addFile(SyntheticDocuments.BASE_URL,
+				PACKAGE_SPDX_ID, "SPDXRef-File-" + i, "./src/file" + i + ".c")));
+	}
+
+	@Benchmark
+	public BatchingUpdateApplier.Statistics bulkFileBuilder() {
+		BulkFileBuilder files = BulkFileBuilder.forDataset(dataset, SyntheticDocuments.BASE_URL);
+		return apply(IntStream.range(0, fileCount)
+				.mapToObj(i -> files.addFile(PACKAGE_SPDX_ID, "SPDXRef-File-" + i, "./src/file" + i + ".c")));
+	}
+}
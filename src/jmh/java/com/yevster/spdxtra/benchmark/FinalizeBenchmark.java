@@ -0,0 +1,68 @@
+package com.yevster.spdxtra.benchmark;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.jena.query.Dataset;
+import org.apache.jena.query.ReadWrite;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.yevster.spdxtra.DatasetAutoAbortTransaction;
+import com.yevster.spdxtra.Write;
+import com.yevster.spdxtra.Write.ModelUpdate;
+
+/**
+ * Measures computing a package verification code with
+ * {@link Write.Package#finalize(String)}. Each invocation runs in its own write
+ * transaction, which is aborted so that every invocation sees the same data.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class FinalizeBenchmark {
+
+	@Param({ "1000", "10000", "100000", "1000000" })
+	public int fileCount;
+
+	@Param({ "MEMORY", "TDB" })
+	public Backend backend;
+
+	private Dataset dataset;
+
+	private ModelUpdate finalizeUpdate;
+
+	@Setup(Level.Trial)
+	public void load() throws IOException {
+		dataset = backend.create();
+		Write.rdfIntoDataset(SyntheticDocuments.rdfXml(fileCount), dataset);
+		finalizeUpdate = Write.Package.finalize(SyntheticDocuments.packageUri(0));
+	}
+
+	@TearDown(Level.Trial)
+	public void dispose() throws IOException {
+		backend.dispose(dataset);
+	}
+
+	@Benchmark
+	public void finalizePackage() {
+		try (DatasetAutoAbortTransaction transaction = DatasetAutoAbortTransaction.begin(dataset, ReadWrite.WRITE)) {
+			finalizeUpdate.apply(dataset.getDefaultModel());
+			transaction.abort();
+		}
+	}
+}
@@ -0,0 +1,70 @@
+package com.yevster.spdxtra.benchmark;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.jena.query.Dataset;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.yevster.spdxtra.Write;
+
+/**
+ * Measures loading an SPDX document into an empty dataset with
+ * {@link Write#rdfIntoDataset(Path, Dataset)}, from RDF/XML and from
+ * N-Triples (which is parsed in parallel).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class IngestBenchmark {
+
+	@Param({ "1000", "10000", "100000", "1000000" })
+	public int fileCount;
+
+	@Param({ "MEMORY", "TDB" })
+	public Backend backend;
+
+	@Param({ "RDFXML", "NTRIPLES" })
+	public String format;
+
+	private Path input;
+
+	private Dataset dataset;
+
+	@Setup(Level.Trial)
+	public void generate() throws IOException {
+		input = "NTRIPLES".equals(format) ? SyntheticDocuments.nTriples(fileCount) : SyntheticDocuments.rdfXml(fileCount);
+	}
+
+	@Setup(Level.Invocation)
+	public void createDataset() throws IOException {
+		dataset = backend.create();
+	}
+
+	@TearDown(Level.Invocation)
+	public void disposeDataset() throws IOException {
+		backend.dispose(dataset);
+	}
+
+	@Benchmark
+	public Dataset rdfIntoDataset() {
+		Write.rdfIntoDataset(input, dataset);
+		return dataset;
+	}
+}
@@ -0,0 +1,59 @@
+package com.yevster.spdxtra.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.yevster.spdxtra.model.write.License;
+import com.yevster.spdxtra.model.write.LicenseExpressionParser;
+
+/**
+ * Measures {@link LicenseExpressionParser} throughput over a small set of
+ * recurring expressions: "cacheHit" with the default cache, "cacheMiss" with
+ * caching disabled, so every call parses.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LicenseExpressionBenchmark {
+	private static final String[] EXPRESSIONS = { "MIT", "Apache-2.0", "(MIT OR Apache-2.0) AND BSD-3-Clause",
+			"GPL-2.0 OR LGPL-2.1 OR MPL-2.0", "BSD-2-Clause AND (EPL-1.0 OR GPL-2.0) AND ISC", "NOASSERTION",
+			"Apache-2.0 AND MIT", "MIT AND Apache-2.0" };
+
+	private LicenseExpressionParser cached;
+	private LicenseExpressionParser uncached;
+	private int next = 0;
+
+	@Setup
+	public void setup() {
+		cached = LicenseExpressionParser.create();
+		uncached = LicenseExpressionParser.create().cacheSize(0);
+	}
+
+	private String nextExpression() {
+		next = (next + 1) % EXPRESSIONS.length;
+		return EXPRESSIONS[next];
+	}
+
+	@Benchmark
+	public License cacheHit() {
+		return cached.parse(nextExpression());
+	}
+
+	@Benchmark
+	public License cacheMiss() {
+		return uncached.parse(nextExpression());
+	}
+}
@@ -0,0 +1,63 @@
+package com.yevster.spdxtra.benchmark;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.yevster.spdxtra.Constants;
+import com.yevster.spdxtra.LicenseList;
+
+/**
+ * Measures the cold initialization of {@link LicenseList#INSTANCE}, which is
+ * what every short-lived process pays on its first license lookup. The
+ * enumeration can only be initialized once per JVM, so each measurement is
+ * the single shot in a fresh fork.
+ *
+ * The source parameter compares the bundled license index ("index") with
+ * parsing the RDF-Thrift license list ("rdf"), which is what a custom license
+ * list location still does.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 0)
+@Measurement(iterations = 1)
+@Fork(20)
+public class LicenseListBenchmark {
+
+	@Param({ "index", "rdf" })
+	public String source;
+
+	@Setup(Level.Trial)
+	public void setup() throws IOException {
+		if ("rdf".equals(source)) {
+			Path licenseList = Files.createTempFile("licenseList", ".bin");
+			licenseList.toFile().deleteOnExit();
+			try (InputStream is = getClass().getClassLoader().getResourceAsStream("licenseList.bin")) {
+				Files.copy(is, licenseList, StandardCopyOption.REPLACE_EXISTING);
+			}
+			System.setProperty(Constants.LICENSE_LIST_LOCATION_PROPERTY, licenseList.toString());
+		}
+	}
+
+	@Benchmark
+	public Object coldLookup() {
+		return LicenseList.INSTANCE.getListedLicenseById("Apache-2.0");
+	}
+}
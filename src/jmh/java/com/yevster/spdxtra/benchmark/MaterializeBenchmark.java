@@ -0,0 +1,86 @@
+package com.yevster.spdxtra.benchmark;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.jena.query.Dataset;
+import org.apache.jena.query.ReadWrite;
+import org.apache.jena.rdf.model.Model;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.yevster.spdxtra.DatasetAutoAbortTransaction;
+import com.yevster.spdxtra.Write;
+import com.yevster.spdxtra.model.SpdxFile;
+
+/**
+ * Measures reading every field of a sample of files, as a report would: through
+ * the live getters, or through a snapshot from
+ * {@link SpdxFile#materialize()} (including the cost of materializing it).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class MaterializeBenchmark {
+	private static final int FILE_COUNT = 10000;
+	private static final int SAMPLE = 1000;
+
+	@Param({ "MEMORY", "TDB" })
+	public Backend backend;
+
+	@Param({ "live", "materialized" })
+	public String mode;
+
+	private Dataset dataset;
+	private String[] sample;
+
+	@Setup(Level.Trial)
+	public void load() throws IOException {
+		dataset = backend.create();
+		Write.rdfIntoDataset(SyntheticDocuments.rdfXml(FILE_COUNT), dataset);
+		sample = new String[SAMPLE];
+		for (int i = 0; i < SAMPLE; ++i) {
+			sample[i] = SyntheticDocuments.fileUri(i * (FILE_COUNT / SAMPLE));
+		}
+	}
+
+	@TearDown(Level.Trial)
+	public void dispose() throws IOException {
+		backend.dispose(dataset);
+	}
+
+	@Benchmark
+	public void readAllFields(Blackhole blackhole) {
+		boolean materialize = "materialized".equals(mode);
+		try (DatasetAutoAbortTransaction transaction = DatasetAutoAbortTransaction.begin(dataset, ReadWrite.READ)) {
+			Model model = dataset.getDefaultModel();
+			for (String uri : sample) {
+				SpdxFile file = new SpdxFile(model.getResource(uri));
+				if (materialize)
+					file = file.materialize();
+				blackhole.consume(file.getFileName());
+				blackhole.consume(file.getFileTypes());
+				blackhole.consume(file.getChecksums());
+				blackhole.consume(file.getContributors());
+				blackhole.consume(file.getComment());
+				blackhole.consume(file.getCopyrightText());
+				blackhole.consume(file.getNoticeText());
+			}
+		}
+	}
+}
@@ -0,0 +1,82 @@
+package com.yevster.spdxtra.benchmark;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.apache.jena.query.Dataset;
+import org.apache.jena.query.ReadWrite;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.yevster.spdxtra.DatasetAutoAbortTransaction;
+import com.yevster.spdxtra.Projection;
+import com.yevster.spdxtra.Projection.FileField;
+import com.yevster.spdxtra.Read;
+import com.yevster.spdxtra.Write;
+import com.yevster.spdxtra.model.SpdxFile;
+import com.yevster.spdxtra.model.SpdxPackage;
+
+/**
+ * Measures a file inventory of every package (file name, SHA1 and file types):
+ * through the model objects, one file at a time, or with
+ * {@link Projection#files(Dataset, FileField...)}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class ProjectionBenchmark {
+	@Param({ "10000", "100000" })
+	public int fileCount;
+
+	@Param({ "MEMORY", "TDB" })
+	public Backend backend;
+
+	private Dataset dataset;
+
+	@Setup(Level.Trial)
+	public void load() throws IOException {
+		dataset = backend.create();
+		Write.rdfIntoDataset(SyntheticDocuments.rdfXml(fileCount), dataset);
+	}
+
+	@TearDown(Level.Trial)
+	public void dispose() throws IOException {
+		backend.dispose(dataset);
+	}
+
+	@Benchmark
+	public void modelObjects(Blackhole blackhole) {
+		try (DatasetAutoAbortTransaction transaction = DatasetAutoAbortTransaction.begin(dataset, ReadWrite.READ);
+				Stream<SpdxPackage> packages = Read.streamAllPackages(dataset)) {
+			packages.forEach(pkg -> pkg.getFiles().forEach((SpdxFile file) -> {
+				blackhole.consume(file.getFileName());
+				blackhole.consume(file.getChecksums());
+				blackhole.consume(file.getFileTypes());
+			}));
+		}
+	}
+
+	@Benchmark
+	public void projection(Blackhole blackhole) {
+		try (Stream<Projection.Row> rows = Projection.files(dataset, FileField.PACKAGE, FileField.NAME, FileField.SHA1,
+				FileField.FILE_TYPES)) {
+			rows.forEach(blackhole::consume);
+		}
+	}
+}
@@ -0,0 +1,107 @@
+package com.yevster.spdxtra.benchmark;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.io.output.CountingOutputStream;
+import org.apache.commons.io.output.NullOutputStream;
+import org.apache.jena.query.Dataset;
+import org.apache.jena.query.ReadWrite;
+import org.apache.jena.rdf.model.Model;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.yevster.spdxtra.DatasetAutoAbortTransaction;
+import com.yevster.spdxtra.Read;
+import com.yevster.spdxtra.Write;
+import com.yevster.spdxtra.model.SpdxFile;
+
+/**
+ * Measures the read-side operations of {@link Read} against a loaded synthetic
+ * document.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class ReadBenchmark {
+	/**
+	 * Number of elements whose relationships are read per invocation of
+	 * {@link #getRelationships(Blackhole)}.
+	 */
+	private static final int RELATIONSHIP_SAMPLE = 1000;
+
+	@Param({ "1000", "10000", "100000", "1000000" })
+	public int fileCount;
+
+	@Param({ "MEMORY", "TDB" })
+	public Backend backend;
+
+	private Dataset dataset;
+
+	private SpdxFile[] sample;
+
+	@Setup(Level.Trial)
+	public void load() throws IOException {
+		dataset = backend.create();
+		Write.rdfIntoDataset(SyntheticDocuments.rdfXml(fileCount), dataset);
+		sample = new SpdxFile[Math.min(RELATIONSHIP_SAMPLE, fileCount)];
+		try (DatasetAutoAbortTransaction transaction = DatasetAutoAbortTransaction.begin(dataset, ReadWrite.READ)) {
+			Model model = dataset.getDefaultModel();
+			for (int i = 0; i < sample.length; ++i) {
+				// Spread the sample evenly across the document
+				int fileIndex = (int) ((long) i * fileCount / sample.length);
+				sample[i] = new SpdxFile(model.getResource(SyntheticDocuments.fileUri(fileIndex)));
+			}
+		}
+	}
+
+	@TearDown(Level.Trial)
+	public void dispose() throws IOException {
+		backend.dispose(dataset);
+	}
+
+	@Benchmark
+	public long getAllPackages() {
+		return Read.getAllPackages(dataset).count();
+	}
+
+	@Benchmark
+	public void getRelationships(Blackhole blackhole) {
+		for (SpdxFile file : sample) {
+			Read.getRelationships(dataset, file).forEach(blackhole::consume);
+		}
+	}
+
+	@Benchmark
+	@BenchmarkMode(Mode.SingleShotTime)
+	@Warmup(iterations = 1)
+	@Measurement(iterations = 3)
+	public String outputJsonLd() {
+		return Read.outputJsonLd(dataset);
+	}
+
+	@Benchmark
+	@BenchmarkMode(Mode.SingleShotTime)
+	@Warmup(iterations = 1)
+	@Measurement(iterations = 3)
+	public long streamJsonLd() throws IOException {
+		CountingOutputStream out = new CountingOutputStream(NullOutputStream.NULL_OUTPUT_STREAM);
+		Read.outputJsonLd(dataset, out);
+		return out.getByteCount();
+	}
+}
@@ -0,0 +1,120 @@
+package com.yevster.spdxtra.benchmark;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.jena.query.Dataset;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.yevster.spdxtra.Read;
+import com.yevster.spdxtra.RelationshipGraph;
+import com.yevster.spdxtra.RelationshipIndex;
+import com.yevster.spdxtra.SpdxElementFactory;
+import com.yevster.spdxtra.Write;
+import com.yevster.spdxtra.model.Relationship;
+import com.yevster.spdxtra.model.SpdxElement;
+
+/**
+ * Measures transitive queries over the CONTAINS and DYNAMIC_LINK
+ * relationships of a synthetic document with {@link #relationshipCount}
+ * relationships added between its files, from which every file reaches every
+ * other: the closure of a file, by calling {@link Read#getRelationships}
+ * for each element reached, or with a {@link RelationshipGraph}; and, with
+ * the graph, a depth-first traversal and the search for cycles. Also
+ * measures creating the graph from a {@link RelationshipIndex}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class RelationshipGraphBenchmark {
+	private static final Relationship.Type[] TYPES = { Relationship.Type.CONTAINS, Relationship.Type.DYNAMIC_LINK };
+
+	@Param({ "20000" })
+	public int fileCount;
+
+	@Param({ "1000000" })
+	public int relationshipCount;
+
+	@Param({ "MEMORY" })
+	public Backend backend;
+
+	private Dataset dataset;
+	private RelationshipIndex index;
+	private RelationshipGraph graph;
+	private int next;
+
+	@Setup(Level.Trial)
+	public void load() throws IOException {
+		dataset = backend.create();
+		Write.rdfIntoDataset(SyntheticDocuments.rdfXml(fileCount), dataset);
+		SyntheticDocuments.addRelationships(dataset, fileCount, relationshipCount);
+		index = RelationshipIndex.of(dataset);
+		graph = RelationshipGraph.of(index, TYPES);
+	}
+
+	@TearDown(Level.Trial)
+	public void dispose() throws IOException {
+		backend.dispose(dataset);
+	}
+
+	private String nextFile() {
+		next = (next + 7919) % fileCount;
+		return SyntheticDocuments.fileUri(next);
+	}
+
+	@Benchmark
+	public Set<String> recursiveReads() {
+		Set<String> result = new HashSet<>();
+		Deque<SpdxElement> pending = new ArrayDeque<>();
+		pending.add(SpdxElementFactory
+				.relationshipTargetFromResource(Read.lookupResourceByUri(dataset, nextFile()).get()));
+		while (!pending.isEmpty()) {
+			SpdxElement element = pending.poll();
+			for (Relationship.Type type : TYPES) {
+				Read.getRelationships(dataset, element, type).map(Relationship::getRelatedElement)
+						.filter(related -> result.add(related.getUri())).forEach(pending::add);
+			}
+		}
+		return result;
+	}
+
+	@Benchmark
+	public List<String> closure() {
+		return graph.closure(nextFile());
+	}
+
+	@Benchmark
+	public List<String> depthFirst() {
+		return graph.depthFirst(nextFile());
+	}
+
+	@Benchmark
+	public List<List<String>> cycles() {
+		return graph.getCycles();
+	}
+
+	@Benchmark
+	public int createGraph() {
+		return RelationshipGraph.of(index, TYPES).getEdgeCount();
+	}
+}
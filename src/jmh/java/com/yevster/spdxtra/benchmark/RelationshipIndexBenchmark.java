@@ -0,0 +1,145 @@
+package com.yevster.spdxtra.benchmark;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.jena.graph.Graph;
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.NodeFactory;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.query.Dataset;
+import org.apache.jena.util.iterator.ExtendedIterator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.yevster.spdxtra.ReadSession;
+import com.yevster.spdxtra.RelationshipIndex;
+import com.yevster.spdxtra.SpdxProperties;
+import com.yevster.spdxtra.Write;
+import com.yevster.spdxtra.model.Relationship;
+
+/**
+ * Measures finding the sources of the DYNAMIC_LINK relationships to a file,
+ * in a synthetic document with {@link #relationshipCount} relationships
+ * added between its files: with {@link RelationshipIndex}, by scanning every
+ * relationship (as walking the elements and their relationships does), or by
+ * following the relationship triples backwards from the file. Also measures
+ * building the index.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class RelationshipIndexBenchmark {
+	private static final Node RELATIONSHIP = SpdxProperties.SPDX_RELATIONSHIP.asNode();
+	private static final Node TYPE_PROPERTY = Relationship.relationshipTypeProperty.asNode();
+	private static final Node RELATED_ELEMENT = Relationship.relatedElementProperty.asNode();
+	private static final Node DYNAMIC_LINK = NodeFactory.createURI(Relationship.Type.DYNAMIC_LINK.getUri());
+
+	@Param({ "20000" })
+	public int fileCount;
+
+	@Param({ "1000000" })
+	public int relationshipCount;
+
+	@Param({ "MEMORY", "TDB" })
+	public Backend backend;
+
+	private Dataset dataset;
+	private RelationshipIndex index;
+	private int next;
+
+	@Setup(Level.Trial)
+	public void load() throws IOException {
+		dataset = backend.create();
+		Write.rdfIntoDataset(SyntheticDocuments.rdfXml(fileCount), dataset);
+		SyntheticDocuments.addRelationships(dataset, fileCount, relationshipCount);
+		index = RelationshipIndex.of(dataset);
+	}
+
+	@TearDown(Level.Trial)
+	public void dispose() throws IOException {
+		backend.dispose(dataset);
+	}
+
+	private String nextFile() {
+		next = (next + 7919) % fileCount;
+		return SyntheticDocuments.fileUri(next);
+	}
+
+	@Benchmark
+	@OutputTimeUnit(TimeUnit.MILLISECONDS)
+	public int buildIndex() {
+		return RelationshipIndex.of(dataset).size();
+	}
+
+	@Benchmark
+	public List<String> index() {
+		return index.getSources(nextFile(), Relationship.Type.DYNAMIC_LINK);
+	}
+
+	@Benchmark
+	@OutputTimeUnit(TimeUnit.MILLISECONDS)
+	public List<String> scan() {
+		Node target = NodeFactory.createURI(nextFile());
+		List<String> result = new ArrayList<>();
+		try (ReadSession session = ReadSession.open(dataset)) {
+			Graph graph = session.getModel().getGraph();
+			ExtendedIterator<Triple> relationships = graph.find(Node.ANY, RELATIONSHIP, Node.ANY);
+			try {
+				while (relationships.hasNext()) {
+					Triple relationship = relationships.next();
+					if (graph.contains(relationship.getObject(), RELATED_ELEMENT, target)
+							&& graph.contains(relationship.getObject(), TYPE_PROPERTY, DYNAMIC_LINK))
+						result.add(relationship.getSubject().getURI());
+				}
+			} finally {
+				relationships.close();
+			}
+		}
+		return result;
+	}
+
+	@Benchmark
+	public List<String> reverseLookup() {
+		Node target = NodeFactory.createURI(nextFile());
+		List<String> result = new ArrayList<>();
+		try (ReadSession session = ReadSession.open(dataset)) {
+			Graph graph = session.getModel().getGraph();
+			ExtendedIterator<Triple> incoming = graph.find(Node.ANY, RELATED_ELEMENT, target);
+			try {
+				while (incoming.hasNext()) {
+					Node relationship = incoming.next().getSubject();
+					if (!graph.contains(relationship, TYPE_PROPERTY, DYNAMIC_LINK))
+						continue;
+					ExtendedIterator<Triple> sources = graph.find(Node.ANY, RELATIONSHIP, relationship);
+					try {
+						while (sources.hasNext()) {
+							result.add(sources.next().getSubject().getURI());
+						}
+					} finally {
+						sources.close();
+					}
+				}
+			} finally {
+				incoming.close();
+			}
+		}
+		return result;
+	}
+}
@@ -0,0 +1,103 @@
+package com.yevster.spdxtra.benchmark;
+
+import java.io.IOException;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import org.apache.jena.query.Dataset;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.yevster.spdxtra.BatchingUpdateApplier;
+import com.yevster.spdxtra.BulkRelationshipWriter;
+import com.yevster.spdxtra.Write;
+import com.yevster.spdxtra.model.Relationship;
+
+/**
+ * Measures adding relationships between the files of a synthetic document,
+ * alternately CONTAINS and DYNAMIC_LINK, in the order an importer walking the
+ * relationship types would add them (so consecutive relationships have
+ * different sources): one {@link Write#addRelationship} update each, applied
+ * with {@link BatchingUpdateApplier}, or with a
+ * {@link BulkRelationshipWriter}, once or twice (the second time, every
+ * relationship is a duplicate).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class RelationshipWriterBenchmark {
+	@Param({ "20000" })
+	public int fileCount;
+
+	@Param({ "1000000" })
+	public int relationshipCount;
+
+	@Param({ "MEMORY", "TDB" })
+	public Backend backend;
+
+	private Dataset dataset;
+
+	@Setup(Level.Invocation)
+	public void load() throws IOException {
+		dataset = backend.create();
+		Write.rdfIntoDataset(SyntheticDocuments.rdfXml(fileCount), dataset);
+	}
+
+	@TearDown(Level.Invocation)
+	public void dispose() throws IOException {
+		backend.dispose(dataset);
+	}
+
+	private int source(int i) {
+		return i % fileCount;
+	}
+
+	private int target(int i) {
+		return (source(i) + 1 + i / fileCount) % fileCount;
+	}
+
+	private static Relationship.Type type(int i) {
+		return i % 2 == 0 ? Relationship.Type.CONTAINS : Relationship.Type.DYNAMIC_LINK;
+	}
+
+	@Benchmark
+	public BatchingUpdateApplier.Statistics addRelationship() {
+		return BatchingUpdateApplier.forDataset(dataset)
+				.apply(IntStream.range(0, relationshipCount)
+						.mapToObj(i -> Write.addRelationship(SyntheticDocuments.fileUri(source(i)),
+								SyntheticDocuments.fileUri(target(i)), Optional.empty(), type(i))));
+	}
+
+	private int writeAll() {
+		BulkRelationshipWriter writer = BulkRelationshipWriter.forDataset(dataset);
+		for (int i = 0; i < relationshipCount; ++i) {
+			writer.add(SyntheticDocuments.fileUri(source(i)), SyntheticDocuments.fileUri(target(i)), type(i));
+		}
+		return writer.write();
+	}
+
+	@Benchmark
+	public int bulkWriter() {
+		return writeAll();
+	}
+
+	@Benchmark
+	public int bulkWriterTwice() {
+		return writeAll() + writeAll();
+	}
+}
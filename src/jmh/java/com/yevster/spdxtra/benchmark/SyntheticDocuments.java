@@ -0,0 +1,196 @@
+package com.yevster.spdxtra.benchmark;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.jena.query.Dataset;
+import org.apache.jena.riot.Lang;
+import org.apache.jena.riot.RDFDataMgr;
+import org.apache.jena.riot.system.StreamRDFLib;
+
+import com.yevster.spdxtra.BulkRelationshipWriter;
+import com.yevster.spdxtra.NoneNoAssertionOrValue;
+import com.yevster.spdxtra.SpdxUris;
+import com.yevster.spdxtra.model.Checksum;
+import com.yevster.spdxtra.model.FileType;
+import com.yevster.spdxtra.model.Relationship;
+
+/**
+ * Generates synthetic SPDX documents in RDF/XML for the benchmarks. The output
+ * depends only on the number of files, so every run (and every fork) measures
+ * exactly the same document. Generated documents are cached in the directory
+ * named by the spdxtra.jmh.dataDirectory system property.
+ *
+ * Each document has one SPDX document element describing
+ * {@link #PACKAGE_COUNT} packages. The files are split evenly across the
+ * packages, and every file has a SHA1 checksum, a concluded license, a file
+ * type and one DYNAMIC_LINK relationship to another file.
+ *
+ * @author yevster
+ *
+ */
+public final class SyntheticDocuments {
+
+	public static final String BASE_URL = "http://spdxtra.example.org/synthetic";
+
+	public static final String DOCUMENT_URI = BASE_URL + "#SPDXRef-DOCUMENT";
+
+	public static final int PACKAGE_COUNT = 10;
+
+	private static final String[] LICENSES = { "Apache-2.0", "MIT", "GPL-2.0", "BSD-3-Clause", "LGPL-2.1" };
+
+	private SyntheticDocuments() {
+	}
+
+	public static String packageSpdxId(int packageIndex) {
+		return "SPDXRef-Package-" + packageIndex;
+	}
+
+	public static String fileSpdxId(int fileIndex) {
+		return "SPDXRef-File-" + fileIndex;
+	}
+
+	public static String fileUri(int fileIndex) {
+		return BASE_URL + "#" + fileSpdxId(fileIndex);
+	}
+
+	public static String packageUri(int packageIndex) {
+		return BASE_URL + "#" + packageSpdxId(packageIndex);
+	}
+
+	/**
+	 * Returns the path of the RDF/XML document with the provided number of
+	 * files, generating it if it's not already present.
+	 */
+	public static synchronized Path rdfXml(int fileCount) throws IOException {
+		Path directory = Paths.get(System.getProperty("spdxtra.jmh.dataDirectory",
+				Paths.get(System.getProperty("java.io.tmpdir"), "spdxtra-jmh").toString()));
+		Files.createDirectories(directory);
+		Path result = directory.resolve("synthetic-" + fileCount + ".rdf");
+		if (Files.notExists(result)) {
+			// Forks may race to generate the same document. Whoever finishes
+			// last wins, but the content is identical either way.
+			Path tmp = Files.createTempFile(directory, "synthetic-" + fileCount, ".tmp");
+			try (Writer writer = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8)) {
+				write(writer, fileCount);
+			}
+			Files.move(tmp, result, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		}
+		return result;
+	}
+
+	/**
+	 * Adds relationshipCount relationships between the files of the synthetic
+	 * document with the provided number of files, already loaded into the
+	 * dataset. Relationship i goes from file i % fileCount to the file
+	 * following it by 1 + i / fileCount, and is a CONTAINS if i is even and a
+	 * DYNAMIC_LINK if it's odd, so every file reaches every other through
+	 * either type.
+	 */
+	public static void addRelationships(Dataset dataset, int fileCount, int relationshipCount) {
+		BulkRelationshipWriter writer = BulkRelationshipWriter.forDataset(dataset);
+		for (int i = 0; i < relationshipCount; ++i) {
+			int source = i % fileCount;
+			writer.add(fileUri(source), fileUri((source + 1 + i / fileCount) % fileCount),
+					i % 2 == 0 ? Relationship.Type.CONTAINS : Relationship.Type.DYNAMIC_LINK);
+		}
+		writer.write();
+	}
+
+	/**
+	 * Returns the path of the synthetic document with the provided number of
+	 * files converted to N-Triples, converting it if it's not already present.
+	 */
+	public static synchronized Path nTriples(int fileCount) throws IOException {
+		Path rdfXml = rdfXml(fileCount);
+		Path result = rdfXml.resolveSibling("synthetic-" + fileCount + ".nt");
+		if (Files.notExists(result)) {
+			Path tmp = Files.createTempFile(rdfXml.getParent(), "synthetic-" + fileCount, ".tmp");
+			try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(tmp))) {
+				RDFDataMgr.parse(StreamRDFLib.writer(out), rdfXml.toString(), Lang.RDFXML);
+			}
+			Files.move(tmp, result, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		}
+		return result;
+	}
+
+	/**
+	 * Writes the synthetic document with the provided number of files.
+	 */
+	public static void write(Writer out, int fileCount) throws IOException {
+		BufferedWriter writer = out instanceof BufferedWriter ? (BufferedWriter) out : new BufferedWriter(out);
+		writer.write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+		writer.write("<rdf:RDF xmlns:rdf=\"" + SpdxUris.RDF_NAMESPACE + "\" xmlns:rdfs=\"" + SpdxUris.RDFS_NAMESPACE
+				+ "\" xmlns:spdx=\"" + SpdxUris.SPDX_TERMS + "\">\n");
+
+		writer.write("<spdx:SpdxDocument rdf:about=\"" + DOCUMENT_URI + "\">\n");
+		writer.write("  <spdx:name>Synthetic document with " + fileCount + " files</spdx:name>\n");
+		writer.write("  <spdx:specVersion>SPDX-2.1</spdx:specVersion>\n");
+		writer.write("  <spdx:dataLicense rdf:resource=\"" + SpdxUris.LISTED_LICENSE_NAMESPACE + "CC0-1.0\"/>\n");
+		writer.write("  <spdx:creationInfo><spdx:CreationInfo>\n");
+		writer.write("    <spdx:creator>Tool: spdxtra-jmh</spdx:creator>\n");
+		writer.write("    <spdx:created>2016-01-01T00:00:00Z</spdx:created>\n");
+		writer.write("  </spdx:CreationInfo></spdx:creationInfo>\n");
+		for (int p = 0; p < PACKAGE_COUNT; ++p) {
+			writeRelationship(writer, Relationship.Type.DESCRIBES, packageUri(p));
+		}
+		writer.write("</spdx:SpdxDocument>\n");
+
+		for (int p = 0; p < PACKAGE_COUNT; ++p) {
+			writer.write("<spdx:Package rdf:about=\"" + packageUri(p) + "\">\n");
+			writer.write("  <spdx:name>Package " + p + "</spdx:name>\n");
+			writer.write("  <spdx:downloadLocation>" + NoneNoAssertionOrValue.NO_ASSERTION.getLiteralOrUriValue()
+					+ "</spdx:downloadLocation>\n");
+			for (int f = firstFile(p, fileCount); f < firstFile(p + 1, fileCount); ++f) {
+				writer.write("  <spdx:hasFile rdf:resource=\"" + fileUri(f) + "\"/>\n");
+			}
+			writer.write("</spdx:Package>\n");
+		}
+
+		for (int f = 0; f < fileCount; ++f) {
+			String fileName = "./src/dir" + (f / 100) + "/File" + f + ".java";
+			writer.write("<spdx:File rdf:about=\"" + fileUri(f) + "\">\n");
+			writer.write("  <spdx:fileName>" + fileName + "</spdx:fileName>\n");
+			writer.write("  <spdx:fileType rdf:resource=\"" + FileType.SOURCE.getUri() + "\"/>\n");
+			writer.write("  <spdx:checksum><spdx:Checksum>\n");
+			writer.write("    <spdx:algorithm rdf:resource=\"" + Checksum.Algorithm.SHA1.getUri() + "\"/>\n");
+			writer.write("    <spdx:checksumValue>" + DigestUtils.sha1Hex(fileName) + "</spdx:checksumValue>\n");
+			writer.write("  </spdx:Checksum></spdx:checksum>\n");
+			writer.write("  <spdx:licenseConcluded rdf:resource=\"" + SpdxUris.LISTED_LICENSE_NAMESPACE
+					+ LICENSES[f % LICENSES.length] + "\"/>\n");
+			writer.write("  <spdx:copyrightText>" + NoneNoAssertionOrValue.NO_ASSERTION.getLiteralOrUriValue()
+					+ "</spdx:copyrightText>\n");
+			writeRelationship(writer, Relationship.Type.DYNAMIC_LINK, fileUri(linkTarget(f, fileCount)));
+			writer.write("</spdx:File>\n");
+		}
+		writer.write("</rdf:RDF>\n");
+		writer.flush();
+	}
+
+	/**
+	 * The index of the first file in the package with the provided index.
+	 */
+	public static int firstFile(int packageIndex, int fileCount) {
+		return (int) ((long) fileCount * packageIndex / PACKAGE_COUNT);
+	}
+
+	private static int linkTarget(int fileIndex, int fileCount) {
+		return (int) ((fileIndex * 7919L + 13) % fileCount);
+	}
+
+	private static void writeRelationship(Writer writer, Relationship.Type type, String targetUri) throws IOException {
+		writer.write("  <spdx:relationship><spdx:Relationship>\n");
+		writer.write("    <spdx:relationshipType rdf:resource=\"" + type.getUri() + "\"/>\n");
+		writer.write("    <spdx:relatedSpdxElement rdf:resource=\"" + targetUri + "\"/>\n");
+		writer.write("  </spdx:Relationship></spdx:relationship>\n");
+	}
+}
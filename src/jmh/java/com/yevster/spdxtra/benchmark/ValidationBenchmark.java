@@ -0,0 +1,85 @@
+package com.yevster.spdxtra.benchmark;
+
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+import org.apache.commons.lang3.StringUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.yevster.spdxtra.Validate;
+
+/**
+ * Measures {@link Validate} on valid inputs and on adversarial near misses: a
+ * run of letters that the former email pattern,
+ * <code>([_\.\-]?[a-zA-Z0-9]+)*</code>, matched in exponentially many ways
+ * before failing. "regex" is that pattern, kept here as the baseline; it is
+ * only run on short near misses, since each added character doubles its time.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ValidationBenchmark {
+	private static final Pattern FORMER_EMAIL_PATTERN = Pattern.compile(
+			"^[A-Za-z0-9](([_\\.\\-]?[a-zA-Z0-9]+)*)@([A-Za-z0-9]+)(([\\.\\-]?[a-zA-Z0-9]+)*)\\.([A-Za-z]{2,})$");
+
+	private static final String VALID_EMAIL = "first.last-name@mail.example-domain.org";
+	private static final String VALID_URI = "http://spdxtra.example.org/synthetic/document#SPDXRef-File-123456";
+
+	@Param({ "16", "20", "24" })
+	public int nearMissLength;
+
+	private String nearMiss;
+	private String longNearMiss;
+
+	@Setup
+	public void setup() {
+		nearMiss = StringUtils.repeat('a', nearMissLength) + "!";
+		longNearMiss = StringUtils.repeat('a', 1_000_000) + "!";
+	}
+
+	@Benchmark
+	public boolean regexValidEmail() {
+		return FORMER_EMAIL_PATTERN.matcher(VALID_EMAIL).matches();
+	}
+
+	@Benchmark
+	public boolean validEmail() {
+		return Validate.isEmail(VALID_EMAIL);
+	}
+
+	@Benchmark
+	public boolean regexNearMiss() {
+		return FORMER_EMAIL_PATTERN.matcher(nearMiss).matches();
+	}
+
+	@Benchmark
+	public boolean nearMiss() {
+		return Validate.isEmail(nearMiss);
+	}
+
+	/**
+	 * A near miss of a million characters, which the regex would not finish.
+	 */
+	@Benchmark
+	public boolean longNearMiss() {
+		return Validate.isEmail(longNearMiss);
+	}
+
+	@Benchmark
+	public boolean validElementUri() {
+		return Validate.isSpdxElementUri(VALID_URI);
+	}
+}
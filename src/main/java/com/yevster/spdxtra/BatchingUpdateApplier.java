@@ -0,0 +1,289 @@
+package com.yevster.spdxtra;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import org.apache.jena.query.Dataset;
+import org.apache.jena.query.ReadWrite;
+import org.apache.jena.rdf.model.Model;
+
+import com.yevster.spdxtra.Write.ModelUpdate;
+
+/**
+ * Applies a stream of updates to a dataset in a series of write transactions,
+ * committing every {@link #batchSize(int) batchSize} updates or every
+ * {@link #maxBatchMillis(long) maxBatchMillis} milliseconds, whichever comes
+ * first. This keeps the transaction journal bounded no matter how many updates
+ * there are, unlike
+ * {@link Write#applyUpdatesInOneTransaction(Dataset, Iterable)}.
+ *
+ * The stream is consumed on a separate thread, so producing the updates (e.g.
+ * scanning and hashing files) overlaps with applying and committing them.
+ * Updates are applied in encounter order.
+ *
+ * If an update, the stream or a commit fails, the batch in progress is aborted
+ * and no further updates are applied. All previously committed batches stay
+ * committed. The failure is reported as a {@link BatchFailedException}, which
+ * says how many updates were committed, so that the caller can resume after
+ * them. Errors, such as {@link OutOfMemoryError}, are rethrown as they are.
+ *
+ * No transaction is open while the applier waits for the first update of a
+ * batch, so a slow producer doesn't hold up other writers.
+ *
+ * Not thread-safe: configure the applier, then call {@link #apply(Stream)}.
+ *
+ * @author yevster
+ *
+ */
+public final class BatchingUpdateApplier {
+	public static final int DEFAULT_BATCH_SIZE = 10_000;
+	public static final long DEFAULT_MAX_BATCH_MILLIS = 5_000;
+
+	private final Dataset dataset;
+	private int batchSize = DEFAULT_BATCH_SIZE;
+	private long maxBatchMillis = DEFAULT_MAX_BATCH_MILLIS;
+	private Consumer<Statistics> onCommit = statistics -> {
+	};
+
+	private BatchingUpdateApplier(Dataset dataset) {
+		this.dataset = dataset;
+	}
+
+	public static BatchingUpdateApplier forDataset(Dataset dataset) {
+		Validate.notNull(dataset);
+		return new BatchingUpdateApplier(dataset);
+	}
+
+	/**
+	 * The most updates to apply in one transaction.
+	 */
+	public BatchingUpdateApplier batchSize(int batchSize) {
+		Validate.validate(batchSize > 0, "Batch size must be positive");
+		this.batchSize = batchSize;
+		return this;
+	}
+
+	/**
+	 * The longest a transaction may stay open. Checked between updates, so a
+	 * single slow update may exceed it.
+	 */
+	public BatchingUpdateApplier maxBatchMillis(long maxBatchMillis) {
+		Validate.validate(maxBatchMillis > 0, "Maximum batch duration must be positive");
+		this.maxBatchMillis = maxBatchMillis;
+		return this;
+	}
+
+	/**
+	 * Called on the applying thread after every successful commit.
+	 */
+	public BatchingUpdateApplier onCommit(Consumer<Statistics> onCommit) {
+		Validate.notNull(onCommit);
+		this.onCommit = onCommit;
+		return this;
+	}
+
+	/**
+	 * Applies all the updates in the stream and closes the stream.
+	 *
+	 * @return The totals after the last commit.
+	 * @throws BatchFailedException
+	 *             if an update, the stream or a commit fails, or if the
+	 *             calling thread is interrupted while awaiting updates, in
+	 *             which case its interrupt status is kept.
+	 */
+	public Statistics apply(Stream<? extends ModelUpdate> updates) {
+		Validate.notNull(updates);
+		final BlockingQueue<Object> queue = new ArrayBlockingQueue<>(Math.min(batchSize, 65_536) * 2);
+		final AtomicReference<Throwable> producerFailure = new AtomicReference<>();
+		final AtomicBoolean stopped = new AtomicBoolean(false);
+
+		Thread producer = new Thread(() -> {
+			try (Stream<? extends ModelUpdate> s = updates) {
+				s.forEachOrdered(update -> {
+					if (stopped.get())
+						throw new CancellationSignal();
+					put(queue, update);
+				});
+			} catch (CancellationSignal e) {
+				return;
+			} catch (Throwable t) {
+				producerFailure.set(t);
+			}
+			try {
+				put(queue, END);
+			} catch (CancellationSignal e) {
+				// The applier is no longer listening.
+			}
+		}, "spdxtra-update-producer");
+		producer.setDaemon(true);
+		producer.start();
+
+		final long start = System.nanoTime();
+		long committedUpdates = 0;
+		int committedBatches = 0;
+		try {
+			boolean done = false;
+			while (!done) {
+				int batchUpdates = 0;
+				try {
+					// The first update of a batch is awaited before the transaction
+					// begins, so that a slow producer doesn't hold up other writers.
+					Object next = queue.take();
+					if (next == END) {
+						if (producerFailure.get() != null)
+							throw producerFailure.get();
+						break;
+					}
+					try (DatasetAutoAbortTransaction transaction = DatasetAutoAbortTransaction.begin(dataset,
+							ReadWrite.WRITE)) {
+						final Model model = dataset.getDefaultModel();
+						final long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(maxBatchMillis);
+						while (true) {
+							((ModelUpdate) next).apply(model);
+							if (++batchUpdates == batchSize)
+								break;
+							long remaining = deadline - System.nanoTime();
+							next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : null;
+							if (next == null)
+								break; // Out of time
+							if (next == END) {
+								if (producerFailure.get() != null)
+									throw producerFailure.get();
+								done = true;
+								break;
+							}
+						}
+						transaction.commit();
+					}
+				} catch (Error e) {
+					throw e;
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					throw new BatchFailedException(new Statistics(committedUpdates, committedBatches, start), batchUpdates,
+							e);
+				} catch (Throwable t) {
+					throw new BatchFailedException(new Statistics(committedUpdates, committedBatches, start), batchUpdates,
+							t);
+				}
+				committedUpdates += batchUpdates;
+				++committedBatches;
+				onCommit.accept(new Statistics(committedUpdates, committedBatches, start));
+			}
+		} finally {
+			stopped.set(true);
+			queue.clear();
+			producer.interrupt();
+		}
+		return new Statistics(committedUpdates, committedBatches, start);
+	}
+
+	/**
+	 * Marks the end of the stream in the queue. The producer always puts it
+	 * last, even if the stream fails.
+	 */
+	private static final Object END = new Object();
+
+	private static void put(BlockingQueue<Object> queue, Object o) {
+		try {
+			queue.put(o);
+		} catch (InterruptedException e) {
+			throw new CancellationSignal();
+		}
+	}
+
+	/**
+	 * Stops the producer once the applier has given up.
+	 */
+	private static final class CancellationSignal extends RuntimeException {
+		private static final long serialVersionUID = 1L;
+
+		CancellationSignal() {
+			super(null, null, false, false);
+		}
+	}
+
+	/**
+	 * Totals of the committed updates and their throughput.
+	 */
+	public static final class Statistics {
+		private final long updates;
+		private final int batches;
+		private final long elapsedNanos;
+
+		private Statistics(long updates, int batches, long startNanos) {
+			this.updates = updates;
+			this.batches = batches;
+			this.elapsedNanos = System.nanoTime() - startNanos;
+		}
+
+		/**
+		 * The number of updates committed.
+		 */
+		public long getUpdates() {
+			return updates;
+		}
+
+		/**
+		 * The number of transactions committed.
+		 */
+		public int getBatches() {
+			return batches;
+		}
+
+		public long getElapsedMillis() {
+			return TimeUnit.NANOSECONDS.toMillis(elapsedNanos);
+		}
+
+		public double getUpdatesPerSecond() {
+			return elapsedNanos > 0 ? updates * 1e9 / elapsedNanos : 0;
+		}
+
+		@Override
+		public String toString() {
+			return String.format("%d updates in %d batches, %d ms (%.1f updates/s)", updates, batches,
+					getElapsedMillis(), getUpdatesPerSecond());
+		}
+	}
+
+	/**
+	 * Thrown when a batch fails. Everything in
+	 * {@link #getCommitted() getCommitted()} was committed before the
+	 * failure; the failed batch was aborted, and none of the later updates
+	 * were applied.
+	 */
+	public static final class BatchFailedException extends RuntimeException {
+		private static final long serialVersionUID = 1L;
+
+		private final transient Statistics committed;
+		private final int abortedUpdates;
+
+		private BatchFailedException(Statistics committed, int abortedUpdates, Throwable cause) {
+			super("Batch " + (committed.getBatches() + 1) + " failed after " + committed.getUpdates()
+					+ " committed updates; " + abortedUpdates + " updates in the batch were aborted", cause);
+			this.committed = committed;
+			this.abortedUpdates = abortedUpdates;
+		}
+
+		/**
+		 * The updates and batches committed before the failure. The first
+		 * getCommitted().getUpdates() updates of the stream are in the
+		 * dataset.
+		 */
+		public Statistics getCommitted() {
+			return committed;
+		}
+
+		/**
+		 * How many updates of the failed batch were applied, and then rolled
+		 * back, before the failure.
+		 */
+		public int getAbortedUpdates() {
+			return abortedUpdates;
+		}
+	}
+}
@@ -0,0 +1,56 @@
+package com.yevster.spdxtra;
+
+import org.apache.jena.graph.Graph;
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.NodeFactory;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.graph.impl.GraphBase;
+import org.apache.jena.shared.PrefixMapping;
+import org.apache.jena.util.iterator.ExtendedIterator;
+
+/**
+ * A read-only view of a graph in which references to texts in a
+ * {@link BlobStore} are replaced by the texts, as plain string literals, so
+ * that a writer given the view serializes the texts rather than the
+ * references. A text is read when its triple is.
+ *
+ * Patterns are matched against the underlying graph, so a pattern whose object
+ * is a text kept in the store doesn't match it. The writers only look up
+ * literals by subject.
+ *
+ * @author yevster
+ *
+ */
+final class BlobResolvingGraph extends GraphBase {
+	private final Graph graph;
+	// Null if there is no store, so that references fail
+	private final BlobStore blobs;
+
+	BlobResolvingGraph(Graph graph, BlobStore blobs) {
+		this.graph = graph;
+		this.blobs = blobs;
+	}
+
+	@Override
+	protected ExtendedIterator<Triple> graphBaseFind(Triple triplePattern) {
+		return graph.find(triplePattern).mapWith(this::resolve);
+	}
+
+	private Triple resolve(Triple triple) {
+		Node object = triple.getObject();
+		if (!object.isLiteral() || !BlobStore.BLOB_DATATYPE_URI.equals(object.getLiteralDatatypeURI()))
+			return triple;
+		return Triple.create(triple.getSubject(), triple.getPredicate(),
+				NodeFactory.createLiteral(BlobStore.text(object, blobs)));
+	}
+
+	@Override
+	protected PrefixMapping createPrefixMapping() {
+		return graph.getPrefixMapping();
+	}
+
+	@Override
+	protected int graphBaseSize() {
+		return graph.size();
+	}
+}
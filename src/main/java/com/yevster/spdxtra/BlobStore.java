@@ -0,0 +1,396 @@
+package com.yevster.spdxtra;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.commons.codec.binary.Hex;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.jena.datatypes.BaseDatatype;
+import org.apache.jena.datatypes.RDFDatatype;
+import org.apache.jena.graph.Node;
+import org.apache.jena.rdf.model.Literal;
+import org.apache.jena.rdf.model.Model;
+
+/**
+ * An append-only file of large texts, such as extracted license texts,
+ * notice texts and copyright texts, stored once per distinct content and
+ * addressed by their SHA-256. The graph only holds a short reference literal
+ * (the SHA-256, typed {@link #BLOB_DATATYPE_URI}), and the text is read,
+ * through a memory mapping, only when it is asked for.
+ *
+ * Texts shorter than the threshold (4KB by default) are cheaper to keep in
+ * the graph, and are written there as usual.
+ *
+ * Writes and reads take the store explicitly, e.g.
+ * {@link Write.File#noticeText(String, String, BlobStore)} and
+ * {@link com.yevster.spdxtra.model.SpdxFile#getNoticeText(BlobStore)}, as do
+ * the exports, e.g.
+ * {@link Read#outputRdfXml(org.apache.jena.query.Dataset, Path, BlobStore)},
+ * which write the texts in full. The accessors and exports that don't take a store
+ * throw IllegalStateException on a reference, rather than returning or
+ * writing the SHA-256 in place of the text.
+ *
+ * Each record is appended with its SHA-256 and length; a record left
+ * incomplete by a crash is truncated away when the store is opened again, and
+ * a record is checked against its SHA-256 whenever it is read. The file is
+ * locked while the store is open, so only one store, in one process, appends
+ * to it. {@link #literal(Model, String)} forces new records to disk before it
+ * returns a reference to them, so a reference is never committed to the graph
+ * ahead of its text. Thread-safe.
+ *
+ * @author yevster
+ *
+ */
+public final class BlobStore implements AutoCloseable {
+	public static final String BLOB_DATATYPE_URI = "http://github.com/yevster/spdxtra#sha256Blob";
+	private static final RDFDatatype BLOB_DATATYPE = new BaseDatatype(BLOB_DATATYPE_URI);
+
+	private static final int FILE_MAGIC = 0x5350424C; // "SPBL"
+	private static final int FORMAT_VERSION = 1;
+	private static final int FILE_HEADER_SIZE = 8;
+	private static final int HASH_SIZE = 32;
+	// SHA-256, then the length of the text
+	private static final int RECORD_HEADER_SIZE = HASH_SIZE + 4;
+	private static final long WINDOW = 64 * 1024 * 1024;
+	public static final int DEFAULT_THRESHOLD = 4096;
+
+	private final Path file;
+	private final FileChannel channel;
+	private final int threshold;
+	// SHA-256 hex -> position of the record
+	private final Map<String, Long> index = new ConcurrentHashMap<>();
+	private final Map<Long, MappedByteBuffer> windows = new ConcurrentHashMap<>();
+	private volatile long size;
+	// Whether records have been written since the file was last forced
+	private boolean unflushed;
+
+	private BlobStore(Path file, FileChannel channel, int threshold) {
+		this.file = file;
+		this.channel = channel;
+		this.threshold = threshold;
+	}
+
+	/**
+	 * Opens the store in the file, creating it if it doesn't exist, with the
+	 * default threshold.
+	 */
+	public static BlobStore open(Path file) {
+		return open(file, DEFAULT_THRESHOLD);
+	}
+
+	/**
+	 * Opens the store in the file, creating it if it doesn't exist.
+	 *
+	 * @param threshold
+	 *            Texts shorter than this many UTF-8 bytes are kept in the
+	 *            graph.
+	 * @throws IllegalStateException
+	 *             if the store is already open, in this process or another.
+	 */
+	public static BlobStore open(Path file, int threshold) {
+		Validate.notNull(file);
+		Validate.validate(threshold >= 0, "Threshold must not be negative");
+		FileChannel channel = null;
+		try {
+			channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+					StandardOpenOption.WRITE);
+			if (!tryLock(channel)) {
+				channel.close();
+				throw new IllegalStateException("Blob store " + file + " is already open");
+			}
+			BlobStore result = new BlobStore(file, channel, threshold);
+			result.load();
+			return result;
+		} catch (IOException e) {
+			try {
+				if (channel != null)
+					channel.close();
+			} catch (IOException suppressed) {
+				e.addSuppressed(suppressed);
+			}
+			throw new UncheckedIOException("Unable to open blob store " + file, e);
+		}
+	}
+
+	/**
+	 * Locks the whole file, for as long as the channel is open. Fails if
+	 * another process, or another channel in this one, holds the lock.
+	 */
+	private static boolean tryLock(FileChannel channel) throws IOException {
+		try {
+			return channel.tryLock() != null;
+		} catch (OverlappingFileLockException e) {
+			return false;
+		}
+	}
+
+	/**
+	 * Indexes the records in the file, and truncates any incomplete record at
+	 * its end.
+	 */
+	private void load() throws IOException {
+		long fileSize = channel.size();
+		if (fileSize == 0) {
+			ByteBuffer header = ByteBuffer.allocate(FILE_HEADER_SIZE).putInt(FILE_MAGIC).putInt(FORMAT_VERSION);
+			header.flip();
+			writeFully(header, 0);
+			size = FILE_HEADER_SIZE;
+			return;
+		}
+		ByteBuffer header = ByteBuffer.allocate(Math.max(FILE_HEADER_SIZE, RECORD_HEADER_SIZE));
+		header.limit(FILE_HEADER_SIZE);
+		if (readFully(header, 0) < FILE_HEADER_SIZE || header.getInt(0) != FILE_MAGIC)
+			throw new IOException("Not a blob store");
+		if (header.getInt(4) != FORMAT_VERSION)
+			throw new IOException("Unsupported blob store version " + header.getInt(4));
+
+		long position = FILE_HEADER_SIZE;
+		byte[] hash = new byte[HASH_SIZE];
+		while (position + RECORD_HEADER_SIZE <= fileSize) {
+			header.clear();
+			header.limit(RECORD_HEADER_SIZE);
+			readFully(header, position);
+			header.flip();
+			header.get(hash);
+			int length = header.getInt();
+			if (length < 0 || position + RECORD_HEADER_SIZE + length > fileSize)
+				break;
+			index.putIfAbsent(Hex.encodeHexString(hash), position);
+			position += RECORD_HEADER_SIZE + length;
+		}
+		if (position < fileSize) {
+			Read.logger.warn("Truncating incomplete record at the end of blob store " + file);
+			channel.truncate(position);
+		}
+		size = position;
+	}
+
+	/**
+	 * Returns a literal for the text: a reference to it in this store if it
+	 * is at least as long as the threshold, or the text itself otherwise. The
+	 * text is forced to disk before the reference is returned.
+	 */
+	public Literal literal(Model model, String text) {
+		Validate.notNull(text);
+		if (text.length() * 3 < threshold) {
+			// Too short even if every character takes 3 bytes
+			return model.createLiteral(text);
+		}
+		byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+		if (bytes.length < threshold)
+			return model.createLiteral(text);
+		String key = put(bytes);
+		flush();
+		return model.createTypedLiteral(key, BLOB_DATATYPE);
+	}
+
+	/**
+	 * Stores the text, unless it is already stored, and returns its SHA-256.
+	 * The text is not forced to disk; call {@link #flush()} before committing
+	 * anything that refers to it.
+	 */
+	public String put(String text) {
+		Validate.notNull(text);
+		return put(text.getBytes(StandardCharsets.UTF_8));
+	}
+
+	private String put(byte[] bytes) {
+		byte[] hash = DigestUtils.sha256(bytes);
+		String key = Hex.encodeHexString(hash);
+		if (index.containsKey(key))
+			return key;
+		synchronized (this) {
+			if (index.containsKey(key))
+				return key;
+			long position = size;
+			ByteBuffer record = ByteBuffer.allocate(RECORD_HEADER_SIZE + bytes.length);
+			record.put(hash).putInt(bytes.length).put(bytes);
+			record.flip();
+			try {
+				writeFully(record, position);
+			} catch (IOException e) {
+				throw new UncheckedIOException("Unable to write to blob store " + file, e);
+			}
+			size = position + record.limit();
+			unflushed = true;
+			index.put(key, position);
+		}
+		return key;
+	}
+
+	/**
+	 * Returns the text with the SHA-256, or null if it isn't in this store.
+	 *
+	 * @throws UncheckedIOException
+	 *             if the record can't be read, or its content doesn't match
+	 *             its SHA-256.
+	 * @throws IllegalStateException
+	 *             if the store is closed.
+	 */
+	public String get(String sha256) {
+		Long position = index.get(sha256);
+		if (position == null)
+			return null;
+		if (!channel.isOpen())
+			throw new IllegalStateException("Blob store " + file + " is closed");
+		byte[] bytes;
+		try {
+			int length = ByteBuffer.wrap(read(position + HASH_SIZE, 4)).getInt();
+			bytes = read(position + RECORD_HEADER_SIZE, length);
+		} catch (IOException e) {
+			throw new UncheckedIOException("Unable to read from blob store " + file, e);
+		}
+		if (!sha256.equals(DigestUtils.sha256Hex(bytes)))
+			throw new UncheckedIOException(
+					new IOException("Corrupt record for SHA-256 " + sha256 + " in blob store " + file));
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * The number of distinct texts in the store.
+	 */
+	public int size() {
+		return index.size();
+	}
+
+	/**
+	 * Forces the texts written so far to disk, if any haven't been.
+	 */
+	public synchronized void flush() {
+		if (!unflushed)
+			return;
+		try {
+			channel.force(false);
+			unflushed = false;
+		} catch (IOException e) {
+			throw new UncheckedIOException("Unable to flush blob store " + file, e);
+		}
+	}
+
+	/**
+	 * Flushes and closes the store. References to it can no longer be
+	 * resolved.
+	 */
+	@Override
+	public synchronized void close() {
+		if (!channel.isOpen())
+			return;
+		try {
+			channel.force(false);
+			channel.close();
+		} catch (IOException e) {
+			throw new UncheckedIOException("Unable to close blob store " + file, e);
+		} finally {
+			windows.clear();
+		}
+	}
+
+	/**
+	 * Returns true if the literal is a reference to a text in a blob store.
+	 */
+	public static boolean isReference(Literal literal) {
+		return BLOB_DATATYPE_URI.equals(literal.getDatatypeURI());
+	}
+
+	/**
+	 * Returns the text of the literal, reading it from this store if the
+	 * literal is a reference.
+	 *
+	 * @throws IllegalStateException
+	 *             if the literal is a reference to a text that isn't in this
+	 *             store.
+	 */
+	public String text(Literal literal) {
+		Validate.notNull(literal);
+		return text(literal, this);
+	}
+
+	/**
+	 * Returns the text of the literal, reading it from the store if the
+	 * literal is a reference.
+	 *
+	 * @param blobs
+	 *            The store, or null if there is none, in which case a
+	 *            reference can't be resolved.
+	 */
+	static String text(Literal literal, BlobStore blobs) {
+		if (!isReference(literal))
+			return literal.getString();
+		return resolve(literal.getLexicalForm(), blobs);
+	}
+
+	/**
+	 * Graph-level form of {@link #text(Literal, BlobStore)}.
+	 */
+	static String text(Node literal, BlobStore blobs) {
+		if (!BLOB_DATATYPE_URI.equals(literal.getLiteralDatatypeURI()))
+			return literal.getLiteralLexicalForm();
+		return resolve(literal.getLiteralLexicalForm(), blobs);
+	}
+
+	private static String resolve(String sha256, BlobStore blobs) {
+		if (blobs == null)
+			throw new IllegalStateException(
+					"Text with SHA-256 " + sha256 + " is kept in a blob store, which must be passed to read it");
+		String result = blobs.get(sha256);
+		if (result == null)
+			throw new IllegalStateException("Text with SHA-256 " + sha256 + " is not in blob store " + blobs.file);
+		return result;
+	}
+
+	private byte[] read(long position, int length) throws IOException {
+		byte[] result = new byte[length];
+		int done = 0;
+		while (done < length) {
+			long at = position + done;
+			long windowIndex = at / WINDOW;
+			int offset = (int) (at % WINDOW);
+			int count = (int) Math.min(length - done, WINDOW - offset);
+			ByteBuffer window = window(windowIndex, offset + count).duplicate();
+			window.position(offset);
+			window.get(result, done, count);
+			done += count;
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the mapping of the window, remapping it if the file has grown
+	 * past its end since it was mapped.
+	 */
+	private MappedByteBuffer window(long windowIndex, int needed) throws IOException {
+		MappedByteBuffer window = windows.get(windowIndex);
+		if (window == null || window.limit() < needed) {
+			long start = windowIndex * WINDOW;
+			window = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(WINDOW, size - start));
+			windows.put(windowIndex, window);
+		}
+		return window;
+	}
+
+	private void writeFully(ByteBuffer buffer, long position) throws IOException {
+		while (buffer.hasRemaining()) {
+			position += channel.write(buffer, position);
+		}
+	}
+
+	private int readFully(ByteBuffer buffer, long position) throws IOException {
+		int total = 0;
+		while (buffer.hasRemaining()) {
+			int read = channel.read(buffer, position + total);
+			if (read < 0)
+				break;
+			total += read;
+		}
+		return total;
+	}
+}
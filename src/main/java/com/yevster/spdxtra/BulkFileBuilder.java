@@ -0,0 +1,107 @@
+package com.yevster.spdxtra;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import org.apache.jena.graph.Graph;
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.query.Dataset;
+import org.apache.jena.rdf.model.Model;
+import org.apache.jena.rdf.model.Resource;
+import org.apache.jena.util.iterator.ExtendedIterator;
+
+import com.yevster.spdxtra.Write.ModelUpdate;
+
+/**
+ * Generates updates that add files to packages (or other elements) of one
+ * document, like {@link Write.Package#addFile(String, String, String, String)},
+ * for adding many files at once. The builder keeps an index of the packages
+ * and documents in the dataset, so that each parent is looked up at most once,
+ * rather than once per file.
+ *
+ * Each file is still looked up, with one rdf:type probe, so adding a file that
+ * exists, however it was added, replaces its name and adds it to the parent,
+ * keeping its other properties, as
+ * {@link Write.Package#addFile(String, String, String, String)} does.
+ *
+ * The index is read from the dataset when the builder is created, and isn't
+ * changed afterwards: a parent created later is looked up for each of its
+ * files, since the transaction in which an update found it may still be
+ * rolled back. The updates may be applied in many transactions, e.g. by
+ * {@link BatchingUpdateApplier}:
+ *
+ * <pre>
+ * BulkFileBuilder files = BulkFileBuilder.forDataset(dataset, baseUrl);
+ * try (Stream&lt;ModelUpdate&gt; updates = paths.map(p -&gt; files.addFile(packageSpdxId, spdxId(p), p.toString()))) {
+ * 	BatchingUpdateApplier.forDataset(dataset).apply(updates);
+ * }
+ * </pre>
+ *
+ * The updates must be applied to the same dataset, and parents must not be
+ * removed from it while the builder is in use. Not thread-safe.
+ *
+ * @author yevster
+ *
+ */
+public final class BulkFileBuilder {
+	private final String baseUrl;
+	// URIs of the elements in the dataset when the builder was created
+	private final Set<String> elements = new HashSet<>();
+
+	private BulkFileBuilder(String baseUrl) {
+		this.baseUrl = baseUrl;
+	}
+
+	/**
+	 * Creates a builder for files of the document with the base URL, indexing
+	 * the packages and documents in the dataset. Joins the calling thread's
+	 * transaction, if there is one.
+	 */
+	public static BulkFileBuilder forDataset(Dataset dataset, String baseUrl) {
+		Validate.notNull(dataset);
+		Validate.baseUrl(baseUrl);
+		BulkFileBuilder result = new BulkFileBuilder(baseUrl);
+		try (ReadSession session = ReadSession.open(dataset)) {
+			Graph graph = session.getModel().getGraph();
+			index(graph, SpdxResourceTypes.PACKAGE_TYPE, result.elements);
+			index(graph, SpdxResourceTypes.DOCUMENT_TYPE, result.elements);
+		}
+		return result;
+	}
+
+	private static void index(Graph graph, Resource type, Set<String> uris) {
+		ExtendedIterator<Triple> typed = graph.find(Node.ANY, SpdxProperties.RDF_TYPE.asNode(), type.asNode());
+		try {
+			while (typed.hasNext()) {
+				Node element = typed.next().getSubject();
+				if (element.isURI())
+					uris.add(element.getURI());
+			}
+		} finally {
+			typed.close();
+		}
+	}
+
+	/**
+	 * Generates an update that adds the file to the parent element.
+	 *
+	 * @throws IllegalArgumentException
+	 *             from the update, if the parent doesn't exist or the file's
+	 *             URI is that of an element other than a file.
+	 */
+	public ModelUpdate addFile(String parentSpdxId, String fileSpdxId, String fileName) {
+		Validate.spdxElementId(parentSpdxId);
+		Validate.spdxElementId(fileSpdxId);
+		Validate.notNull(fileName);
+		final String parentUri = baseUrl + '#' + parentSpdxId;
+		final String fileUri = baseUrl + '#' + fileSpdxId;
+
+		return (Model model) -> {
+			Resource parent = model.createResource(parentUri);
+			if (!elements.contains(parentUri) && !parent.hasProperty(SpdxProperties.RDF_TYPE))
+				throw new IllegalArgumentException("Cannot add file to non-existing element " + parentUri);
+			Write.putFile(parent, model.createResource(fileUri), fileName);
+		};
+	}
+}
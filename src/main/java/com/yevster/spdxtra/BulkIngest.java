@@ -0,0 +1,116 @@
+package com.yevster.spdxtra;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Stream;
+
+import org.apache.jena.query.Dataset;
+import org.apache.jena.riot.Lang;
+import org.apache.jena.riot.RDFDataMgr;
+import org.apache.jena.riot.system.StreamRDFLib;
+import org.apache.jena.shared.PrefixMapping;
+import org.apache.jena.tdb.TDB;
+import org.apache.jena.tdb.TDBFactory;
+import org.apache.jena.tdb.store.DatasetGraphTDB;
+import org.apache.jena.tdb.store.bulkloader.BulkLoader;
+import org.apache.jena.tdb.sys.TDBInternal;
+
+import com.yevster.spdxtra.Write.IngestProgress;
+
+/**
+ * Loads RDF into a new TDB dataset through the TDB bulk loader, which builds
+ * the indexes directly instead of journaling every triple through a write
+ * transaction. Only valid for datasets that have never been used, so it must
+ * run before any transaction touches the target directory.
+ *
+ * The bulk loader only accepts an N-Triples stream, so the input is parsed on
+ * a separate thread and piped to the loader as N-Triples. Parsing and index
+ * building thereby run concurrently. Progress is reported from the parsing
+ * side; the pipe is bounded, so parsing never runs far ahead of the loader.
+ *
+ * @author yevster
+ *
+ */
+class BulkIngest {
+	private static final int PIPE_SIZE = 1 << 20;
+
+	/**
+	 * Returns true if, and only if, the directory exists and contains nothing,
+	 * in which case a dataset created there can be bulk-loaded.
+	 */
+	static boolean isEmptyDirectory(Path directory) {
+		if (!Files.isDirectory(directory))
+			return false;
+		try (Stream<Path> contents = Files.list(directory)) {
+			return !contents.findAny().isPresent();
+		} catch (IOException e) {
+			return false;
+		}
+	}
+
+	/**
+	 * Bulk loads inputFilePath into a new TDB dataset in the empty directory
+	 * newDatasetPath and returns the dataset, ready for transactional use.
+	 */
+	static Dataset load(Path inputFilePath, Lang lang, Path newDatasetPath, IngestProgress progress) {
+		Read.logger.debug("Bulk loading " + inputFilePath.toAbsolutePath() + " into " + newDatasetPath.toAbsolutePath());
+		DatasetGraphTDB dsg = TDBInternal.getBaseDatasetGraphTDB(TDBFactory.createDatasetGraph(newDatasetPath.toString()));
+
+		final IngestProgressStream counter;
+		final AtomicReference<Throwable> parseFailure = new AtomicReference<>();
+		try {
+			final PipedInputStream pipeIn = new PipedInputStream(PIPE_SIZE);
+			final PipedOutputStream pipeOut = new PipedOutputStream(pipeIn);
+			final OutputStream ntriples = new BufferedOutputStream(pipeOut, PIPE_SIZE);
+			counter = new IngestProgressStream(StreamRDFLib.writer(ntriples), progress);
+			Thread parser = new Thread(() -> {
+				try {
+					RDFDataMgr.parse(counter, inputFilePath.toString(), lang);
+				} catch (Throwable t) {
+					parseFailure.set(t);
+				} finally {
+					try {
+						ntriples.close();
+					} catch (IOException e) {
+						// The loader has stopped reading; it will report why.
+					}
+				}
+			}, "spdxtra-bulk-parser");
+			parser.setDaemon(true);
+			parser.start();
+
+			// The pipe is closed before the parser is joined, which unblocks the
+			// parser if the loader failed.
+			try (InputStream loaderInput = pipeIn) {
+				BulkLoader.loadDefaultGraph(dsg, loaderInput, false, false);
+			} finally {
+				parser.join();
+			}
+		} catch (IOException e) {
+			throw new RuntimeException("Unable to read file " + inputFilePath.toAbsolutePath().toString(), e);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new RuntimeException("Interrupted while loading " + inputFilePath.toAbsolutePath().toString(), e);
+		}
+		if (parseFailure.get() != null) {
+			throw new RuntimeException("Unable to read file " + inputFilePath.toAbsolutePath().toString(), parseFailure.get());
+		}
+
+		// The N-Triples stream carries no prefixes, so apply them directly.
+		PrefixMapping prefixes = dsg.getDefaultGraph().getPrefixMapping();
+		prefixes.setNsPrefixes(counter.getPrefixes());
+		prefixes.setNsPrefix("spdx", SpdxUris.SPDX_TERMS);
+		prefixes.setNsPrefix("doap", SpdxUris.DOAP_NAMESPACE);
+		TDB.sync(dsg);
+		counter.report();
+
+		return TDBFactory.createDataset(newDatasetPath.toString());
+	}
+}
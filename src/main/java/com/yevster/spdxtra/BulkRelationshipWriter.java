@@ -0,0 +1,263 @@
+package com.yevster.spdxtra;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import org.apache.jena.graph.Graph;
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.NodeFactory;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.query.Dataset;
+import org.apache.jena.query.ReadWrite;
+
+import com.yevster.spdxtra.model.Relationship;
+
+/**
+ * Adds many relationships to a dataset, skipping those that already exist.
+ * Unlike {@link Write#addRelationship(String, String, Optional, Relationship.Type)},
+ * which always adds a new relationship, adding a relationship with the same
+ * source, type and target as one in the dataset (or one added earlier) has no
+ * effect, so an import can be re-run without duplicating relationships. The
+ * comment is not part of a relationship's identity.
+ *
+ * The writer keeps an index of the relationships in the dataset, read when
+ * it is created, so that duplicates are found without lookups.
+ * Relationships are kept pending, grouped by their source, until
+ * {@link #write()}, which writes them {@link #batchSize(int) batchSize} per
+ * transaction:
+ *
+ * <pre>
+ * BulkRelationshipWriter relationships = BulkRelationshipWriter.forDataset(dataset);
+ * dependencies.forEach(d -&gt; relationships.add(d.getSourceUri(), d.getTargetUri(), Relationship.Type.DYNAMIC_LINK));
+ * relationships.write();
+ * </pre>
+ *
+ * The relationships must be written to the same dataset, and relationships
+ * added to it by other means after the writer is created are not in the
+ * index. Not thread-safe.
+ *
+ * @author yevster
+ *
+ */
+public final class BulkRelationshipWriter {
+	public static final int DEFAULT_BATCH_SIZE = 10_000;
+
+	private static final Node RDF_TYPE = SpdxProperties.RDF_TYPE.asNode();
+	private static final Node RELATIONSHIP = SpdxProperties.SPDX_RELATIONSHIP.asNode();
+	private static final Node RELATIONSHIP_TYPE = SpdxResourceTypes.RELATIONSHIP_TYPE.asNode();
+	private static final Node TYPE_PROPERTY = Relationship.relationshipTypeProperty.asNode();
+	private static final Node RELATED_ELEMENT = Relationship.relatedElementProperty.asNode();
+	private static final Node[] TYPE_NODES = new Node[Relationship.Type.values().length];
+
+	static {
+		for (Relationship.Type type : Relationship.Type.values()) {
+			TYPE_NODES[type.ordinal()] = NodeFactory.createURI(type.getUri());
+		}
+	}
+
+	// Identifiers are packed into keys: 29 bits each for the source and the
+	// target, and 5 for the type.
+	private static final int ID_BITS = 29;
+	private static final int TYPE_BITS = 5;
+
+	static {
+		// Otherwise the ordinals of the types would overlap the target's bits.
+		if (Relationship.Type.values().length > 1 << TYPE_BITS)
+			throw new IllegalStateException(
+					Relationship.Type.values().length + " relationship types don't fit in " + TYPE_BITS + " bits");
+	}
+
+	private final Dataset dataset;
+	private int batchSize = DEFAULT_BATCH_SIZE;
+	// URIs of sources and targets -> their identifiers in the keys
+	private final Map<String, Integer> ids = new HashMap<>();
+	// The relationships in the dataset and the pending ones
+	private final Set<Long> keys = new HashSet<>();
+	// Source URI -> its pending relationships
+	private final Map<String, List<Pending>> pending = new LinkedHashMap<>();
+	private int pendingCount;
+
+	private static final class Pending {
+		final long key;
+		final Node target;
+		final Relationship.Type type;
+		final String comment;
+
+		Pending(long key, Node target, Relationship.Type type, String comment) {
+			this.key = key;
+			this.target = target;
+			this.type = type;
+			this.comment = comment;
+		}
+	}
+
+	private BulkRelationshipWriter(Dataset dataset) {
+		this.dataset = dataset;
+	}
+
+	/**
+	 * Creates a writer for the dataset, indexing the relationships in it.
+	 * Joins the calling thread's transaction, if there is one.
+	 */
+	public static BulkRelationshipWriter forDataset(Dataset dataset) {
+		Validate.notNull(dataset);
+		BulkRelationshipWriter result = new BulkRelationshipWriter(dataset);
+		try (ReadSession session = ReadSession.open(dataset)) {
+			result.index(session.getModel().getGraph());
+		}
+		return result;
+	}
+
+	private void index(Graph graph) {
+		GraphLookups.forEachRelationship(graph, (source, type, target) -> keys.add(key(source, target, type)));
+	}
+
+	/**
+	 * The most relationships to write in one transaction.
+	 */
+	public BulkRelationshipWriter batchSize(int batchSize) {
+		Validate.validate(batchSize > 0, "Batch size must be positive");
+		this.batchSize = batchSize;
+		return this;
+	}
+
+	/**
+	 * Adds a relationship with no comment.
+	 *
+	 * @see #add(String, String, Optional, Relationship.Type)
+	 */
+	public boolean add(String sourceUri, String targetUri, Relationship.Type type) {
+		return add(sourceUri, targetUri, Optional.empty(), type);
+	}
+
+	/**
+	 * Adds a relationship from the source element to the target element, to
+	 * be written by {@link #write()}, unless one with the same source, type
+	 * and target exists or has been added.
+	 *
+	 * @return true if the relationship was added, false if it is a duplicate.
+	 */
+	public boolean add(String sourceUri, String targetUri, Optional<String> comment, Relationship.Type type) {
+		Validate.spdxElementUri(sourceUri);
+		Validate.spdxElementUri(targetUri);
+		Validate.noNulls(comment, type);
+
+		long key = key(sourceUri, targetUri, type);
+		if (!keys.add(key))
+			return false;
+		pending.computeIfAbsent(sourceUri, s -> new ArrayList<>())
+				.add(new Pending(key, NodeFactory.createURI(targetUri), type, comment.orElse(null)));
+		++pendingCount;
+		return true;
+	}
+
+	private long key(String sourceUri, String targetUri, Relationship.Type type) {
+		return ((long) id(sourceUri) << (ID_BITS + TYPE_BITS)) | ((long) id(targetUri) << TYPE_BITS) | type.ordinal();
+	}
+
+	private int id(String uri) {
+		Integer result = ids.get(uri);
+		if (result == null) {
+			if (ids.size() == 1 << ID_BITS)
+				throw new IllegalStateException("Too many elements in relationships");
+			result = ids.size();
+			ids.put(uri, result);
+		}
+		return result;
+	}
+
+	/**
+	 * Writes the pending relationships, in as many transactions as the batch
+	 * size requires. Must not be called in a transaction.
+	 *
+	 * If a batch fails, e.g. because a source element doesn't exist, it is
+	 * aborted and its relationships, and the ones after it, stay pending. The
+	 * batches before it stay committed.
+	 *
+	 * @return The number of relationships written.
+	 * @throws IllegalArgumentException
+	 *             if a source element doesn't exist.
+	 */
+	public int write() {
+		int written = 0;
+		while (pendingCount > 0) {
+			written += writeBatch();
+		}
+		return written;
+	}
+
+	private int writeBatch() {
+		List<String> writtenSources = new ArrayList<>();
+		String partialSource = null;
+		int count = 0;
+		int partialCount = 0;
+		try (DatasetAutoAbortTransaction transaction = DatasetAutoAbortTransaction.begin(dataset, ReadWrite.WRITE)) {
+			Graph graph = dataset.getDefaultModel().getGraph();
+			for (Map.Entry<String, List<Pending>> group : pending.entrySet()) {
+				Node source = NodeFactory.createURI(group.getKey());
+				if (!graph.contains(source, RDF_TYPE, Node.ANY))
+					throw new IllegalArgumentException("Resource " + group.getKey() + " does not exist.");
+				List<Pending> relationships = group.getValue();
+				int n = Math.min(relationships.size(), batchSize - count);
+				for (int i = 0; i < n; ++i) {
+					write(graph, source, relationships.get(i));
+				}
+				count += n;
+				if (n < relationships.size()) {
+					partialSource = group.getKey();
+					partialCount = n;
+					break;
+				}
+				writtenSources.add(group.getKey());
+				if (count == batchSize)
+					break;
+			}
+			transaction.commit();
+		}
+		for (String source : writtenSources) {
+			pending.remove(source);
+		}
+		if (partialSource != null)
+			pending.get(partialSource).subList(0, partialCount).clear();
+		pendingCount -= count;
+		return count;
+	}
+
+	private static void write(Graph graph, Node source, Pending relationship) {
+		Node node = NodeFactory.createBlankNode();
+		graph.add(Triple.create(source, RELATIONSHIP, node));
+		graph.add(Triple.create(node, RDF_TYPE, RELATIONSHIP_TYPE));
+		graph.add(Triple.create(node, TYPE_PROPERTY, TYPE_NODES[relationship.type.ordinal()]));
+		if (relationship.comment != null)
+			graph.add(Triple.create(node, SpdxProperties.RDF_COMMENT.asNode(),
+					NodeFactory.createLiteral(relationship.comment)));
+		graph.add(Triple.create(node, RELATED_ELEMENT, relationship.target));
+	}
+
+	/**
+	 * Discards the pending relationships, e.g. after {@link #write()} fails.
+	 * They are no longer considered duplicates.
+	 */
+	public void discardPending() {
+		for (List<Pending> relationships : pending.values()) {
+			for (Pending relationship : relationships) {
+				keys.remove(relationship.key);
+			}
+		}
+		pending.clear();
+		pendingCount = 0;
+	}
+
+	/**
+	 * The number of relationships added and not yet written.
+	 */
+	public int getPendingCount() {
+		return pendingCount;
+	}
+}
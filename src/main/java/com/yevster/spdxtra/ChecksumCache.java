@@ -0,0 +1,277 @@
+package com.yevster.spdxtra;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.yevster.spdxtra.FileTreeHasher.HashedFile;
+
+/**
+ * A persistent cache of file checksums, so that files that haven't changed
+ * since the last scan are not hashed again. A file is considered unchanged if
+ * its absolute path, size, modification time and file key (the inode, on
+ * Unix-like systems) are all the same as when it was hashed.
+ *
+ * At most maxEntries files are kept; the least recently used ones are evicted
+ * first. The cache is loaded when opened and saved when closed. Saving writes a
+ * new file and atomically moves it over the old one, so a crash leaves either
+ * the old cache or the new one, never a partial file. A cache file that can't
+ * be read is ignored.
+ *
+ * Thread-safe. Use with {@link FileTreeHasher#cache(ChecksumCache)}:
+ *
+ * <pre>
+ * try (ChecksumCache cache = ChecksumCache.open(cacheFile, 1_000_000);
+ * 		Stream&lt;ModelUpdate&gt; updates = FileTreeHasher.of(sourceRoot).cache(cache).updates(baseUrl, packageSpdxId)) {
+ * 	BatchingUpdateApplier.forDataset(dataset).apply(updates);
+ * }
+ * </pre>
+ *
+ * @author yevster
+ *
+ */
+public final class ChecksumCache implements AutoCloseable {
+	private static final int MAGIC = 0x53504358; // "SPCX"
+	private static final int VERSION = 1;
+	/**
+	 * Files modified this recently may still be being written within the same
+	 * timestamp tick, so their checksums are not cached.
+	 */
+	private static final long RACY_MILLIS = 2_000;
+
+	private static final class CachedDigests {
+		private final long size;
+		private final long lastModified;
+		private final String fileKey;
+		private final String sha1;
+		private final String sha256;
+		private final String md5;
+
+		private CachedDigests(long size, long lastModified, String fileKey, String sha1, String sha256, String md5) {
+			this.size = size;
+			this.lastModified = lastModified;
+			this.fileKey = fileKey;
+			this.sha1 = sha1;
+			this.sha256 = sha256;
+			this.md5 = md5;
+		}
+
+		private boolean matches(BasicFileAttributes attributes) {
+			return size == attributes.size() && lastModified == attributes.lastModifiedTime().toMillis()
+					&& Objects.equals(fileKey, fileKeyOf(attributes));
+		}
+	}
+
+	private final Path cacheFile;
+	private final Map<String, CachedDigests> entries;
+	private final AtomicLong hits = new AtomicLong();
+	private final AtomicLong misses = new AtomicLong();
+	private boolean modified = false;
+
+	private ChecksumCache(Path cacheFile, final int maxEntries) {
+		this.cacheFile = cacheFile;
+		this.entries = new LinkedHashMap<String, CachedDigests>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, CachedDigests> eldest) {
+				return size() > maxEntries;
+			}
+		};
+	}
+
+	/**
+	 * Opens the cache stored in cacheFile, or an empty cache if the file
+	 * doesn't exist or can't be read.
+	 *
+	 * @param maxEntries
+	 *            The most files to remember.
+	 */
+	public static ChecksumCache open(Path cacheFile, int maxEntries) {
+		Validate.notNull(cacheFile);
+		Validate.validate(maxEntries > 0, "The cache must have room for at least one entry");
+		ChecksumCache result = new ChecksumCache(cacheFile, maxEntries);
+		if (Files.exists(cacheFile)) {
+			try (InputStream is = Files.newInputStream(cacheFile)) {
+				result.load(is);
+			} catch (IOException e) {
+				Read.logger.warn("Ignoring unreadable checksum cache " + cacheFile, e);
+				result.entries.clear();
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the checksums of the file, from the cache if it hasn't changed,
+	 * or by hashing it (and caching the result) if it has.
+	 *
+	 * @param file
+	 * @param fileName
+	 *            The SPDX file name to report for the file.
+	 */
+	public HashedFile hash(Path file, String fileName) throws IOException {
+		Path absolute = file.toAbsolutePath();
+		String key = absolute.toString();
+		BasicFileAttributes before = Files.readAttributes(absolute, BasicFileAttributes.class,
+				LinkOption.NOFOLLOW_LINKS);
+		CachedDigests entry;
+		synchronized (this) {
+			entry = entries.get(key);
+		}
+		if (entry != null && entry.matches(before)) {
+			hits.incrementAndGet();
+			return new HashedFile(fileName, entry.size, entry.sha1, entry.sha256, entry.md5);
+		}
+
+		misses.incrementAndGet();
+		HashedFile result = FileTreeHasher.hash(absolute, fileName);
+		BasicFileAttributes after = Files.readAttributes(absolute, BasicFileAttributes.class,
+				LinkOption.NOFOLLOW_LINKS);
+		long lastModified = after.lastModifiedTime().toMillis();
+		boolean stable = lastModified == before.lastModifiedTime().toMillis() && after.size() == result.getSize()
+				&& System.currentTimeMillis() - lastModified >= RACY_MILLIS;
+		if (stable) {
+			synchronized (this) {
+				entries.put(key, new CachedDigests(result.getSize(), lastModified, fileKeyOf(after), result.getSha1(),
+						result.getSha256(), result.getMd5()));
+				modified = true;
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * The number of files whose checksums came from the cache.
+	 */
+	public long getHits() {
+		return hits.get();
+	}
+
+	/**
+	 * The number of files that had to be hashed.
+	 */
+	public long getMisses() {
+		return misses.get();
+	}
+
+	public synchronized int size() {
+		return entries.size();
+	}
+
+	/**
+	 * Writes the cache to its file, if anything has changed since it was
+	 * opened or last saved.
+	 */
+	public void save() throws IOException {
+		final List<Map.Entry<String, CachedDigests>> snapshot;
+		synchronized (this) {
+			if (!modified)
+				return;
+			// Least recently used first, so that the order survives a reload.
+			snapshot = new ArrayList<>(entries.size());
+			entries.forEach((key, entry) -> snapshot.add(new AbstractMap.SimpleImmutableEntry<>(key, entry)));
+			modified = false;
+		}
+		Path directory = cacheFile.toAbsolutePath().getParent();
+		Files.createDirectories(directory);
+		Path tmp = Files.createTempFile(directory, cacheFile.getFileName().toString(), ".tmp");
+		try {
+			try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.WRITE)) {
+				OutputStream os = new BufferedOutputStream(Channels.newOutputStream(channel));
+				write(new DataOutputStream(os), snapshot);
+				os.flush();
+				channel.force(true);
+			}
+			try {
+				Files.move(tmp, cacheFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			} catch (AtomicMoveNotSupportedException e) {
+				Files.move(tmp, cacheFile, StandardCopyOption.REPLACE_EXISTING);
+			}
+		} catch (IOException | RuntimeException e) {
+			synchronized (this) {
+				modified = true;
+			}
+			throw e;
+		} finally {
+			Files.deleteIfExists(tmp);
+		}
+	}
+
+	/**
+	 * Saves the cache.
+	 *
+	 * @throws UncheckedIOException
+	 *             if the cache can't be saved.
+	 */
+	@Override
+	public void close() {
+		try {
+			save();
+		} catch (IOException e) {
+			throw new UncheckedIOException("Unable to save checksum cache " + cacheFile, e);
+		}
+	}
+
+	private static void write(DataOutputStream out, List<Map.Entry<String, CachedDigests>> snapshot)
+			throws IOException {
+		out.writeInt(MAGIC);
+		out.writeInt(VERSION);
+		out.writeInt(snapshot.size());
+		for (Map.Entry<String, CachedDigests> e : snapshot) {
+			CachedDigests entry = e.getValue();
+			out.writeUTF(e.getKey());
+			out.writeLong(entry.size);
+			out.writeLong(entry.lastModified);
+			out.writeBoolean(entry.fileKey != null);
+			if (entry.fileKey != null)
+				out.writeUTF(entry.fileKey);
+			out.writeUTF(entry.sha1);
+			out.writeUTF(entry.sha256);
+			out.writeUTF(entry.md5);
+		}
+		out.flush();
+	}
+
+	private void load(InputStream is) throws IOException {
+		DataInputStream in = new DataInputStream(new BufferedInputStream(is));
+		if (in.readInt() != MAGIC || in.readInt() != VERSION)
+			throw new IOException("Not a checksum cache, or an unsupported version");
+		int count = in.readInt();
+		for (int i = 0; i < count; ++i) {
+			String key = in.readUTF();
+			long size = in.readLong();
+			long lastModified = in.readLong();
+			String fileKey = in.readBoolean() ? in.readUTF() : null;
+			entries.put(key, new CachedDigests(size, lastModified, fileKey, in.readUTF(), in.readUTF(), in.readUTF()));
+		}
+		if (in.read() != -1)
+			throw new IOException("Trailing data in checksum cache");
+	}
+
+	private static String fileKeyOf(BasicFileAttributes attributes) {
+		Object fileKey = attributes.fileKey();
+		return fileKey == null ? null : fileKey.toString();
+	}
+}
@@ -7,6 +7,10 @@ import org.apache.jena.query.ReadWrite;
  * An auto-closable transaction that, if closed prior to comitting will abort.
  * If closed after a commit, has no effect. Not thread-safe.
  * 
+ * A read transaction is ended rather than aborted, since an in-memory
+ * dataset that aborts a read transaction keeps the thread's view of the
+ * dataset, and so the thread's later transactions don't see newer commits.
+ * 
  * @author yevster
  *
  */
@@ -14,14 +18,16 @@ public class DatasetAutoAbortTransaction implements AutoCloseable {
 	private boolean alreadyEnded = false;
 
 	private Dataset dataset;
+	private final ReadWrite readWrite;
 
-	private DatasetAutoAbortTransaction(Dataset dataset) {
+	private DatasetAutoAbortTransaction(Dataset dataset, ReadWrite readWrite) {
 		this.dataset = dataset;
+		this.readWrite = readWrite;
 	}
 
 	public static DatasetAutoAbortTransaction begin(Dataset dataset, ReadWrite readWrite) {
 		dataset.begin(readWrite);
-		return new DatasetAutoAbortTransaction(dataset);
+		return new DatasetAutoAbortTransaction(dataset, readWrite);
 	}
 
 	public void commit() {
@@ -31,14 +37,17 @@ public class DatasetAutoAbortTransaction implements AutoCloseable {
 
 	public void abort() {
 		alreadyEnded = true;
-		dataset.abort();
+		if (readWrite == ReadWrite.READ)
+			dataset.end();
+		else
+			dataset.abort();
 
 	}
 
 	@Override
 	public void close() {
 		if (!alreadyEnded) {
-			dataset.abort();
+			abort();
 		}
 	}
 }
@@ -0,0 +1,428 @@
+package com.yevster.spdxtra;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.stream.Stream;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.jena.graph.Graph;
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.query.Dataset;
+import org.apache.jena.rdf.model.Property;
+import org.apache.jena.util.iterator.ClosableIterator;
+import org.apache.jena.util.iterator.ExtendedIterator;
+
+import com.yevster.spdxtra.model.Checksum;
+import com.yevster.spdxtra.model.Relationship;
+
+/**
+ * Checks that a whole document has the fields SPDX requires, e.g. a document
+ * loaded with {@link Write#rdfIntoDataset}, which, unlike the updates in
+ * {@link Write}, is not validated as it is written. The checks are listed in
+ * {@link Rule}.
+ *
+ * The dataset is read in one pass over its elements and relationships, which
+ * are partitioned into chunks by subject. The chunks are checked on a
+ * fork-join pool (the common pool by default), each in a read transaction of
+ * its own, with one lookup per required property.
+ * Violations are streamed as the chunks are checked, in the order the
+ * elements were read; at most two chunks per pool thread are checked ahead of
+ * the stream, and the stream ends after {@link #maxViolations(int)}
+ * violations, so memory use is bounded however large the document or however
+ * broken.
+ *
+ * <pre>
+ * try (Stream&lt;Violation&gt; violations = DocumentValidator.create().validate(dataset)) {
+ * 	violations.forEach(v -&gt; log.warn(v.toString()));
+ * }
+ * </pre>
+ *
+ * The scan and the checks are in different transactions, so the dataset must
+ * not be written to while it is validated: a chunk checked after a write is
+ * committed sees the new version of the dataset, and may be reported against
+ * it. Where the dataset may be written to, use {@link #sequential()}, which
+ * checks every chunk in the scan's transaction.
+ *
+ * If the calling thread is in a transaction, the dataset is checked on that
+ * thread instead, so that changes not yet committed are seen.
+ *
+ * @author yevster
+ *
+ */
+public final class DocumentValidator {
+	static final int CHUNK_SIZE = 256;
+	public static final int DEFAULT_MAX_VIOLATIONS = 1000;
+
+	private static final Node RDF_TYPE = SpdxProperties.RDF_TYPE.asNode();
+	private static final Node DOCUMENT_TYPE = SpdxResourceTypes.DOCUMENT_TYPE.asNode();
+	private static final Node PACKAGE_TYPE = SpdxResourceTypes.PACKAGE_TYPE.asNode();
+	private static final Node FILE_TYPE = SpdxResourceTypes.FILE_TYPE.asNode();
+	private static final Node RELATIONSHIP = SpdxProperties.SPDX_RELATIONSHIP.asNode();
+	private static final String SHA1_URI = Checksum.Algorithm.SHA1.getUri();
+
+	private ForkJoinPool pool = ForkJoinPool.commonPool();
+	private int maxViolations = DEFAULT_MAX_VIOLATIONS;
+	private boolean sequential = false;
+
+	/**
+	 * The requirements that are checked.
+	 */
+	public enum Rule {
+		/**
+		 * Every document, package and file is a URI made of the document's
+		 * base URL and its SPDX ID.
+		 */
+		ELEMENT_URI,
+		/**
+		 * Every document has a name.
+		 */
+		DOCUMENT_NAME,
+		/**
+		 * Every document has a spec version.
+		 */
+		DOCUMENT_SPEC_VERSION,
+		/**
+		 * Every document has a data license.
+		 */
+		DOCUMENT_DATA_LICENSE,
+		/**
+		 * Every document has creation info, with a creation date and at least
+		 * one creator.
+		 */
+		DOCUMENT_CREATION_INFO,
+		/**
+		 * Every package has a name.
+		 */
+		PACKAGE_NAME,
+		/**
+		 * Every package has a download location (which may be NONE or
+		 * NOASSERTION).
+		 */
+		PACKAGE_DOWNLOAD_LOCATION,
+		/**
+		 * Every package whose files were analyzed has a verification code.
+		 */
+		PACKAGE_VERIFICATION_CODE,
+		/**
+		 * Every file has a name.
+		 */
+		FILE_NAME,
+		/**
+		 * Every file has a SHA1 checksum of 40 hexadecimal digits.
+		 */
+		FILE_SHA1,
+		/**
+		 * Every relationship has a type.
+		 */
+		RELATIONSHIP_TYPE,
+		/**
+		 * Every relationship relates to an element in the dataset, or to NONE
+		 * or NOASSERTION.
+		 */
+		RELATIONSHIP_TARGET;
+	}
+
+	/**
+	 * A requirement an element doesn't meet.
+	 */
+	public static final class Violation {
+		private final Rule rule;
+		private final String element;
+		private final String message;
+
+		private Violation(Rule rule, Node element, String message) {
+			this.rule = rule;
+			this.element = element.isURI() ? element.getURI() : element.toString();
+			this.message = message;
+		}
+
+		public Rule getRule() {
+			return rule;
+		}
+
+		/**
+		 * The URI of the element, or the label of a blank node.
+		 */
+		public String getElement() {
+			return element;
+		}
+
+		public String getMessage() {
+			return message;
+		}
+
+		@Override
+		public String toString() {
+			return rule + " " + element + ": " + message;
+		}
+	}
+
+	private DocumentValidator() {
+	}
+
+	public static DocumentValidator create() {
+		return new DocumentValidator();
+	}
+
+	/**
+	 * The pool to check the document on. Defaults to the common pool.
+	 */
+	public DocumentValidator pool(ForkJoinPool pool) {
+		Validate.notNull(pool);
+		this.pool = pool;
+		return this;
+	}
+
+	/**
+	 * The number of violations after which validation stops. Defaults to
+	 * {@link #DEFAULT_MAX_VIOLATIONS}.
+	 */
+	public DocumentValidator maxViolations(int maxViolations) {
+		Validate.validate(maxViolations > 0, "Maximum violations must be positive");
+		this.maxViolations = maxViolations;
+		return this;
+	}
+
+	/**
+	 * Checks the document on the thread that consumes the violations, in the
+	 * stream's transaction, rather than on the pool. Every check then sees
+	 * the version of the dataset that is scanned, even if writes are committed
+	 * during validation.
+	 */
+	public DocumentValidator sequential() {
+		this.sequential = true;
+		return this;
+	}
+
+	/**
+	 * Validates the dataset. The stream holds a read transaction (or joins
+	 * the calling thread's) until it is closed, and must be closed to stop
+	 * the checks still in flight.
+	 */
+	public Stream<Violation> validate(Dataset dataset) {
+		Validate.notNull(dataset);
+		final boolean inline = sequential || dataset.isInTransaction();
+		return TransactionalStream.of(dataset, model -> new Violations(dataset, model.getGraph(), inline));
+	}
+
+	/**
+	 * Returns true if the dataset has no violations. Stops at the first one.
+	 */
+	public boolean isValid(Dataset dataset) {
+		try (Stream<Violation> violations = validate(dataset)) {
+			return !violations.findAny().isPresent();
+		}
+	}
+
+	/**
+	 * Reads the elements and relationships, submits them to the pool chunk by
+	 * chunk, and returns the violations of each chunk in turn.
+	 */
+	private final class Violations implements ClosableIterator<Violation> {
+		private final Dataset dataset;
+		private final Graph graph;
+		private final boolean inline;
+		private final ExtendedIterator<Triple> triples;
+		private final int window;
+		private final Deque<ForkJoinTask<List<Violation>>> inFlight;
+		private Iterator<Violation> current = Collections.emptyIterator();
+		private int delivered = 0;
+
+		private Violations(Dataset dataset, Graph graph, boolean inline) {
+			this.dataset = dataset;
+			this.graph = graph;
+			this.inline = inline;
+			// Each kind of element is matched by its type, rather than by
+			// scanning every typed node, most of which (checksums,
+			// relationships, licenses) are not elements. Relationships are
+			// read last, from their own triples, rather than looked up for
+			// every element, since most elements have none.
+			this.triples = graph.find(Node.ANY, RDF_TYPE, DOCUMENT_TYPE)
+					.andThen(graph.find(Node.ANY, RDF_TYPE, PACKAGE_TYPE))
+					.andThen(graph.find(Node.ANY, RDF_TYPE, FILE_TYPE))
+					.andThen(graph.find(Node.ANY, RELATIONSHIP, Node.ANY));
+			this.window = inline ? 1 : Math.max(2, pool.getParallelism() * 2);
+			this.inFlight = new ArrayDeque<>(window);
+		}
+
+		@Override
+		public boolean hasNext() {
+			if (delivered >= maxViolations)
+				return false;
+			while (!current.hasNext()) {
+				fill();
+				if (inFlight.isEmpty())
+					return false;
+				current = inFlight.removeFirst().join().iterator();
+			}
+			return true;
+		}
+
+		@Override
+		public Violation next() {
+			if (!hasNext())
+				throw new NoSuchElementException();
+			++delivered;
+			return current.next();
+		}
+
+		private void fill() {
+			while (inFlight.size() < window && triples.hasNext()) {
+				final List<Triple> chunk = new ArrayList<>(CHUNK_SIZE);
+				while (chunk.size() < CHUNK_SIZE && triples.hasNext()) {
+					chunk.add(triples.next());
+				}
+				if (inline) {
+					ForkJoinTask<List<Violation>> task = ForkJoinTask.adapt(() -> check(graph, chunk));
+					task.invoke();
+					inFlight.addLast(task);
+				} else {
+					inFlight.addLast(pool.submit(() -> checkInSession(dataset, chunk)));
+				}
+			}
+		}
+
+		@Override
+		public void close() {
+			triples.close();
+			inFlight.forEach(task -> task.cancel(true));
+			inFlight.clear();
+		}
+	}
+
+	/**
+	 * Checks the chunk in a read transaction of its own, which sees the
+	 * latest commit rather than the version being scanned. If the chunk is run
+	 * by the thread waiting for it, which a fork-join pool may do, the
+	 * session joins that thread's transaction instead.
+	 */
+	private static List<Violation> checkInSession(Dataset dataset, List<Triple> chunk) {
+		try (ReadSession session = ReadSession.open(dataset)) {
+			return check(session.getModel().getGraph(), chunk);
+		}
+	}
+
+	private static List<Violation> check(Graph graph, List<Triple> chunk) {
+		List<Violation> violations = new ArrayList<>();
+		for (Triple triple : chunk) {
+			Node element = triple.getSubject();
+			if (triple.getPredicate().equals(RELATIONSHIP)) {
+				checkRelationship(graph, element, triple.getObject(), violations);
+				continue;
+			}
+			if (!element.isURI() || !Validate.isSpdxElementUri(element.getURI()))
+				violations.add(new Violation(Rule.ELEMENT_URI, element, "Not a valid SPDX element URI"));
+			Node type = triple.getObject();
+			if (type.equals(FILE_TYPE)) {
+				checkFile(graph, element, violations);
+			} else if (type.equals(PACKAGE_TYPE)) {
+				checkPackage(graph, element, violations);
+			} else {
+				checkDocument(graph, element, violations);
+			}
+		}
+		return violations;
+	}
+
+	private static void checkFile(Graph graph, Node file, List<Violation> violations) {
+		if (!hasText(graph, file, SpdxProperties.FILE_NAME))
+			violations.add(new Violation(Rule.FILE_NAME, file, "File has no name"));
+		boolean hasSha1 = false;
+		ExtendedIterator<Triple> checksums = graph.find(file, SpdxProperties.CHECKSUM.asNode(), Node.ANY);
+		try {
+			while (checksums.hasNext()) {
+				Node checksum = checksums.next().getObject();
+				Node algorithm = GraphLookups.first(graph, checksum, SpdxProperties.CHECKSUM_ALGORITHM);
+				if (algorithm == null || !algorithm.isURI() || !SHA1_URI.equals(algorithm.getURI()))
+					continue;
+				hasSha1 = true;
+				Node digest = GraphLookups.first(graph, checksum, SpdxProperties.CHECKSUM_VALUE);
+				if (digest == null || !digest.isLiteral() || !isHex(digest.getLiteralLexicalForm(), 40))
+					violations.add(new Violation(Rule.FILE_SHA1, file,
+							"Malformed SHA1 checksum " + (digest == null ? "" : digest.toString())));
+			}
+		} finally {
+			checksums.close();
+		}
+		if (!hasSha1)
+			violations.add(new Violation(Rule.FILE_SHA1, file, "File has no SHA1 checksum"));
+	}
+
+	private static void checkPackage(Graph graph, Node pkg, List<Violation> violations) {
+		if (!hasText(graph, pkg, SpdxProperties.SPDX_NAME))
+			violations.add(new Violation(Rule.PACKAGE_NAME, pkg, "Package has no name"));
+		if (GraphLookups.first(graph, pkg, SpdxProperties.PACKAGE_DOWNLOAD_LOCATION) == null)
+			violations.add(new Violation(Rule.PACKAGE_DOWNLOAD_LOCATION, pkg, "Package has no download location"));
+		// As in SpdxPackage.getFilesAnalyzed(), files are analyzed unless
+		// stated otherwise.
+		Node filesAnalyzed = GraphLookups.first(graph, pkg, SpdxProperties.FILES_ANALYZED);
+		if (filesAnalyzed != null && filesAnalyzed.isLiteral()
+				&& !StringUtils.isBlank(filesAnalyzed.getLiteralLexicalForm())
+				&& !Boolean.parseBoolean(filesAnalyzed.getLiteralLexicalForm()))
+			return;
+		Node code = GraphLookups.first(graph, pkg, SpdxProperties.PACKAGE_VERIFICATION_CODE);
+		if (code == null || !hasText(graph, code, SpdxProperties.PACKAGE_VERIFICATION_CODE_VALUE))
+			violations.add(new Violation(Rule.PACKAGE_VERIFICATION_CODE, pkg,
+					"Package files were analyzed, but it has no verification code"));
+	}
+
+	private static void checkDocument(Graph graph, Node document, List<Violation> violations) {
+		if (!hasText(graph, document, SpdxProperties.SPDX_NAME))
+			violations.add(new Violation(Rule.DOCUMENT_NAME, document, "Document has no name"));
+		if (!hasText(graph, document, SpdxProperties.SPEC_VERSION))
+			violations.add(new Violation(Rule.DOCUMENT_SPEC_VERSION, document, "Document has no spec version"));
+		if (GraphLookups.first(graph, document, SpdxProperties.DATA_LICENSE) == null)
+			violations.add(new Violation(Rule.DOCUMENT_DATA_LICENSE, document, "Document has no data license"));
+		Node creationInfo = GraphLookups.first(graph, document, SpdxProperties.CREATION_INFO);
+		if (creationInfo == null) {
+			violations.add(new Violation(Rule.DOCUMENT_CREATION_INFO, document, "Document has no creation info"));
+		} else {
+			if (!hasText(graph, creationInfo, SpdxProperties.CREATION_DATE))
+				violations.add(new Violation(Rule.DOCUMENT_CREATION_INFO, document, "Document has no creation date"));
+			if (!hasText(graph, creationInfo, SpdxProperties.CREATOR))
+				violations.add(new Violation(Rule.DOCUMENT_CREATION_INFO, document, "Document has no creators"));
+		}
+	}
+
+	private static void checkRelationship(Graph graph, Node source, Node relationship, List<Violation> violations) {
+		if (GraphLookups.first(graph, relationship, Relationship.relationshipTypeProperty) == null)
+			violations.add(new Violation(Rule.RELATIONSHIP_TYPE, source, "Relationship has no type"));
+		Node target = GraphLookups.first(graph, relationship, Relationship.relatedElementProperty);
+		if (target == null) {
+			violations.add(new Violation(Rule.RELATIONSHIP_TARGET, source, "Relationship has no related element"));
+		} else if (!(target.isURI()
+				&& (SpdxUris.NONE.equals(target.getURI()) || SpdxUris.NO_ASSERTION.equals(target.getURI())))
+				&& !graph.contains(target, RDF_TYPE, Node.ANY)) {
+			violations.add(new Violation(Rule.RELATIONSHIP_TARGET, source,
+					"Related element " + target + " is not in the dataset"));
+		}
+	}
+
+	/**
+	 * Returns true if the subject has a value of the property that isn't
+	 * blank.
+	 */
+	private static boolean hasText(Graph graph, Node subject, Property property) {
+		Node value = GraphLookups.first(graph, subject, property);
+		return value != null && (!value.isLiteral() || !StringUtils.isBlank(value.getLiteralLexicalForm()));
+	}
+
+	private static boolean isHex(String s, int length) {
+		if (s.length() != length)
+			return false;
+		for (int i = 0; i < length; ++i) {
+			char c = s.charAt(i);
+			if (!((c >= '0' && c <= '9') || (c >= 'a' && c <= 'f') || (c >= 'A' && c <= 'F')))
+				return false;
+		}
+		return true;
+	}
+}
@@ -0,0 +1,310 @@
+package com.yevster.spdxtra;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+import org.apache.commons.codec.binary.Hex;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.lang3.StringUtils;
+
+import com.yevster.spdxtra.Write.ModelUpdate;
+import com.yevster.spdxtra.model.Checksum;
+import com.yevster.spdxtra.util.MiscUtils;
+
+/**
+ * Walks a directory tree and computes the SHA1, SHA256 and MD5 checksums of
+ * every regular file in it, reading each file once. Files are hashed in
+ * parallel on a dedicated thread pool, since hashing a source tree is mostly
+ * waiting on I/O. Results are streamed in the order the files are walked.
+ *
+ * The results can be turned into {@link Write.Package#addFile} and
+ * {@link Write.File#checksums} updates with {@link #updates}, ready to be
+ * applied with {@link BatchingUpdateApplier}:
+ *
+ * <pre>
+ * try (Stream&lt;ModelUpdate&gt; updates = FileTreeHasher.of(sourceRoot).updates(baseUrl, packageSpdxId)) {
+ * 	BatchingUpdateApplier.forDataset(dataset).apply(updates);
+ * }
+ * </pre>
+ *
+ * @author yevster
+ *
+ */
+public final class FileTreeHasher {
+	/**
+	 * Files at least this large are memory-mapped instead of read.
+	 */
+	static final long MAP_THRESHOLD = 4 * 1024 * 1024;
+	private static final long MAP_WINDOW = 64 * 1024 * 1024;
+	private static final int BUFFER_SIZE = 256 * 1024;
+
+	private static final ThreadLocal<ByteBuffer> buffers = ThreadLocal
+			.withInitial(() -> ByteBuffer.allocateDirect(BUFFER_SIZE));
+
+	private final Path root;
+	private int threads = Math.max(4, Runtime.getRuntime().availableProcessors() * 2);
+	private Predicate<Path> filter = path -> true;
+	private ChecksumCache cache = null;
+
+	private FileTreeHasher(Path root) {
+		this.root = root;
+	}
+
+	/**
+	 * Creates a hasher for all the regular files under root. Symbolic links
+	 * are not followed.
+	 */
+	public static FileTreeHasher of(Path root) {
+		Validate.notNull(root);
+		Validate.validate(Files.isDirectory(root), root + " is not a directory.");
+		return new FileTreeHasher(root);
+	}
+
+	/**
+	 * The number of files to hash at the same time. Defaults to twice the
+	 * number of processors, but no less than 4.
+	 */
+	public FileTreeHasher threads(int threads) {
+		Validate.validate(threads > 0, "Thread count must be positive");
+		this.threads = threads;
+		return this;
+	}
+
+	/**
+	 * Only hashes the files for which filter is true. Called with the absolute
+	 * path of each file.
+	 */
+	public FileTreeHasher filter(Predicate<Path> filter) {
+		Validate.notNull(filter);
+		this.filter = filter;
+		return this;
+	}
+
+	/**
+	 * Takes the checksums of unchanged files from the cache instead of
+	 * hashing them, and adds the checksums of the files it does hash.
+	 */
+	public FileTreeHasher cache(ChecksumCache cache) {
+		Validate.notNull(cache);
+		this.cache = cache;
+		return this;
+	}
+
+	/**
+	 * Hashes the files in the tree. The stream must be closed, to release the
+	 * directory walk and the hashing threads.
+	 *
+	 * @throws UncheckedIOException
+	 *             from the stream's operations if a file can't be read.
+	 */
+	public Stream<HashedFile> hash() {
+		final Stream<Path> files;
+		try {
+			files = Files.walk(root).filter(path -> Files.isRegularFile(path, LinkOption.NOFOLLOW_LINKS)).filter(filter);
+		} catch (IOException e) {
+			throw new UncheckedIOException("Unable to walk " + root, e);
+		}
+		final ExecutorService executor = Executors.newFixedThreadPool(threads, runnable -> {
+			Thread thread = new Thread(runnable, "spdxtra-hasher");
+			thread.setDaemon(true);
+			return thread;
+		});
+		final Iterator<Path> paths = files.iterator();
+		final int window = threads * 2;
+
+		Iterator<HashedFile> results = new Iterator<HashedFile>() {
+			private final Deque<Future<HashedFile>> inFlight = new ArrayDeque<>(window);
+
+			private void fill() {
+				while (inFlight.size() < window && paths.hasNext()) {
+					Path path = paths.next();
+					inFlight.addLast(executor.submit(() -> hashFile(path)));
+				}
+			}
+
+			@Override
+			public boolean hasNext() {
+				fill();
+				return !inFlight.isEmpty();
+			}
+
+			@Override
+			public HashedFile next() {
+				if (!hasNext())
+					throw new NoSuchElementException();
+				try {
+					return inFlight.removeFirst().get();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					throw new IllegalStateException("Interrupted while hashing files", e);
+				} catch (ExecutionException e) {
+					if (e.getCause() instanceof RuntimeException)
+						throw (RuntimeException) e.getCause();
+					throw new IllegalStateException(e.getCause());
+				}
+			}
+		};
+		return MiscUtils.toLinearStream(results).onClose(() -> {
+			executor.shutdownNow();
+			files.close();
+		});
+	}
+
+	/**
+	 * Hashes the files in the tree and generates, for each file, an update
+	 * that adds it to the package and an update that sets its checksums. File
+	 * SPDX IDs are derived from the file names with
+	 * {@link #defaultFileSpdxId(String)}.
+	 */
+	public Stream<ModelUpdate> updates(String baseUrl, String packageSpdxId) {
+		return updates(baseUrl, packageSpdxId, FileTreeHasher::defaultFileSpdxId);
+	}
+
+	/**
+	 * Hashes the files in the tree and generates, for each file, an update
+	 * that adds it to the package and an update that sets its checksums.
+	 *
+	 * @param fileSpdxId
+	 *            Produces the SPDX ID of a file from its SPDX file name.
+	 */
+	public Stream<ModelUpdate> updates(String baseUrl, String packageSpdxId, Function<String, String> fileSpdxId) {
+		Validate.baseUrl(baseUrl);
+		Validate.spdxElementId(packageSpdxId);
+		Validate.notNull(fileSpdxId);
+		return hash().flatMap(file -> {
+			String spdxId = fileSpdxId.apply(file.getFileName());
+			return Stream.of(Write.Package.addFile(baseUrl, packageSpdxId, spdxId, file.getFileName()),
+					Write.File.checksums(baseUrl + "#" + spdxId, file.getSha1(), Checksum.sha256(file.getSha256()),
+							Checksum.md5(file.getMd5())));
+		});
+	}
+
+	/**
+	 * "SPDXRef-File-" followed by the SHA1 of the file name, so that a file
+	 * keeps its ID from one scan to the next.
+	 */
+	public static String defaultFileSpdxId(String fileName) {
+		return "SPDXRef-File-" + DigestUtils.sha1Hex(fileName);
+	}
+
+	/**
+	 * The SPDX file name of the file relative to root, e.g. "./src/Main.java".
+	 */
+	String spdxFileName(Path file) {
+		return "./" + StringUtils.replace(root.relativize(file).toString(), file.getFileSystem().getSeparator(), "/");
+	}
+
+	private HashedFile hashFile(Path file) {
+		try {
+			String fileName = spdxFileName(file);
+			return cache != null ? cache.hash(file, fileName) : hash(file, fileName);
+		} catch (IOException e) {
+			throw new UncheckedIOException("Unable to hash " + file, e);
+		}
+	}
+
+	/**
+	 * Computes all three checksums of the file in a single read.
+	 */
+	static HashedFile hash(Path file, String fileName) throws IOException {
+		MessageDigest sha1 = DigestUtils.getSha1Digest();
+		MessageDigest sha256 = DigestUtils.getSha256Digest();
+		MessageDigest md5 = DigestUtils.getMd5Digest();
+		long size;
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			size = channel.size();
+			if (size >= MAP_THRESHOLD) {
+				for (long position = 0; position < size; position += MAP_WINDOW) {
+					MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, position,
+							Math.min(MAP_WINDOW, size - position));
+					update(window, sha1, sha256, md5);
+				}
+			} else {
+				ByteBuffer buffer = buffers.get();
+				buffer.clear();
+				while (channel.read(buffer) != -1) {
+					buffer.flip();
+					update(buffer, sha1, sha256, md5);
+					buffer.clear();
+				}
+			}
+		}
+		return new HashedFile(fileName, size, Hex.encodeHexString(sha1.digest()), Hex.encodeHexString(sha256.digest()),
+				Hex.encodeHexString(md5.digest()));
+	}
+
+	private static void update(ByteBuffer data, MessageDigest... digests) {
+		for (MessageDigest digest : digests) {
+			data.mark();
+			digest.update(data);
+			data.reset();
+		}
+	}
+
+	/**
+	 * The checksums of one file.
+	 */
+	public static final class HashedFile {
+		private final String fileName;
+		private final long size;
+		private final String sha1;
+		private final String sha256;
+		private final String md5;
+
+		HashedFile(String fileName, long size, String sha1, String sha256, String md5) {
+			this.fileName = fileName;
+			this.size = size;
+			this.sha1 = sha1;
+			this.sha256 = sha256;
+			this.md5 = md5;
+		}
+
+		/**
+		 * The SPDX file name, i.e. the path relative to the root of the tree,
+		 * starting with "./".
+		 */
+		public String getFileName() {
+			return fileName;
+		}
+
+		public long getSize() {
+			return size;
+		}
+
+		public String getSha1() {
+			return sha1;
+		}
+
+		public String getSha256() {
+			return sha256;
+		}
+
+		public String getMd5() {
+			return md5;
+		}
+
+		@Override
+		public String toString() {
+			return fileName + " " + sha1;
+		}
+	}
+}
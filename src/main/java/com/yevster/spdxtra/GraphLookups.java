@@ -0,0 +1,82 @@
+package com.yevster.spdxtra;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.jena.graph.Graph;
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.NodeFactory;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.rdf.model.Property;
+import org.apache.jena.util.iterator.ExtendedIterator;
+
+import com.yevster.spdxtra.model.Relationship;
+
+/**
+ * Lookups shared by the classes that read the graph directly, by triple
+ * pattern, rather than through the model.
+ *
+ * @author yevster
+ *
+ */
+final class GraphLookups {
+	private static final Node RELATIONSHIP = SpdxProperties.SPDX_RELATIONSHIP.asNode();
+	private static final Node TYPE_PROPERTY = Relationship.relationshipTypeProperty.asNode();
+	private static final Node RELATED_ELEMENT = Relationship.relatedElementProperty.asNode();
+	private static final Map<Node, Relationship.Type> TYPES_BY_NODE = new HashMap<>();
+
+	static {
+		for (Relationship.Type type : Relationship.Type.values()) {
+			TYPES_BY_NODE.put(NodeFactory.createURI(type.getUri()), type);
+		}
+	}
+
+	private GraphLookups() {
+	}
+
+	/**
+	 * Receives the relationships found by
+	 * {@link GraphLookups#forEachRelationship(Graph, RelationshipConsumer)}.
+	 */
+	@FunctionalInterface
+	interface RelationshipConsumer {
+		void accept(String sourceUri, Relationship.Type type, String targetUri);
+	}
+
+	/**
+	 * Passes the source, type and target of every relationship in the graph to
+	 * the consumer. Relationships whose source or target isn't a URI, or whose
+	 * type is missing or unknown, are skipped.
+	 */
+	static void forEachRelationship(Graph graph, RelationshipConsumer consumer) {
+		ExtendedIterator<Triple> relationships = graph.find(Node.ANY, RELATIONSHIP, Node.ANY);
+		try {
+			while (relationships.hasNext()) {
+				Triple relationship = relationships.next();
+				Node source = relationship.getSubject();
+				Node target = first(graph, relationship.getObject(), RELATED_ELEMENT);
+				Relationship.Type type = TYPES_BY_NODE.get(first(graph, relationship.getObject(), TYPE_PROPERTY));
+				if (source.isURI() && target != null && target.isURI() && type != null)
+					consumer.accept(source.getURI(), type, target.getURI());
+			}
+		} finally {
+			relationships.close();
+		}
+	}
+
+	/**
+	 * Returns a value of the property of the subject, or null if it has none.
+	 */
+	static Node first(Graph graph, Node subject, Node property) {
+		ExtendedIterator<Triple> it = graph.find(subject, property, Node.ANY);
+		try {
+			return it.hasNext() ? it.next().getObject() : null;
+		} finally {
+			it.close();
+		}
+	}
+
+	static Node first(Graph graph, Node subject, Property property) {
+		return first(graph, subject, property.asNode());
+	}
+}
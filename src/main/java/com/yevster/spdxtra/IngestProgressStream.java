@@ -0,0 +1,62 @@
+package com.yevster.spdxtra;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.jena.graph.Triple;
+import org.apache.jena.riot.system.StreamRDF;
+import org.apache.jena.riot.system.StreamRDFWrapper;
+
+import com.yevster.spdxtra.Write.IngestProgress;
+
+/**
+ * Passes parsed triples through to a destination, counting them, remembering
+ * the prefixes seen and reporting progress every {@link #PROGRESS_INTERVAL}
+ * triples.
+ * 
+ * @author yevster
+ *
+ */
+class IngestProgressStream extends StreamRDFWrapper {
+	/**
+	 * How many triples are loaded between progress reports.
+	 */
+	static final long PROGRESS_INTERVAL = 100_000;
+
+	private final IngestProgress progress;
+	private final long startNanos = System.nanoTime();
+	private final Map<String, String> prefixes = new HashMap<>();
+	private long count = 0;
+
+	IngestProgressStream(StreamRDF destination, IngestProgress progress) {
+		super(destination);
+		this.progress = progress;
+	}
+
+	@Override
+	public void triple(Triple triple) {
+		super.triple(triple);
+		if (++count % PROGRESS_INTERVAL == 0) {
+			report();
+		}
+	}
+
+	@Override
+	public void prefix(String prefix, String iri) {
+		prefixes.put(prefix, iri);
+		super.prefix(prefix, iri);
+	}
+
+	Map<String, String> getPrefixes() {
+		return prefixes;
+	}
+
+	/**
+	 * Reports the number of triples seen so far and the average rate since
+	 * this stream was created.
+	 */
+	void report() {
+		double seconds = (System.nanoTime() - startNanos) / 1e9;
+		progress.progress(count, seconds > 0 ? count / seconds : 0);
+	}
+}
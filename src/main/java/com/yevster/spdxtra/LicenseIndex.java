@@ -0,0 +1,262 @@
+package com.yevster.spdxtra;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import org.apache.commons.io.IOUtils;
+
+import com.yevster.spdxtra.LicenseList.ListedLicense;
+
+/**
+ * A compact, read-only binary index of the listed licenses, which can be
+ * searched without parsing the RDF license list (or initializing Jena).
+ * Licenses are decoded one at a time, when they are looked up.
+ *
+ * The index is generated from the RDF-Thrift license list with
+ * {@link #main(String[])} (see the generateLicenseIndex Gradle task). Its
+ * layout, all integers big-endian:
+ *
+ * <pre>
+ * int    MAGIC
+ * int    FORMAT_VERSION
+ * int    count
+ * int[]  offsets of the count entries, ordered by the UTF-8 bytes of their IDs
+ * string license list version
+ * entries, each: string id, string name, byte flags (1 = OSI approved)
+ * </pre>
+ *
+ * where a string is an unsigned short byte length followed by UTF-8 bytes.
+ *
+ * @author yevster
+ *
+ */
+final class LicenseIndex {
+	static final int MAGIC = 0x5350494C; // "SPIL"
+	static final int FORMAT_VERSION = 1;
+	private static final int HEADER_SIZE = 12;
+	private static final int OSI_APPROVED = 1;
+
+	private final ByteBuffer buffer;
+	private final int count;
+	private final String version;
+
+	private LicenseIndex(ByteBuffer buffer) throws IOException {
+		this.buffer = buffer;
+		if (buffer.limit() < HEADER_SIZE || buffer.getInt(0) != MAGIC)
+			throw new IOException("Not a license index");
+		if (buffer.getInt(4) != FORMAT_VERSION)
+			throw new IOException("Unsupported license index version " + buffer.getInt(4));
+		this.count = buffer.getInt(8);
+		if (count < 0 || HEADER_SIZE + 4L * count > buffer.limit())
+			throw new IOException("Corrupt license index");
+		this.version = readString(HEADER_SIZE + 4 * count);
+	}
+
+	/**
+	 * Memory-maps the index file.
+	 */
+	static LicenseIndex open(Path path) throws IOException {
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			return new LicenseIndex(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+		}
+	}
+
+	/**
+	 * Opens the index from a class path resource. Memory-maps it if it's a
+	 * plain file; resources inside a jar can't be mapped, and are read into
+	 * memory instead.
+	 */
+	static LicenseIndex openResource(String name) throws IOException {
+		URL url = LicenseIndex.class.getClassLoader().getResource(name);
+		if (url == null)
+			throw new IOException("Missing resource " + name);
+		if ("file".equals(url.getProtocol())) {
+			try {
+				return open(Paths.get(url.toURI()));
+			} catch (URISyntaxException | IllegalArgumentException e) {
+				// Fall back to reading the stream
+			}
+		}
+		try (InputStream is = url.openStream()) {
+			return new LicenseIndex(ByteBuffer.wrap(IOUtils.toByteArray(is)));
+		}
+	}
+
+	/**
+	 * Returns true if the file starts like a license index.
+	 */
+	static boolean isIndex(Path path) throws IOException {
+		try (InputStream is = Files.newInputStream(path)) {
+			byte[] magic = new byte[4];
+			return IOUtils.read(is, magic) == magic.length && ByteBuffer.wrap(magic).getInt() == MAGIC;
+		}
+	}
+
+	String getVersion() {
+		return version;
+	}
+
+	int size() {
+		return count;
+	}
+
+	/**
+	 * Decodes the license with the ID, or returns null if there is none.
+	 */
+	ListedLicense find(String id) {
+		byte[] key = id.getBytes(StandardCharsets.UTF_8);
+		int low = 0;
+		int high = count - 1;
+		while (low <= high) {
+			int middle = (low + high) >>> 1;
+			int offset = entryOffset(middle);
+			int comparison = compareString(offset, key);
+			if (comparison < 0)
+				low = middle + 1;
+			else if (comparison > 0)
+				high = middle - 1;
+			else
+				return decode(offset);
+		}
+		return null;
+	}
+
+	/**
+	 * Decodes every license in the index, ordered by ID.
+	 */
+	List<ListedLicense> all() {
+		List<ListedLicense> result = new ArrayList<>(count);
+		for (int i = 0; i < count; ++i) {
+			result.add(decode(entryOffset(i)));
+		}
+		return result;
+	}
+
+	private int entryOffset(int i) {
+		return buffer.getInt(HEADER_SIZE + 4 * i);
+	}
+
+	private ListedLicense decode(int offset) {
+		String id = readString(offset);
+		offset += 2 + stringLength(offset);
+		String name = readString(offset);
+		offset += 2 + stringLength(offset);
+		boolean osiApproved = (buffer.get(offset) & OSI_APPROVED) != 0;
+		return new ListedLicense(id, name, osiApproved);
+	}
+
+	private int stringLength(int offset) {
+		return buffer.getShort(offset) & 0xFFFF;
+	}
+
+	private String readString(int offset) {
+		byte[] bytes = new byte[stringLength(offset)];
+		for (int i = 0; i < bytes.length; ++i) {
+			bytes[i] = buffer.get(offset + 2 + i);
+		}
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Compares the string stored at offset with key, byte by byte, without
+	 * decoding it. UTF-8 byte order is code point order.
+	 */
+	private int compareString(int offset, byte[] key) {
+		int length = stringLength(offset);
+		int common = Math.min(length, key.length);
+		for (int i = 0; i < common; ++i) {
+			int difference = (buffer.get(offset + 2 + i) & 0xFF) - (key[i] & 0xFF);
+			if (difference != 0)
+				return difference;
+		}
+		return length - key.length;
+	}
+
+	private static int compareBytes(byte[] a, byte[] b) {
+		int common = Math.min(a.length, b.length);
+		for (int i = 0; i < common; ++i) {
+			int difference = (a[i] & 0xFF) - (b[i] & 0xFF);
+			if (difference != 0)
+				return difference;
+		}
+		return a.length - b.length;
+	}
+
+	/**
+	 * Writes an index of the licenses.
+	 */
+	static void write(String version, Collection<ListedLicense> licenses, OutputStream os) throws IOException {
+		Validate.notNull(version);
+		List<ListedLicense> sorted = new ArrayList<>(licenses);
+		sorted.sort((a, b) -> compareBytes(utf8(a.getLicenseId()), utf8(b.getLicenseId())));
+		for (int i = 1; i < sorted.size(); ++i) {
+			Validate.validate(!sorted.get(i - 1).getLicenseId().equals(sorted.get(i).getLicenseId()),
+					"Duplicate license ID " + sorted.get(i).getLicenseId());
+		}
+		byte[] versionBytes = utf8(version);
+
+		DataOutputStream out = new DataOutputStream(new BufferedOutputStream(os));
+		out.writeInt(MAGIC);
+		out.writeInt(FORMAT_VERSION);
+		out.writeInt(sorted.size());
+		int offset = HEADER_SIZE + 4 * sorted.size() + 2 + versionBytes.length;
+		for (ListedLicense license : sorted) {
+			out.writeInt(offset);
+			offset += 2 + utf8(license.getLicenseId()).length + 2 + utf8(license.getName()).length + 1;
+		}
+		writeString(out, versionBytes);
+		for (ListedLicense license : sorted) {
+			writeString(out, utf8(license.getLicenseId()));
+			writeString(out, utf8(license.getName()));
+			out.writeByte(license.isOsiApproved() ? OSI_APPROVED : 0);
+		}
+		out.flush();
+	}
+
+	private static byte[] utf8(String s) {
+		byte[] result = s.getBytes(StandardCharsets.UTF_8);
+		Validate.validate(result.length <= 0xFFFF, "String too long for the license index: " + s);
+		return result;
+	}
+
+	private static void writeString(DataOutputStream out, byte[] bytes) throws IOException {
+		out.writeShort(bytes.length);
+		out.write(bytes);
+	}
+
+	/**
+	 * Generates the index from an RDF-Thrift license list.
+	 *
+	 * @param args
+	 *            The license list file and the index file to write.
+	 */
+	public static void main(String[] args) throws IOException {
+		if (args.length != 2) {
+			System.err.println("Usage: LicenseIndex [licenseList.bin] [licenseIndex.bin]");
+			System.exit(1);
+		}
+		LicenseList.RdfLicenses source;
+		try (InputStream is = Files.newInputStream(Paths.get(args[0]))) {
+			source = LicenseList.RdfLicenses.read(is);
+		}
+		try (OutputStream os = Files.newOutputStream(Paths.get(args[1]))) {
+			write(source.version, source.licenses.values(), os);
+		}
+		System.out.println("Indexed " + source.licenses.size() + " licenses from license list " + source.version);
+	}
+}
@@ -2,12 +2,12 @@ package com.yevster.spdxtra;
 
 import java.io.IOException;
 import java.io.InputStream;
-import java.net.URISyntaxException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
@@ -25,9 +25,24 @@ import org.apache.jena.riot.RDFDataMgr;
 import com.yevster.spdxtra.model.write.License;
 import com.yevster.spdxtra.util.MiscUtils;
 
+/**
+ * The SPDX license list. By default, licenses are looked up in a compact
+ * binary index (see {@link LicenseIndex}) that is generated from the bundled
+ * license list, and decoded the first time they are requested, so that a
+ * lookup doesn't pay for parsing the whole RDF license list.
+ *
+ * A different license list may be used by setting the
+ * {@value Constants#LICENSE_LIST_LOCATION_PROPERTY} system property to the
+ * location of either an RDF-Thrift license list or a license index.
+ *
+ * @author yevster
+ *
+ */
 public enum LicenseList {
 	INSTANCE;
 
+	static final String INDEX_RESOURCE = "licenseIndex.bin";
+
 	public static class ListedLicense extends License {
 		private String name;
 		private String id;
@@ -46,6 +61,12 @@ public enum LicenseList {
 
 		}
 
+		ListedLicense(String id, String name, boolean osiApproved) {
+			this.id = id;
+			this.name = name;
+			this.osiApproved = osiApproved;
+		}
+
 		/**
 		 * Returns the friendly name of the license.
 		 * 
@@ -94,27 +115,64 @@ public enum LicenseList {
 		}
 	}
 
-	private final Map<String, ListedLicense> retrievedListedLicenses;
+	/**
+	 * The licenses in an RDF-Thrift license list.
+	 */
+	static final class RdfLicenses {
+		final String version;
+		final Map<String, ListedLicense> licenses;
 
-	private final String version;
+		private RdfLicenses(String version, Map<String, ListedLicense> licenses) {
+			this.version = version;
+			this.licenses = licenses;
+		}
 
-	private LicenseList() {
-		final String licenseListLocation = System.getProperty(Constants.LICENSE_LIST_LOCATION_PROPERTY);
-		try {
+		static RdfLicenses read(InputStream is) {
 			Dataset dataset = DatasetFactory.create();
-			try (InputStream is = StringUtils.isNotBlank(licenseListLocation) ? Files.newInputStream(Paths.get(licenseListLocation))
-					: this.getClass().getClassLoader().getResourceAsStream("licenseList.bin")) {
-				RDFDataMgr.read(dataset, is, Lang.RDFTHRIFT);
-			}
-
+			RDFDataMgr.read(dataset, is, Lang.RDFTHRIFT);
 			Resource mainResource = dataset.getDefaultModel().getResource(Constants.LICENSE_LIST_URL);
-			version = mainResource.getProperty(SpdxProperties.LICENSE_LIST_VERSION).getString();
-			retrievedListedLicenses = MiscUtils.toLinearStream(mainResource.listProperties(SpdxProperties.LICENSE_LIST_LICENSE))
+			String version = mainResource.getProperty(SpdxProperties.LICENSE_LIST_VERSION).getString();
+			Map<String, ListedLicense> licenses = MiscUtils
+					.toLinearStream(mainResource.listProperties(SpdxProperties.LICENSE_LIST_LICENSE))
 					.map(Statement::getObject).map(RDFNode::asResource).map(ListedLicense::new)
 					.collect(Collectors.toMap(ListedLicense::getLicenseId, Function.identity()));
+			return new RdfLicenses(version, licenses);
+		}
+	}
+
+	/*
+	 * Licenses already retrieved, so that each is only decoded once. Holds all
+	 * the licenses if they were read from an RDF license list.
+	 */
+	private final Map<String, ListedLicense> retrievedListedLicenses = new ConcurrentHashMap<>();
+
+	// Null if the licenses were read from an RDF license list.
+	private final LicenseIndex index;
 
+	private final String version;
+
+	private LicenseList() {
+		final String licenseListLocation = System.getProperty(Constants.LICENSE_LIST_LOCATION_PROPERTY);
+		try {
+			if (StringUtils.isBlank(licenseListLocation)) {
+				index = LicenseIndex.openResource(INDEX_RESOURCE);
+				version = index.getVersion();
+			} else {
+				Path location = Paths.get(licenseListLocation);
+				if (LicenseIndex.isIndex(location)) {
+					index = LicenseIndex.open(location);
+					version = index.getVersion();
+				} else {
+					index = null;
+					try (InputStream is = Files.newInputStream(location)) {
+						RdfLicenses rdfLicenses = RdfLicenses.read(is);
+						version = rdfLicenses.version;
+						retrievedListedLicenses.putAll(rdfLicenses.licenses);
+					}
+				}
+			}
 		} catch (IOException e) {
-			throw new RuntimeException("Unable to initialize license list");
+			throw new RuntimeException("Unable to initialize license list", e);
 		}
 	}
 
@@ -126,8 +184,19 @@ public enum LicenseList {
 	 * @return
 	 */
 	public Optional<ListedLicense> getListedLicenseById(String id) {
-		return Optional.ofNullable(retrievedListedLicenses.get(id));
-
+		if (id == null)
+			return Optional.empty();
+		ListedLicense result = retrievedListedLicenses.get(id);
+		if (result == null && index != null) {
+			// Not computeIfAbsent: bootstrapping a lambda costs more than the
+			// lookup on a cold JVM.
+			ListedLicense decoded = index.find(id);
+			if (decoded != null) {
+				ListedLicense raced = retrievedListedLicenses.putIfAbsent(id, decoded);
+				result = raced != null ? raced : decoded;
+			}
+		}
+		return Optional.ofNullable(result);
 	}
 
 	/**
@@ -0,0 +1,136 @@
+package com.yevster.spdxtra;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+import org.apache.commons.codec.binary.Hex;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.jena.query.Dataset;
+import org.apache.jena.rdf.model.RDFNode;
+import org.apache.jena.rdf.model.Resource;
+import org.apache.jena.rdf.model.Statement;
+import org.apache.jena.rdf.model.StmtIterator;
+
+import com.yevster.spdxtra.model.Checksum;
+
+/**
+ * Computes package verification codes: the SHA1 of the concatenated SHA1
+ * checksums of the package's files, ordered by file name. Files without a
+ * SHA1 checksum are skipped.
+ *
+ * Files can be added in any order. Only the file names and checksums are kept,
+ * and the digest is computed incrementally, so the cost is one sort of the
+ * files by name, without building the concatenated string.
+ *
+ * Usage: <code>new PackageVerificationCode().addFile(name1, sha1).addFile(name2,
+ * sha2).compute()</code>, or {@link #compute(Dataset, String)} for a package
+ * already in a dataset.
+ *
+ * @author yevster
+ *
+ */
+public final class PackageVerificationCode {
+	private static final class Entry {
+		private final String fileName;
+		private final String sha1;
+
+		private Entry(String fileName, String sha1) {
+			this.fileName = fileName;
+			this.sha1 = sha1;
+		}
+	}
+
+	// A file may have more than one SHA1. The sort is stable, so they keep
+	// the order in which they were added.
+	private static final Comparator<Entry> byFileName = Comparator.comparing(e -> e.fileName,
+			Comparator.nullsFirst(Comparator.naturalOrder()));
+
+	private final List<Entry> entries = new ArrayList<>();
+
+	/**
+	 * Adds a file's SHA1 checksum to the verification code.
+	 *
+	 * @param fileName
+	 *            The file's name in the package. Files are ordered by name.
+	 * @param sha1
+	 *            The file's SHA1 checksum as a hex string.
+	 * @return this
+	 */
+	public PackageVerificationCode addFile(String fileName, String sha1) {
+		Validate.notNull(sha1);
+		entries.add(new Entry(fileName, sha1));
+		return this;
+	}
+
+	/**
+	 * Adds a hashed file, e.g. from {@link FileTreeHasher} or
+	 * {@link ChecksumCache}, to the verification code.
+	 */
+	public PackageVerificationCode addFile(FileTreeHasher.HashedFile file) {
+		return addFile(file.getFileName(), file.getSha1());
+	}
+
+	/**
+	 * Returns the verification code of the files added so far as a lower-case
+	 * hex string.
+	 */
+	public String compute() {
+		Collections.sort(entries, byFileName);
+		MessageDigest digest = DigestUtils.getSha1Digest();
+		for (Entry entry : entries) {
+			digest.update(entry.sha1.getBytes(StandardCharsets.UTF_8));
+		}
+		return Hex.encodeHexString(digest.digest());
+	}
+
+	/**
+	 * Computes the verification code of the package from the files it has in
+	 * the dataset, without modifying the dataset.
+	 *
+	 * @param dataset
+	 * @param packageUri
+	 * @return
+	 */
+	public static String compute(Dataset dataset, String packageUri) {
+		Validate.spdxElementUri(packageUri);
+		try (ReadSession session = ReadSession.open(dataset)) {
+			return compute(session.getModel().getResource(packageUri));
+		}
+	}
+
+	/**
+	 * Computes the verification code of the package resource from the files it
+	 * has. Must be called inside a transaction. Reads each file's name and
+	 * checksums exactly once.
+	 */
+	static String compute(Resource packageResource) {
+		PackageVerificationCode result = new PackageVerificationCode();
+		StmtIterator files = packageResource.listProperties(SpdxProperties.HAS_FILE);
+		try {
+			while (files.hasNext()) {
+				Resource file = files.next().getResource();
+				Statement fileName = file.getProperty(SpdxProperties.FILE_NAME);
+				String name = fileName == null ? null : fileName.getString();
+				StmtIterator checksums = file.listProperties(SpdxProperties.CHECKSUM);
+				try {
+					while (checksums.hasNext()) {
+						Resource checksum = checksums.next().getResource();
+						RDFNode algorithm = checksum.getProperty(SpdxProperties.CHECKSUM_ALGORITHM).getObject();
+						if (Checksum.Algorithm.SHA1.getUri().equals(algorithm.asResource().getURI())) {
+							result.addFile(name, checksum.getProperty(SpdxProperties.CHECKSUM_VALUE).getString());
+						}
+					}
+				} finally {
+					checksums.close();
+				}
+			}
+		} finally {
+			files.close();
+		}
+		return result.compute();
+	}
+}
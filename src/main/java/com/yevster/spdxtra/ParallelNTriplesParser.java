@@ -0,0 +1,146 @@
+package com.yevster.spdxtra;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+import org.apache.jena.graph.Triple;
+import org.apache.jena.riot.Lang;
+import org.apache.jena.riot.lang.LabelToNode;
+import org.apache.jena.riot.lang.LangNTriples;
+import org.apache.jena.riot.system.ParserProfile;
+import org.apache.jena.riot.system.RiotLib;
+import org.apache.jena.riot.system.StreamRDF;
+import org.apache.jena.riot.system.StreamRDFBase;
+import org.apache.jena.riot.tokens.TokenizerFactory;
+
+/**
+ * Parses N-Triples on a fork-join pool. Since every N-Triples line is a
+ * complete triple, the file is cut into chunks at line boundaries and each
+ * chunk is parsed independently. The parsed chunks are handed to the
+ * destination in file order on the calling thread, so the destination (usually
+ * a graph inside a write transaction) only ever sees a single writer.
+ *
+ * Blank node labels are document-scoped in N-Triples. All chunks allocate
+ * blank nodes by hashing the label with the same per-file seed, so _:b1 in one
+ * chunk is the same node as _:b1 in another.
+ *
+ * @author yevster
+ *
+ */
+class ParallelNTriplesParser {
+	static final int DEFAULT_CHUNK_SIZE = 4 * 1024 * 1024;
+
+	private final ForkJoinPool pool;
+	private final int chunkSize;
+	private final UUID blankNodeSeed = UUID.randomUUID();
+
+	ParallelNTriplesParser(ForkJoinPool pool, int chunkSize) {
+		this.pool = pool;
+		this.chunkSize = chunkSize;
+	}
+
+	ParallelNTriplesParser() {
+		this(ForkJoinPool.commonPool(), DEFAULT_CHUNK_SIZE);
+	}
+
+	/**
+	 * Parses the file into the destination. At most two chunks per pool
+	 * thread are read or parsed ahead of the destination, which bounds memory
+	 * use regardless of the file size.
+	 */
+	void parse(Path inputFilePath, StreamRDF destination) {
+		int window = Math.max(2, pool.getParallelism() * 2);
+		Deque<ForkJoinTask<List<Triple>>> inFlight = new ArrayDeque<>(window);
+		destination.start();
+		try (InputStream is = Files.newInputStream(inputFilePath)) {
+			byte[] carry = new byte[0];
+			while (true) {
+				byte[] chunk = readChunk(is, carry);
+				if (chunk == null)
+					break;
+				int end = lastLineEnd(chunk);
+				if (end < 0) {
+					// No line break yet: keep reading until there is one.
+					carry = chunk;
+					continue;
+				}
+				carry = Arrays.copyOfRange(chunk, end + 1, chunk.length);
+				submit(inFlight, chunk, end + 1);
+				while (inFlight.size() >= window) {
+					deliver(inFlight.removeFirst(), destination);
+				}
+			}
+			if (carry.length > 0) {
+				submit(inFlight, carry, carry.length);
+			}
+			while (!inFlight.isEmpty()) {
+				deliver(inFlight.removeFirst(), destination);
+			}
+		} catch (IOException e) {
+			throw new RuntimeException("Unable to read file " + inputFilePath.toAbsolutePath().toString(), e);
+		} finally {
+			inFlight.forEach(task -> task.cancel(true));
+		}
+		destination.finish();
+	}
+
+	/**
+	 * Reads the next chunk, prefixed with carry. Returns null at the end of
+	 * the input.
+	 */
+	private byte[] readChunk(InputStream is, byte[] carry) throws IOException {
+		byte[] chunk = Arrays.copyOf(carry, carry.length + chunkSize);
+		int length = carry.length;
+		int read;
+		while (length < chunk.length && (read = is.read(chunk, length, chunk.length - length)) != -1) {
+			length += read;
+		}
+		if (length == carry.length)
+			return null;
+		return length == chunk.length ? chunk : Arrays.copyOf(chunk, length);
+	}
+
+	private static int lastLineEnd(byte[] chunk) {
+		for (int i = chunk.length - 1; i >= 0; --i) {
+			if (chunk[i] == '\n')
+				return i;
+		}
+		return -1;
+	}
+
+	private void submit(Deque<ForkJoinTask<List<Triple>>> inFlight, byte[] chunk, int length) {
+		inFlight.addLast(pool.submit(() -> parseChunk(chunk, length)));
+	}
+
+	private static void deliver(ForkJoinTask<List<Triple>> task, StreamRDF destination) {
+		for (Triple triple : task.join()) {
+			destination.triple(triple);
+		}
+	}
+
+	private List<Triple> parseChunk(byte[] chunk, int length) {
+		List<Triple> triples = new ArrayList<>(length / 100);
+		ParserProfile profile = RiotLib.profile(Lang.NTRIPLES, null);
+		profile.setFactoryRDF(RiotLib.factoryRDF(LabelToNode.createScopeByDocumentHash(blankNodeSeed)));
+		StreamRDF collector = new StreamRDFBase() {
+			@Override
+			public void triple(Triple triple) {
+				triples.add(triple);
+			}
+		};
+		new LangNTriples(TokenizerFactory.makeTokenizerUTF8(new ByteArrayInputStream(chunk, 0, length)), profile,
+				collector).parse();
+		return triples;
+	}
+}
@@ -0,0 +1,365 @@
+package com.yevster.spdxtra;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.jena.graph.Graph;
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.NodeFactory;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.query.Dataset;
+import org.apache.jena.rdf.model.Property;
+import org.apache.jena.util.iterator.ExtendedIterator;
+
+import com.yevster.spdxtra.model.Checksum;
+import com.yevster.spdxtra.model.FileType;
+import com.yevster.spdxtra.model.SpdxIdentifiable;
+
+/**
+ * Reads chosen fields of every file in a dataset, rather than through one
+ * model object and a lookup per getter. For example, a file inventory:
+ *
+ * <pre>
+ * Projection.files(dataset, FileField.PACKAGE, FileField.NAME, FileField.SHA1, FileField.CONCLUDED_LICENSE)
+ * 		.forEach(row -&gt; out.println(row.get(FileField.NAME).orElse("") + "," + row.get(FileField.SHA1).orElse("")));
+ * </pre>
+ *
+ * Each projected property is read with one scan of the whole graph (e.g. of
+ * every fileName triple), and its values are joined to the files in memory,
+ * by subject. Checksums, which are resources of their own, take one more scan
+ * for their algorithms and one for their digests, however many algorithms are
+ * projected. A scan costs less per value than a lookup per file: on the
+ * synthetic 100,000-file document of ProjectionBenchmark, an inventory of
+ * names, SHA1s and types takes about two thirds of the time of the model
+ * getters in memory, and under half on TDB. Since every scan covers the whole graph,
+ * this is for inventories of a whole document; the files of one package, in a
+ * document with many, are cheaper to read with
+ * {@link com.yevster.spdxtra.model.SpdxPackage#getFiles()}.
+ *
+ * The rows are read up front, in one read transaction (or in the calling
+ * thread's), so the stream can be used outside any transaction. Memory use
+ * grows with the number of files.
+ *
+ * Values are rendered as strings: licenses as SPDX license expressions (e.g.
+ * "(Apache-2.0 OR MIT)"), file types as {@link FileType} names, and NONE and
+ * NOASSERTION as those words.
+ *
+ * @author yevster
+ *
+ */
+public final class Projection {
+	private Projection() {
+	}
+
+	public enum FileField {
+		/**
+		 * The URIs of the packages that have the file.
+		 */
+		PACKAGE,
+		NAME,
+		SHA1(Checksum.Algorithm.SHA1),
+		SHA256(Checksum.Algorithm.SHA256),
+		MD5(Checksum.Algorithm.MD5),
+		CONCLUDED_LICENSE,
+		FILE_TYPES;
+
+		// For checksums, the algorithm of the digest. Null otherwise.
+		private final Checksum.Algorithm algorithm;
+
+		private FileField() {
+			this(null);
+		}
+
+		private FileField(Checksum.Algorithm algorithm) {
+			this.algorithm = algorithm;
+		}
+	}
+
+	/**
+	 * The projected fields of one file.
+	 */
+	public static final class Row implements SpdxIdentifiable {
+		private final String uri;
+		private final FileField[] fields;
+		private final List<List<String>> values;
+
+		private Row(String uri, FileField[] fields) {
+			this.uri = uri;
+			this.fields = fields;
+			this.values = new ArrayList<>(fields.length);
+			for (int i = 0; i < fields.length; ++i) {
+				values.add(Collections.emptyList());
+			}
+		}
+
+		@Override
+		public String getUri() {
+			return uri;
+		}
+
+		/**
+		 * Returns a value of the field, or empty if the file doesn't have it.
+		 *
+		 * @throws IllegalArgumentException
+		 *             if the field was not projected.
+		 */
+		public Optional<String> get(FileField field) {
+			List<String> result = values.get(indexOf(field));
+			return result.isEmpty() ? Optional.empty() : Optional.of(result.get(0));
+		}
+
+		/**
+		 * Returns all the distinct values of the field, e.g. all the types of a
+		 * file.
+		 *
+		 * @throws IllegalArgumentException
+		 *             if the field was not projected.
+		 */
+		public List<String> getAll(FileField field) {
+			return Collections.unmodifiableList(values.get(indexOf(field)));
+		}
+
+		private int indexOf(FileField field) {
+			for (int i = 0; i < fields.length; ++i) {
+				if (fields[i] == field)
+					return i;
+			}
+			throw new IllegalArgumentException("Field " + field + " was not projected");
+		}
+
+		private void add(int i, String value) {
+			List<String> current = values.get(i);
+			if (current.contains(value))
+				return;
+			if (current.isEmpty()) {
+				values.set(i, Collections.singletonList(value));
+			} else {
+				List<String> grown = new ArrayList<>(current.size() + 1);
+				grown.addAll(current);
+				grown.add(value);
+				values.set(i, grown);
+			}
+		}
+
+		@Override
+		public String toString() {
+			StringBuilder result = new StringBuilder(uri);
+			for (int i = 0; i < fields.length; ++i) {
+				result.append(", ").append(fields[i]).append('=').append(values.get(i));
+			}
+			return result.toString();
+		}
+	}
+
+	/**
+	 * Projects the fields of every file in the dataset.
+	 */
+	public static Stream<Row> files(Dataset dataset, FileField... fields) {
+		Validate.notNull(dataset);
+		Validate.notNull(fields);
+		FileField[] distinct = Arrays.stream(fields).distinct().toArray(FileField[]::new);
+		Validate.validate(distinct.length > 0, "At least one field must be projected");
+		try (ReadSession session = ReadSession.open(dataset)) {
+			return new Join(session.getModel().getGraph(), distinct).read().stream();
+		}
+	}
+
+	/**
+	 * Joins the scans of the projected properties to the files. Works on the
+	 * graph rather than the model, so that no statement or resource objects
+	 * are created for the values.
+	 */
+	private static final class Join {
+		private final Graph graph;
+		private final FileField[] fields;
+		private final Map<Node, Row> rowsByFile = new HashMap<>();
+		private final List<Row> rows = new ArrayList<>();
+		// A license is often shared by many files, so it is rendered once.
+		private final Map<Node, String> licenses = new HashMap<>();
+
+		private Join(Graph graph, FileField[] fields) {
+			this.graph = graph;
+			this.fields = fields;
+		}
+
+		private List<Row> read() {
+			scan(SpdxProperties.RDF_TYPE, SpdxResourceTypes.FILE_TYPE.asNode(), t -> {
+				Row row = new Row(t.getSubject().getURI(), fields);
+				if (rowsByFile.putIfAbsent(t.getSubject(), row) == null)
+					rows.add(row);
+			});
+			boolean checksums = false;
+			for (int i = 0; i < fields.length; ++i) {
+				final int field = i;
+				switch (fields[i]) {
+				case PACKAGE:
+					scan(SpdxProperties.HAS_FILE, Node.ANY, t -> add(t.getObject(), field, t.getSubject().getURI()));
+					break;
+				case NAME:
+					scan(SpdxProperties.FILE_NAME, Node.ANY, t -> add(t.getSubject(), field, text(t.getObject())));
+					break;
+				case CONCLUDED_LICENSE:
+					scan(SpdxProperties.LICENSE_CONCLUDED, Node.ANY, t -> {
+						// Packages have concluded licenses too, which are not rendered.
+						Row row = rowsByFile.get(t.getSubject());
+						if (row != null)
+							row.add(field, license(t.getObject()));
+					});
+					break;
+				case FILE_TYPES:
+					scan(SpdxProperties.FILE_TYPE, Node.ANY,
+							t -> add(t.getSubject(), field, FileType.fromUri(t.getObject().getURI()).name()));
+					break;
+				default:
+					checksums = true;
+				}
+			}
+			if (checksums)
+				readChecksums();
+			return rows;
+		}
+
+		/**
+		 * A checksum of a file, and the projected field of its algorithm, if
+		 * any.
+		 */
+		private static final class PendingChecksum {
+			private final Row row;
+			private int field = -1;
+
+			private PendingChecksum(Row row) {
+				this.row = row;
+			}
+		}
+
+		private void readChecksums() {
+			Map<Node, Integer> fieldsByAlgorithm = new HashMap<>();
+			for (int i = 0; i < fields.length; ++i) {
+				if (fields[i].algorithm != null)
+					fieldsByAlgorithm.put(NodeFactory.createURI(fields[i].algorithm.getUri()), i);
+			}
+			Map<Node, PendingChecksum> checksums = new HashMap<>();
+			scan(SpdxProperties.CHECKSUM, Node.ANY, t -> {
+				Row row = rowsByFile.get(t.getSubject());
+				if (row != null)
+					checksums.put(t.getObject(), new PendingChecksum(row));
+			});
+			scan(SpdxProperties.CHECKSUM_ALGORITHM, Node.ANY, t -> {
+				PendingChecksum checksum = checksums.get(t.getSubject());
+				Integer field = fieldsByAlgorithm.get(t.getObject());
+				if (checksum != null && field != null)
+					checksum.field = field;
+			});
+			scan(SpdxProperties.CHECKSUM_VALUE, Node.ANY, t -> {
+				PendingChecksum checksum = checksums.get(t.getSubject());
+				if (checksum != null && checksum.field >= 0)
+					checksum.row.add(checksum.field, text(t.getObject()));
+			});
+		}
+
+		private void scan(Property property, Node object, Consumer<Triple> action) {
+			ExtendedIterator<Triple> it = graph.find(Node.ANY, property.asNode(), object);
+			try {
+				while (it.hasNext()) {
+					action.accept(it.next());
+				}
+			} finally {
+				it.close();
+			}
+		}
+
+		private void add(Node file, int field, String value) {
+			Row row = rowsByFile.get(file);
+			if (row != null)
+				row.add(field, value);
+		}
+
+		private String license(Node license) {
+			String result = licenses.get(license);
+			if (result == null) {
+				result = renderLicense(graph, license);
+				licenses.put(license, result);
+			}
+			return result;
+		}
+	}
+
+	/**
+	 * Literals as their text, URIs as themselves.
+	 */
+	private static String text(Node value) {
+		if (value.isLiteral())
+			return value.getLiteralLexicalForm();
+		return value.isURI() ? value.getURI() : value.toString();
+	}
+
+	private static final String CONJUNCTIVE_SET = SpdxUris.SPDX_TERMS + "ConjunctiveLicenseSet";
+	private static final String DISJUNCTIVE_SET = SpdxUris.SPDX_TERMS + "DisjunctiveLicenseSet";
+
+	/**
+	 * Renders the license as an SPDX license expression. A license set is
+	 * rendered as the canonical key of its model object is: the distinct
+	 * renderings of its members, sorted, with sets among them parenthesized.
+	 */
+	private static String renderLicense(Graph graph, Node license) {
+		if (license.isLiteral())
+			return license.getLiteralLexicalForm();
+		if (license.isURI()) {
+			String uri = license.getURI();
+			if (uri.startsWith(SpdxUris.LISTED_LICENSE_NAMESPACE))
+				return uri.substring(SpdxUris.LISTED_LICENSE_NAMESPACE.length());
+			if (SpdxUris.NO_ASSERTION.equals(uri))
+				return NoneNoAssertionOrValue.AbsentValue.NOASSERTION.name();
+			if (SpdxUris.NONE.equals(uri))
+				return NoneNoAssertionOrValue.AbsentValue.NONE.name();
+			// Extracted licenses are named after their SPDX IDs.
+			return uri.contains("#") ? StringUtils.substringAfterLast(uri, "#") : uri;
+		}
+		String operator = operator(graph, license);
+		if (operator == null)
+			return license.toString();
+		List<String> members = new ArrayList<>();
+		ExtendedIterator<Triple> it = graph.find(license, SpdxProperties.LICENSE_MEMBER.asNode(), Node.ANY);
+		try {
+			while (it.hasNext()) {
+				Node member = it.next().getObject();
+				String rendered = renderLicense(graph, member);
+				members.add(member.isBlank() && operator(graph, member) != null ? "(" + rendered + ")" : rendered);
+			}
+		} finally {
+			it.close();
+		}
+		Collections.sort(members);
+		StringBuilder result = new StringBuilder();
+		for (int i = 0; i < members.size(); ++i) {
+			if (i > 0 && members.get(i).equals(members.get(i - 1)))
+				continue;
+			if (result.length() > 0)
+				result.append(operator);
+			result.append(members.get(i));
+		}
+		return result.toString();
+	}
+
+	/**
+	 * Returns the operator of the license set, or null if the license is not a
+	 * set.
+	 */
+	private static String operator(Graph graph, Node license) {
+		Node type = GraphLookups.first(graph, license, SpdxProperties.RDF_TYPE);
+		String typeUri = type != null && type.isURI() ? type.getURI() : null;
+		if (CONJUNCTIVE_SET.equals(typeUri))
+			return " AND ";
+		if (DISJUNCTIVE_SET.equals(typeUri))
+			return " OR ";
+		return null;
+	}
+}
@@ -0,0 +1,120 @@
+package com.yevster.spdxtra;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.regex.Pattern;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.jena.riot.Lang;
+import org.apache.jena.riot.RDFLanguages;
+
+/**
+ * Works out which RDF syntax a file is written in, first from its file name
+ * and, failing that, from the first few kilobytes of its content. Anything that
+ * can't be recognized is assumed to be RDF/XML, which is what SPDX tools
+ * produce.
+ *
+ * @author yevster
+ *
+ */
+class RdfFormatDetector {
+	private static final int SAMPLE_SIZE = 16 * 1024;
+	/**
+	 * A line that starts with an IRI and goes on to be a statement, e.g.
+	 * {@code <http://a> <http://b> <http://c> .}, as opposed to an XML tag,
+	 * which has whitespace within the brackets or no statement after them.
+	 */
+	private static final Pattern IRI_STATEMENT = Pattern
+			.compile("<[^\\s<>\"{}|^`\\\\]*>\\s*[<_\"\\[(\\w].*[.;,\\[(]");
+	private static final String IRI = "<(?:[^\\x00-\\x20<>\"{}|^`\\\\]++|\\\\[uU][0-9A-Fa-f]++)*+>";
+	private static final String BLANK_NODE = "_:[^\\s<>\"]*[^\\s<>\".]";
+	private static final String LITERAL = "\"(?:[^\"\\\\\\r\\n]++|\\\\.)*+\"(?:\\^\\^" + IRI
+			+ "|@[a-zA-Z]++(?:-[a-zA-Z0-9]++)*+)?";
+	/**
+	 * A complete N-Triples statement: a subject IRI or blank node, a
+	 * predicate IRI, and an IRI, blank node or quoted literal object. Turtle
+	 * shorthand, such as the keyword a, numbers or prefixed names, doesn't
+	 * match.
+	 */
+	private static final Pattern N_TRIPLES_STATEMENT = Pattern.compile("(?:" + IRI + "|" + BLANK_NODE + ")\\s*" + IRI
+			+ "\\s*(?:" + IRI + "|" + BLANK_NODE + "|" + LITERAL + ")\\s*\\.\\s*(?:#.*)?");
+
+	static Lang detect(Path inputFilePath) {
+		Lang byName = RDFLanguages.filenameToLang(inputFilePath.getFileName().toString());
+		if (byName != null)
+			return byName;
+
+		byte[] sample = new byte[SAMPLE_SIZE];
+		int length = 0;
+		try (InputStream is = Files.newInputStream(inputFilePath)) {
+			int read;
+			while (length < sample.length && (read = is.read(sample, length, sample.length - length)) != -1) {
+				length += read;
+			}
+		} catch (IOException e) {
+			throw new RuntimeException("Unable to read file " + inputFilePath.toAbsolutePath().toString(), e);
+		}
+		return detect(sample, length);
+	}
+
+	/**
+	 * Guesses the syntax of the content that begins with the first length bytes
+	 * of sample.
+	 */
+	static Lang detect(byte[] sample, int length) {
+		int start = 0;
+		// UTF-8 byte order mark
+		if (length >= 3 && (sample[0] & 0xFF) == 0xEF && (sample[1] & 0xFF) == 0xBB && (sample[2] & 0xFF) == 0xBF)
+			start = 3;
+		if (length > start && isBinary(sample[start]))
+			return RDFLanguages.THRIFT;
+
+		String text = new String(sample, start, length - start, StandardCharsets.UTF_8);
+		String[] lines = StringUtils.split(text, "\r\n");
+		// The last line of the sample may have been cut off.
+		int completeLines = length == sample.length ? lines.length - 1 : lines.length;
+
+		boolean sawTriple = false;
+		for (int i = 0; i < completeLines; ++i) {
+			String line = lines[i].trim();
+			if (line.isEmpty() || line.startsWith("#"))
+				continue;
+			if (!sawTriple) {
+				char first = line.charAt(0);
+				if (first == '{')
+					return Lang.JSONLD;
+				if (first == '[')
+					return isJsonArray(StringUtils.join(lines, ' ', i, lines.length)) ? Lang.JSONLD : Lang.TURTLE;
+				if (first == '<' && !IRI_STATEMENT.matcher(line).matches())
+					// An XML declaration, comment or tag, e.g. <rdf:RDF ...> or
+					// <spdx:SpdxDocument ...>, or too little to tell.
+					return Lang.RDFXML;
+			}
+			// N-Triples is a subset of Turtle: one full triple on each line.
+			// Anything else is read as Turtle, which reads N-Triples too.
+			if (!N_TRIPLES_STATEMENT.matcher(line).matches())
+				return Lang.TURTLE;
+			sawTriple = true;
+		}
+		return sawTriple ? Lang.NTRIPLES : Lang.RDFXML;
+	}
+
+	/**
+	 * Returns true if the text, which starts with '[', starts a JSON array of
+	 * objects, rather than a Turtle blank node, e.g. "[ spdx:name ... ] ." or
+	 * "[] spdx:name ... .".
+	 */
+	private static boolean isJsonArray(String text) {
+		String rest = StringUtils.stripStart(text.substring(1), null);
+		if (rest.startsWith("{"))
+			return true;
+		return rest.startsWith("]") && StringUtils.isBlank(rest.substring(1));
+	}
+
+	private static boolean isBinary(byte b) {
+		return (b >= 0 && b < 0x20 && b != '\t' && b != '\n' && b != '\r') || b < 0;
+	}
+}
@@ -1,36 +1,168 @@
 package com.yevster.spdxtra;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.jena.rdf.model.Property;
+import org.apache.jena.rdf.model.RDFNode;
 import org.apache.jena.rdf.model.Resource;
 import org.apache.jena.rdf.model.Statement;
+import org.apache.jena.rdf.model.StmtIterator;
 import org.apache.jena.rdf.model.impl.PropertyImpl;
 
+/**
+ * Base class for the model objects, which read their fields from an RDF
+ * resource.
+ *
+ * A representation is either live, reading the resource each time a getter is
+ * called, or materialized, holding all of the resource's outgoing statements
+ * as they were when it was created. A materialized representation reads them
+ * in a single scan, and its getters don't go back to the dataset (with the
+ * exceptions documented by the subclasses), so they can be called any number
+ * of times, and outside the transaction.
+ *
+ * @author yevster
+ *
+ */
 public abstract class RdfResourceRepresentation {
+	// Property URI -> property, for the getters that take URIs
+	private static final Map<String, Property> propertiesByUri = new ConcurrentHashMap<>();
+
 	protected final Resource rdfResource;
 
+	// The outgoing statements, if materialized: predicates[i] -> objects[i].
+	// Resources have a few dozen properties at most, so a scan is cheaper
+	// than a map.
+	private final Property[] predicates;
+	private final RDFNode[] objects;
+
 	protected RdfResourceRepresentation(Resource rdfResource) {
+		this(rdfResource, false);
+	}
+
+	/**
+	 * @param materialize
+	 *            If true, reads all the outgoing statements of the resource
+	 *            now. Must then be called inside a transaction.
+	 */
+	protected RdfResourceRepresentation(Resource rdfResource, boolean materialize) {
 		this.rdfResource = rdfResource;
+		if (materialize) {
+			List<Statement> statements = new ArrayList<>();
+			StmtIterator it = rdfResource.listProperties();
+			try {
+				while (it.hasNext()) {
+					statements.add(it.next());
+				}
+			} finally {
+				it.close();
+			}
+			predicates = new Property[statements.size()];
+			objects = new RDFNode[statements.size()];
+			for (int i = 0; i < predicates.length; ++i) {
+				predicates[i] = statements.get(i).getPredicate();
+				objects[i] = statements.get(i).getObject();
+			}
+		} else {
+			predicates = null;
+			objects = null;
+		}
+	}
+
+	/**
+	 * Returns true if this representation holds a snapshot of its resource's
+	 * statements, rather than reading the resource.
+	 */
+	public final boolean isMaterialized() {
+		return predicates != null;
+	}
+
+	/**
+	 * Returns a value of the property, or null if the resource doesn't have
+	 * it.
+	 */
+	protected RDFNode getPropertyValue(Property property) {
+		if (predicates == null) {
+			Statement stmt = rdfResource.getProperty(property);
+			return stmt == null ? null : stmt.getObject();
+		}
+		for (int i = 0; i < predicates.length; ++i) {
+			if (predicates[i].equals(property))
+				return objects[i];
+		}
+		return null;
+	}
+
+	/**
+	 * Returns all the values of the property.
+	 */
+	protected List<RDFNode> getPropertyValues(Property property) {
+		List<RDFNode> result = new ArrayList<>();
+		if (predicates == null) {
+			StmtIterator it = rdfResource.listProperties(property);
+			try {
+				while (it.hasNext()) {
+					result.add(it.next().getObject());
+				}
+			} finally {
+				it.close();
+			}
+		} else {
+			for (int i = 0; i < predicates.length; ++i) {
+				if (predicates[i].equals(property))
+					result.add(objects[i]);
+			}
+		}
+		return Collections.unmodifiableList(result);
+	}
+
+	private static Property property(String propertyUri) {
+		Property result = propertiesByUri.get(propertyUri);
+		if (result == null) {
+			result = new PropertyImpl(propertyUri);
+			Property existing = propertiesByUri.putIfAbsent(propertyUri, result);
+			if (existing != null)
+				result = existing;
+		}
+		return result;
 	}
 
 	protected String getPropertyAsString(Property property) {
-		Statement stmt = rdfResource.getProperty(property);
-		if (stmt == null)
+		return getPropertyAsString(property, null);
+	}
+
+	/**
+	 * Returns the property as a string, reading it from the blob store if it
+	 * is a reference.
+	 *
+	 * @param blobs
+	 *            The store, or null if a reference can't be resolved.
+	 */
+	protected String getPropertyAsString(Property property, BlobStore blobs) {
+		RDFNode value = getPropertyValue(property);
+		if (value == null)
 			return null;
 		else
-			return stmt.getString();
+			return BlobStore.text(value.asLiteral(), blobs);
 	}
 
 	protected String getPropertyAsString(String propertyUri) {
-		return getPropertyAsString(new PropertyImpl(propertyUri));
+		return getPropertyAsString(property(propertyUri));
 	}
 	
 	protected Optional<String> getOptionalPropertyAsString(Property property){
-		Statement stmt = rdfResource.getProperty(property);
-		if (stmt == null) return Optional.empty();
-		else return Optional.of(stmt.getObject().asLiteral().getString());
+		return getOptionalPropertyAsString(property, null);
+	}
+
+	protected Optional<String> getOptionalPropertyAsString(Property property, BlobStore blobs){
+		RDFNode value = getPropertyValue(property);
+		if (value == null) return Optional.empty();
+		else return Optional.of(BlobStore.text(value.asLiteral(), blobs));
 	}
 
 	/**
@@ -40,7 +172,7 @@ public abstract class RdfResourceRepresentation {
 	 * @return
 	 */
 	protected Optional<Resource> getPropertyAsResource(String propertyUri) {
-		return getPropertyAsResource(new PropertyImpl(propertyUri));
+		return getPropertyAsResource(property(propertyUri));
 	}
 
 	/**
@@ -50,10 +182,10 @@ public abstract class RdfResourceRepresentation {
 	 * @return
 	 */
 	protected Optional<Resource> getPropertyAsResource(Property property) {
-		Statement stmt = rdfResource.getProperty(property);
-		if (stmt == null)
+		RDFNode value = getPropertyValue(property);
+		if (value == null)
 			return Optional.empty();
-		return Optional.of(stmt.getResource());
+		return Optional.of(value.asResource());
 	}
 
 	/**
@@ -65,12 +197,23 @@ public abstract class RdfResourceRepresentation {
 	 * @return
 	 */
 	protected NoneNoAssertionOrValue getPropertyAsNoneNoAssertionOrValue(Property property) {
-		Statement stmt = rdfResource.getProperty(property);
-		if (stmt == null)
+		return getPropertyAsNoneNoAssertionOrValue(property, null);
+	}
+
+	/**
+	 * Like {@link #getPropertyAsNoneNoAssertionOrValue(Property)}, reading a
+	 * literal value from the blob store if it is a reference.
+	 *
+	 * @param blobs
+	 *            The store, or null if a reference can't be resolved.
+	 */
+	protected NoneNoAssertionOrValue getPropertyAsNoneNoAssertionOrValue(Property property, BlobStore blobs) {
+		RDFNode value = getPropertyValue(property);
+		if (value == null)
 			return NoneNoAssertionOrValue.NO_ASSERTION;
-		if (stmt.getObject().isLiteral()) {
-			return NoneNoAssertionOrValue.parse(stmt.getObject().asLiteral().getString());
-		} else if ((SpdxUris.SPDX_TERMS + "noassertion").equals(stmt.getObject().asResource().getURI()))
+		if (value.isLiteral()) {
+			return NoneNoAssertionOrValue.parse(BlobStore.text(value.asLiteral(), blobs));
+		} else if ((SpdxUris.SPDX_TERMS + "noassertion").equals(value.asResource().getURI()))
 			return NoneNoAssertionOrValue.NO_ASSERTION;
 		else
 			return NoneNoAssertionOrValue.NONE;
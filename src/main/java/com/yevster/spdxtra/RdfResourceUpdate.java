@@ -40,6 +40,18 @@ public class RdfResourceUpdate implements ModelUpdate {
 		return new RdfResourceUpdate(resourceUri, property, false, updateBuilder);
 	}
 
+	/**
+	 * Creates an update that updates an existing user property, keeping the
+	 * value in the blob store if it is long enough.
+	 */
+	static RdfResourceUpdate updateStringProperty(String resourceUri, Property property, String updatedValue,
+			BlobStore blobs) {
+		Validate.notNull(updatedValue);
+		Validate.notNull(blobs);
+		UpdateRdfNodeBuilder updateBuilder = (Model model) -> blobs.literal(model, updatedValue);
+		return new RdfResourceUpdate(resourceUri, property, false, updateBuilder);
+	}
+
 	@FunctionalInterface
 	public interface UpdateRdfNodeBuilder {
 		RDFNode newValue(Model model);
@@ -10,35 +10,33 @@ import com.yevster.spdxtra.model.SpdxElement;
 import com.yevster.spdxtra.model.SpdxPackage;
 import org.apache.commons.io.input.ReaderInputStream;
 import org.apache.jena.query.Dataset;
-import org.apache.jena.query.QueryExecution;
-import org.apache.jena.query.QueryExecutionFactory;
-import org.apache.jena.query.QuerySolution;
 import org.apache.jena.query.ReadWrite;
-import org.apache.jena.query.ResultSet;
 import org.apache.jena.rdf.model.Model;
 import org.apache.jena.rdf.model.RDFNode;
 import org.apache.jena.rdf.model.Resource;
+import org.apache.jena.rdf.model.ResourceFactory;
 import org.apache.jena.riot.Lang;
 import org.apache.jena.riot.RDFDataMgr;
 import org.apache.jena.riot.RDFFormat;
 import org.apache.jena.riot.WriterGraphRIOT;
 import org.apache.jena.riot.system.PrefixMapFactory;
+import org.apache.jena.sparql.core.DatasetGraphFactory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.InputStream;
+import java.io.OutputStream;
 import java.io.StringReader;
 import java.io.StringWriter;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
-import java.util.Spliterator;
-import java.util.Spliterators;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
-import java.util.stream.StreamSupport;
 
 /**
  * @author yevster
@@ -59,17 +57,8 @@ public class Read {
 		 * @return
 		 */
 		public static SpdxDocument get(Dataset dataset) {
-			try (DatasetAutoAbortTransaction transaction = DatasetAutoAbortTransaction.begin(dataset, ReadWrite.READ)) {
-
-				String sparql = Read.createSparqlQueryByType(SpdxDocument.RDF_TYPE);
-				QueryExecution qe = QueryExecutionFactory.create(sparql, dataset);
-				ResultSet results = qe.execSelect();
-				assert (results.hasNext()); // There should always be one
-											// document
-											// per SPDX File.
-				RDFNode subject = results.next().get("s");
-				assert (subject.isResource());
-				return new SpdxDocument(subject.asResource());
+			try (ReadSession session = ReadSession.open(dataset)) {
+				return session.getDocument();
 			}
 		}
 
@@ -81,41 +70,71 @@ public class Read {
 
 	static final Logger logger = LoggerFactory.getLogger(Read.class);
 
-	private static String createSparqlQueryByType(String typeUri) {
-		return "SELECT ?s  WHERE { ?s  <" + SpdxProperties.RDF_TYPE + ">  <" + typeUri + "> }";
+	/**
+	 * Writes the dataset to the file as RDF/XML.
+	 *
+	 * @throws IllegalStateException
+	 *             if the dataset refers to texts in a blob store. Use
+	 *             {@link #outputRdfXml(Dataset, Path, BlobStore)}.
+	 */
+	public static void outputRdfXml(Dataset dataset, Path outputFilePath) throws IOException {
+		writeRdfXml(dataset, outputFilePath, null);
 	}
 
-	private static String createSparqlQueryBySubjectAndPredicate(String subjectUri, String predicateUri) {
-		return "SELECT ?o where { <" + subjectUri + "> <" + predicateUri + "> ?o}";
+	/**
+	 * Writes the dataset to the file as RDF/XML, with the texts it keeps in the
+	 * blob store written in full.
+	 */
+	public static void outputRdfXml(Dataset dataset, Path outputFilePath, BlobStore blobs) throws IOException {
+		Objects.requireNonNull(blobs);
+		writeRdfXml(dataset, outputFilePath, blobs);
 	}
 
-	public static void outputRdfXml(Dataset dataset, Path outputFilePath) throws IOException {
+	private static void writeRdfXml(Dataset dataset, Path outputFilePath, BlobStore blobs) throws IOException {
 		Objects.requireNonNull(dataset);
 		Objects.requireNonNull(outputFilePath);
 		Files.createFile(outputFilePath);
 		try (FileOutputStream fos = new FileOutputStream(outputFilePath.toFile());
 				DatasetAutoAbortTransaction transaction = DatasetAutoAbortTransaction.begin(dataset, ReadWrite.READ)) {
 			WriterGraphRIOT writer = RDFDataMgr.createGraphWriter(RDFFormat.RDFXML_PRETTY);
-			writer.write(fos, dataset.asDatasetGraph().getDefaultGraph(),
+			writer.write(fos, new BlobResolvingGraph(dataset.asDatasetGraph().getDefaultGraph(), blobs),
 					PrefixMapFactory.create(dataset.getDefaultModel().getNsPrefixMap()), null, dataset.getContext());
 		}
 	}
 
 	/**
 	 * Produces prettified JSON-LD form of SPDX with SPDX terms spirited into
-	 * the context and out of the document.
+	 * the context and out of the document. The whole document is built in
+	 * memory; for large documents, use
+	 * {@link #outputJsonLd(Dataset, OutputStream)}.
 	 * 
 	 * @param dataset
 	 * @return
+	 * @throws IllegalStateException
+	 *             if the dataset refers to texts in a blob store. Use
+	 *             {@link #outputJsonLd(Dataset, BlobStore)}.
 	 */
 	public static String outputJsonLd(Dataset dataset) {
-		// TODO: Remove in-memory limitation
+		return writeJsonLd(dataset, null);
+	}
+
+	/**
+	 * Like {@link #outputJsonLd(Dataset)}, with the texts the dataset keeps in
+	 * the blob store written in full.
+	 */
+	public static String outputJsonLd(Dataset dataset, BlobStore blobs) {
+		Objects.requireNonNull(blobs);
+		return writeJsonLd(dataset, blobs);
+	}
+
+	private static String writeJsonLd(Dataset dataset, BlobStore blobs) {
 		Object jsonLdRaw = null;
 		String jsonLdRawString = null;
 		try (DatasetAutoAbortTransaction transaction = DatasetAutoAbortTransaction.begin(dataset, ReadWrite.READ);
 				StringWriter out = new StringWriter()) {
 			logger.debug("Starting raw JSON-LD output");
-			RDFDataMgr.write(out, dataset, Lang.JSONLD);
+			RDFDataMgr.write(out, DatasetGraphFactory.createOneGraph(
+					new BlobResolvingGraph(dataset.asDatasetGraph().getDefaultGraph(), blobs)), Lang.JSONLD);
 			out.flush();
 			jsonLdRawString = out.toString();
 			logger.debug("Raw jsonld produced.");
@@ -132,9 +151,7 @@ public class Read {
 		Object jsonLdContext = null;
 
 		try {
-			InputStream jsonContextStream = Read.class.getClassLoader().getResourceAsStream("spdxContext.json");
-			jsonLdContext = JsonUtils.fromInputStream(jsonContextStream);
-			jsonContextStream.close();
+			jsonLdContext = StreamingJsonLdWriter.loadSpdxContext();
 		} catch (IOException e) {
 			logger.error("Unable to read JSON context. The resulting JSON will not look pretty", e);
 		}
@@ -154,23 +171,75 @@ public class Read {
 
 	}
 
-	public static Stream<SpdxPackage> getAllPackages(Dataset dataset) {
+	/**
+	 * Writes compacted JSON-LD form of SPDX, with SPDX terms spirited into the
+	 * context, to the output stream in UTF-8. Unlike
+	 * {@link #outputJsonLd(Dataset)}, the document is streamed one element
+	 * (document, package, file...) at a time, so memory use is bounded by the
+	 * largest element rather than by the whole document. The stream is not
+	 * closed.
+	 * 
+	 * @param dataset
+	 * @param out
+	 * @throws IOException
+	 * @throws IllegalStateException
+	 *             if the dataset refers to texts in a blob store. Use
+	 *             {@link #outputJsonLd(Dataset, OutputStream, BlobStore)}.
+	 */
+	public static void outputJsonLd(Dataset dataset, OutputStream out) throws IOException {
+		writeJsonLd(dataset, out, null);
+	}
 
-		try (DatasetAutoAbortTransaction transaction = DatasetAutoAbortTransaction.begin(dataset, ReadWrite.READ)) {
+	/**
+	 * Like {@link #outputJsonLd(Dataset, OutputStream)}, with the texts the
+	 * dataset keeps in the blob store written in full.
+	 */
+	public static void outputJsonLd(Dataset dataset, OutputStream out, BlobStore blobs) throws IOException {
+		Objects.requireNonNull(blobs);
+		writeJsonLd(dataset, out, blobs);
+	}
 
-			String sparql = createSparqlQueryByType(SpdxUris.SPDX_PACKAGE);
-			QueryExecution qe = QueryExecutionFactory.create(sparql, dataset);
-			ResultSet results = qe.execSelect();
-			Stream<QuerySolution> querySolutionStream = StreamSupport
-					.stream(Spliterators.spliteratorUnknownSize(results, Spliterator.ORDERED | Spliterator.NONNULL), false);
+	private static void writeJsonLd(Dataset dataset, OutputStream out, BlobStore blobs) throws IOException {
+		Objects.requireNonNull(dataset);
+		Objects.requireNonNull(out);
+		Object jsonLdContext = StreamingJsonLdWriter.loadSpdxContext();
+		try (DatasetAutoAbortTransaction transaction = DatasetAutoAbortTransaction.begin(dataset, ReadWrite.READ)) {
+			logger.debug("Starting streaming JSON-LD output");
+			new StreamingJsonLdWriter(new BlobResolvingGraph(dataset.asDatasetGraph().getDefaultGraph(), blobs),
+					jsonLdContext).write(out);
+			logger.debug("Streaming JSON-LD output complete.");
+		}
+	}
 
-			return querySolutionStream.map((QuerySolution qs) -> {
-				RDFNode subject = qs.get("s");
-				return new SpdxPackage(subject.asResource());
-			});
+	/**
+	 * Returns all the packages in the dataset. The packages are read up front,
+	 * so the stream can be used outside any transaction. For a lazy stream,
+	 * use {@link #streamAllPackages(Dataset)}.
+	 * 
+	 * @param dataset
+	 * @return
+	 */
+	public static Stream<SpdxPackage> getAllPackages(Dataset dataset) {
+		try (Stream<SpdxPackage> packages = streamAllPackages(dataset)) {
+			return packages.collect(Collectors.toList()).stream();
 		}
 	}
 
+	/**
+	 * Returns a lazy stream of all the packages in the dataset. Unless the
+	 * calling thread is already in a transaction, the stream holds its own
+	 * read transaction until it is closed, so it must be closed (e.g. with
+	 * try-with-resources), and consumed sequentially on the calling thread.
+	 * 
+	 * @param dataset
+	 * @return
+	 */
+	public static Stream<SpdxPackage> streamAllPackages(Dataset dataset) {
+		return TransactionalStream.of(dataset,
+				model -> model.listSubjectsWithProperty(SpdxProperties.RDF_TYPE, SpdxResourceTypes.PACKAGE_TYPE)
+						.mapWith(SpdxPackage::new));
+	}
+
 	/**
 	 * Returns all the relationships element has and the targets of those
 	 * relationships. Does not return the relationships for which
@@ -179,51 +248,92 @@ public class Read {
 	 * For example, if element is an SpdxDocument that describes a package, the
 	 * DESCRIBES relationship from the document to the package will be returned.
 	 * However, the DESCRIBED_BY relationship from the package to the document
-	 * will not be returned.
+	 * will not be returned. To find the elements that have relationships to
+	 * an element, see
+	 * {@link #getRelationshipSources(Dataset, SpdxElement, Relationship.Type)}.
+	 * 
+	 * The relationships are read up front, so the stream can be used outside
+	 * any transaction. For a lazy stream, use
+	 * {@link #streamRelationships(Dataset, SpdxElement)}.
 	 * 
 	 * @param relationshipSource
 	 * @return
 	 */
 	public static Stream<Relationship> getRelationships(Dataset dataset, SpdxElement element) {
-		String sparql = createSparqlQueryBySubjectAndPredicate(element.getUri(), SpdxUris.SPDX_RELATIONSHIP);
+		try (Stream<Relationship> relationships = streamRelationships(dataset, element)) {
+			return relationships.collect(Collectors.toList()).stream();
+		}
+	}
 
-		return getRelationshipsWithSparql(dataset, sparql);
+	public static Stream<Relationship> getRelationships(Dataset dataset, SpdxElement element, Relationship.Type relationshipType) {
+		try (Stream<Relationship> relationships = streamRelationships(dataset, element, relationshipType)) {
+			return relationships.collect(Collectors.toList()).stream();
+		}
 	}
 
-	private static Stream<Relationship> getRelationshipsWithSparql(Dataset dataset, String sparql) {
-		try (DatasetAutoAbortTransaction transaction = DatasetAutoAbortTransaction.begin(dataset, ReadWrite.READ)) {
-			QueryExecution qe = QueryExecutionFactory.create(sparql, dataset);
-			ResultSet results = qe.execSelect();
-			Stream<QuerySolution> solutionStream = StreamSupport
-					.stream(Spliterators.spliteratorUnknownSize(results, Spliterator.ORDERED | Spliterator.NONNULL), false);
+	/**
+	 * Lazy form of {@link #getRelationships(Dataset, SpdxElement)}. Unless the
+	 * calling thread is already in a transaction, the stream holds its own
+	 * read transaction until it is closed, so it must be closed (e.g. with
+	 * try-with-resources), and consumed sequentially on the calling thread.
+	 */
+	public static Stream<Relationship> streamRelationships(Dataset dataset, SpdxElement element) {
+		return streamRelationships(dataset, element, r -> true);
+	}
 
-			return solutionStream.map((QuerySolution qs) -> {
-				RDFNode relationshipNode = qs.get("o");
-				assert (relationshipNode.isResource());
-				return new Relationship(relationshipNode.asResource());
-			});
+	/**
+	 * Lazy form of
+	 * {@link #getRelationships(Dataset, SpdxElement, Relationship.Type)}. See
+	 * {@link #streamRelationships(Dataset, SpdxElement)}.
+	 */
+	public static Stream<Relationship> streamRelationships(Dataset dataset, SpdxElement element,
+			Relationship.Type relationshipType) {
+		final Resource type = ResourceFactory.createResource(relationshipType.getUri());
+		return streamRelationships(dataset, element, r -> r.hasProperty(Relationship.relationshipTypeProperty, type));
+	}
 
-		}
+	/**
+	 * Looks up the relationship nodes of the element directly by triple
+	 * pattern, rather than through a SPARQL query, since this is called for
+	 * every element of large documents.
+	 */
+	private static Stream<Relationship> streamRelationships(Dataset dataset, SpdxElement element,
+			Predicate<Resource> filter) {
+		return TransactionalStream.of(dataset,
+				model -> model.listObjectsOfProperty(model.createResource(element.getUri()), SpdxProperties.SPDX_RELATIONSHIP)
+						.mapWith(RDFNode::asResource).filterKeep(filter).mapWith(Relationship::new));
 	}
 
-	public static Stream<Relationship> getRelationships(Dataset dataset, SpdxElement element, Relationship.Type relationshipType) {
-		String sparql = "SELECT ?o  WHERE { <" + element.getUri() + "> <" + SpdxUris.SPDX_RELATIONSHIP + "> ?o.\n" + "?o <"
-				+ SpdxUris.SPDX_TERMS + "relationshipType" + "> <" + relationshipType.getUri() + ">. }";
-		return getRelationshipsWithSparql(dataset, sparql);
+	/**
+	 * Returns the elements that have a relationship of the type to the
+	 * element, i.e. the incoming relationships, which
+	 * {@link #getRelationships(Dataset, SpdxElement)} doesn't return. For
+	 * example, if element is a file, and relationshipType is STATIC_LINK, the
+	 * packages and files that statically link it will be returned.
+	 *
+	 * The relationships are followed backwards from the element by triple
+	 * pattern, so the result always reflects the dataset as the calling
+	 * thread sees it. To look up the sources of many elements in a dataset
+	 * that isn't changing, build a {@link RelationshipIndex} once instead.
+	 */
+	public static Stream<SpdxElement> getRelationshipSources(Dataset dataset, SpdxElement element,
+			Relationship.Type relationshipType) {
+		Validate.noNulls(element, relationshipType);
+		try (ReadSession session = ReadSession.open(dataset)) {
+			Model model = session.getModel();
+			Resource target = model.createResource(element.getUri());
+			Resource type = model.createResource(relationshipType.getUri());
+			return model.listSubjectsWithProperty(Relationship.relatedElementProperty, target)
+					.filterKeep(r -> r.hasProperty(Relationship.relationshipTypeProperty, type)).toList().stream()
+					.flatMap(r -> model.listSubjectsWithProperty(SpdxProperties.SPDX_RELATIONSHIP, r).toList().stream())
+					.filter(Resource::isURIResource).distinct().map(SpdxElementFactory::relationshipTargetFromResource)
+					.collect(Collectors.toList()).stream();
+		}
 	}
 
 	public static Optional<Resource> lookupResourceByUri(Dataset dataset, String uri) {
-		try (DatasetAutoAbortTransaction transaction = DatasetAutoAbortTransaction.begin(dataset, ReadWrite.READ)) {
-			Model model = dataset.getDefaultModel();
-			// Although this would create a new resource if it didn't exist,
-			// we're in a read-only transaction.
-			Resource result = model.createResource(uri);
-			if (!result.listProperties().hasNext()) { // an existing resource
-														// would have at least a
-														// type
-				return Optional.empty();
-			} else
-				return Optional.of(result);
+		try (ReadSession session = ReadSession.open(dataset)) {
+			return session.lookupResourceByUri(uri);
 		}
 	}
 
@@ -0,0 +1,152 @@
+package com.yevster.spdxtra;
+
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import org.apache.jena.query.Dataset;
+import org.apache.jena.query.ReadWrite;
+import org.apache.jena.rdf.model.Model;
+import org.apache.jena.rdf.model.ResIterator;
+import org.apache.jena.rdf.model.Resource;
+import org.apache.jena.rdf.model.StmtIterator;
+
+import com.yevster.spdxtra.model.Relationship;
+import com.yevster.spdxtra.model.SpdxDocument;
+import com.yevster.spdxtra.model.SpdxElement;
+import com.yevster.spdxtra.model.SpdxPackage;
+
+/**
+ * Holds one read transaction across many reads, so that walking a document
+ * doesn't begin and end a transaction for every {@link Read} call, and the
+ * objects read stay valid, and their getters keep reading a consistent view of
+ * the dataset, for as long as the session is open.
+ *
+ * If the calling thread is already in a transaction, read or write (e.g. inside
+ * a {@link Write.ModelUpdate}), the session joins it, and leaves it open when
+ * closed. Like the transaction, a session belongs to the thread that opened
+ * it.
+ *
+ * <pre>
+ * try (ReadSession session = ReadSession.open(dataset)) {
+ * 	SpdxDocument document = session.getDocument();
+ * 	session.getRelationships(document).forEach(...);
+ * }
+ * </pre>
+ *
+ * @author yevster
+ *
+ */
+public final class ReadSession implements AutoCloseable {
+	private final Dataset dataset;
+	// Null if the session joined a transaction.
+	private final DatasetAutoAbortTransaction transaction;
+	private boolean open = true;
+
+	private ReadSession(Dataset dataset, DatasetAutoAbortTransaction transaction) {
+		this.dataset = dataset;
+		this.transaction = transaction;
+	}
+
+	/**
+	 * Begins a read transaction on the dataset, or joins the calling thread's.
+	 */
+	public static ReadSession open(Dataset dataset) {
+		Validate.notNull(dataset);
+		return new ReadSession(dataset,
+				dataset.isInTransaction() ? null : DatasetAutoAbortTransaction.begin(dataset, ReadWrite.READ));
+	}
+
+	/**
+	 * Returns true if the session began its own transaction, rather than
+	 * joining one.
+	 */
+	public boolean ownsTransaction() {
+		return transaction != null;
+	}
+
+	public boolean isOpen() {
+		return open;
+	}
+
+	/**
+	 * The default model of the dataset, for reads that {@link Read} doesn't
+	 * cover.
+	 */
+	public Model getModel() {
+		checkOpen();
+		return dataset.getDefaultModel();
+	}
+
+	/**
+	 * See {@link Read.Document#get(Dataset)}.
+	 */
+	public SpdxDocument getDocument() {
+		ResIterator documents = getModel().listSubjectsWithProperty(SpdxProperties.RDF_TYPE,
+				SpdxResourceTypes.DOCUMENT_TYPE);
+		try {
+			// There should always be one document per SPDX File.
+			return new SpdxDocument(documents.next());
+		} finally {
+			documents.close();
+		}
+	}
+
+	/**
+	 * Returns a lazy stream of all the packages in the dataset. See
+	 * {@link Read#streamAllPackages(Dataset)}; the stream need not be closed
+	 * before the session is.
+	 */
+	public Stream<SpdxPackage> getAllPackages() {
+		checkOpen();
+		return Read.streamAllPackages(dataset);
+	}
+
+	/**
+	 * See {@link Read#streamRelationships(Dataset, SpdxElement)}.
+	 */
+	public Stream<Relationship> getRelationships(SpdxElement element) {
+		checkOpen();
+		return Read.streamRelationships(dataset, element);
+	}
+
+	/**
+	 * See {@link Read#streamRelationships(Dataset, SpdxElement, Relationship.Type)}.
+	 */
+	public Stream<Relationship> getRelationships(SpdxElement element, Relationship.Type relationshipType) {
+		checkOpen();
+		return Read.streamRelationships(dataset, element, relationshipType);
+	}
+
+	/**
+	 * See {@link Read#lookupResourceByUri(Dataset, String)}.
+	 */
+	public Optional<Resource> lookupResourceByUri(String uri) {
+		// Although this would create a new resource if it didn't exist,
+		// the transaction is read-only, or the caller's.
+		Resource result = getModel().createResource(uri);
+		StmtIterator properties = result.listProperties();
+		try {
+			// An existing resource would have at least a type
+			return properties.hasNext() ? Optional.of(result) : Optional.empty();
+		} finally {
+			properties.close();
+		}
+	}
+
+	/**
+	 * Ends the transaction, if the session began it. Idempotent.
+	 */
+	@Override
+	public void close() {
+		if (!open)
+			return;
+		open = false;
+		if (transaction != null)
+			transaction.close();
+	}
+
+	private void checkOpen() {
+		if (!open)
+			throw new IllegalStateException("The read session is closed");
+	}
+}
@@ -0,0 +1,360 @@
+package com.yevster.spdxtra;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.apache.jena.query.Dataset;
+
+import com.yevster.spdxtra.model.Relationship;
+
+/**
+ * The relationships of some types in a dataset, as a directed graph from
+ * their sources to their targets, for transitive queries: the elements an
+ * element reaches through, e.g., CONTAINS and DYNAMIC_LINK relationships, or
+ * the cycles among, e.g., ANCESTOR_OF relationships.
+ *
+ * The graph is taken from a {@link RelationshipIndex}, as arrays
+ * of element ids: the targets of element i are targets[offsets[i]] to
+ * targets[offsets[i + 1] - 1]. Traversals keep their state in arrays and bit
+ * sets indexed by id, so they allocate little beyond their results, and
+ * breadth-first traversals expand large frontiers in parallel on the
+ * {@link #pool(ForkJoinPool) pool}. Depth-first traversals, and the search
+ * for cycles, are sequential, but iterative, so they don't overflow the
+ * stack on long paths.
+ *
+ * The graph reflects the dataset when its index was built. Thread-safe, once its
+ * pool is set.
+ *
+ * @author yevster
+ *
+ */
+public final class RelationshipGraph {
+	// Frontiers smaller than this are expanded on the calling thread.
+	static final int PARALLEL_THRESHOLD = 4096;
+
+	private final RelationshipIndex index;
+	private final int[] offsets;
+	private final int[] targets;
+	private ForkJoinPool pool = ForkJoinPool.commonPool();
+
+	private RelationshipGraph(RelationshipIndex index, Relationship.Type[] types) {
+		this.index = index;
+		int mask = 0;
+		for (Relationship.Type type : types) {
+			mask |= 1 << type.ordinal();
+		}
+		int[] indexOffsets = index.bySourceOffsets();
+		int[] indexTargets = index.bySource();
+		byte[] indexTypes = index.bySourceTypes();
+		int elementCount = index.elementCount();
+		offsets = new int[elementCount + 1];
+		int[] filtered = new int[indexTargets.length];
+		int size = 0;
+		for (int i = 0; i < elementCount; ++i) {
+			offsets[i] = size;
+			for (int k = indexOffsets[i]; k < indexOffsets[i + 1]; ++k) {
+				if ((mask & (1 << indexTypes[k])) != 0)
+					filtered[size++] = indexTargets[k];
+			}
+		}
+		offsets[elementCount] = size;
+		targets = size == filtered.length ? filtered : Arrays.copyOf(filtered, size);
+	}
+
+	/**
+	 * Creates the graph of the relationships of the types in the dataset,
+	 * building its {@link RelationshipIndex}.
+	 */
+	public static RelationshipGraph of(Dataset dataset, Relationship.Type... types) {
+		Validate.notNull(dataset);
+		return of(RelationshipIndex.of(dataset), types);
+	}
+
+	/**
+	 * Creates the graph of the relationships of the types in the index, so
+	 * that graphs of different types can share one index.
+	 */
+	public static RelationshipGraph of(RelationshipIndex index, Relationship.Type... types) {
+		Validate.notNull(index);
+		Validate.noNulls((Object[]) types);
+		Validate.validate(types.length > 0, "At least one relationship type is required");
+		return new RelationshipGraph(index, types);
+	}
+
+	/**
+	 * The pool on which breadth-first traversals expand large frontiers. The
+	 * common pool by default.
+	 */
+	public RelationshipGraph pool(ForkJoinPool pool) {
+		Validate.notNull(pool);
+		this.pool = pool;
+		return this;
+	}
+
+	/**
+	 * The number of relationships in the graph.
+	 */
+	public int getEdgeCount() {
+		return targets.length;
+	}
+
+	/**
+	 * Returns the element and the elements it reaches, in the order of their
+	 * distance from it. The order of elements at the same distance is
+	 * unspecified.
+	 */
+	public List<String> breadthFirst(String uri) {
+		Validate.notNull(uri);
+		int id = index.idOf(uri);
+		if (id < 0)
+			return Collections.singletonList(uri);
+		AtomicLongArray visited = new AtomicLongArray(wordCount());
+		mark(visited, id);
+		List<String> result = new ArrayList<>();
+		result.add(uri);
+		reach(new int[] { id }, visited, result);
+		return result;
+	}
+
+	/**
+	 * Returns the elements reached from the elements through one or more
+	 * relationships, i.e. the transitive closure of the elements, in the order
+	 * of their distance from them. The elements themselves are included only
+	 * if they are reached from one another, or are on a cycle. The order of
+	 * elements at the same distance is unspecified.
+	 */
+	public List<String> closure(Collection<String> uris) {
+		Validate.notNull(uris);
+		int[] roots = new int[uris.size()];
+		int size = 0;
+		for (String uri : uris) {
+			Validate.notNull(uri);
+			int id = index.idOf(uri);
+			if (id >= 0)
+				roots[size++] = id;
+		}
+		List<String> result = new ArrayList<>();
+		reach(Arrays.copyOf(roots, size), new AtomicLongArray(wordCount()), result);
+		return result;
+	}
+
+	/**
+	 * See {@link #closure(Collection)}.
+	 */
+	public List<String> closure(String uri) {
+		return closure(Collections.singletonList(uri));
+	}
+
+	/**
+	 * Expands the frontier level by level, adding the elements reached that
+	 * weren't visited to the result.
+	 */
+	private void reach(int[] frontier, AtomicLongArray visited, List<String> result) {
+		while (frontier.length > 0) {
+			frontier = expand(frontier, visited);
+			for (int id : frontier) {
+				result.add(index.uriOf(id));
+			}
+		}
+	}
+
+	private int[] expand(int[] frontier, AtomicLongArray visited) {
+		if (frontier.length < PARALLEL_THRESHOLD || pool.getParallelism() == 1)
+			return expand(frontier, 0, frontier.length, visited);
+		int chunkSize = Math.max(PARALLEL_THRESHOLD / 4, frontier.length / (pool.getParallelism() * 4));
+		List<ForkJoinTask<int[]>> chunks = new ArrayList<>();
+		for (int from = 0; from < frontier.length; from += chunkSize) {
+			final int chunkFrom = from;
+			final int chunkTo = Math.min(frontier.length, from + chunkSize);
+			chunks.add(pool.submit(() -> expand(frontier, chunkFrom, chunkTo, visited)));
+		}
+		int[][] parts = new int[chunks.size()][];
+		int size = 0;
+		for (int i = 0; i < parts.length; ++i) {
+			parts[i] = chunks.get(i).join();
+			size += parts[i].length;
+		}
+		int[] result = new int[size];
+		int position = 0;
+		for (int[] part : parts) {
+			System.arraycopy(part, 0, result, position, part.length);
+			position += part.length;
+		}
+		return result;
+	}
+
+	private int[] expand(int[] frontier, int from, int to, AtomicLongArray visited) {
+		int[] result = new int[16];
+		int size = 0;
+		for (int i = from; i < to; ++i) {
+			int element = frontier[i];
+			for (int k = offsets[element]; k < offsets[element + 1]; ++k) {
+				if (mark(visited, targets[k])) {
+					if (size == result.length)
+						result = Arrays.copyOf(result, size * 2);
+					result[size++] = targets[k];
+				}
+			}
+		}
+		return Arrays.copyOf(result, size);
+	}
+
+	private int wordCount() {
+		return (offsets.length - 1 + 63) >>> 6;
+	}
+
+	/**
+	 * Marks the element visited, and returns true if it wasn't already.
+	 */
+	private static boolean mark(AtomicLongArray visited, int id) {
+		int word = id >>> 6;
+		long bit = 1L << id;
+		while (true) {
+			long bits = visited.get(word);
+			if ((bits & bit) != 0)
+				return false;
+			if (visited.compareAndSet(word, bits, bits | bit))
+				return true;
+		}
+	}
+
+	/**
+	 * Returns the element and the elements it reaches, in depth-first
+	 * preorder, following each element's relationships in the order of their
+	 * types.
+	 */
+	public List<String> depthFirst(String uri) {
+		Validate.notNull(uri);
+		int root = index.idOf(uri);
+		if (root < 0)
+			return Collections.singletonList(uri);
+		List<String> result = new ArrayList<>();
+		BitSet visited = new BitSet(offsets.length - 1);
+		// The path from the root, and the next relationship to follow from
+		// each element on it
+		int[] path = new int[16];
+		int[] next = new int[16];
+		int depth = 0;
+		visited.set(root);
+		result.add(uri);
+		path[0] = root;
+		next[depth++] = offsets[root];
+		while (depth > 0) {
+			int element = path[depth - 1];
+			if (next[depth - 1] == offsets[element + 1]) {
+				--depth;
+				continue;
+			}
+			int target = targets[next[depth - 1]++];
+			if (visited.get(target))
+				continue;
+			visited.set(target);
+			result.add(index.uriOf(target));
+			if (depth == path.length) {
+				path = Arrays.copyOf(path, depth * 2);
+				next = Arrays.copyOf(next, depth * 2);
+			}
+			path[depth] = target;
+			next[depth++] = offsets[target];
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the cycles in the graph: its strongly connected components
+	 * with more than one element, and the elements related to themselves.
+	 * Found with an iterative form of Tarjan's algorithm, in time linear in
+	 * the size of the graph.
+	 */
+	public List<List<String>> getCycles() {
+		int elementCount = offsets.length - 1;
+		List<List<String>> result = new ArrayList<>();
+		// The order in which elements were first reached, from 1; 0 if not
+		// yet reached.
+		int[] order = new int[elementCount];
+		// The lowest order reachable from each element through the elements
+		// still on the component stack
+		int[] low = new int[elementCount];
+		BitSet onStack = new BitSet(elementCount);
+		int[] stack = new int[16];
+		int stackSize = 0;
+		int[] path = new int[16];
+		int[] next = new int[16];
+		int reached = 0;
+
+		for (int root = 0; root < elementCount; ++root) {
+			if (order[root] != 0 || offsets[root] == offsets[root + 1])
+				continue;
+			int depth = 0;
+			order[root] = low[root] = ++reached;
+			stack[stackSize++] = root;
+			onStack.set(root);
+			path[0] = root;
+			next[depth++] = offsets[root];
+			while (depth > 0) {
+				int element = path[depth - 1];
+				if (next[depth - 1] < offsets[element + 1]) {
+					int target = targets[next[depth - 1]++];
+					if (order[target] == 0) {
+						order[target] = low[target] = ++reached;
+						if (stackSize == stack.length)
+							stack = Arrays.copyOf(stack, stackSize * 2);
+						stack[stackSize++] = target;
+						onStack.set(target);
+						if (depth == path.length) {
+							path = Arrays.copyOf(path, depth * 2);
+							next = Arrays.copyOf(next, depth * 2);
+						}
+						path[depth] = target;
+						next[depth++] = offsets[target];
+					} else if (onStack.get(target)) {
+						low[element] = Math.min(low[element], order[target]);
+					}
+					continue;
+				}
+				--depth;
+				if (depth > 0)
+					low[path[depth - 1]] = Math.min(low[path[depth - 1]], low[element]);
+				if (low[element] != order[element])
+					continue;
+				// The element is the root of a component: the elements above it
+				// on the stack.
+				int first = stackSize;
+				do {
+					onStack.clear(stack[--first]);
+				} while (stack[first] != element);
+				if (stackSize - first > 1 || isSelfRelated(element)) {
+					List<String> cycle = new ArrayList<>(stackSize - first);
+					for (int i = first; i < stackSize; ++i) {
+						cycle.add(index.uriOf(stack[i]));
+					}
+					result.add(cycle);
+				}
+				stackSize = first;
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Returns true if there are any cycles. See {@link #getCycles()}.
+	 */
+	public boolean hasCycle() {
+		return !getCycles().isEmpty();
+	}
+
+	private boolean isSelfRelated(int element) {
+		for (int k = offsets[element]; k < offsets[element + 1]; ++k) {
+			if (targets[k] == element)
+				return true;
+		}
+		return false;
+	}
+}
@@ -0,0 +1,254 @@
+package com.yevster.spdxtra;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.jena.query.Dataset;
+
+import com.yevster.spdxtra.model.Relationship;
+
+/**
+ * An in-memory index of the relationships in a dataset, by source and type
+ * and by target and type, for finding the elements related to an element in
+ * either direction without reading the dataset. In particular,
+ * {@link #getSources(String, Relationship.Type)} finds the relationships of
+ * which an element is the target, which {@link Read#getRelationships} does
+ * not return.
+ *
+ * The index holds the element URIs once, and the relationships as arrays of
+ * ints, grouped by source and by target and sorted by type within each group.
+ * A lookup is a hash lookup and a binary search.
+ *
+ * The index reflects the dataset when {@link #of(Dataset)} built it, and is
+ * not updated when the dataset changes: keep it while the dataset isn't
+ * written to, and build it again after writing.
+ *
+ * Immutable, and so thread-safe.
+ *
+ * @author yevster
+ *
+ */
+public final class RelationshipIndex {
+	private static final Relationship.Type[] TYPES = Relationship.Type.values();
+
+	// Element URI -> id, and id -> element URI
+	private final Map<String, Integer> ids;
+	private final String[] uris;
+	// The relationships of source i are bySource[bySourceOffsets[i]] to
+	// bySource[bySourceOffsets[i + 1] - 1]: the ids of their targets, ordered
+	// by the types in bySourceTypes. Likewise for byTarget.
+	private final int[] bySourceOffsets;
+	private final int[] bySource;
+	private final byte[] bySourceTypes;
+	private final int[] byTargetOffsets;
+	private final int[] byTarget;
+	private final byte[] byTargetTypes;
+
+	private RelationshipIndex(Map<String, Integer> ids, String[] uris, Edges edges) {
+		this.ids = ids;
+		this.uris = uris;
+		bySourceOffsets = new int[uris.length + 1];
+		bySource = new int[edges.size];
+		bySourceTypes = new byte[edges.size];
+		group(edges.sources, edges.targets, edges.types, edges.size, bySourceOffsets, bySource, bySourceTypes);
+		byTargetOffsets = new int[uris.length + 1];
+		byTarget = new int[edges.size];
+		byTargetTypes = new byte[edges.size];
+		group(edges.targets, edges.sources, edges.types, edges.size, byTargetOffsets, byTarget, byTargetTypes);
+	}
+
+	/**
+	 * Builds the index of the relationships in the dataset, in the calling
+	 * thread's transaction, if it is in one, or else in a read transaction of
+	 * its own.
+	 */
+	public static RelationshipIndex of(Dataset dataset) {
+		Validate.notNull(dataset);
+		Map<String, Integer> ids = new HashMap<>();
+		List<String> uris = new ArrayList<>();
+		Edges edges = new Edges();
+		try (ReadSession session = ReadSession.open(dataset)) {
+			GraphLookups.forEachRelationship(session.getModel().getGraph(),
+					(source, type, target) -> edges.add(id(source, ids, uris), id(target, ids, uris), type));
+		}
+		return new RelationshipIndex(ids, uris.toArray(new String[uris.size()]), edges);
+	}
+
+	private static int id(String uri, Map<String, Integer> ids, List<String> uris) {
+		Integer result = ids.get(uri);
+		if (result == null) {
+			result = uris.size();
+			ids.put(uri, result);
+			uris.add(uri);
+		}
+		return result;
+	}
+
+	/**
+	 * The relationships as they are read, before they are grouped.
+	 */
+	private static final class Edges {
+		int[] sources = new int[1024];
+		int[] targets = new int[1024];
+		byte[] types = new byte[1024];
+		int size;
+
+		void add(int source, int target, Relationship.Type type) {
+			if (size == sources.length) {
+				sources = Arrays.copyOf(sources, size * 2);
+				targets = Arrays.copyOf(targets, size * 2);
+				types = Arrays.copyOf(types, size * 2);
+			}
+			sources[size] = source;
+			targets[size] = target;
+			types[size] = (byte) type.ordinal();
+			++size;
+		}
+	}
+
+	/**
+	 * Groups the relationships by key, and orders each group by type, with
+	 * two counting sorts.
+	 */
+	private static void group(int[] keys, int[] values, byte[] types, int size, int[] offsets, int[] groupedValues,
+			byte[] groupedTypes) {
+		// Order by type
+		int[] typeOffsets = new int[TYPES.length + 1];
+		for (int i = 0; i < size; ++i) {
+			++typeOffsets[types[i] + 1];
+		}
+		for (int t = 0; t < TYPES.length; ++t) {
+			typeOffsets[t + 1] += typeOffsets[t];
+		}
+		int[] byType = new int[size];
+		for (int i = 0; i < size; ++i) {
+			byType[typeOffsets[types[i]]++] = i;
+		}
+
+		// Then, stably, by key
+		for (int i = 0; i < size; ++i) {
+			++offsets[keys[i] + 1];
+		}
+		for (int k = 0; k + 1 < offsets.length; ++k) {
+			offsets[k + 1] += offsets[k];
+		}
+		int[] next = Arrays.copyOf(offsets, offsets.length - 1);
+		for (int i : byType) {
+			int position = next[keys[i]]++;
+			groupedValues[position] = values[i];
+			groupedTypes[position] = types[i];
+		}
+	}
+
+	/**
+	 * Returns the URIs of the elements that have a relationship of the type
+	 * to the target element.
+	 */
+	public List<String> getSources(String targetUri, Relationship.Type type) {
+		return lookup(targetUri, type, byTargetOffsets, byTarget, byTargetTypes);
+	}
+
+	/**
+	 * Returns the URIs of the elements that have a relationship to the target
+	 * element, of any type.
+	 */
+	public List<String> getSources(String targetUri) {
+		return lookup(targetUri, null, byTargetOffsets, byTarget, byTargetTypes);
+	}
+
+	/**
+	 * Returns the URIs of the elements to which the source element has a
+	 * relationship of the type.
+	 */
+	public List<String> getTargets(String sourceUri, Relationship.Type type) {
+		return lookup(sourceUri, type, bySourceOffsets, bySource, bySourceTypes);
+	}
+
+	/**
+	 * Returns the URIs of the elements to which the source element has a
+	 * relationship, of any type.
+	 */
+	public List<String> getTargets(String sourceUri) {
+		return lookup(sourceUri, null, bySourceOffsets, bySource, bySourceTypes);
+	}
+
+	private List<String> lookup(String uri, Relationship.Type type, int[] offsets, int[] related, byte[] types) {
+		Validate.notNull(uri);
+		Integer id = ids.get(uri);
+		if (id == null)
+			return Collections.emptyList();
+		int from = offsets[id];
+		int to = offsets[id + 1];
+		if (type != null) {
+			from = firstOfType(types, from, to, type.ordinal());
+			to = firstOfType(types, from, to, type.ordinal() + 1);
+		}
+		List<String> result = new ArrayList<>(to - from);
+		for (int i = from; i < to; ++i) {
+			result.add(uris[related[i]]);
+		}
+		return result;
+	}
+
+	/**
+	 * The first position in [from, to) whose type is at least the one given,
+	 * or to if there is none.
+	 */
+	private static int firstOfType(byte[] types, int from, int to, int type) {
+		while (from < to) {
+			int middle = (from + to) >>> 1;
+			if (types[middle] < type)
+				from = middle + 1;
+			else
+				to = middle;
+		}
+		return from;
+	}
+
+	/**
+	 * The number of relationships in the index.
+	 */
+	public int size() {
+		return bySource.length;
+	}
+
+	/**
+	 * The number of elements in the index: the sources and targets of the
+	 * relationships. Their ids are 0 to elementCount() - 1.
+	 */
+	int elementCount() {
+		return uris.length;
+	}
+
+	/**
+	 * The id of the element, or -1 if it isn't in the index.
+	 */
+	int idOf(String uri) {
+		Integer result = ids.get(uri);
+		return result == null ? -1 : result;
+	}
+
+	String uriOf(int id) {
+		return uris[id];
+	}
+
+	/**
+	 * The relationships by source, as described for the fields. Not to be
+	 * modified.
+	 */
+	int[] bySourceOffsets() {
+		return bySourceOffsets;
+	}
+
+	int[] bySource() {
+		return bySource;
+	}
+
+	byte[] bySourceTypes() {
+		return bySourceTypes;
+	}
+}
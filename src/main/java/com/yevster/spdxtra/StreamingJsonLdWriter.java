@@ -0,0 +1,235 @@
+package com.yevster.spdxtra;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.jena.datatypes.xsd.XSDDatatype;
+import org.apache.jena.graph.Graph;
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.util.iterator.ExtendedIterator;
+import org.apache.jena.vocabulary.RDF;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.jsonldjava.core.Context;
+import com.github.jsonldjava.core.JsonLdApi;
+import com.github.jsonldjava.core.JsonLdError;
+import com.github.jsonldjava.core.JsonLdOptions;
+import com.github.jsonldjava.core.JsonLdProcessor;
+import com.github.jsonldjava.utils.JsonUtils;
+
+/**
+ * Writes a graph as compacted SPDX JSON-LD one element at a time, so that
+ * memory use is bounded by the largest element rather than by the document.
+ *
+ * Every subject with a URI (document, package, file, extracted license...)
+ * becomes one node object in the top-level @graph array. Blank nodes
+ * referenced exactly once (checksums, relationships, creation info...) are
+ * embedded in the node object that references them. Blank nodes that are
+ * shared (e.g. a compound license used by many files) or not referenced at
+ * all are written as top-level node objects of their own and referenced by
+ * their blank node identifier, as are blank nodes that are referenced once,
+ * but only by themselves or through a cycle of such blank nodes, which could
+ * not be embedded anywhere.
+ *
+ * Subjects are discovered by scanning the graph, which returns the triples of
+ * each subject contiguously for both TDB and in-memory datasets. Should a
+ * subject ever come up twice, it is written twice, which JSON-LD processors
+ * merge into one node. The SPDX context is parsed once per document, and
+ * every element is compacted against it.
+ *
+ * @author yevster
+ *
+ */
+class StreamingJsonLdWriter {
+	private static final String XSD_STRING = XSDDatatype.XSDstring.getURI();
+	private static final String RDF_LANG_STRING = RDF.getURI() + "langString";
+
+	private final Graph graph;
+	private final Object context;
+	private final JsonLdOptions options = new JsonLdOptions();
+	private final JsonLdApi api = new JsonLdApi(options);
+
+	StreamingJsonLdWriter(Graph graph, Object context) {
+		this.graph = graph;
+		this.context = context;
+	}
+
+	/**
+	 * Reads the SPDX JSON-LD context bundled with SpdXtra.
+	 */
+	static Object loadSpdxContext() throws IOException {
+		try (InputStream jsonContextStream = Read.class.getClassLoader().getResourceAsStream("spdxContext.json")) {
+			return JsonUtils.fromInputStream(jsonContextStream);
+		}
+	}
+
+	/**
+	 * Writes the graph to the output stream in UTF-8. Must be called inside a
+	 * transaction. Does not close the stream.
+	 *
+	 * The graph must return the triples of each subject contiguously when
+	 * scanned, as TDB and in-memory graphs do; otherwise a subject is written
+	 * once for each run of its triples.
+	 */
+	@SuppressWarnings("unchecked")
+	void write(OutputStream out) throws IOException {
+		Object contextDefinition = ((Map<String, Object>) context).get("@context");
+		// Parsed once, rather than by every compaction
+		final Context activeContext;
+		try {
+			activeContext = new Context(options).parse(contextDefinition);
+		} catch (JsonLdError e) {
+			throw new IOException("Unable to parse JSON-LD context", e);
+		}
+		JsonGenerator generator = new ObjectMapper().getFactory().createGenerator(out, JsonEncoding.UTF8);
+		generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+		generator.useDefaultPrettyPrinter();
+		generator.writeStartObject();
+		generator.writeFieldName("@context");
+		generator.writeObject(contextDefinition);
+		generator.writeArrayFieldStart("@graph");
+
+		ExtendedIterator<Triple> triples = graph.find(Node.ANY, Node.ANY, Node.ANY);
+		try {
+			// Relies on the triples of each subject being contiguous
+			Node previousSubject = null;
+			while (triples.hasNext()) {
+				Node subject = triples.next().getSubject();
+				if (subject.equals(previousSubject))
+					continue;
+				previousSubject = subject;
+				if (subject.isURI() || (subject.isBlank() && !isEmbedded(subject))) {
+					writeElement(generator, activeContext, subject);
+				}
+			}
+		} finally {
+			triples.close();
+		}
+
+		generator.writeEndArray();
+		generator.writeEndObject();
+		generator.flush();
+	}
+
+	private void writeElement(JsonGenerator generator, Context activeContext, Node subject) throws IOException {
+		Map<String, Object> nodeObject = toNodeObject(subject, new HashSet<>());
+		final Object compacted;
+		try {
+			compacted = api.compact(activeContext, null, JsonLdProcessor.expand(nodeObject, options),
+					options.getCompactArrays());
+		} catch (JsonLdError e) {
+			throw new IOException("Unable to compact JSON-LD for " + subject, e);
+		}
+		generator.writeObject(compacted);
+	}
+
+	/**
+	 * Builds the expanded JSON-LD node object for the subject, embedding the
+	 * blank nodes it owns.
+	 */
+	private Map<String, Object> toNodeObject(Node subject, Set<Node> path) {
+		path.add(subject);
+		Map<String, Object> result = new LinkedHashMap<>();
+		if (subject.isURI()) {
+			result.put("@id", subject.getURI());
+		} else if (!isEmbedded(subject)) {
+			result.put("@id", blankNodeIdentifier(subject));
+		}
+
+		ExtendedIterator<Triple> triples = graph.find(subject, Node.ANY, Node.ANY);
+		try {
+			while (triples.hasNext()) {
+				Triple triple = triples.next();
+				Node object = triple.getObject();
+				if (RDF.type.asNode().equals(triple.getPredicate()) && object.isURI()) {
+					valuesOf(result, "@type").add(object.getURI());
+				} else {
+					valuesOf(result, triple.getPredicate().getURI()).add(toValue(object, path));
+				}
+			}
+		} finally {
+			triples.close();
+		}
+		path.remove(subject);
+		return result;
+	}
+
+	private Object toValue(Node object, Set<Node> path) {
+		Map<String, Object> result = new LinkedHashMap<>();
+		if (object.isURI()) {
+			result.put("@id", object.getURI());
+		} else if (object.isBlank()) {
+			if (!path.contains(object) && isEmbedded(object)) {
+				return toNodeObject(object, path);
+			}
+			result.put("@id", blankNodeIdentifier(object));
+		} else {
+			result.put("@value", object.getLiteralLexicalForm());
+			String datatype = object.getLiteralDatatypeURI();
+			if (StringUtils.isNotEmpty(object.getLiteralLanguage())) {
+				result.put("@language", object.getLiteralLanguage());
+			} else if (datatype != null && !XSD_STRING.equals(datatype) && !RDF_LANG_STRING.equals(datatype)) {
+				result.put("@type", datatype);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Whether the blank node is embedded in the node object of its one
+	 * referrer: it is, unless following the referrers, for as long as they
+	 * are blank nodes referenced once, leads back to it.
+	 */
+	private boolean isEmbedded(Node blankNode) {
+		Set<Node> referrers = new HashSet<>();
+		Node node = blankNode;
+		while (node.isBlank()) {
+			Node referrer = soleReferrer(node);
+			if (referrer == null)
+				return node != blankNode;
+			if (referrer.equals(blankNode))
+				return false;
+			if (!referrers.add(referrer))
+				// A cycle that blankNode leads into, but isn't on
+				return true;
+			node = referrer;
+		}
+		return true;
+	}
+
+	/**
+	 * The subject of the only triple whose object is the node, or null if
+	 * there are none or several.
+	 */
+	private Node soleReferrer(Node node) {
+		ExtendedIterator<Triple> references = graph.find(Node.ANY, Node.ANY, node);
+		try {
+			if (!references.hasNext())
+				return null;
+			Node referrer = references.next().getSubject();
+			return references.hasNext() ? null : referrer;
+		} finally {
+			references.close();
+		}
+	}
+
+	private static String blankNodeIdentifier(Node blankNode) {
+		return "_:" + blankNode.getBlankNodeLabel();
+	}
+
+	@SuppressWarnings("unchecked")
+	private static List<Object> valuesOf(Map<String, Object> nodeObject, String key) {
+		return (List<Object>) nodeObject.computeIfAbsent(key, k -> new ArrayList<>());
+	}
+}
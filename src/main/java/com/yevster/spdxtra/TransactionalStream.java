@@ -0,0 +1,56 @@
+package com.yevster.spdxtra;
+
+import java.util.Iterator;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+import org.apache.jena.query.Dataset;
+import org.apache.jena.query.ReadWrite;
+import org.apache.jena.rdf.model.Model;
+import org.apache.jena.util.iterator.ClosableIterator;
+
+import com.yevster.spdxtra.util.MiscUtils;
+
+/**
+ * Creates lazy streams over a dataset that hold a read transaction for as long
+ * as they are open. If the calling thread is already in a transaction, the
+ * stream joins it instead, and leaves it open when closed.
+ *
+ * The streams may be made parallel. The results are then all read up front on
+ * the calling thread, inside the transaction, and only the downstream
+ * operations run on the fork-join pool.
+ *
+ * @author yevster
+ *
+ */
+final class TransactionalStream {
+	private TransactionalStream() {
+	}
+
+	/**
+	 * Begins (or joins) a read transaction, runs the query against the default
+	 * model and returns a stream over its results. Closing the stream closes
+	 * the iterator and ends the transaction, if the stream began it.
+	 */
+	static <T> Stream<T> of(Dataset dataset, Function<Model, ? extends Iterator<T>> query) {
+		final DatasetAutoAbortTransaction transaction = dataset.isInTransaction() ? null
+				: DatasetAutoAbortTransaction.begin(dataset, ReadWrite.READ);
+		final Iterator<T> results;
+		try {
+			results = query.apply(dataset.getDefaultModel());
+		} catch (RuntimeException e) {
+			if (transaction != null)
+				transaction.close();
+			throw e;
+		}
+		return MiscUtils.toSplittableStream(results).onClose(() -> {
+			try {
+				if (results instanceof ClosableIterator)
+					((ClosableIterator<T>) results).close();
+			} finally {
+				if (transaction != null)
+					transaction.close();
+			}
+		});
+	}
+}
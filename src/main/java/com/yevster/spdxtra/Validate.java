@@ -5,7 +5,6 @@ import java.util.function.BiFunction;
 import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.function.Supplier;
-import java.util.regex.Pattern;
 
 import org.apache.commons.lang3.StringUtils;
 
@@ -21,20 +20,50 @@ public class Validate {
 	private static final Function<String, ? extends RuntimeException> exceptionFactory = IllegalArgumentException::new;
 	private static final BiFunction<String, Throwable, ? extends RuntimeException> exceptionFactoryWithCause = IllegalArgumentException::new;
 
-	private static final Pattern emailPattern = Pattern.compile(
-			"^[A-Za-z0-9](([_\\.\\-]?[a-zA-Z0-9]+)*)@([A-Za-z0-9]+)(([\\.\\-]?[a-zA-Z0-9]+)*)\\.([A-Za-z]{2,})$");
+	private static final String LICENSE_ID_PREFIX = "LicenseRef-";
+	private static final String ELEMENT_ID_PREFIX = "SPDXRef-";
+
+	/*
+	 * The checks below are hand-written single passes over their inputs, rather
+	 * than regular expressions, so that they take linear time on any input
+	 * (they are applied to the contents of untrusted documents, e.g. by
+	 * Creator.fromString), and don't allocate unless they fail.
+	 */
+
+	/**
+	 * Returns true if the ID starts with "LicenseRef-" and contains no '#' or
+	 * ':'.
+	 */
+	public static boolean isSpdxLicenseId(String spdxId) {
+		return isIdWithPrefix(spdxId, 0, spdxId == null ? 0 : spdxId.length(), LICENSE_ID_PREFIX);
+	}
+
+	/**
+	 * Returns true if the ID starts with "SPDXRef-" and contains no '#' or
+	 * ':'.
+	 */
+	public static boolean isSpdxElementId(String spdxId) {
+		return isIdWithPrefix(spdxId, 0, spdxId == null ? 0 : spdxId.length(), ELEMENT_ID_PREFIX);
+	}
+
+	private static boolean isIdWithPrefix(String s, int start, int end, String prefix) {
+		if (s == null || end - start < prefix.length() || !s.startsWith(prefix, start))
+			return false;
+		for (int i = start + prefix.length(); i < end; ++i) {
+			char c = s.charAt(i);
+			if (c == '#' || c == ':')
+				return false;
+		}
+		return true;
+	}
 
 	public static void spdxLicenseId(String spdxId) {
-		boolean valid = StringUtils.isNotBlank(spdxId) && !StringUtils.containsAny(spdxId, '#', ':')
-				&& StringUtils.startsWith(spdxId, "LicenseRef-");
-		if (!valid)
+		if (!isSpdxLicenseId(spdxId))
 			throw exceptionFactory.apply(spdxId + " is not a valid SPDX License ID.");
 	}
 
 	public static void spdxElementId(String spdxId) {
-		boolean valid = StringUtils.isNotBlank(spdxId) && !StringUtils.containsAny(spdxId, '#', ':')
-				&& StringUtils.startsWith(spdxId, "SPDXRef-");
-		if (!valid)
+		if (!isSpdxElementId(spdxId))
 			throw exceptionFactory.apply(spdxId + " is not a valid SPDX Element ID.");
 	}
 
@@ -68,29 +97,107 @@ public class Validate {
 		}
 	}
 
+	/**
+	 * Returns true if the address is a plausible email address: a local part
+	 * and a domain of ASCII letters and digits, separated within each part by
+	 * single '.', '-' or (in the local part) '_' characters, and a top-level
+	 * domain of at least two letters.
+	 */
+	public static boolean isEmail(String email) {
+		if (email == null)
+			return false;
+		int at = email.indexOf('@');
+		if (at < 0)
+			return false;
+		int lastDot = email.lastIndexOf('.');
+		if (lastDot <= at || email.length() - lastDot - 1 < 2)
+			return false;
+		for (int i = lastDot + 1; i < email.length(); ++i) {
+			if (!isAsciiLetter(email.charAt(i)))
+				return false;
+		}
+		return isSeparatedAlphanumerics(email, 0, at, true) && isSeparatedAlphanumerics(email, at + 1, lastDot, false);
+	}
+
+	/**
+	 * Returns true if the range is non-empty, begins and ends with an ASCII
+	 * letter or digit, and has no other characters than those and single
+	 * separators ('.', '-' and, if allowed, '_') between them.
+	 */
+	private static boolean isSeparatedAlphanumerics(String s, int start, int end, boolean allowUnderscore) {
+		if (start == end)
+			return false;
+		boolean afterSeparator = true;
+		for (int i = start; i < end; ++i) {
+			char c = s.charAt(i);
+			if (isAsciiLetter(c) || (c >= '0' && c <= '9')) {
+				afterSeparator = false;
+			} else if (c == '.' || c == '-' || (allowUnderscore && c == '_')) {
+				if (afterSeparator)
+					return false;
+				afterSeparator = true;
+			} else {
+				return false;
+			}
+		}
+		return !afterSeparator;
+	}
+
+	private static boolean isAsciiLetter(char c) {
+		return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+	}
+
 	public static void email(String email) {
-		boolean valid = emailPattern.matcher(email).matches();
-		if (!valid)
+		if (!isEmail(email))
 			throw exceptionFactory.apply("Invalid email: " + email);
 	}
 
+	/**
+	 * Returns true if the URL is not blank and contains no '#'.
+	 */
+	public static boolean isBaseUrl(String baseUrl) {
+		return baseUrl != null && isBaseUrl(baseUrl, 0, baseUrl.length());
+	}
+
+	private static boolean isBaseUrl(String s, int start, int end) {
+		boolean blank = true;
+		for (int i = start; i < end; ++i) {
+			char c = s.charAt(i);
+			if (c == '#')
+				return false;
+			if (blank && !Character.isWhitespace(c))
+				blank = false;
+		}
+		return !blank;
+	}
+
 	public static void baseUrl(String baseUrl) {
-		boolean valid = (StringUtils.isNotBlank(baseUrl) && !StringUtils.containsAny(baseUrl, '#'));
-		if (!valid)
+		if (!isBaseUrl(baseUrl))
 			throw exceptionFactory.apply("Illegal namespace URL :" + baseUrl);
 	}
 
-	public static void spdxElementUri(String uri) {
-		String[] elements = StringUtils.split(uri, "#", 2);
+	/**
+	 * Returns true if the URI is a base URL (see {@link #isBaseUrl(String)}),
+	 * '#' and an SPDX element ID (see {@link #isSpdxElementId(String)}).
+	 */
+	public static boolean isSpdxElementUri(String uri) {
+		if (uri == null)
+			return false;
+		int hash = uri.indexOf('#');
+		return hash >= 0 && isBaseUrl(uri, 0, hash) && isIdWithPrefix(uri, hash + 1, uri.length(), ELEMENT_ID_PREFIX);
+	}
 
-		if (elements.length != 2)
+	public static void spdxElementUri(String uri) {
+		if (isSpdxElementUri(uri))
+			return;
+		int hash = uri == null ? -1 : uri.indexOf('#');
+		if (hash < 0)
 			throw exceptionFactory.apply("Illegal SPDX Element URI: " + uri);
 		try {
-			baseUrl(elements[0]);
-			spdxElementId(elements[1]);
+			baseUrl(uri.substring(0, hash));
+			spdxElementId(uri.substring(hash + 1));
 		} catch (RuntimeException e) {
 			throw exceptionFactoryWithCause.apply("Illegal SPDX Element URI: " + uri, e);
 		}
-
 	}
 }
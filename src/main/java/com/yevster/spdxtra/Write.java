@@ -3,15 +3,14 @@ package com.yevster.spdxtra;
 import com.yevster.spdxtra.model.*;
 import com.yevster.spdxtra.model.Creator.HumanCreator;
 import com.yevster.spdxtra.model.write.License;
-import com.yevster.spdxtra.util.MiscUtils;
-import org.apache.commons.codec.digest.DigestUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.jena.ext.com.google.common.base.Strings;
-import org.apache.jena.ext.com.google.common.collect.Ordering;
 import org.apache.jena.query.Dataset;
 import org.apache.jena.query.ReadWrite;
 import org.apache.jena.rdf.model.*;
-import org.apache.jena.rdf.model.impl.ResourceImpl;
+import org.apache.jena.riot.Lang;
+import org.apache.jena.riot.RDFDataMgr;
+import org.apache.jena.riot.system.StreamRDFLib;
 import org.apache.jena.tdb.TDBFactory;
 
 import java.io.IOException;
@@ -22,10 +21,7 @@ import java.nio.file.Path;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
 import java.util.Arrays;
-import java.util.Comparator;
 import java.util.Optional;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
 public final class Write {
 
@@ -34,6 +30,26 @@ public final class Write {
 		void apply(Model model);
 	}
 
+	/**
+	 * Receives progress reports while RDF is loaded into a dataset.
+	 */
+	@FunctionalInterface
+	public static interface IngestProgress {
+		/**
+		 * A progress listener that ignores all progress.
+		 */
+		public static final IngestProgress NONE = (triples, triplesPerSecond) -> {
+		};
+
+		/**
+		 * @param triples
+		 *            The number of triples loaded so far.
+		 * @param triplesPerSecond
+		 *            The average load rate since the load started.
+		 */
+		void progress(long triples, double triplesPerSecond);
+	}
+
 	/**
 	 * An model update that doesn't do anything.
 	 */
@@ -292,6 +308,18 @@ public final class Write {
 					copyrightText.getLiteralOrUriValue());
 		}
 
+		/**
+		 * Generates an update for the package's copyright text, keeping the
+		 * text in the blob store if it is long enough.
+		 */
+		public static RdfResourceUpdate copyrightText(String uri, NoneNoAssertionOrValue copyrightText,
+				BlobStore blobs) {
+			Validate.spdxElementUri(uri);
+			Validate.notNull(copyrightText);
+			return RdfResourceUpdate.updateStringProperty(uri, SpdxProperties.COPYRIGHT_TEXT,
+					copyrightText.getLiteralOrUriValue(), blobs);
+		}
+
 		/**
 		 * Generates an update for the packages checksum property, with one or
 		 * more values.
@@ -308,6 +336,10 @@ public final class Write {
 		 * SPDX document. It is recommended that other properties of the file be
 		 * set in the same transaction.
 		 * 
+		 * If the file already exists, its name is replaced and it is added to
+		 * the package; its other properties are kept. To add many files, see
+		 * {@link BulkFileBuilder}.
+		 * 
 		 * @param baseUrl
 		 * @param pkgSpidxId
 		 * @param fileSpdxId
@@ -503,6 +535,9 @@ public final class Write {
 		 * where filesAnalyzed is true or omitted. Once executed, no new files
 		 * should be added to the package and filesAnalyzed should not be
 		 * modified. (not enforced)
+		 * 
+		 * To compute the code without writing it, use
+		 * {@link PackageVerificationCode}.
 		 */
 		public static ModelUpdate finalize(String packageUri) {
 			Validate.spdxElementUri(packageUri);
@@ -520,29 +555,7 @@ public final class Write {
 				if (filesAnalyzedStatement != null && !filesAnalyzedStatement.getBoolean())
 					return;
 
-				StmtIterator it = packageResource.listProperties(SpdxProperties.HAS_FILE);
-				Stream<Statement> statements = MiscUtils.toLinearStream(it);
-				// We now have a bunch of triples whose objects are files.
-				// Let's do some functional magic:
-
-				// Get the objects of the triples as resources - SPDX Files
-				String concatenatedSha1 = statements.map(Statement::getObject).map(RDFNode::asResource)
-						// Get the checksums of these files (each file can have
-						// multiple)
-						.sorted(Write.byRequiredLiteralProperty(SpdxProperties.FILE_NAME))
-						.flatMap(file -> MiscUtils.toLinearStream(file.listProperties(SpdxProperties.CHECKSUM)))
-						// Convert them to resources
-						.map(Statement::getObject).map(RDFNode::asResource)
-						// Remove the non-Sha-1 checksums
-						.filter(checksum -> StringUtils.equals(Checksum.Algorithm.SHA1.getUri(),
-								checksum.getProperty(SpdxProperties.CHECKSUM_ALGORITHM).getObject().asResource()
-										.getURI()))
-						// Get the sha1 digests
-						.map(checksum -> checksum.getProperty(SpdxProperties.CHECKSUM_VALUE).getObject().asLiteral()
-								.getString())
-						// Concatenate the SHA1 digests
-						.collect(Collectors.joining());
-				String verificationCode = DigestUtils.shaHex(concatenatedSha1);
+				String verificationCode = PackageVerificationCode.compute(packageResource);
 
 				// Let's write it into the model.
 				Resource pvcResource = m.createResource(SpdxResourceTypes.PACKAGE_VERIFICATION_CODE_TYPE);
@@ -596,6 +609,14 @@ public final class Write {
 			return Write.Package.copyrightText(fileUri, copyrightText);
 		}
 
+		/**
+		 * Generates an update to set the file's copyright text, keeping the
+		 * text in the blob store if it is long enough.
+		 */
+		public static ModelUpdate copyrightText(String fileUri, NoneNoAssertionOrValue copyrightText, BlobStore blobs) {
+			return Write.Package.copyrightText(fileUri, copyrightText, blobs);
+		}
+
 		/**
 		 * Generates an update to set the file comment
 		 * 
@@ -693,6 +714,17 @@ public final class Write {
 			return RdfResourceUpdate.updateStringProperty(fileUri, SpdxProperties.NOTICE_TEXT, noticeText);
 		}
 
+		/**
+		 * Generates an update that sets this file's notice text, keeping the
+		 * text in the blob store if it is long enough.
+		 */
+		public static ModelUpdate noticeText(String fileUri, String noticeText, BlobStore blobs) {
+			Validate.notNull(noticeText);
+			Validate.spdxElementUri(fileUri);
+
+			return RdfResourceUpdate.updateStringProperty(fileUri, SpdxProperties.NOTICE_TEXT, noticeText, blobs);
+		}
+
 		/**
 		 * Generates an update that sets this files contributors. Any
 		 * contributors previously set on this file will be replaced with the
@@ -724,6 +756,14 @@ public final class Write {
 		applyUpdatesInOneTransaction(dataset, Arrays.asList(updates));
 	}
 
+	/**
+	 * Applies all the updates in a single write transaction. For very large
+	 * numbers of updates, use {@link BatchingUpdateApplier} instead, which
+	 * commits periodically.
+	 * 
+	 * @param dataset
+	 * @param updates
+	 */
 	public static void applyUpdatesInOneTransaction(Dataset dataset, Iterable<? extends ModelUpdate> updates) {
 		try (DatasetAutoAbortTransaction transaction = DatasetAutoAbortTransaction.begin(dataset, ReadWrite.WRITE)) {
 			Model model = dataset.getDefaultModel();
@@ -746,17 +786,46 @@ public final class Write {
 	 * @return
 	 */
 	public static Dataset rdfIntoNewDataset(Path inputFilePath, Path newDatasetPath) {
+		return rdfIntoNewDataset(inputFilePath, newDatasetPath, IngestProgress.NONE);
+	}
+
+	/**
+	 * Reads inputFilePath and populates a new RDF data store at
+	 * targetDirectoryPath with its contents, reporting progress as it goes.
+	 * The RDF syntax is detected as described in
+	 * {@link #rdfIntoDataset(Path, Dataset, IngestProgress)}.
+	 * 
+	 * If newDatasetPath is an empty directory, the file is loaded with the TDB
+	 * bulk loader, which is much faster for large files than loading through a
+	 * transaction. If the bulk load fails, the directory is left in an
+	 * undefined state and should be discarded.
+	 *
+	 * @param inputFilePath
+	 *            Must be a valid path to an RDF file.
+	 * @param newDatasetPath
+	 *            The path to which to persist the RDF triple store with SPDX
+	 *            data.
+	 * @param progress
+	 *            Receives the number of triples loaded so far and the load
+	 *            rate.
+	 * @return
+	 */
+	public static Dataset rdfIntoNewDataset(Path inputFilePath, Path newDatasetPath, IngestProgress progress) {
 		Validate.notNull(newDatasetPath);
+		Validate.notNull(progress);
 
 		if (Files.notExists(newDatasetPath) || !Files.isDirectory(newDatasetPath)) {
 			throw new IllegalArgumentException("Invalid dataset path: " + newDatasetPath.toAbsolutePath().toString());
 		}
+		if (BulkIngest.isEmptyDirectory(newDatasetPath)) {
+			return BulkIngest.load(inputFilePath, RdfFormatDetector.detect(inputFilePath), newDatasetPath, progress);
+		}
 		Read.logger.debug("Creating new TDB in " + newDatasetPath.toAbsolutePath().toString());
 
 		Dataset dataset = TDBFactory.createDataset(newDatasetPath.toString());
 		dataset.getDefaultModel().getGraph().getPrefixMapping().setNsPrefix("spdx", SpdxUris.SPDX_TERMS);
 		dataset.getDefaultModel().getGraph().getPrefixMapping().setNsPrefix("doap", SpdxUris.DOAP_NAMESPACE);
-		Write.rdfIntoDataset(inputFilePath, dataset);
+		Write.rdfIntoDataset(inputFilePath, dataset, progress);
 		return dataset;
 	}
 
@@ -768,20 +837,47 @@ public final class Write {
 	 * @param dataset
 	 */
 	public static void rdfIntoDataset(Path inputFilePath, Dataset dataset) {
+		rdfIntoDataset(inputFilePath, dataset, IngestProgress.NONE);
+	}
+
+	/**
+	 * Reads RDF from inputFilePath into a provided dataset in one transaction,
+	 * reporting progress as it goes. NOTE: This behavior is not tested with
+	 * pre-populated datasets.
+	 * 
+	 * The RDF syntax is taken from the file extension (.rdf, .ttl, .nt, .jsonld,
+	 * .trdf...) or, if the extension isn't recognized, guessed from the
+	 * content. Files that can't be recognized are read as RDF/XML. N-Triples
+	 * files are parsed in parallel on the common fork-join pool.
+	 *
+	 * @param inputFilePath
+	 * @param dataset
+	 * @param progress
+	 *            Receives the number of triples loaded so far and the load
+	 *            rate.
+	 */
+	public static void rdfIntoDataset(Path inputFilePath, Dataset dataset, IngestProgress progress) {
 		Validate.notNull(inputFilePath);
+		Validate.notNull(progress);
 		if (Files.notExists(inputFilePath) && Files.isRegularFile(inputFilePath))
 			throw new IllegalArgumentException("File " + inputFilePath.toAbsolutePath().toString() + " does not exist");
 
-		final InputStream is;
-		try {
-			is = Files.newInputStream(inputFilePath);
-		} catch (IOException ioe) {
-			throw new RuntimeException("Unable to read file " + inputFilePath.toAbsolutePath().toString(), ioe);
-		}
-
+		Lang lang = RdfFormatDetector.detect(inputFilePath);
+		Read.logger.debug("Reading " + inputFilePath.toAbsolutePath().toString() + " as " + lang.getLabel());
 		try (DatasetAutoAbortTransaction transaction = DatasetAutoAbortTransaction.begin(dataset, ReadWrite.WRITE)) {
-			dataset.getDefaultModel().read(is, null);
+			IngestProgressStream destination = new IngestProgressStream(
+					StreamRDFLib.graph(dataset.getDefaultModel().getGraph()), progress);
+			if (Lang.NTRIPLES.equals(lang)) {
+				new ParallelNTriplesParser().parse(inputFilePath, destination);
+			} else {
+				try (InputStream is = Files.newInputStream(inputFilePath)) {
+					RDFDataMgr.parse(destination, is, lang);
+				}
+			}
 			transaction.commit();
+			destination.report();
+		} catch (IOException ioe) {
+			throw new RuntimeException("Unable to read file " + inputFilePath.toAbsolutePath().toString(), ioe);
 		}
 
 	}
@@ -791,6 +887,12 @@ public final class Write {
 		return addRelationship(source.getUri(), target.getUri(), comment, type);
 	}
 
+	/**
+	 * Generates an update that adds a relationship to the source element. A
+	 * new relationship is added even if an identical one exists; to add many
+	 * relationships, skipping those that exist, see
+	 * {@link BulkRelationshipWriter}.
+	 */
 	public static RdfResourceUpdate addRelationship(String sourceUri, String targetUri, final Optional<String> comment,
 			final Relationship.Type type) {
 		Validate.spdxElementUri(sourceUri);
@@ -799,7 +901,7 @@ public final class Write {
 
 		return new RdfResourceUpdate(sourceUri, SpdxProperties.SPDX_RELATIONSHIP, true, (Model m) -> {
 
-			Resource innerRelationship = m.createResource(new ResourceImpl(SpdxUris.SPDX_TERMS + "Relationship"));
+			Resource innerRelationship = m.createResource(SpdxResourceTypes.RELATIONSHIP_TYPE);
 			innerRelationship.addProperty(Relationship.relationshipTypeProperty, m.createResource(type.getUri()));
 			if (comment.isPresent())
 				innerRelationship.addProperty(SpdxProperties.RDF_COMMENT, m.createLiteral(comment.get()));
@@ -809,7 +911,8 @@ public final class Write {
 	}
 
 	/**
-	 * Adds a file to an SPDX element. Duplicate adds not currently handled.
+	 * Adds a file to an SPDX element, or, if the file exists, renames it and
+	 * adds it to the element.
 	 * 
 	 * @param baseUrl
 	 * @param parentSpdxId
@@ -822,46 +925,37 @@ public final class Write {
 		Validate.baseUrl(baseUrl);
 		Validate.spdxElementId(parentSpdxId);
 		Validate.spdxElementId(newFileSpdxId);
+		Validate.notNull(newFileName);
 		final String parentUri = baseUrl + '#' + parentSpdxId;
 		final String fileUri = baseUrl + '#' + newFileSpdxId;
 
 		return (Model model) -> {
-			Resource newFileResource = model.createResource(fileUri, SpdxResourceTypes.FILE_TYPE);
-			/*
-			 * There will always be one property (the type). If there are
-			 * others, it means this file isn't new.
-			 */
-			if (newFileResource.listProperties().toSet().size() > 1) {
-				// TODO: Fix, per issue #1.
-				throw new UnsupportedOperationException(
-						"File already exists. Adding existing files is currently unsupported.  " + newFileName);
-			}
-			newFileResource.addLiteral(SpdxProperties.FILE_NAME, newFileName);
-			newFileResource.addProperty(SpdxProperties.COPYRIGHT_TEXT,
-					NoneNoAssertionOrValue.NO_ASSERTION.getLiteralOrUriValue());
 			Resource parentResource = model.createResource(parentUri);
-			if (!parentResource.listProperties().hasNext()) { // Parent doesn't
-																// exist.
+			if (!parentResource.hasProperty(SpdxProperties.RDF_TYPE)) { // Parent doesn't exist.
 				throw new IllegalArgumentException("Cannot add file to non-existing element " + parentUri);
 			}
-			parentResource.addProperty(SpdxProperties.HAS_FILE, newFileResource);
+			putFile(parentResource, model.createResource(fileUri), newFileName);
 		};
 
 	}
 
 	/**
-	 * Returns a comparator by required property. If the property is not
-	 * present, a NullPointerException is thrown.
-	 * 
-	 * @param property
-	 * @return
+	 * Writes the file and adds it to the parent. A new file gets its type, its
+	 * name and a NOASSERTION copyright; an existing one gets the new name and
+	 * keeps its other properties.
 	 */
-	protected static Comparator<Resource> byRequiredLiteralProperty(Property property) {
-		return Ordering.from((Resource r1, Resource r2) -> {
-			String s1 = r1.getProperty(property).getObject().asLiteral().getString();
-			String s2 = r2.getProperty(property).getObject().asLiteral().getString();
-			return Ordering.natural().nullsFirst().compare(s1, s2);
-		}).nullsFirst();
+	static void putFile(Resource parent, Resource file, String fileName) {
+		if (!file.hasProperty(SpdxProperties.RDF_TYPE)) {
+			file.addProperty(SpdxProperties.RDF_TYPE, SpdxResourceTypes.FILE_TYPE);
+			file.addLiteral(SpdxProperties.FILE_NAME, fileName);
+			file.addProperty(SpdxProperties.COPYRIGHT_TEXT, NoneNoAssertionOrValue.NO_ASSERTION.getLiteralOrUriValue());
+		} else {
+			if (!file.hasProperty(SpdxProperties.RDF_TYPE, SpdxResourceTypes.FILE_TYPE))
+				throw new IllegalArgumentException(file.getURI() + " exists and is not a file");
+			file.removeAll(SpdxProperties.FILE_NAME);
+			file.addLiteral(SpdxProperties.FILE_NAME, fileName);
+		}
+		parent.addProperty(SpdxProperties.HAS_FILE, file);
 	}
 
 }
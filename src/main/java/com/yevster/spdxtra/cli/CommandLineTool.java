@@ -1,8 +1,9 @@
 package com.yevster.spdxtra.cli;
 
+import java.io.BufferedOutputStream;
 import java.io.File;
 import java.io.IOException;
-import java.nio.charset.Charset;
+import java.io.OutputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 
@@ -12,8 +13,6 @@ import org.apache.commons.cli.DefaultParser;
 import org.apache.commons.cli.Option;
 import org.apache.commons.cli.Options;
 import org.apache.commons.cli.ParseException;
-import org.apache.commons.io.Charsets;
-import org.apache.commons.io.FileUtils;
 import org.apache.jena.query.Dataset;
 import org.apache.jena.tdb.TDBFactory;
 
@@ -77,13 +76,11 @@ public class CommandLineTool {
 	}
 
 	private static void executeRdfXmlToJsonLd(Path inputPath, Path outputPath) {
-		// Might as well do this in memory since current JSON-LD context logic
-		// requires an in-memory model anyway.
 		final Dataset dataset = TDBFactory.createDataset();
-		try {
-			Write.rdfIntoDataset(inputPath, dataset);
-			String jsonLd = Read.outputJsonLd(dataset);
-			FileUtils.write(outputPath.toFile(), jsonLd, Charset.forName(Charsets.UTF_16.name()));
+		Write.rdfIntoDataset(inputPath, dataset);
+		// Streamed, so the JSON-LD never has to fit in memory all at once.
+		try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(outputPath))) {
+			Read.outputJsonLd(dataset, out);
 		} catch (IOException ioe) {
 			System.err.println("Unable to write file " + outputPath.toString());
 			ioe.printStackTrace(System.err);
@@ -12,14 +12,12 @@ import org.apache.commons.lang3.StringUtils;
 import org.apache.jena.rdf.model.Literal;
 import org.apache.jena.rdf.model.RDFNode;
 import org.apache.jena.rdf.model.Resource;
-import org.apache.jena.rdf.model.Statement;
 
 import com.yevster.spdxtra.Constants;
 import com.yevster.spdxtra.RdfResourceRepresentation;
 import com.yevster.spdxtra.RdfResourceUpdate;
 import com.yevster.spdxtra.SpdxProperties;
 import com.yevster.spdxtra.SpdxUris;
-import com.yevster.spdxtra.util.MiscUtils;
 
 /**
  * Describes an SPDX document.
@@ -29,15 +27,15 @@ public class SpdxDocument extends SpdxElement implements SpdxIdentifiable {
 	public static final String RDF_TYPE = SpdxUris.SPDX_DOCUMENT;
 
 	public static class CreationInfo extends RdfResourceRepresentation {
-		CreationInfo(Resource r) {
-			super(r);
+		CreationInfo(Resource r, boolean materialize) {
+			super(r, materialize);
 		}
 		
 		/**
 		 * Returns the UTC creation date time.
 		 */
 		public ZonedDateTime getCreationDate(){
-			String creationDate = rdfResource.getProperty(SpdxProperties.CREATION_DATE).getString();
+			String creationDate = getPropertyAsString(SpdxProperties.CREATION_DATE);
 			return ZonedDateTime.of(LocalDateTime.parse(creationDate, Constants.SPDX_DATE_FORMATTER), ZoneId.of("UTC"));
 		}
 		
@@ -54,8 +52,7 @@ public class SpdxDocument extends SpdxElement implements SpdxIdentifiable {
 		 */
 		public Set<String> getCreators(){
 			return Collections.unmodifiableSet(
-				MiscUtils.toLinearStream(rdfResource.listProperties(SpdxProperties.CREATOR))
-				.map(Statement::getObject)
+				getPropertyValues(SpdxProperties.CREATOR).stream()
 				.map(RDFNode::asLiteral)
 				.map(Literal::getString)
 				.collect(Collectors.toSet())
@@ -63,8 +60,25 @@ public class SpdxDocument extends SpdxElement implements SpdxIdentifiable {
 		}
 	}
 
+	// Read up front when materialized. Null otherwise.
+	private final CreationInfo creationInfo;
+
 	public SpdxDocument(Resource resource) {
-		super(resource);
+		this(resource, false);
+	}
+
+	private SpdxDocument(Resource resource, boolean materialize) {
+		super(resource, materialize);
+		this.creationInfo = materialize ? readCreationInfo(true) : null;
+	}
+
+	/**
+	 * Returns a snapshot of this document, and of its creation information,
+	 * read in one scan of the statements of each, whose getters don't read the
+	 * dataset again. Must be called inside a transaction.
+	 */
+	public SpdxDocument materialize() {
+		return isMaterialized() ? this : new SpdxDocument(rdfResource, true);
 	}
 
 	public String getName() {
@@ -97,7 +111,11 @@ public class SpdxDocument extends SpdxElement implements SpdxIdentifiable {
 	 * Returns the creation information of the document.
 	 */
 	public CreationInfo getCreationInfo(){
-		return new CreationInfo(getPropertyAsResource(SpdxProperties.CREATION_INFO).get());
+		return creationInfo != null ? creationInfo : readCreationInfo(false);
+	}
+
+	private CreationInfo readCreationInfo(boolean materialize) {
+		return new CreationInfo(getPropertyAsResource(SpdxProperties.CREATION_INFO).get(), materialize);
 	}
 
 	
@@ -16,4 +16,8 @@ public abstract class SpdxElement extends RdfResourceRepresentation {
 		super(r);
 	}
 
+	protected SpdxElement(Resource r, boolean materialize) {
+		super(r, materialize);
+	}
+
 }
@@ -10,32 +10,49 @@ import org.apache.jena.ext.com.google.common.base.MoreObjects;
 import org.apache.jena.rdf.model.Literal;
 import org.apache.jena.rdf.model.RDFNode;
 import org.apache.jena.rdf.model.Resource;
-import org.apache.jena.rdf.model.Statement;
 
+import com.yevster.spdxtra.BlobStore;
 import com.yevster.spdxtra.NoneNoAssertionOrValue;
 import com.yevster.spdxtra.SpdxProperties;
 import com.yevster.spdxtra.SpdxUris;
-import com.yevster.spdxtra.util.MiscUtils;
+import com.yevster.spdxtra.Validate;
 
 public class SpdxFile extends SpdxElement implements SpdxIdentifiable {
 	public static final String RDF_TYPE = SpdxUris.SPDX_TERMS + "File";
 
+	// Read up front when materialized, since each checksum is a resource of
+	// its own. Null otherwise.
+	private final Set<Checksum> checksums;
+
 	public SpdxFile(Resource resource) {
-		super(resource);
-		String resourceType = resource.getProperty(SpdxProperties.RDF_TYPE).getObject().asResource().getURI();
+		this(resource, false);
+	}
+
+	private SpdxFile(Resource resource, boolean materialize) {
+		super(resource, materialize);
+		String resourceType = getPropertyValue(SpdxProperties.RDF_TYPE).asResource().getURI();
 		if (!StringUtils.equals(resourceType, SpdxUris.SPDX_FILE)) {
 			throw new IllegalArgumentException("Resource " + resource.getURI() + " is not an SPDX file");
 		}
+		this.checksums = materialize ? readChecksums() : null;
+	}
+
+	/**
+	 * Returns a snapshot of this file, read in one scan of its statements,
+	 * whose getters don't read the dataset again. Must be called inside a
+	 * transaction.
+	 */
+	public SpdxFile materialize() {
+		return isMaterialized() ? this : new SpdxFile(rdfResource, true);
 	}
 
 	public String getFileName() {
-		return getPropertyAsString(SpdxUris.SPDX_TERMS + "fileName");
+		return getPropertyAsString(SpdxProperties.FILE_NAME);
 	}
 
 	public Set<FileType> getFileTypes() {
-		Set<FileType> result = 
-				MiscUtils.toLinearStream(this.rdfResource.listProperties(SpdxProperties.FILE_TYPE))
-					.map(Statement::getResource)
+		Set<FileType> result = getPropertyValues(SpdxProperties.FILE_TYPE).stream()
+					.map(RDFNode::asResource)
 					.map(Resource::getURI)
 					.map(FileType::fromUri)
 					.collect(Collectors.toSet());
@@ -44,9 +61,12 @@ public class SpdxFile extends SpdxElement implements SpdxIdentifiable {
 	}
 
 	public Set<Checksum> getChecksums() {
-		Set<Checksum> result = 
-				MiscUtils.toLinearStream(this.rdfResource.listProperties(SpdxProperties.CHECKSUM))
-						.map(Statement::getResource)
+		return checksums != null ? checksums : readChecksums();
+	}
+
+	private Set<Checksum> readChecksums() {
+		Set<Checksum> result = getPropertyValues(SpdxProperties.CHECKSUM).stream()
+						.map(RDFNode::asResource)
 						.map(Checksum::fromResource)
 						.collect(Collectors.toSet());
 		return Collections.unmodifiableSet(result);
@@ -56,9 +76,7 @@ public class SpdxFile extends SpdxElement implements SpdxIdentifiable {
 	 * Returns all the contributors defined on this file.
 	 */
 	public Set<String> getContributors(){
-		Set<String> result = 
-				MiscUtils.toLinearStream(this.rdfResource.listProperties(SpdxProperties.FILE_CONTRIBUTOR))
-				.map(Statement::getObject)
+		Set<String> result = getPropertyValues(SpdxProperties.FILE_CONTRIBUTOR).stream()
 				.map(RDFNode::asLiteral)
 				.map(Literal::getString)
 				.collect(Collectors.toSet());
@@ -68,21 +86,48 @@ public class SpdxFile extends SpdxElement implements SpdxIdentifiable {
 	 * @return
 	 */
 	public Optional<String> getComment(){
-		Statement stmt =  rdfResource.getProperty(SpdxProperties.RDF_COMMENT);
-		if (stmt == null) return Optional.empty();
-		return Optional.of(stmt.getObject().asLiteral().getString());
+		return getOptionalPropertyAsString(SpdxProperties.RDF_COMMENT);
 	}
 
+	/**
+	 * Returns the file's copyright text.
+	 *
+	 * @throws IllegalStateException
+	 *             if the text is kept in a blob store. Use
+	 *             {@link #getCopyrightText(BlobStore)}.
+	 */
 	public NoneNoAssertionOrValue getCopyrightText() {
-		return NoneNoAssertionOrValue.parse(rdfResource.getProperty(SpdxProperties.COPYRIGHT_TEXT).getString());
+		return NoneNoAssertionOrValue.parse(getPropertyAsString(SpdxProperties.COPYRIGHT_TEXT));
+	}
+
+	/**
+	 * Returns the file's copyright text, reading it from the blob store if it
+	 * is kept there.
+	 */
+	public NoneNoAssertionOrValue getCopyrightText(BlobStore blobs) {
+		Validate.notNull(blobs);
+		return NoneNoAssertionOrValue.parse(getPropertyAsString(SpdxProperties.COPYRIGHT_TEXT, blobs));
 	}
 
 	/**
 	 * Returns the file's notice text, if present.
+	 *
+	 * @throws IllegalStateException
+	 *             if the text is kept in a blob store. Use
+	 *             {@link #getNoticeText(BlobStore)}.
 	 */
 	public Optional<String> getNoticeText(){
 		return getOptionalPropertyAsString(SpdxProperties.NOTICE_TEXT);
 	}
+
+	/**
+	 * Returns the file's notice text, if present, reading it from the blob
+	 * store if it is kept there.
+	 */
+	public Optional<String> getNoticeText(BlobStore blobs){
+		Validate.notNull(blobs);
+		return getOptionalPropertyAsString(SpdxProperties.NOTICE_TEXT, blobs);
+	}
 	
 	@Override
 	public String toString() {
@@ -1,8 +1,10 @@
 package com.yevster.spdxtra.model;
 
+import com.yevster.spdxtra.BlobStore;
 import com.yevster.spdxtra.NoneNoAssertionOrValue;
 import com.yevster.spdxtra.SpdxProperties;
 import com.yevster.spdxtra.SpdxUris;
+import com.yevster.spdxtra.Validate;
 import com.yevster.spdxtra.util.MiscUtils;
 
 import org.apache.commons.lang3.StringUtils;
@@ -21,8 +23,28 @@ public class SpdxPackage extends SpdxElement implements SpdxIdentifiable {
 
 	public static final String RDF_TYPE = SpdxUris.SPDX_PACKAGE;
 
+	// Read up front when materialized, since they are resources of their own.
+	// Null otherwise.
+	private final Set<Checksum> checksums;
+	private final Optional<String> packageVerificationCode;
+
 	public SpdxPackage(Resource resource) {
-		super(resource);
+		this(resource, false);
+	}
+
+	private SpdxPackage(Resource resource, boolean materialize) {
+		super(resource, materialize);
+		this.checksums = materialize ? readChecksums() : null;
+		this.packageVerificationCode = materialize ? readPackageVerificationCode() : null;
+	}
+
+	/**
+	 * Returns a snapshot of this package, read in one scan of its statements,
+	 * whose getters don't read the dataset again, except for
+	 * {@link #getFiles()}. Must be called inside a transaction.
+	 */
+	public SpdxPackage materialize() {
+		return isMaterialized() ? this : new SpdxPackage(rdfResource, true);
 	}
 
 	/**
@@ -56,11 +78,23 @@ public class SpdxPackage extends SpdxElement implements SpdxIdentifiable {
 	 * Returns the copyright text for this package.
 	 *
 	 * @return
+	 * @throws IllegalStateException
+	 *             if the text is kept in a blob store. Use
+	 *             {@link #getCopyright(BlobStore)}.
 	 */
 	public NoneNoAssertionOrValue getCopyright() {
 		return getPropertyAsNoneNoAssertionOrValue(SpdxProperties.COPYRIGHT_TEXT);
 	}
 
+	/**
+	 * Returns the copyright text for this package, reading it from the blob
+	 * store if it is kept there.
+	 */
+	public NoneNoAssertionOrValue getCopyright(BlobStore blobs) {
+		Validate.notNull(blobs);
+		return getPropertyAsNoneNoAssertionOrValue(SpdxProperties.COPYRIGHT_TEXT, blobs);
+	}
+
 	/**
 	 * Returns the file name for this package
 	 */
@@ -131,8 +165,19 @@ public class SpdxPackage extends SpdxElement implements SpdxIdentifiable {
 				.add("Version", getVersionInfo().orElse("")).toString();
 	}
 
+	/**
+	 * Returns the files in this package. The stream may be made parallel, in
+	 * which case the files are enumerated up front and split evenly among the
+	 * workers.
+	 *
+	 * The files of a materialized package are the ones it had when it was
+	 * materialized, but they are not materialized themselves, and must be read
+	 * inside a transaction.
+	 */
 	public Stream<SpdxFile> getFiles() {
-		Stream<Statement> fileStatementStream = MiscUtils.toLinearStream(this.rdfResource.listProperties(SpdxProperties.HAS_FILE));
+		if (isMaterialized())
+			return getPropertyValues(SpdxProperties.HAS_FILE).stream().map(RDFNode::asResource).map((r) -> new SpdxFile(r));
+		Stream<Statement> fileStatementStream = MiscUtils.toSplittableStream(this.rdfResource.listProperties(SpdxProperties.HAS_FILE));
 		return fileStatementStream.map(Statement::getObject).map(RDFNode::asResource).map((r) -> new SpdxFile(r));
 	}
 	
@@ -141,9 +186,12 @@ public class SpdxPackage extends SpdxElement implements SpdxIdentifiable {
 	 * @return
 	 */
 	public Set<Checksum> getChecksums() {
-		Set<Checksum> result = 
-				MiscUtils.toLinearStream(this.rdfResource.listProperties(SpdxProperties.CHECKSUM))
-						.map(Statement::getResource)
+		return checksums != null ? checksums : readChecksums();
+	}
+
+	private Set<Checksum> readChecksums() {
+		Set<Checksum> result = getPropertyValues(SpdxProperties.CHECKSUM).stream()
+						.map(RDFNode::asResource)
 						.map(Checksum::fromResource)
 						.collect(Collectors.toSet());
 		return Collections.unmodifiableSet(result);
@@ -158,6 +206,10 @@ public class SpdxPackage extends SpdxElement implements SpdxIdentifiable {
 	 * @return
 	 */
 	public Optional<String> getPackageVerificationCode() {
+		return packageVerificationCode != null ? packageVerificationCode : readPackageVerificationCode();
+	}
+
+	private Optional<String> readPackageVerificationCode() {
 		Optional<Resource> pvc = getPropertyAsResource(SpdxProperties.PACKAGE_VERIFICATION_CODE);
 		if (!pvc.isPresent())
 			return Optional.empty();
@@ -1,14 +1,19 @@
 package com.yevster.spdxtra.model.write;
 
+import java.util.Map;
 import java.util.Optional;
 
 import org.apache.commons.lang3.StringUtils;
+import org.apache.jena.rdf.model.Literal;
 import org.apache.jena.rdf.model.Model;
 import org.apache.jena.rdf.model.Property;
 import org.apache.jena.rdf.model.RDFNode;
 import org.apache.jena.rdf.model.Resource;
 import org.apache.jena.rdf.model.ResourceFactory;
+import org.apache.jena.rdf.model.StmtIterator;
+import org.apache.jena.vocabulary.RDF;
 
+import com.yevster.spdxtra.BlobStore;
 import com.yevster.spdxtra.SpdxProperties;
 import com.yevster.spdxtra.SpdxUris;
 import com.yevster.spdxtra.Validate;
@@ -35,7 +40,15 @@ class ExtractedLicense extends License {
 
 	private Optional<String> comment;
 
+	// Null to keep the text in the graph
+	private BlobStore blobs;
+
 	public ExtractedLicense(String text, String name, String baseUrl, String spdxId, Optional<String> comment) {
+		this(text, name, baseUrl, spdxId, comment, null);
+	}
+
+	public ExtractedLicense(String text, String name, String baseUrl, String spdxId, Optional<String> comment,
+			BlobStore blobs) {
 		Validate.spdxLicenseId(spdxId);
 		Validate.baseUrl(baseUrl);
 		Validate.notBlank(text);
@@ -44,30 +57,81 @@ class ExtractedLicense extends License {
 		this.baseUrl = baseUrl;
 		this.name = name;
 		this.comment = comment;
+		this.blobs = blobs;
+
+	}
 
+	private Literal textLiteral(Model m) {
+		return blobs == null ? m.createTypedLiteral(text) : blobs.literal(m, text);
 	}
 
+	/**
+	 * Writes the license to the model the first time it is referenced there.
+	 * Later references, from this object or any other with the same ID, text,
+	 * name and comment, return the existing resource without writing to the
+	 * model. The license's properties are only replaced if they differ.
+	 */
 	@Override
 	public RDFNode getRdfNode(Model m) {
 		String licenseUri = this.baseUrl + '#' + this.spdxId;
+		Resource resource = m.createResource(licenseUri);
+		Map<String, Object> memo = GraphMemo.of(m.getGraph());
 
-		Resource resource = m.createResource(licenseUri, extractedLicenseType);
-		if (resource.listProperties().hasNext()) {
-			// Existing resource. Need to remove properties before writing them.
-			resource.removeAll(SpdxProperties.LICENSE_EXTRACTED_TEXT);
-			resource.removeAll(SpdxProperties.LICENSE_ID);
-		}
-		resource.addLiteral(SpdxProperties.LICENSE_ID, spdxId);
-		resource.addLiteral(SpdxProperties.LICENSE_EXTRACTED_TEXT, text);
-		resource.addLiteral(SpdxProperties.NAME, name);
-		if (comment.isPresent()) {
-			resource.addLiteral(SpdxProperties.RDF_COMMENT, comment.get());
+		// Written by this very object earlier in the transaction
+		if (memo.get(licenseUri) == this && resource.hasProperty(RDF.type, extractedLicenseType))
+			return resource;
+
+		synchronized (memo) {
+			if (!isWritten(resource)) {
+				resource.removeAll(SpdxProperties.LICENSE_EXTRACTED_TEXT);
+				resource.removeAll(SpdxProperties.LICENSE_ID);
+				resource.removeAll(SpdxProperties.NAME);
+				resource.removeAll(SpdxProperties.RDF_COMMENT);
+				resource.addProperty(RDF.type, extractedLicenseType);
+				resource.addLiteral(SpdxProperties.LICENSE_ID, spdxId);
+				resource.addProperty(SpdxProperties.LICENSE_EXTRACTED_TEXT, textLiteral(m));
+				resource.addLiteral(SpdxProperties.NAME, name);
+				if (comment.isPresent()) {
+					resource.addLiteral(SpdxProperties.RDF_COMMENT, comment.get());
+				}
+			}
+			memo.put(licenseUri, this);
 		}
 		return resource;
 	}
 
+	/**
+	 * True if the resource already has exactly this license's properties.
+	 */
+	private boolean isWritten(Resource resource) {
+		Model m = resource.getModel();
+		if (!resource.hasProperty(RDF.type, extractedLicenseType))
+			return false;
+		if (!isOnlyValue(resource, SpdxProperties.LICENSE_ID, m.createTypedLiteral(spdxId))
+				|| !isOnlyValue(resource, SpdxProperties.LICENSE_EXTRACTED_TEXT, textLiteral(m))
+				|| !isOnlyValue(resource, SpdxProperties.NAME, m.createTypedLiteral(name)))
+			return false;
+		return comment.isPresent()
+				? isOnlyValue(resource, SpdxProperties.RDF_COMMENT, m.createTypedLiteral(comment.get()))
+				: !resource.hasProperty(SpdxProperties.RDF_COMMENT);
+	}
+
+	private static boolean isOnlyValue(Resource resource, Property property, RDFNode value) {
+		StmtIterator values = resource.listProperties(property);
+		try {
+			return values.hasNext() && values.next().getObject().equals(value) && !values.hasNext();
+		} finally {
+			values.close();
+		}
+	}
+
 	@Override
 	public String getPrettyName() {
 		return this.name;
 	}
+
+	@Override
+	String getCanonicalKey() {
+		return this.baseUrl + '#' + this.spdxId;
+	}
 }
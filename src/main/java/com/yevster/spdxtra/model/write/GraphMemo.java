@@ -0,0 +1,36 @@
+package com.yevster.spdxtra.model.write;
+
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.jena.graph.Graph;
+
+/**
+ * Remembers, for each graph, what licenses have already been written to it
+ * (e.g. the node a license set was written as), so that writing a license
+ * that is referenced many times doesn't repeat the work. Graphs are weakly
+ * referenced; datasets hand out a new graph object for every transaction, so
+ * a memo lasts at most as long as a transaction. Entries may be stale (e.g.
+ * if what they refer to was removed later in the transaction), so callers
+ * must check the graph before trusting them.
+ *
+ * @author yevster
+ *
+ */
+final class GraphMemo {
+	private static final Map<Graph, Map<String, Object>> memos = new WeakHashMap<>();
+
+	private GraphMemo() {
+	}
+
+	/**
+	 * The memo for the graph. Thread-safe; lock it to check and update it
+	 * atomically.
+	 */
+	static Map<String, Object> of(Graph graph) {
+		synchronized (memos) {
+			return memos.computeIfAbsent(graph, g -> new ConcurrentHashMap<>());
+		}
+	}
+}
@@ -1,37 +1,55 @@
 package com.yevster.spdxtra.model.write;
 
-import java.lang.ref.WeakReference;
 import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Map;
 import java.util.Optional;
-import java.util.concurrent.atomic.AtomicReference;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 import org.apache.commons.lang3.StringUtils;
+import org.apache.jena.graph.Graph;
+import org.apache.jena.graph.Node;
 import org.apache.jena.rdf.model.Model;
 import org.apache.jena.rdf.model.Property;
 import org.apache.jena.rdf.model.RDFNode;
+import org.apache.jena.rdf.model.ResIterator;
 import org.apache.jena.rdf.model.Resource;
 import org.apache.jena.rdf.model.ResourceFactory;
+import org.apache.jena.rdf.model.Statement;
 import org.apache.jena.rdf.model.impl.PropertyImpl;
+import org.apache.jena.vocabulary.RDF;
 
+import com.yevster.spdxtra.BlobStore;
 import com.yevster.spdxtra.SpdxProperties;
 import com.yevster.spdxtra.SpdxUris;
+import com.yevster.spdxtra.Validate;
 import com.yevster.spdxtra.util.MiscUtils;
 
 public abstract class License {
 	private static class SingleUriLicense extends License {
-		final RDFNode uriNode;
+		final String uri;
 
 		final String label;
 
+		/*
+		 * Created on first use rather than when this class is initialized, so
+		 * that looking up a listed license doesn't initialize Jena.
+		 */
+		private volatile RDFNode uriNode;
+
 		private SingleUriLicense(String uri, String label) {
-			uriNode = ResourceFactory.createResource(uri);
+			this.uri = uri;
 			this.label = label;
 		}
 
 		@Override
 		public RDFNode getRdfNode(Model m) {
-			return uriNode;
+			RDFNode result = uriNode;
+			if (result == null) {
+				result = uriNode = ResourceFactory.createResource(uri);
+			}
+			return result;
 		}
 
 		@Override
@@ -40,16 +58,13 @@ public abstract class License {
 		}
 	}
 
-	private static class CompoundLicense extends License {
+	static class CompoundLicense extends License {
 
 		private final License[] memberLicenses;
 		private final String compoundElementName;
 		private final String operandLabel;
-
-		private AtomicReference<RDFNode> generatedNode = new AtomicReference<>();
-
-		private AtomicReference<WeakReference<Model>> lastModelReference = new AtomicReference<>(
-				new WeakReference<>(null));
+		private volatile String canonicalKey;
+		private volatile String memoKey;
 
 		public CompoundLicense(String compoundElementName, String operandLabel, License... memberLicenses) {
 			this.memberLicenses = memberLicenses;
@@ -57,20 +72,71 @@ public abstract class License {
 			this.operandLabel = operandLabel;
 		}
 
+		/**
+		 * Returns the node of a license set with the same type and members in
+		 * the model, creating it only if there is none. Structurally equal
+		 * compound licenses therefore share a node, however many times, from
+		 * however many License objects, they are written.
+		 */
 		public RDFNode getRdfNode(final Model m) {
-			return generatedNode.updateAndGet(node -> {
-				WeakReference<Model> lastModelWR = lastModelReference.getAndSet(new WeakReference<>(m));
-				Model lastModel = lastModelWR.get();
-				if (node == null || lastModel != m) {
-					Resource licenseType = ResourceFactory.createResource(SpdxUris.SPDX_TERMS + compoundElementName);
-					Resource result = m.createResource(licenseType);
-					for (License memberLicense : memberLicenses) {
-						result.addProperty(SpdxProperties.LICENSE_MEMBER, memberLicense.getRdfNode(m));
+			final Graph graph = m.getGraph();
+			final Map<String, Object> memo = GraphMemo.of(graph);
+			final String key = getMemoKey();
+			final Resource licenseType = ResourceFactory.createResource(SpdxUris.SPDX_TERMS + compoundElementName);
+
+			Node known = (Node) memo.get(key);
+			if (known != null && graph.contains(known, RDF.type.asNode(), licenseType.asNode()))
+				return m.asRDFNode(known);
+
+			Set<RDFNode> members = new HashSet<>();
+			for (License memberLicense : memberLicenses) {
+				members.add(memberLicense.getRdfNode(m));
+			}
+			synchronized (memo) {
+				known = (Node) memo.get(key);
+				if (known != null && graph.contains(known, RDF.type.asNode(), licenseType.asNode()))
+					return m.asRDFNode(known);
+				Resource result = findLicenseSet(m, licenseType, members);
+				if (result == null) {
+					result = m.createResource(licenseType);
+					for (RDFNode member : members) {
+						result.addProperty(SpdxProperties.LICENSE_MEMBER, member);
 					}
-					return result;
-				} else
-					return node;
-			});
+				}
+				memo.put(key, result.asNode());
+				return result;
+			}
+		}
+
+		private String getMemoKey() {
+			String result = memoKey;
+			if (result == null) {
+				result = memoKey = compoundElementName + ":" + getCanonicalKey();
+			}
+			return result;
+		}
+
+		/**
+		 * Finds a license set of the type with exactly the members, or returns
+		 * null.
+		 */
+		private static Resource findLicenseSet(Model m, Resource licenseType, Set<RDFNode> members) {
+			ResIterator candidates = members.isEmpty() ? m.listSubjectsWithProperty(RDF.type, licenseType)
+					: m.listSubjectsWithProperty(SpdxProperties.LICENSE_MEMBER, members.iterator().next());
+			try {
+				while (candidates.hasNext()) {
+					Resource candidate = candidates.next();
+					if (!candidate.hasProperty(RDF.type, licenseType))
+						continue;
+					Set<RDFNode> candidateMembers = candidate.listProperties(SpdxProperties.LICENSE_MEMBER)
+							.mapWith(Statement::getObject).toSet();
+					if (candidateMembers.equals(members))
+						return candidate;
+				}
+			} finally {
+				candidates.close();
+			}
+			return null;
 		}
 
 		@Override
@@ -80,8 +146,49 @@ public abstract class License {
 
 		}
 
+		boolean isConjunctive() {
+			return CONJUNCTIVE.equals(compoundElementName);
+		}
+
+		License[] getMembers() {
+			return memberLicenses;
+		}
+
+		/**
+		 * The distinct keys of the members, sorted and joined with the
+		 * operand, with compound members parenthesized, e.g.
+		 * "(Apache-2.0 OR MIT) AND BSD-3-Clause". Since a license set is
+		 * unordered, it doesn't depend on the order of the members.
+		 */
+		@Override
+		String getCanonicalKey() {
+			String result = canonicalKey;
+			if (result == null) {
+				String[] keys = new String[memberLicenses.length];
+				for (int i = 0; i < keys.length; ++i) {
+					License member = memberLicenses[i];
+					keys[i] = member instanceof CompoundLicense ? "(" + member.getCanonicalKey() + ")"
+							: member.getCanonicalKey();
+				}
+				Arrays.sort(keys);
+				StringBuilder builder = new StringBuilder();
+				for (int i = 0; i < keys.length; ++i) {
+					if (i > 0 && keys[i].equals(keys[i - 1]))
+						continue;
+					if (builder.length() > 0)
+						builder.append(' ').append(operandLabel).append(' ');
+					builder.append(keys[i]);
+				}
+				result = canonicalKey = builder.toString();
+			}
+			return result;
+		}
+
 	}
 
+	private static final String CONJUNCTIVE = "ConjunctiveLicenseSet";
+	private static final String DISJUNCTIVE = "DisjunctiveLicenseSet";
+
 	/**
 	 * Returns a conjunctive license containing or referencing all the provided
 	 * licenses.
@@ -90,7 +197,7 @@ public abstract class License {
 	 * @return
 	 */
 	public static License and(License... licenses) {
-		return new CompoundLicense("ConjunctiveLicenseSet", "AND", licenses);
+		return new CompoundLicense(CONJUNCTIVE, "AND", licenses);
 	}
 
 	/**
@@ -101,7 +208,7 @@ public abstract class License {
 	 * @return
 	 */
 	public static License or(License... licenses) {
-		return new CompoundLicense("DisjunctiveLicenseSet", "OR", licenses);
+		return new CompoundLicense(DISJUNCTIVE, "OR", licenses);
 	}
 
 	/**
@@ -140,11 +247,44 @@ public abstract class License {
 		return new ExtractedLicense(text, name, baseUrl, spdxId, MiscUtils.optionalOfBlankable(comment));
 	}
 
+	/**
+	 * Returns a license with the specified text and the specified ID, whose
+	 * text is kept in the blob store if it is long enough.
+	 * 
+	 * @param text
+	 *            License text
+	 * @param name
+	 *            License name
+	 * @param baseUrl
+	 *            The base URI of the containing document
+	 * @param spdxId
+	 *            A unique SPDX ID of the license in the form "LicenseRef-*".
+	 * @param comment
+	 *            A comment to be stored inside the license, or null.
+	 * @param blobs
+	 *            The store for the license text.
+	 * @return
+	 */
+	public static License extracted(String text, String name, String baseUrl, String spdxId, String comment,
+			BlobStore blobs) {
+		Validate.notNull(blobs);
+		return new ExtractedLicense(text, name, baseUrl, spdxId, MiscUtils.optionalOfBlankable(comment), blobs);
+	}
+
 	public static final License NOASSERTION = new SingleUriLicense(SpdxUris.NO_ASSERTION, "NOASSERTION");
 	public static final License NONE = new SingleUriLicense(SpdxUris.NONE, "NONE");
 
 	public abstract RDFNode getRdfNode(Model m);
 
+	/**
+	 * A key that is equal for licenses that are written the same way, used to
+	 * canonicalize parsed license expressions. Listed licenses are keyed by
+	 * their IDs.
+	 */
+	String getCanonicalKey() {
+		return getPrettyName();
+	}
+
 	/**
 	 * Returns a laconic but friendly name or a label for this license that may
 	 * be displayed to a product user or written in a report.
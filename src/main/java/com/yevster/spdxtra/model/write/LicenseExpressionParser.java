@@ -0,0 +1,332 @@
+package com.yevster.spdxtra.model.write;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.IntSupplier;
+
+import com.yevster.spdxtra.LicenseList;
+import com.yevster.spdxtra.Validate;
+import com.yevster.spdxtra.model.write.License.CompoundLicense;
+
+/**
+ * Parses SPDX license expressions, such as
+ * <code>(MIT OR Apache-2.0) AND BSD-3-Clause</code>, into {@link License}
+ * objects. AND binds tighter than OR, and parentheses group. Listed license IDs
+ * are resolved with {@link LicenseList#getListedLicenseById(String)};
+ * LicenseRef- and DocumentRef- IDs with a resolver supplied by the caller
+ * (see {@link #forDocument(String, Map)}). NONE and NOASSERTION map to
+ * {@link License#NONE} and {@link License#NOASSERTION}. License exceptions
+ * (WITH) are not supported, since {@link License} can't represent them.
+ *
+ * Results are canonical: nested sets with the same operator are flattened,
+ * duplicate members are dropped, members are sorted, and a set with a single
+ * member is replaced by the member. Expressions that are equal after
+ * canonicalization, e.g. "MIT OR Apache-2.0" and "(Apache-2.0 OR MIT)", parse
+ * to the same License instance as long as it stays in the cache.
+ *
+ * The most recently used expressions are cached (1000 by default, see
+ * {@link #cacheSize(int)}). Parsers are thread-safe.
+ *
+ * @author yevster
+ *
+ */
+public final class LicenseExpressionParser {
+	private static final int DEFAULT_CACHE_SIZE = 1000;
+
+	private final Function<String, License> licenseRefResolver;
+	private volatile int cacheSize = DEFAULT_CACHE_SIZE;
+	// Expression -> license
+	private final Map<String, License> expressions = new LruMap<>(() -> cacheSize);
+	// Canonical key -> license, so that equivalent expressions share instances
+	private final Map<String, License> canonical = new LruMap<>(() -> cacheSize);
+	private final AtomicLong hits = new AtomicLong();
+	private final AtomicLong misses = new AtomicLong();
+
+	private static final class LruMap<K, V> extends LinkedHashMap<K, V> {
+		private static final long serialVersionUID = 1L;
+		private final IntSupplier maxSize;
+
+		private LruMap(IntSupplier maxSize) {
+			super(16, 0.75f, true);
+			this.maxSize = maxSize;
+		}
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+			return size() > maxSize.getAsInt();
+		}
+	}
+
+	private LicenseExpressionParser(Function<String, License> licenseRefResolver) {
+		this.licenseRefResolver = licenseRefResolver;
+	}
+
+	/**
+	 * Creates a parser for expressions made only of listed licenses, NONE and
+	 * NOASSERTION.
+	 */
+	public static LicenseExpressionParser create() {
+		return new LicenseExpressionParser(id -> null);
+	}
+
+	/**
+	 * Creates a parser that resolves LicenseRef- and DocumentRef- IDs with the
+	 * resolver. The resolver returns null for IDs it doesn't know.
+	 */
+	public static LicenseExpressionParser create(Function<String, License> licenseRefResolver) {
+		Validate.notNull(licenseRefResolver);
+		return new LicenseExpressionParser(licenseRefResolver);
+	}
+
+	/**
+	 * Creates a parser that resolves the LicenseRef- IDs of the document
+	 * to extracted licenses with {@link License#extracted(String, String, String, String)}.
+	 * Each extracted license is named after its ID.
+	 *
+	 * @param baseUrl
+	 *            The base URL of the document.
+	 * @param licenseTexts
+	 *            The extracted license texts, keyed by LicenseRef- ID.
+	 */
+	public static LicenseExpressionParser forDocument(String baseUrl, Map<String, String> licenseTexts) {
+		Validate.baseUrl(baseUrl);
+		Validate.notNull(licenseTexts);
+		final Map<String, License> extracted = new ConcurrentHashMap<>();
+		return create(id -> {
+			String text = licenseTexts.get(id);
+			return text == null ? null
+					: extracted.computeIfAbsent(id, key -> License.extracted(text, key, baseUrl, key));
+		});
+	}
+
+	/**
+	 * The number of expressions to cache. 0 disables caching.
+	 */
+	public LicenseExpressionParser cacheSize(int cacheSize) {
+		Validate.validate(cacheSize >= 0, "Cache size must not be negative");
+		// The caches shrink to the new size as entries are added.
+		this.cacheSize = cacheSize;
+		return this;
+	}
+
+	/**
+	 * Parses the expression.
+	 *
+	 * @throws IllegalArgumentException
+	 *             if the expression is malformed, or refers to licenses that
+	 *             can't be resolved.
+	 */
+	public License parse(String expression) {
+		Validate.notNull(expression);
+		License result;
+		synchronized (this) {
+			result = expressions.get(expression);
+		}
+		if (result != null) {
+			hits.incrementAndGet();
+			return result;
+		}
+		misses.incrementAndGet();
+		License parsed = new Parser(expression).parse();
+		synchronized (this) {
+			result = canonical.get(parsed.getCanonicalKey());
+			if (result == null) {
+				result = parsed;
+				canonical.put(parsed.getCanonicalKey(), parsed);
+			}
+			expressions.put(expression, result);
+		}
+		return result;
+	}
+
+	/**
+	 * The number of expressions that were found in the cache.
+	 */
+	public long getCacheHits() {
+		return hits.get();
+	}
+
+	/**
+	 * The number of expressions that had to be parsed.
+	 */
+	public long getCacheMisses() {
+		return misses.get();
+	}
+
+	private License resolve(String expression, int start, int end) {
+		String id = expression.substring(start, end);
+		if ("NONE".equals(id))
+			return License.NONE;
+		if ("NOASSERTION".equals(id))
+			return License.NOASSERTION;
+		License result = id.startsWith("LicenseRef-") || id.startsWith("DocumentRef-") ? licenseRefResolver.apply(id)
+				: LicenseList.INSTANCE.getListedLicenseById(id).orElse(null);
+		if (result == null)
+			throw new IllegalArgumentException("Unknown license " + id + " in license expression: " + expression);
+		return result;
+	}
+
+	private static final Comparator<License> byCanonicalKey = Comparator.comparing(License::getCanonicalKey);
+
+	/**
+	 * Builds a canonical license set: flattens members that are sets of the
+	 * same kind, drops duplicates and sorts the rest.
+	 */
+	private static License canonicalSet(boolean conjunctive, List<License> operands) {
+		List<License> members = new ArrayList<>(operands.size());
+		for (License operand : operands) {
+			if (operand instanceof CompoundLicense && ((CompoundLicense) operand).isConjunctive() == conjunctive) {
+				members.addAll(Arrays.asList(((CompoundLicense) operand).getMembers()));
+			} else {
+				members.add(operand);
+			}
+		}
+		members.sort(byCanonicalKey);
+		int distinct = 0;
+		for (License member : members) {
+			if (distinct == 0 || !members.get(distinct - 1).getCanonicalKey().equals(member.getCanonicalKey())) {
+				members.set(distinct++, member);
+			}
+		}
+		if (distinct == 1)
+			return members.get(0);
+		License[] result = members.subList(0, distinct).toArray(new License[distinct]);
+		return conjunctive ? License.and(result) : License.or(result);
+	}
+
+	/**
+	 * Recursive descent over the expression string, without tokenizing it up
+	 * front:
+	 *
+	 * <pre>
+	 * or   := and ("OR" and)*
+	 * and  := atom ("AND" atom)*
+	 * atom := "(" or ")" | id
+	 * </pre>
+	 */
+	private final class Parser {
+		private final String expression;
+		private int position = 0;
+
+		private Parser(String expression) {
+			this.expression = expression;
+		}
+
+		License parse() {
+			skipWhitespace();
+			if (position == expression.length())
+				throw error("Empty license expression");
+			License result = or();
+			skipWhitespace();
+			if (position < expression.length())
+				throw error("Unexpected '" + expression.charAt(position) + "'");
+			return result;
+		}
+
+		private License or() {
+			License first = and();
+			if (!keyword("OR"))
+				return first;
+			List<License> operands = new ArrayList<>(4);
+			operands.add(first);
+			do {
+				operands.add(and());
+			} while (keyword("OR"));
+			return canonicalSet(false, operands);
+		}
+
+		private License and() {
+			License first = atom();
+			if (!keyword("AND"))
+				return first;
+			List<License> operands = new ArrayList<>(4);
+			operands.add(first);
+			do {
+				operands.add(atom());
+			} while (keyword("AND"));
+			return canonicalSet(true, operands);
+		}
+
+		private License atom() {
+			skipWhitespace();
+			if (position == expression.length())
+				throw error("Unexpected end of license expression");
+			if (expression.charAt(position) == '(') {
+				++position;
+				License result = or();
+				skipWhitespace();
+				if (position == expression.length() || expression.charAt(position) != ')')
+					throw error("Missing ')'");
+				++position;
+				return result;
+			}
+			int start = position;
+			while (position < expression.length() && isIdCharacter(expression.charAt(position))) {
+				++position;
+			}
+			if (start == position)
+				throw error("Unexpected '" + expression.charAt(position) + "'");
+			if (isKeyword(start, position))
+				throw error("Expected a license ID, found " + expression.substring(start, position));
+			return resolve(expression, start, position);
+		}
+
+		/**
+		 * Consumes the keyword if it is next.
+		 */
+		private boolean keyword(String keyword) {
+			skipWhitespace();
+			int end = position + keyword.length();
+			if (expression.regionMatches(position, keyword, 0, keyword.length())
+					&& (end == expression.length() || !isIdCharacter(expression.charAt(end)))) {
+				position = end;
+				return true;
+			}
+			if (isKeyword(position, wordEnd()) && expression.startsWith("WITH", position))
+				throw error("License exceptions (WITH) are not supported");
+			return false;
+		}
+
+		private int wordEnd() {
+			int end = position;
+			while (end < expression.length() && isIdCharacter(expression.charAt(end))) {
+				++end;
+			}
+			return end;
+		}
+
+		private boolean isKeyword(int start, int end) {
+			int length = end - start;
+			return (length == 2 && expression.startsWith("OR", start))
+					|| (length == 3 && expression.startsWith("AND", start))
+					|| (length == 4 && expression.startsWith("WITH", start));
+		}
+
+		private void skipWhitespace() {
+			while (position < expression.length() && Character.isWhitespace(expression.charAt(position))) {
+				++position;
+			}
+		}
+
+		private IllegalArgumentException error(String message) {
+			return new IllegalArgumentException(message + " at position " + position + " of license expression: "
+					+ expression);
+		}
+	}
+
+	/**
+	 * Letters, digits, '.', '-' and '+' (for "or later" IDs), and ':' for
+	 * DocumentRef-*:LicenseRef-* references.
+	 */
+	private static boolean isIdCharacter(char c) {
+		return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '.' || c == '-'
+				|| c == '+' || c == ':';
+	}
+}
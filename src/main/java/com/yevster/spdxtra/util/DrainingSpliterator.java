@@ -0,0 +1,76 @@
+package com.yevster.spdxtra.util;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+
+/**
+ * A spliterator over an iterator of unknown size that splits well. Traversed
+ * sequentially, it reads the iterator lazily, one element at a time. The first
+ * time it is split, it drains the rest of the iterator into an array, after
+ * which it is SIZED and splits into balanced halves, like a spliterator over an
+ * array.
+ *
+ * Meant for iterators over graph triples or nodes, where draining is cheap
+ * compared with whatever the stream does to each element downstream, and for
+ * which the underlying iterator is only ever touched by the thread that started
+ * the traversal.
+ *
+ * @author yevster
+ *
+ */
+public class DrainingSpliterator<T> implements Spliterator<T> {
+	private static final int CHARACTERISTICS = Spliterator.ORDERED | Spliterator.NONNULL;
+
+	private final Iterator<? extends T> iterator;
+	/**
+	 * Everything left in the iterator, once it's been drained.
+	 */
+	private Spliterator<T> drained = null;
+
+	public DrainingSpliterator(Iterator<? extends T> iterator) {
+		this.iterator = iterator;
+	}
+
+	@Override
+	public boolean tryAdvance(Consumer<? super T> action) {
+		if (drained != null)
+			return drained.tryAdvance(action);
+		if (!iterator.hasNext())
+			return false;
+		action.accept(iterator.next());
+		return true;
+	}
+
+	@Override
+	public void forEachRemaining(Consumer<? super T> action) {
+		if (drained != null)
+			drained.forEachRemaining(action);
+		else
+			iterator.forEachRemaining(action);
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public Spliterator<T> trySplit() {
+		if (drained == null) {
+			List<T> rest = new ArrayList<>();
+			iterator.forEachRemaining(rest::add);
+			drained = Spliterators.spliterator((T[]) rest.toArray(), CHARACTERISTICS);
+		}
+		return drained.trySplit();
+	}
+
+	@Override
+	public long estimateSize() {
+		return drained != null ? drained.estimateSize() : Long.MAX_VALUE;
+	}
+
+	@Override
+	public int characteristics() {
+		return drained != null ? drained.characteristics() : CHARACTERISTICS;
+	}
+}
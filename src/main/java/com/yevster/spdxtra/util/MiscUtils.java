@@ -15,6 +15,15 @@ public class MiscUtils {
 		return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED | Spliterator.NONNULL), false);
 	}
 
+	/**
+	 * Returns a stream over the iterator that reads it lazily when consumed
+	 * sequentially and splits evenly when consumed in parallel. See
+	 * {@link DrainingSpliterator}.
+	 */
+	public static <T> Stream<T> toSplittableStream(Iterator<T> iterator) {
+		return StreamSupport.stream(new DrainingSpliterator<>(iterator), false);
+	}
+
 	/**
 	 * Returns an optional value that is empty if, and only if, the string is
 	 * null or consists entirely of whitespace.
@@ -0,0 +1,176 @@
+package com.yevster.spdxtra;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import org.apache.jena.query.Dataset;
+import org.apache.jena.query.DatasetFactory;
+import org.apache.jena.query.ReadWrite;
+import org.apache.jena.rdf.model.Property;
+import org.apache.jena.rdf.model.ResourceFactory;
+import org.junit.Test;
+
+import com.yevster.spdxtra.BatchingUpdateApplier.BatchFailedException;
+import com.yevster.spdxtra.BatchingUpdateApplier.Statistics;
+import com.yevster.spdxtra.Write.ModelUpdate;
+
+public class TestBatchingUpdateApplier {
+	private static final Property index = ResourceFactory.createProperty("http://example.org/test#index");
+
+	private static ModelUpdate addResource(int i) {
+		return model -> model.createResource("http://example.org/test#r" + i).addLiteral(index, i);
+	}
+
+	private static long countResources(Dataset dataset) {
+		try (DatasetAutoAbortTransaction t = DatasetAutoAbortTransaction.begin(dataset, ReadWrite.READ)) {
+			return dataset.getDefaultModel().listSubjectsWithProperty(index).toList().size();
+		}
+	}
+
+	@Test
+	public void testCommitsEveryBatchSize() {
+		Dataset dataset = DatasetFactory.createTxnMem();
+		List<Statistics> commits = new ArrayList<>();
+		Statistics result = BatchingUpdateApplier.forDataset(dataset).batchSize(100).maxBatchMillis(60_000)
+				.onCommit(commits::add).apply(IntStream.range(0, 1050).mapToObj(TestBatchingUpdateApplier::addResource));
+
+		assertEquals(1050, result.getUpdates());
+		assertEquals(11, result.getBatches());
+		assertEquals(11, commits.size());
+		assertEquals(100, commits.get(0).getUpdates());
+		assertEquals(1050, commits.get(10).getUpdates());
+		assertEquals(1050, countResources(dataset));
+	}
+
+	@Test
+	public void testCommitsWhenBatchTakesTooLong() {
+		Dataset dataset = DatasetFactory.createTxnMem();
+		Stream<ModelUpdate> slowUpdates = IntStream.range(0, 4).mapToObj(i -> {
+			try {
+				Thread.sleep(150);
+			} catch (InterruptedException e) {
+				throw new RuntimeException(e);
+			}
+			return addResource(i);
+		});
+		Statistics result = BatchingUpdateApplier.forDataset(dataset).batchSize(1000).maxBatchMillis(50)
+				.apply(slowUpdates);
+		assertEquals(4, result.getUpdates());
+		assertTrue(result.getBatches() > 1);
+		assertEquals(4, countResources(dataset));
+	}
+
+	@Test
+	public void testFailedUpdateAbortsOnlyItsBatch() {
+		Dataset dataset = DatasetFactory.createTxnMem();
+		Stream<ModelUpdate> updates = IntStream.range(0, 1000).mapToObj(i -> {
+			if (i == 250)
+				return model -> {
+					throw new IllegalStateException("Update 250 fails");
+				};
+			return addResource(i);
+		});
+		try {
+			BatchingUpdateApplier.forDataset(dataset).batchSize(100).maxBatchMillis(60_000).apply(updates);
+			fail("The failing update should have failed the batch.");
+		} catch (BatchFailedException e) {
+			assertEquals(200, e.getCommitted().getUpdates());
+			assertEquals(2, e.getCommitted().getBatches());
+			assertEquals(50, e.getAbortedUpdates());
+			assertTrue(e.getCause() instanceof IllegalStateException);
+		}
+		assertEquals(200, countResources(dataset));
+	}
+
+	@Test
+	public void testFailedStreamAbortsOnlyItsBatch() {
+		Dataset dataset = DatasetFactory.createTxnMem();
+		Stream<ModelUpdate> updates = IntStream.range(0, 1000).mapToObj(i -> {
+			if (i == 150)
+				throw new IllegalStateException("Scanner fails");
+			return addResource(i);
+		});
+		try {
+			BatchingUpdateApplier.forDataset(dataset).batchSize(100).maxBatchMillis(60_000).apply(updates);
+			fail("The failing stream should have failed the batch.");
+		} catch (BatchFailedException e) {
+			assertEquals(100, e.getCommitted().getUpdates());
+			assertEquals(50, e.getAbortedUpdates());
+			assertTrue(e.getCause() instanceof IllegalStateException);
+		}
+		assertEquals(100, countResources(dataset));
+	}
+
+	@Test
+	public void testIdleProducerDoesNotHoldWriteTransaction() throws Exception {
+		Dataset dataset = DatasetFactory.createTxnMem();
+		CountDownLatch firstUpdate = new CountDownLatch(1);
+		Stream<ModelUpdate> updates = IntStream.range(0, 10).mapToObj(i -> {
+			try {
+				firstUpdate.await();
+			} catch (InterruptedException e) {
+				throw new RuntimeException(e);
+			}
+			return addResource(i);
+		});
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+		try {
+			Future<Statistics> applied = executor.submit(() -> BatchingUpdateApplier.forDataset(dataset)
+					.maxBatchMillis(60_000).apply(updates));
+			Thread.sleep(100);
+			// Another writer isn't blocked while the applier waits for updates.
+			executor.submit(() -> Write.applyUpdatesInOneTransaction(dataset, addResource(100))).get(10,
+					TimeUnit.SECONDS);
+			firstUpdate.countDown();
+			assertEquals(10, applied.get(10, TimeUnit.SECONDS).getUpdates());
+		} finally {
+			firstUpdate.countDown();
+			executor.shutdownNow();
+		}
+		assertEquals(11, countResources(dataset));
+	}
+
+	@Test
+	public void testInterruptStatusKept() {
+		Dataset dataset = DatasetFactory.createTxnMem();
+		Thread.currentThread().interrupt();
+		try {
+			BatchingUpdateApplier.forDataset(dataset).apply(Stream.of(addResource(0)));
+			fail("The interrupted applier should have failed.");
+		} catch (BatchFailedException e) {
+			assertTrue(e.getCause() instanceof InterruptedException);
+			assertEquals(0, e.getCommitted().getUpdates());
+		} finally {
+			// Also clears the status for the other tests.
+			assertTrue(Thread.interrupted());
+		}
+		assertEquals(0, countResources(dataset));
+	}
+
+	@Test(expected = OutOfMemoryError.class)
+	public void testErrorsAreNotWrapped() {
+		Dataset dataset = DatasetFactory.createTxnMem();
+		BatchingUpdateApplier.forDataset(dataset).apply(Stream.of(model -> {
+			throw new OutOfMemoryError("Simulated");
+		}));
+	}
+
+	@Test
+	public void testEmptyStream() {
+		Dataset dataset = DatasetFactory.createTxnMem();
+		Statistics result = BatchingUpdateApplier.forDataset(dataset).apply(Stream.empty());
+		assertEquals(0, result.getUpdates());
+		assertEquals(0, result.getBatches());
+	}
+}
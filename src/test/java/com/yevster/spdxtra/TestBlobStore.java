@@ -0,0 +1,272 @@
+package com.yevster.spdxtra;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.jena.query.Dataset;
+import org.apache.jena.query.DatasetFactory;
+import org.apache.jena.rdf.model.Literal;
+import org.apache.jena.rdf.model.Model;
+import org.apache.jena.rdf.model.ModelFactory;
+import org.apache.jena.rdf.model.RDFNode;
+import org.apache.jena.rdf.model.Resource;
+import org.apache.jena.riot.Lang;
+import org.apache.jena.riot.RDFDataMgr;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.yevster.spdxtra.model.Creator;
+import com.yevster.spdxtra.model.SpdxFile;
+import com.yevster.spdxtra.model.write.License;
+
+public class TestBlobStore {
+	private static final String baseUrl = "http://example.org/blobs";
+	private static final String fileUri = baseUrl + "#SPDXRef-File";
+	private static final String longText = StringUtils.repeat("Notice: this is a long notice. ", 1000);
+
+	private Path directory;
+	private Path storeFile;
+
+	@Before
+	public void setup() throws IOException {
+		directory = Files.createTempDirectory("spdxtraBlobs");
+		storeFile = directory.resolve("blobs.bin");
+	}
+
+	@After
+	public void cleanUp() throws IOException {
+		FileUtils.deleteDirectory(directory.toFile());
+	}
+
+	@Test
+	public void testPutAndGet() throws IOException {
+		String hash;
+		try (BlobStore store = BlobStore.open(storeFile)) {
+			hash = store.put(longText);
+			assertEquals(DigestUtils.sha256Hex(longText), hash);
+			long sizeAfterFirst = Files.size(storeFile);
+			// Stored once
+			assertEquals(hash, store.put(longText));
+			assertEquals(sizeAfterFirst, Files.size(storeFile));
+			assertEquals(1, store.size());
+			assertEquals(longText, store.get(hash));
+			assertNull(store.get(DigestUtils.sha256Hex("Not stored")));
+		}
+		// And still there after reopening
+		try (BlobStore store = BlobStore.open(storeFile)) {
+			assertEquals(1, store.size());
+			assertEquals(longText, store.get(hash));
+			// Non-ASCII: "Unicode" with diacritics
+			String unicode = "\u00DCn\u00EFc\u00F6d\u00E9 " + longText;
+			String other = store.put(unicode);
+			assertEquals(unicode, store.get(other));
+			assertEquals(longText, store.get(hash));
+		}
+	}
+
+	@Test
+	public void testIncompleteRecordTruncated() throws IOException {
+		String hash;
+		long goodSize;
+		try (BlobStore store = BlobStore.open(storeFile)) {
+			hash = store.put(longText);
+			goodSize = Files.size(storeFile);
+			store.put(longText + " and then some");
+		}
+		// Simulate a crash in the middle of writing the second record
+		try (FileChannel channel = FileChannel.open(storeFile, StandardOpenOption.WRITE)) {
+			channel.truncate(goodSize + 100);
+		}
+		try (BlobStore store = BlobStore.open(storeFile)) {
+			assertEquals(1, store.size());
+			assertEquals(goodSize, Files.size(storeFile));
+			assertEquals(longText, store.get(hash));
+		}
+	}
+
+	@Test
+	public void testCorruptRecordDetected() throws IOException {
+		String hash;
+		try (BlobStore store = BlobStore.open(storeFile)) {
+			hash = store.put(longText);
+		}
+		// Flip the last byte of the text
+		try (FileChannel channel = FileChannel.open(storeFile, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+			ByteBuffer last = ByteBuffer.allocate(1);
+			channel.read(last, channel.size() - 1);
+			last.put(0, (byte) (last.get(0) ^ 1));
+			last.rewind();
+			channel.write(last, channel.size() - 1);
+		}
+		try (BlobStore store = BlobStore.open(storeFile)) {
+			store.get(hash);
+			fail("Returned a text that doesn't match its SHA-256");
+		} catch (UncheckedIOException e) {
+			// Expected
+		}
+	}
+
+	@Test
+	public void testOpenedOnce() {
+		try (BlobStore store = BlobStore.open(storeFile)) {
+			try {
+				BlobStore.open(storeFile);
+				fail("Opened a store that was already open");
+			} catch (IllegalStateException e) {
+				// Expected
+			}
+			// Still usable
+			assertEquals(longText, store.get(store.put(longText)));
+		}
+		// Released on close
+		try (BlobStore store = BlobStore.open(storeFile)) {
+			assertEquals(1, store.size());
+		}
+	}
+
+	@Test
+	public void testLiterals() {
+		try (BlobStore store = BlobStore.open(storeFile, 100)) {
+			Literal shortLiteral = store.literal(ModelFactory.createDefaultModel(), "Short");
+			assertFalse(BlobStore.isReference(shortLiteral));
+			assertEquals("Short", store.text(shortLiteral));
+			assertEquals(0, store.size());
+
+			Literal longLiteral = store.literal(ModelFactory.createDefaultModel(), longText);
+			assertTrue(BlobStore.isReference(longLiteral));
+			assertEquals(DigestUtils.sha256Hex(longText), longLiteral.getLexicalForm());
+			assertEquals(longText, store.text(longLiteral));
+			try (BlobStore other = BlobStore.open(directory.resolve("other.bin"))) {
+				other.text(longLiteral);
+				fail("Resolved a reference to another store");
+			} catch (IllegalStateException e) {
+				// Expected
+			}
+			store.close();
+			try {
+				store.text(longLiteral);
+				fail("Resolved a reference in a closed store");
+			} catch (IllegalStateException e) {
+				// Expected
+			}
+		}
+	}
+
+	@Test
+	public void testNoticeAndLicenseTexts() {
+		Dataset dataset = DatasetFactory.createTxnMem();
+		try (BlobStore store = BlobStore.open(storeFile)) {
+			License license = License.extracted(longText, "Long", baseUrl, "LicenseRef-Long", null, store);
+			Write.applyUpdatesInOneTransaction(dataset,
+					Write.New.document(baseUrl, "SPDXRef-DOCUMENT", "Blobs", Creator.tool("Test")),
+					Write.Document.addPackage(baseUrl, "SPDXRef-DOCUMENT", "SPDXRef-Package", "Package"),
+					Write.Package.addFile(baseUrl, "SPDXRef-Package", "SPDXRef-File", "./file"),
+					Write.File.noticeText(fileUri, longText, store),
+					Write.File.copyrightText(fileUri, NoneNoAssertionOrValue.of(longText), store),
+					Write.File.concludedLicense(fileUri, license));
+			// The three texts are the same, so stored once
+			assertEquals(1, store.size());
+
+			SpdxFile file = new SpdxFile(Read.lookupResourceByUri(dataset, fileUri).get());
+			Literal noticeLiteral = Read.lookupResourceByUri(dataset, fileUri).get()
+					.getProperty(SpdxProperties.NOTICE_TEXT).getLiteral();
+			assertTrue(BlobStore.isReference(noticeLiteral));
+			assertEquals(longText, file.getNoticeText(store).get());
+			assertEquals(longText, file.getCopyrightText(store).getValue().get());
+			try {
+				file.getNoticeText();
+				fail("Returned a reference without its store");
+			} catch (IllegalStateException e) {
+				// Expected
+			}
+
+			Resource licenseResource = Read.lookupResourceByUri(dataset, baseUrl + "#LicenseRef-Long").get();
+			assertEquals(longText,
+					store.text(licenseResource.getProperty(SpdxProperties.LICENSE_EXTRACTED_TEXT).getLiteral()));
+
+			// Short texts stay in the graph
+			Write.applyUpdatesInOneTransaction(dataset, Write.File.noticeText(fileUri, "Short notice", store));
+			assertEquals("Short notice", file.getNoticeText().get());
+			assertEquals("Short notice", file.getNoticeText(store).get());
+			assertEquals(1, store.size());
+		}
+	}
+
+	private static void assertTextsInFull(Model exported) {
+		Resource file = exported.getResource(fileUri);
+		assertEquals(longText, file.getProperty(SpdxProperties.NOTICE_TEXT).getString());
+		assertEquals(longText, file.getProperty(SpdxProperties.COPYRIGHT_TEXT).getString());
+		assertEquals(longText, exported.getResource(baseUrl + "#LicenseRef-Long")
+				.getProperty(SpdxProperties.LICENSE_EXTRACTED_TEXT).getString());
+		exported.listObjects().filterKeep(RDFNode::isLiteral)
+				.forEachRemaining(literal -> assertFalse(BlobStore.isReference(literal.asLiteral())));
+	}
+
+	@Test
+	public void testExportsWriteTextsInFull() throws IOException {
+		Dataset dataset = DatasetFactory.createTxnMem();
+		try (BlobStore store = BlobStore.open(storeFile)) {
+			License license = License.extracted(longText, "Long", baseUrl, "LicenseRef-Long", null, store);
+			Write.applyUpdatesInOneTransaction(dataset,
+					Write.New.document(baseUrl, "SPDXRef-DOCUMENT", "Blobs", Creator.tool("Test")),
+					Write.Document.addPackage(baseUrl, "SPDXRef-DOCUMENT", "SPDXRef-Package", "Package"),
+					Write.Package.addFile(baseUrl, "SPDXRef-Package", "SPDXRef-File", "./file"),
+					Write.File.noticeText(fileUri, longText, store),
+					Write.File.copyrightText(fileUri, NoneNoAssertionOrValue.of(longText), store),
+					Write.File.concludedLicense(fileUri, license));
+
+			Path rdfXml = directory.resolve("export.rdf");
+			Read.outputRdfXml(dataset, rdfXml, store);
+			Model fromRdfXml = ModelFactory.createDefaultModel();
+			try (InputStream is = Files.newInputStream(rdfXml)) {
+				RDFDataMgr.read(fromRdfXml, is, Lang.RDFXML);
+			}
+			assertTextsInFull(fromRdfXml);
+			// And read back with the model accessors, without the store
+			Dataset reread = DatasetFactory.createTxnMem();
+			Write.rdfIntoDataset(rdfXml, reread);
+			SpdxFile file = new SpdxFile(Read.lookupResourceByUri(reread, fileUri).get());
+			assertEquals(longText, file.getNoticeText().get());
+			assertEquals(longText, file.getCopyrightText().getValue().get());
+
+			ByteArrayOutputStream streamed = new ByteArrayOutputStream();
+			Read.outputJsonLd(dataset, streamed, store);
+			Model fromStreamed = ModelFactory.createDefaultModel();
+			RDFDataMgr.read(fromStreamed, new ByteArrayInputStream(streamed.toByteArray()), Lang.JSONLD);
+			assertTextsInFull(fromStreamed);
+
+			String jsonLd = Read.outputJsonLd(dataset, store);
+			Model fromJsonLd = ModelFactory.createDefaultModel();
+			RDFDataMgr.read(fromJsonLd, new ByteArrayInputStream(jsonLd.getBytes(StandardCharsets.UTF_8)),
+					Lang.JSONLD);
+			assertTextsInFull(fromJsonLd);
+
+			// Without the store, the references can't be written
+			try {
+				Read.outputJsonLd(dataset, new ByteArrayOutputStream());
+				fail("Exported references without their store");
+			} catch (IllegalStateException e) {
+				// Expected
+			}
+		}
+	}
+}
@@ -0,0 +1,146 @@
+package com.yevster.spdxtra;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import org.apache.jena.query.Dataset;
+import org.apache.jena.query.DatasetFactory;
+import org.apache.jena.rdf.model.Resource;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.yevster.spdxtra.Write.ModelUpdate;
+import com.yevster.spdxtra.model.Creator;
+import com.yevster.spdxtra.model.SpdxFile;
+import com.yevster.spdxtra.model.SpdxPackage;
+
+public class TestBulkFileBuilder {
+	private static final String baseUrl = "http://www.example.org/bulk";
+	private static final String packageSpdxId = "SPDXRef-PKG";
+	private static final String packageUri = baseUrl + "#" + packageSpdxId;
+
+	private Dataset dataset;
+
+	@Before
+	public void setUp() {
+		dataset = DatasetFactory.createTxnMem();
+		Write.applyUpdatesInOneTransaction(dataset,
+				Write.New.document(baseUrl, "SPDXRef-Document", "Bulk", Creator.person("Mimi Me", Optional.empty())),
+				Write.Document.addDescribedPackage(baseUrl, "SPDXRef-Document", packageSpdxId, "Package"),
+				Write.Package.addFile(baseUrl, packageSpdxId, "SPDXRef-existing", "./existing.txt"),
+				Write.File.checksums(baseUrl + "#SPDXRef-existing", "abc135875aeffffff"));
+	}
+
+	private Map<String, SpdxFile> files() {
+		try (ReadSession session = ReadSession.open(dataset)) {
+			SpdxPackage pkg = new SpdxPackage(session.lookupResourceByUri(packageUri).get());
+			return pkg.getFiles().map(SpdxFile::materialize)
+					.collect(Collectors.toMap(SpdxFile::getSpdxId, Function.identity()));
+		}
+	}
+
+	@Test
+	public void testAddFilesInBatches() {
+		BulkFileBuilder builder = BulkFileBuilder.forDataset(dataset, baseUrl);
+		try (Stream<ModelUpdate> updates = IntStream.range(0, 1000)
+				.mapToObj(i -> builder.addFile(packageSpdxId, "SPDXRef-" + i, "./" + i + ".c"))) {
+			BatchingUpdateApplier.forDataset(dataset).batchSize(100).apply(updates);
+		}
+		Map<String, SpdxFile> files = files();
+		assertEquals(1001, files.size());
+		assertEquals("./999.c", files.get("SPDXRef-999").getFileName());
+		assertTrue(files.get("SPDXRef-999").getCopyrightText().getAbsentValue().isPresent());
+		try (Stream<DocumentValidator.Violation> violations = DocumentValidator.create().validate(dataset)) {
+			// The new files have no checksums yet, but are otherwise well formed.
+			assertTrue(violations.allMatch(v -> v.getRule() == DocumentValidator.Rule.FILE_SHA1
+					|| v.getRule() == DocumentValidator.Rule.PACKAGE_VERIFICATION_CODE));
+		}
+	}
+
+	@Test
+	public void testReAddingUpserts() {
+		BulkFileBuilder builder = BulkFileBuilder.forDataset(dataset, baseUrl);
+		Write.applyUpdatesInOneTransaction(dataset, builder.addFile(packageSpdxId, "SPDXRef-existing", "./renamed.txt"),
+				builder.addFile(packageSpdxId, "SPDXRef-new", "./new.txt"),
+				builder.addFile(packageSpdxId, "SPDXRef-new", "./new-renamed.txt"));
+
+		Map<String, SpdxFile> files = files();
+		assertEquals(2, files.size());
+		SpdxFile existing = files.get("SPDXRef-existing");
+		assertEquals("./renamed.txt", existing.getFileName());
+		assertEquals("abc135875aeffffff", existing.getChecksums().iterator().next().getDigest());
+		assertEquals("./new-renamed.txt", files.get("SPDXRef-new").getFileName());
+	}
+
+	@Test
+	public void testFilesOfNewParentAndRolledBackFiles() {
+		BulkFileBuilder builder = BulkFileBuilder.forDataset(dataset, baseUrl);
+		// The parent was created after the builder, so it is looked up.
+		Write.applyUpdatesInOneTransaction(dataset, Write.Document.addPackage(baseUrl, "SPDXRef-Document",
+				"SPDXRef-PKG2", "Second"), builder.addFile("SPDXRef-PKG2", "SPDXRef-other", "./other.txt"));
+		try {
+			Write.applyUpdatesInOneTransaction(dataset, builder.addFile(packageSpdxId, "SPDXRef-aborted", "./a.txt"),
+					builder.addFile("SPDXRef-Missing", "SPDXRef-b", "./b.txt"));
+			fail("The parent doesn't exist");
+		} catch (IllegalArgumentException e) {
+			assertEquals(1, files().size());
+		}
+		// Rolled back, so written again in full.
+		Write.applyUpdatesInOneTransaction(dataset, builder.addFile(packageSpdxId, "SPDXRef-aborted", "./a.txt"));
+		Map<String, SpdxFile> files = files();
+		assertEquals(2, files.size());
+		assertEquals("./a.txt", files.get("SPDXRef-aborted").getFileName());
+		assertTrue(files.get("SPDXRef-aborted").getCopyrightText().getAbsentValue().isPresent());
+	}
+
+	@Test
+	public void testParentOfFailedBatch() {
+		BulkFileBuilder builder = BulkFileBuilder.forDataset(dataset, baseUrl);
+		try {
+			BatchingUpdateApplier.forDataset(dataset).apply(Stream.of(
+					Write.Document.addPackage(baseUrl, "SPDXRef-Document", "SPDXRef-PKG2", "Second"),
+					builder.addFile("SPDXRef-PKG2", "SPDXRef-other", "./other.txt"),
+					builder.addFile("SPDXRef-Missing", "SPDXRef-b", "./b.txt")));
+			fail("The parent doesn't exist");
+		} catch (BatchingUpdateApplier.BatchFailedException e) {
+			assertEquals(0, e.getCommitted().getUpdates());
+		}
+		// The package was rolled back with the batch that created it.
+		try {
+			Write.applyUpdatesInOneTransaction(dataset, builder.addFile("SPDXRef-PKG2", "SPDXRef-other", "./other.txt"));
+			fail("The parent doesn't exist");
+		} catch (IllegalArgumentException e) {
+			assertFalse(Read.lookupResourceByUri(dataset, baseUrl + "#SPDXRef-PKG2").isPresent());
+		}
+	}
+
+	@Test
+	public void testFilesAddedByOtherMeans() {
+		BulkFileBuilder builder = BulkFileBuilder.forDataset(dataset, baseUrl);
+		// Added after the builder was created, and not through it
+		Write.applyUpdatesInOneTransaction(dataset,
+				Write.Package.addFile(baseUrl, packageSpdxId, "SPDXRef-late", "./late.txt"));
+		Write.applyUpdatesInOneTransaction(dataset, builder.addFile(packageSpdxId, "SPDXRef-late", "./late2.txt"));
+		try (ReadSession session = ReadSession.open(dataset)) {
+			Resource file = session.lookupResourceByUri(baseUrl + "#SPDXRef-late").get();
+			assertEquals(1, file.listProperties(SpdxProperties.FILE_NAME).toList().size());
+			assertEquals("./late2.txt", file.getProperty(SpdxProperties.FILE_NAME).getString());
+			assertEquals(1, file.listProperties(SpdxProperties.COPYRIGHT_TEXT).toList().size());
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testFileOverPackage() {
+		BulkFileBuilder builder = BulkFileBuilder.forDataset(dataset, baseUrl);
+		Write.applyUpdatesInOneTransaction(dataset, builder.addFile(packageSpdxId, packageSpdxId, "./self.txt"));
+	}
+}
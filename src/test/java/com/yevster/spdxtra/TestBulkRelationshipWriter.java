@@ -0,0 +1,111 @@
+package com.yevster.spdxtra;
+
+import static com.yevster.spdxtra.TestUtils.BASE_URL;
+import static com.yevster.spdxtra.TestUtils.PACKAGE_URI;
+import static com.yevster.spdxtra.TestUtils.createPackageOfFiles;
+import static com.yevster.spdxtra.TestUtils.fileUri;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.jena.query.Dataset;
+import org.apache.jena.query.DatasetFactory;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.yevster.spdxtra.model.Relationship;
+import com.yevster.spdxtra.model.SpdxElement;
+
+public class TestBulkRelationshipWriter {
+	private Dataset dataset;
+
+	@Before
+	public void createPackage() {
+		dataset = DatasetFactory.createTxnMem();
+		createPackageOfFiles(dataset, 5);
+	}
+
+	private SpdxElement element(String uri) {
+		return SpdxElementFactory.relationshipTargetFromResource(Read.lookupResourceByUri(dataset, uri).get());
+	}
+
+	private List<String> relationships(String sourceUri) {
+		return Read.getRelationships(dataset, element(sourceUri))
+				.map(r -> r.getType() + " " + StringUtils.substringAfter(r.getRelatedElement().getUri(), "#"))
+				.sorted().collect(Collectors.toList());
+	}
+
+	@Test
+	public void testDuplicatesSkipped() {
+		Write.applyUpdatesInOneTransaction(dataset,
+				Write.addRelationship(PACKAGE_URI, fileUri(0), Optional.empty(), Relationship.Type.CONTAINS));
+
+		BulkRelationshipWriter writer = BulkRelationshipWriter.forDataset(dataset);
+		assertFalse(writer.add(PACKAGE_URI, fileUri(0), Optional.of("Already there"), Relationship.Type.CONTAINS));
+		assertTrue(writer.add(PACKAGE_URI, fileUri(1), Relationship.Type.CONTAINS));
+		assertTrue(writer.add(PACKAGE_URI, fileUri(1), Relationship.Type.DYNAMIC_LINK));
+		assertFalse(writer.add(PACKAGE_URI, fileUri(1), Relationship.Type.CONTAINS));
+		assertTrue(writer.add(fileUri(1), fileUri(2), Optional.of("Comment"), Relationship.Type.DYNAMIC_LINK));
+		assertEquals(3, writer.getPendingCount());
+		assertEquals(3, writer.write());
+		assertEquals(0, writer.getPendingCount());
+		assertFalse(dataset.isInTransaction());
+
+		assertEquals("[CONTAINS SPDXRef-0, CONTAINS SPDXRef-1, DYNAMIC_LINK SPDXRef-1]",
+				relationships(PACKAGE_URI).toString());
+		Relationship link = Read.getRelationships(dataset, element(fileUri(1))).findFirst().get();
+		assertEquals("Comment", link.getComment());
+
+		// Re-running the import adds nothing.
+		writer = BulkRelationshipWriter.forDataset(dataset);
+		assertFalse(writer.add(PACKAGE_URI, fileUri(1), Relationship.Type.DYNAMIC_LINK));
+		assertFalse(writer.add(fileUri(1), fileUri(2), Relationship.Type.DYNAMIC_LINK));
+		assertEquals(0, writer.write());
+		assertEquals(3, relationships(PACKAGE_URI).size());
+	}
+
+	@Test
+	public void testWrittenInBatches() {
+		BulkRelationshipWriter writer = BulkRelationshipWriter.forDataset(dataset).batchSize(3);
+		for (int i = 0; i < 5; ++i) {
+			writer.add(PACKAGE_URI, fileUri(i), Relationship.Type.CONTAINS);
+			writer.add(fileUri(i), fileUri((i + 1) % 5), Relationship.Type.DYNAMIC_LINK);
+		}
+		assertEquals(10, writer.write());
+		assertEquals(5, relationships(PACKAGE_URI).size());
+		for (int i = 0; i < 5; ++i) {
+			assertEquals("[DYNAMIC_LINK SPDXRef-" + (i + 1) % 5 + "]", relationships(fileUri(i)).toString());
+		}
+	}
+
+	@Test
+	public void testMissingSourceLeavesBatchPending() {
+		BulkRelationshipWriter writer = BulkRelationshipWriter.forDataset(dataset).batchSize(2);
+		writer.add(PACKAGE_URI, fileUri(0), Relationship.Type.CONTAINS);
+		writer.add(PACKAGE_URI, fileUri(1), Relationship.Type.CONTAINS);
+		writer.add(fileUri(0), fileUri(1), Relationship.Type.DYNAMIC_LINK);
+		writer.add(BASE_URL + "#SPDXRef-missing", fileUri(1), Relationship.Type.DYNAMIC_LINK);
+		try {
+			writer.write();
+			fail("Relationship of a missing element written");
+		} catch (IllegalArgumentException e) {
+			// The first batch is committed, the second is not.
+			assertEquals(2, writer.getPendingCount());
+			assertEquals(2, relationships(PACKAGE_URI).size());
+			assertTrue(relationships(fileUri(0)).isEmpty());
+		}
+		assertFalse(dataset.isInTransaction());
+
+		writer.discardPending();
+		assertEquals(0, writer.write());
+		assertTrue(writer.add(fileUri(0), fileUri(1), Relationship.Type.DYNAMIC_LINK));
+		assertEquals(1, writer.write());
+		assertEquals(1, relationships(fileUri(0)).size());
+	}
+}
@@ -0,0 +1,131 @@
+package com.yevster.spdxtra;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.yevster.spdxtra.FileTreeHasher.HashedFile;
+
+public class TestChecksumCache {
+	private Path root;
+	private Path cacheFile;
+
+	@Before
+	public void setup() throws IOException {
+		root = Files.createTempDirectory("spdxtraCacheTree");
+		cacheFile = Files.createTempDirectory("spdxtraCache").resolve("checksums.cache");
+		for (int i = 0; i < 10; ++i) {
+			writeOld(root.resolve("file" + i), "Contents of file " + i);
+		}
+	}
+
+	@After
+	public void cleanUp() throws IOException {
+		FileUtils.deleteDirectory(root.toFile());
+		FileUtils.deleteDirectory(cacheFile.getParent().toFile());
+	}
+
+	/**
+	 * Files modified in the last couple of seconds aren't cached, so backdate
+	 * them.
+	 */
+	private static void writeOld(Path file, String contents) throws IOException {
+		Files.write(file, contents.getBytes(StandardCharsets.UTF_8));
+		Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis() - 60_000));
+	}
+
+	private List<HashedFile> scan(ChecksumCache cache) {
+		try (Stream<HashedFile> files = FileTreeHasher.of(root).cache(cache).hash()) {
+			return files.collect(Collectors.toList());
+		}
+	}
+
+	@Test
+	public void testUnchangedFilesAreNotRehashed() throws IOException {
+		try (ChecksumCache cache = ChecksumCache.open(cacheFile, 100)) {
+			scan(cache);
+			assertEquals(0, cache.getHits());
+			assertEquals(10, cache.getMisses());
+		}
+
+		// Change one file
+		writeOld(root.resolve("file3"), "New contents");
+		Files.setLastModifiedTime(root.resolve("file3"), FileTime.fromMillis(System.currentTimeMillis() - 30_000));
+
+		try (ChecksumCache cache = ChecksumCache.open(cacheFile, 100)) {
+			List<HashedFile> files = scan(cache);
+			assertEquals(9, cache.getHits());
+			assertEquals(1, cache.getMisses());
+			HashedFile file3 = files.stream().filter(f -> f.getFileName().equals("./file3")).findFirst().get();
+			assertEquals(DigestUtils.sha1Hex("New contents"), file3.getSha1());
+			HashedFile file4 = files.stream().filter(f -> f.getFileName().equals("./file4")).findFirst().get();
+			assertEquals(DigestUtils.sha1Hex("Contents of file 4"), file4.getSha1());
+			assertEquals(DigestUtils.sha256Hex("Contents of file 4"), file4.getSha256());
+			assertEquals(DigestUtils.md5Hex("Contents of file 4"), file4.getMd5());
+
+			PackageVerificationCode fromCache = new PackageVerificationCode();
+			files.forEach(fromCache::addFile);
+			PackageVerificationCode expected = new PackageVerificationCode().addFile("./file3", DigestUtils.sha1Hex("New contents"));
+			for (int i = 0; i < 10; ++i) {
+				if (i != 3)
+					expected.addFile("./file" + i, DigestUtils.sha1Hex("Contents of file " + i));
+			}
+			assertEquals(expected.compute(), fromCache.compute());
+		}
+	}
+
+	@Test
+	public void testRecentlyModifiedFilesAreNotCached() throws IOException {
+		Files.write(root.resolve("fresh"), "Still being written".getBytes(StandardCharsets.UTF_8));
+		try (ChecksumCache cache = ChecksumCache.open(cacheFile, 100)) {
+			scan(cache);
+			assertEquals(10, cache.size());
+		}
+	}
+
+	@Test
+	public void testLeastRecentlyUsedAreEvicted() throws IOException {
+		try (ChecksumCache cache = ChecksumCache.open(cacheFile, 4)) {
+			scan(cache);
+			assertEquals(4, cache.size());
+		}
+		try (ChecksumCache cache = ChecksumCache.open(cacheFile, 4)) {
+			assertEquals(4, cache.size());
+			scan(cache);
+			assertEquals(10, cache.getHits() + cache.getMisses());
+			assertEquals(4, cache.size());
+		}
+	}
+
+	@Test
+	public void testCorruptCacheIsIgnored() throws IOException {
+		try (ChecksumCache cache = ChecksumCache.open(cacheFile, 100)) {
+			scan(cache);
+		}
+		byte[] saved = Files.readAllBytes(cacheFile);
+		Files.write(cacheFile, Arrays.copyOf(saved, saved.length / 2));
+		try (ChecksumCache cache = ChecksumCache.open(cacheFile, 100)) {
+			assertEquals(0, cache.size());
+			scan(cache);
+			assertEquals(10, cache.getMisses());
+		}
+		// Rewritten whole
+		try (ChecksumCache cache = ChecksumCache.open(cacheFile, 100)) {
+			assertEquals(10, cache.size());
+		}
+	}
+}
@@ -0,0 +1,158 @@
+package com.yevster.spdxtra;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.jena.query.Dataset;
+import org.apache.jena.query.DatasetFactory;
+import org.apache.jena.query.ReadWrite;
+import org.junit.Test;
+
+import com.yevster.spdxtra.DocumentValidator.Rule;
+import com.yevster.spdxtra.DocumentValidator.Violation;
+import com.yevster.spdxtra.Write.ModelUpdate;
+import com.yevster.spdxtra.model.Creator;
+import com.yevster.spdxtra.model.Relationship;
+
+public class TestDocumentValidator {
+	private static final String BASE_URL = "http://example.org/validation";
+	private static final String SHA1 = StringUtils.repeat('a', 40);
+
+	private static Dataset document(ModelUpdate... updates) {
+		Dataset dataset = DatasetFactory.createTxnMem();
+		Write.applyUpdatesInOneTransaction(dataset,
+				Write.New.document(BASE_URL, "SPDXRef-doc", "Validation", Creator.tool("SpdXtra")));
+		Write.applyUpdatesInOneTransaction(dataset, updates);
+		return dataset;
+	}
+
+	private static List<String> violations(DocumentValidator validator, Dataset dataset) {
+		try (Stream<Violation> violations = validator.validate(dataset)) {
+			return violations.map(v -> v.getRule() + " " + v.getElement()).sorted().collect(Collectors.toList());
+		}
+	}
+
+	@Test
+	public void testSampleDocumentIsValid() {
+		assertTrue(DocumentValidator.create().isValid(TestUtils.getDefaultDataSet()));
+	}
+
+	@Test
+	public void testViolationsReported() {
+		final String packageUri = BASE_URL + "#SPDXRef-pkg";
+		Dataset dataset = document(Write.Document.addPackage(BASE_URL, "SPDXRef-doc", "SPDXRef-pkg", "Package"),
+				Write.Package.addFile(BASE_URL, "SPDXRef-pkg", "SPDXRef-file", "./a.c"),
+				Write.File.checksums(BASE_URL + "#SPDXRef-file", "not a sha1"),
+				Write.Package.addFile(BASE_URL, "SPDXRef-pkg", "SPDXRef-unhashed", "./b.c"),
+				Write.addRelationship(packageUri, BASE_URL + "#SPDXRef-missing", Optional.empty(),
+						Relationship.Type.CONTAINS));
+
+		List<Violation> violations;
+		try (Stream<Violation> stream = DocumentValidator.create().validate(dataset)) {
+			violations = stream.collect(Collectors.toList());
+		}
+		assertFalse(dataset.isInTransaction());
+		assertEquals(4, violations.size());
+		assertEquals(
+				"[FILE_SHA1 " + BASE_URL + "#SPDXRef-file, FILE_SHA1 " + BASE_URL + "#SPDXRef-unhashed, "
+						+ "PACKAGE_VERIFICATION_CODE " + packageUri + ", RELATIONSHIP_TARGET " + packageUri + "]",
+				violations(DocumentValidator.create(), dataset).toString());
+		assertTrue(violations.stream().anyMatch(v -> v.getRule() == Rule.FILE_SHA1
+				&& v.getMessage().contains("not a sha1")));
+
+		Write.applyUpdatesInOneTransaction(dataset, Write.File.checksums(BASE_URL + "#SPDXRef-file", SHA1),
+				Write.File.checksums(BASE_URL + "#SPDXRef-unhashed", SHA1),
+				Write.Package.filesAnalyzed(packageUri, false),
+				Write.addRelationship(packageUri, BASE_URL + "#SPDXRef-doc", Optional.empty(),
+						Relationship.Type.DESCRIBED_BY));
+		assertEquals(1, violations(DocumentValidator.create(), dataset).size());
+	}
+
+	@Test
+	public void testViolationsBoundedAndOrderIndependentOfPool() {
+		List<ModelUpdate> updates = new ArrayList<>();
+		updates.add(Write.Document.addPackage(BASE_URL, "SPDXRef-doc", "SPDXRef-pkg", "Package"));
+		updates.add(Write.Package.filesAnalyzed(BASE_URL + "#SPDXRef-pkg", false));
+		for (int i = 0; i < 2000; ++i) {
+			updates.add(Write.Package.addFile(BASE_URL, "SPDXRef-pkg", "SPDXRef-" + i, "./" + i + ".c"));
+		}
+		Dataset dataset = document(updates.toArray(new ModelUpdate[updates.size()]));
+
+		ForkJoinPool pool = new ForkJoinPool(3);
+		try {
+			List<String> parallel = violations(DocumentValidator.create().pool(pool).maxViolations(5000), dataset);
+			assertEquals(2000, parallel.size());
+			assertTrue(parallel.stream().allMatch(v -> v.startsWith(Rule.FILE_SHA1.name())));
+			// In a transaction, the document is checked on the calling thread.
+			try (DatasetAutoAbortTransaction transaction = DatasetAutoAbortTransaction.begin(dataset,
+					ReadWrite.READ)) {
+				assertEquals(parallel, violations(DocumentValidator.create().maxViolations(5000), dataset));
+				assertTrue(dataset.isInTransaction());
+			}
+
+			try (Stream<Violation> violations = DocumentValidator.create().pool(pool).maxViolations(10)
+					.validate(dataset)) {
+				assertEquals(10, violations.count());
+			}
+			assertEquals(DocumentValidator.DEFAULT_MAX_VIOLATIONS,
+					violations(DocumentValidator.create().pool(pool), dataset).size());
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	@Test
+	public void testSequentialSeesScannedVersion() throws Exception {
+		final int fileCount = DocumentValidator.CHUNK_SIZE * 3;
+		List<ModelUpdate> updates = new ArrayList<>();
+		updates.add(Write.Document.addPackage(BASE_URL, "SPDXRef-doc", "SPDXRef-pkg", "Package"));
+		updates.add(Write.Package.filesAnalyzed(BASE_URL + "#SPDXRef-pkg", false));
+		List<ModelUpdate> fixes = new ArrayList<>();
+		for (int i = 0; i < fileCount; ++i) {
+			updates.add(Write.Package.addFile(BASE_URL, "SPDXRef-pkg", "SPDXRef-" + i, "./" + i + ".c"));
+			fixes.add(Write.File.checksums(BASE_URL + "#SPDXRef-" + i, SHA1));
+		}
+		Dataset dataset = document(updates.toArray(new ModelUpdate[updates.size()]));
+
+		try (Stream<Violation> violations = DocumentValidator.create().sequential().maxViolations(fileCount)
+				.validate(dataset)) {
+			Iterator<Violation> iterator = violations.iterator();
+			assertEquals(Rule.FILE_SHA1, iterator.next().getRule());
+			// Fix every file while the validation is under way
+			Thread writer = new Thread(() -> Write.applyUpdatesInOneTransaction(dataset,
+					fixes.toArray(new ModelUpdate[fixes.size()])));
+			writer.start();
+			writer.join();
+			int count = 1;
+			while (iterator.hasNext()) {
+				iterator.next();
+				++count;
+			}
+			assertEquals(fileCount, count);
+		}
+		assertTrue(DocumentValidator.create().isValid(dataset));
+	}
+
+	@Test
+	public void testUncommittedChangesValidated() {
+		Dataset dataset = document();
+		try (DatasetAutoAbortTransaction transaction = DatasetAutoAbortTransaction.begin(dataset, ReadWrite.WRITE)) {
+			Write.Document.addPackage(BASE_URL, "SPDXRef-doc", "SPDXRef-pkg", "Package")
+					.apply(dataset.getDefaultModel());
+			try (Stream<Violation> violations = DocumentValidator.create().validate(dataset)) {
+				assertEquals(Rule.PACKAGE_VERIFICATION_CODE, violations.findFirst().get().getRule());
+			}
+		}
+		assertTrue(DocumentValidator.create().isValid(dataset));
+	}
+}
@@ -154,4 +154,36 @@ public class TestFileOperations {
 
 	}
 
+	@Test
+	public void testAddExistingFileUpserts() {
+		final String fileUri = baseUrl + "#SPDXRef-myFile";
+		final String sha1 = "abc135875aeffffff";
+		Write.applyUpdatesInOneTransaction(dataset,
+				Write.Package.addFile(baseUrl, packageSpdxId, "SPDXRef-myFile", "./old.txt"),
+				Write.File.checksums(fileUri, sha1));
+		// Again, in a new transaction and in the same one
+		Write.applyUpdatesInOneTransaction(dataset,
+				Write.Package.addFile(baseUrl, packageSpdxId, "SPDXRef-myFile", "./new.txt"),
+				Write.Package.addFile(baseUrl, packageSpdxId, "SPDXRef-myFile", "./newer.txt"));
+		reloadPackage();
+		List<SpdxFile> files = pkg.getFiles().collect(Collectors.toList());
+		assertEquals(1, files.size());
+		SpdxFile file = files.get(0);
+		assertEquals("./newer.txt", file.getFileName());
+		assertEquals(sha1, file.getChecksums().iterator().next().getDigest());
+		assertEquals(AbsentValue.NOASSERTION, file.getCopyrightText().getAbsentValue().get());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testAddFileOverOtherElement() {
+		Write.applyUpdatesInOneTransaction(dataset,
+				Write.Package.addFile(baseUrl, packageSpdxId, "SPDXRef-Document", "./document.txt"));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testAddFileToMissingPackage() {
+		Write.applyUpdatesInOneTransaction(dataset,
+				Write.Package.addFile(baseUrl, "SPDXRef-Missing", "SPDXRef-myFile", "./file.txt"));
+	}
+
 }
@@ -0,0 +1,113 @@
+package com.yevster.spdxtra;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.io.FileUtils;
+import org.apache.jena.query.Dataset;
+import org.apache.jena.query.DatasetFactory;
+import org.apache.jena.query.ReadWrite;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableSet;
+import com.yevster.spdxtra.FileTreeHasher.HashedFile;
+import com.yevster.spdxtra.Write.ModelUpdate;
+import com.yevster.spdxtra.model.Checksum;
+import com.yevster.spdxtra.model.Creator;
+import com.yevster.spdxtra.model.SpdxFile;
+import com.yevster.spdxtra.model.SpdxPackage;
+
+public class TestFileTreeHasher {
+	private Path root;
+	private byte[] large;
+
+	@Before
+	public void setup() throws IOException {
+		root = Files.createTempDirectory("spdxtraHasher");
+		Files.createDirectories(root.resolve("src/main"));
+		Files.write(root.resolve("README"), "Read me".getBytes(StandardCharsets.UTF_8));
+		Files.write(root.resolve("src/main/Main.java"), "class Main {}".getBytes(StandardCharsets.UTF_8));
+		Files.write(root.resolve("src/empty"), new byte[0]);
+		// Large enough to be memory-mapped
+		large = new byte[(int) FileTreeHasher.MAP_THRESHOLD + 12345];
+		new Random(42).nextBytes(large);
+		Files.write(root.resolve("src/large.bin"), large);
+	}
+
+	@After
+	public void cleanUp() throws IOException {
+		FileUtils.deleteDirectory(root.toFile());
+	}
+
+	@Test
+	public void testHash() throws IOException {
+		Map<String, HashedFile> hashed;
+		try (Stream<HashedFile> files = FileTreeHasher.of(root).threads(2).hash()) {
+			hashed = files.collect(Collectors.toMap(HashedFile::getFileName, Function.identity()));
+		}
+		assertEquals(ImmutableSet.of("./README", "./src/main/Main.java", "./src/empty", "./src/large.bin"),
+				hashed.keySet());
+
+		HashedFile main = hashed.get("./src/main/Main.java");
+		assertEquals(DigestUtils.sha1Hex("class Main {}"), main.getSha1());
+		assertEquals(DigestUtils.sha256Hex("class Main {}"), main.getSha256());
+		assertEquals(DigestUtils.md5Hex("class Main {}"), main.getMd5());
+		assertEquals(13, main.getSize());
+
+		assertEquals(DigestUtils.sha1Hex(new byte[0]), hashed.get("./src/empty").getSha1());
+
+		HashedFile largeFile = hashed.get("./src/large.bin");
+		assertEquals(DigestUtils.sha1Hex(large), largeFile.getSha1());
+		assertEquals(DigestUtils.sha256Hex(large), largeFile.getSha256());
+		assertEquals(DigestUtils.md5Hex(large), largeFile.getMd5());
+	}
+
+	@Test
+	public void testUpdates() {
+		final String baseUrl = "http://example.org/hashed";
+		Dataset dataset = DatasetFactory.createTxnMem();
+		Write.applyUpdatesInOneTransaction(dataset,
+				Write.New.document(baseUrl, "SPDXRef-doc", "Hashed", Creator.tool("Test")),
+				Write.Document.addPackage(baseUrl, "SPDXRef-doc", "SPDXRef-pkg", "Hashed package"));
+
+		try (Stream<ModelUpdate> updates = FileTreeHasher.of(root).filter(p -> !p.endsWith("empty"))
+				.updates(baseUrl, "SPDXRef-pkg")) {
+			BatchingUpdateApplier.forDataset(dataset).batchSize(2).apply(updates);
+		}
+		Write.applyUpdatesInOneTransaction(dataset, Write.Package.finalize(baseUrl + "#SPDXRef-pkg"));
+
+		try (DatasetAutoAbortTransaction t = DatasetAutoAbortTransaction.begin(dataset, ReadWrite.READ)) {
+			SpdxPackage pkg = new SpdxPackage(dataset.getDefaultModel().getResource(baseUrl + "#SPDXRef-pkg"));
+			Map<String, SpdxFile> files = pkg.getFiles()
+					.collect(Collectors.toMap(SpdxFile::getFileName, Function.identity()));
+			assertEquals(ImmutableSet.of("./README", "./src/main/Main.java", "./src/large.bin"), files.keySet());
+
+			SpdxFile readme = files.get("./README");
+			assertEquals(FileTreeHasher.defaultFileSpdxId("./README"), readme.getSpdxId());
+			Set<Checksum> checksums = readme.getChecksums();
+			assertEquals(3, checksums.size());
+			assertTrue(checksums.contains(Checksum.sha1(DigestUtils.sha1Hex("Read me"))));
+			assertTrue(checksums.contains(Checksum.sha256(DigestUtils.sha256Hex("Read me"))));
+			assertTrue(checksums.contains(Checksum.md5(DigestUtils.md5Hex("Read me"))));
+
+			String expectedCode = new PackageVerificationCode().addFile("./README", DigestUtils.sha1Hex("Read me"))
+					.addFile("./src/main/Main.java", DigestUtils.sha1Hex("class Main {}"))
+					.addFile("./src/large.bin", DigestUtils.sha1Hex(large)).compute();
+			assertEquals(expectedCode, pkg.getPackageVerificationCode().get());
+		}
+	}
+}
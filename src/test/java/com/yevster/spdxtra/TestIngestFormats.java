@@ -0,0 +1,170 @@
+package com.yevster.spdxtra;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.jena.graph.Graph;
+import org.apache.jena.query.Dataset;
+import org.apache.jena.query.DatasetFactory;
+import org.apache.jena.query.ReadWrite;
+import org.apache.jena.rdf.model.Model;
+import org.apache.jena.riot.Lang;
+import org.apache.jena.riot.RDFDataMgr;
+import org.apache.jena.riot.RDFLanguages;
+import org.apache.jena.riot.system.StreamRDFLib;
+import org.apache.jena.sparql.graph.GraphFactory;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class TestIngestFormats {
+	private List<Path> tmpToCleanUp;
+
+	@Before
+	public void setup() {
+		tmpToCleanUp = new LinkedList<>();
+	}
+
+	@After
+	public void cleanUp() {
+		for (Path path : tmpToCleanUp) {
+			try {
+				FileUtils.forceDelete(path.toFile());
+			} catch (Exception e) {
+			}
+		}
+	}
+
+	@Test
+	public void testDetectFromExtension() throws IOException {
+		assertEquals(Lang.NTRIPLES, RdfFormatDetector.detect(writeDefaultAs(Lang.NTRIPLES, ".nt")));
+		assertEquals(Lang.TURTLE, RdfFormatDetector.detect(writeDefaultAs(Lang.TURTLE, ".ttl")));
+		assertEquals(RDFLanguages.THRIFT, RdfFormatDetector.detect(writeDefaultAs(RDFLanguages.THRIFT, ".trdf")));
+		assertEquals(Lang.RDFXML, RdfFormatDetector.detect(writeDefaultAs(Lang.RDFXML, ".rdf")));
+	}
+
+	@Test
+	public void testDetectFromContent() throws IOException {
+		assertEquals(Lang.NTRIPLES, RdfFormatDetector.detect(writeDefaultAs(Lang.NTRIPLES, ".spdx")));
+		assertEquals(Lang.TURTLE, RdfFormatDetector.detect(writeDefaultAs(Lang.TURTLE, ".spdx")));
+		assertEquals(RDFLanguages.THRIFT, RdfFormatDetector.detect(writeDefaultAs(RDFLanguages.THRIFT, ".spdx")));
+		assertEquals(Lang.RDFXML, RdfFormatDetector.detect(writeDefaultAs(Lang.RDFXML, ".spdx")));
+		assertEquals(Lang.JSONLD, RdfFormatDetector.detect(writeDefaultAs(Lang.JSONLD, ".spdx")));
+
+		// Turtle whose first lines happen to be valid N-Triples
+		byte[] turtle = ("<http://a> <http://b> <http://c> .\n<http://a> <http://b> \"x\" ;\n <http://d> \"y\" .\n")
+				.getBytes(StandardCharsets.UTF_8);
+		assertEquals(Lang.TURTLE, RdfFormatDetector.detect(turtle, turtle.length));
+	}
+
+	/**
+	 * Detects the syntax of the whole of the content.
+	 */
+	private static Lang detect(String content) {
+		byte[] bytes = content.getBytes(StandardCharsets.UTF_8);
+		// A sample with room to spare, so the last line is known to be complete
+		return RdfFormatDetector.detect(Arrays.copyOf(bytes, bytes.length + 1), bytes.length);
+	}
+
+	@Test
+	public void testDetectXmlWithoutDeclaration() {
+		assertEquals(Lang.RDFXML, detect("<RDF xmlns=\"http://www.w3.org/1999/02/22-rdf-syntax-ns#\">\n</RDF>\n"));
+		assertEquals(Lang.RDFXML, detect("<spdx:SpdxDocument rdf:about=\"http://example.org#SPDXRef-DOCUMENT\">\n"));
+		assertEquals(Lang.RDFXML, detect("  <rdf:RDF>\n<spdx:SpdxDocument/>\n"));
+		assertEquals(Lang.RDFXML, detect("<rdf:RDF><spdx:SpdxDocument>\n"));
+		// Too little to tell: RDF/XML
+		assertEquals(Lang.RDFXML, detect("<http://example.org/a>\n"));
+		assertEquals(Lang.RDFXML, detect(""));
+
+		assertEquals(Lang.NTRIPLES, detect("<http://a> <http://b> <http://c> .\n_:b0 <http://b> \"<x>\" .\n"));
+		assertEquals(Lang.TURTLE, detect("<http://a> <http://b> <http://c> ;\n <http://d> \"x\" .\n"));
+		assertEquals(Lang.TURTLE, detect("<http://a> <http://b> [\n <http://d> \"x\" ] .\n"));
+	}
+
+	@Test
+	public void testDetectTurtleThatLooksLikeNTriples() {
+		assertEquals(Lang.NTRIPLES, detect("<http://a> <http://b> \"x\"@en-US .\n"
+				+ "<http://a> <http://b> \"4\\\"2\"^^<http://www.w3.org/2001/XMLSchema#int> . # comment\n"
+				+ "_:b0 <http://b> _:b1.\n<http://a\\u0020> <http://b> <http://c> .\n"));
+		// Keyword a, numbers, prefixed names and booleans are Turtle only
+		assertEquals(Lang.TURTLE, detect("<http://s> a <http://T> .\n"));
+		assertEquals(Lang.TURTLE, detect("<http://s> <http://p> 42 .\n"));
+		assertEquals(Lang.TURTLE, detect("<http://a> <http://b> <http://c> .\n<http://s> a <http://T> .\n"));
+		assertEquals(Lang.TURTLE, detect("<http://s> <http://p> spdx:File .\n"));
+		assertEquals(Lang.TURTLE, detect("_:b0 <http://p> true .\n"));
+		assertEquals(Lang.TURTLE, detect("<http://s> <http://p> \"x\", \"y\" .\n"));
+	}
+
+	@Test
+	public void testDetectJsonArrayOrTurtleBlankNode() {
+		assertEquals(Lang.JSONLD, detect("[ {\"@id\": \"http://a\"} ]"));
+		assertEquals(Lang.JSONLD, detect("[\n  {\n \"@id\": \"http://a\"\n  }\n]\n"));
+		assertEquals(Lang.JSONLD, detect("[]\n"));
+		assertEquals(Lang.TURTLE, detect("[ <http://b> \"x\" ] .\n"));
+		assertEquals(Lang.TURTLE, detect("[] <http://b> \"x\" .\n"));
+		assertEquals(Lang.TURTLE, detect("[\n a <http://spdx.org/rdf/terms#File> ] .\n"));
+	}
+
+	@Test
+	public void testIngestEachFormat() throws IOException {
+		Dataset expected = TestUtils.getDefaultDataSet();
+		for (Lang lang : new Lang[] { Lang.NTRIPLES, Lang.TURTLE, RDFLanguages.THRIFT }) {
+			for (String extension : new String[] { "." + lang.getFileExtensions().get(0), ".spdx" }) {
+				Path input = writeDefaultAs(lang, extension);
+				Dataset actual = DatasetFactory.createTxnMem();
+				Write.rdfIntoDataset(input, actual);
+				assertIsomorphic(expected, actual);
+			}
+		}
+	}
+
+	@Test
+	public void testParallelNTriplesKeepsBlankNodesAcrossChunks() throws IOException {
+		Path input = writeDefaultAs(Lang.NTRIPLES, ".nt");
+		Graph graph = GraphFactory.createDefaultGraph();
+		// Tiny chunks, so that blank nodes are referenced from many chunks.
+		ForkJoinPool pool = new ForkJoinPool(4);
+		try {
+			new ParallelNTriplesParser(pool, 512).parse(input, StreamRDFLib.graph(graph));
+		} finally {
+			pool.shutdown();
+		}
+
+		Dataset expected = TestUtils.getDefaultDataSet();
+		try (DatasetAutoAbortTransaction t = DatasetAutoAbortTransaction.begin(expected, ReadWrite.READ)) {
+			assertTrue(expected.getDefaultModel().getGraph().isIsomorphicWith(graph));
+		}
+	}
+
+	private void assertIsomorphic(Dataset expected, Dataset actual) {
+		try (DatasetAutoAbortTransaction t = DatasetAutoAbortTransaction.begin(expected, ReadWrite.READ);
+				DatasetAutoAbortTransaction t2 = DatasetAutoAbortTransaction.begin(actual, ReadWrite.READ)) {
+			Model expectedModel = expected.getDefaultModel();
+			Model actualModel = actual.getDefaultModel();
+			assertEquals(expectedModel.size(), actualModel.size());
+			assertTrue(expectedModel.isIsomorphicWith(actualModel));
+		}
+	}
+
+	private Path writeDefaultAs(Lang lang, String extension) throws IOException {
+		Path result = Files.createTempFile("spdxtraIngest", extension);
+		tmpToCleanUp.add(result);
+		Dataset dataset = TestUtils.getDefaultDataSet();
+		try (DatasetAutoAbortTransaction t = DatasetAutoAbortTransaction.begin(dataset, ReadWrite.READ);
+				OutputStream os = Files.newOutputStream(result)) {
+			RDFDataMgr.write(os, dataset.getDefaultModel(), lang);
+		}
+		return result;
+	}
+}
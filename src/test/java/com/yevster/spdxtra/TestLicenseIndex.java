@@ -0,0 +1,90 @@
+package com.yevster.spdxtra;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.yevster.spdxtra.LicenseList.ListedLicense;
+
+public class TestLicenseIndex {
+
+	/*
+	 * Fails if licenseList.bin was updated without regenerating the index
+	 * (gradle generateLicenseIndex).
+	 */
+	@Test
+	public void testBundledIndexMatchesLicenseList() throws IOException {
+		LicenseList.RdfLicenses rdfLicenses;
+		try (InputStream is = getClass().getClassLoader().getResourceAsStream("licenseList.bin")) {
+			rdfLicenses = LicenseList.RdfLicenses.read(is);
+		}
+		LicenseIndex index = LicenseIndex.openResource(LicenseList.INDEX_RESOURCE);
+		assertEquals(rdfLicenses.version, index.getVersion());
+		assertEquals(rdfLicenses.licenses.size(), index.size());
+		for (ListedLicense expected : rdfLicenses.licenses.values()) {
+			ListedLicense actual = index.find(expected.getLicenseId());
+			assertEquals(expected.getLicenseId(), actual.getLicenseId());
+			assertEquals(expected.getName(), actual.getName());
+			assertEquals(expected.isOsiApproved(), actual.isOsiApproved());
+		}
+		assertEquals(index.getVersion(), LicenseList.INSTANCE.getVersion());
+	}
+
+	@Test
+	public void testWriteAndFind() throws IOException {
+		List<ListedLicense> licenses = Arrays.asList(new ListedLicense("MIT", "MIT License", true),
+				new ListedLicense("AFL-1.1", "Academic Free License v1.1", true),
+				new ListedLicense("Zlib", "zlib License", false),
+				// Non-ASCII: "Unicode" with umlauts
+				new ListedLicense("\u00DCn\u00EFcode-1.0", "\u00DCn\u00EFcode L\u00EFcense", false));
+		Path file = Files.createTempFile("spdxtraLicenseIndex", ".bin");
+		try {
+			try (OutputStream os = Files.newOutputStream(file)) {
+				LicenseIndex.write("9.9", licenses, os);
+			}
+			assertTrue(LicenseIndex.isIndex(file));
+			LicenseIndex index = LicenseIndex.open(file);
+			assertEquals("9.9", index.getVersion());
+			assertEquals(4, index.size());
+			for (ListedLicense expected : licenses) {
+				ListedLicense actual = index.find(expected.getLicenseId());
+				assertEquals(expected.getLicenseId(), actual.getLicenseId());
+				assertEquals(expected.getName(), actual.getName());
+				assertEquals(expected.isOsiApproved(), actual.isOsiApproved());
+			}
+			assertNull(index.find("mit"));
+			assertNull(index.find("AAA"));
+			assertNull(index.find("ZZZ"));
+			assertNull(index.find(""));
+			assertEquals(Arrays.asList("AFL-1.1", "MIT", "Zlib", "\u00DCn\u00EFcode-1.0"),
+					Arrays.asList(index.all().stream().map(ListedLicense::getLicenseId).toArray()));
+		} finally {
+			Files.delete(file);
+		}
+	}
+
+	@Test
+	public void testRdfLicenseListIsNotAnIndex() throws IOException {
+		Path file = Files.createTempFile("spdxtraLicenseList", ".bin");
+		try {
+			try (InputStream is = getClass().getClassLoader().getResourceAsStream("licenseList.bin")) {
+				Files.copy(is, file, StandardCopyOption.REPLACE_EXISTING);
+			}
+			assertFalse(LicenseIndex.isIndex(file));
+		} finally {
+			Files.delete(file);
+		}
+	}
+}
@@ -0,0 +1,121 @@
+package com.yevster.spdxtra;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+import org.apache.jena.query.Dataset;
+import org.apache.jena.query.DatasetFactory;
+import org.apache.jena.query.ReadWrite;
+import org.junit.Test;
+
+import com.yevster.spdxtra.model.Checksum;
+import com.yevster.spdxtra.model.Creator;
+import com.yevster.spdxtra.model.SpdxDocument;
+import com.yevster.spdxtra.model.SpdxFile;
+import com.yevster.spdxtra.model.SpdxPackage;
+
+public class TestMaterialization {
+
+	@Test
+	public void testMaterializedPackagesMatchLive() {
+		Dataset dataset = TestUtils.getDefaultDataSet();
+		List<SpdxPackage> packages = Read.getAllPackages(dataset).collect(Collectors.toList());
+		assertFalse(packages.isEmpty());
+		for (SpdxPackage live : packages) {
+			SpdxPackage snapshot = live.materialize();
+			assertTrue(snapshot.isMaterialized());
+			assertFalse(live.isMaterialized());
+			assertSame(snapshot, snapshot.materialize());
+			assertEquals(live, snapshot);
+
+			assertEquals(live.getName(), snapshot.getName());
+			assertEquals(live.getFilesAnalyzed(), snapshot.getFilesAnalyzed());
+			assertEquals(live.getVersionInfo(), snapshot.getVersionInfo());
+			assertEquals(live.getCopyright(), snapshot.getCopyright());
+			assertEquals(live.getPackageFileName(), snapshot.getPackageFileName());
+			assertEquals(live.getPackageDownloadLocation(), snapshot.getPackageDownloadLocation());
+			assertEquals(live.getSummary(), snapshot.getSummary());
+			assertEquals(live.getDescription(), snapshot.getDescription());
+			assertEquals(live.getSourceInfo(), snapshot.getSourceInfo());
+			assertEquals(live.getHomepage(), snapshot.getHomepage());
+			assertEquals(live.getComment(), snapshot.getComment());
+			assertEquals(live.getSupplier(), snapshot.getSupplier());
+			assertEquals(live.getOriginator(), snapshot.getOriginator());
+			assertEquals(live.getChecksums(), snapshot.getChecksums());
+			assertEquals(live.getPackageVerificationCode(), snapshot.getPackageVerificationCode());
+			assertEquals(live.getFiles().collect(Collectors.toSet()), snapshot.getFiles().collect(Collectors.toSet()));
+		}
+	}
+
+	@Test
+	public void testMaterializedFilesMatchLive() {
+		Dataset dataset = TestUtils.getDefaultDataSet();
+		SpdxPackage pkg = Read.getAllPackages(dataset).filter((p) -> "SPDXRef-1".equals(p.getSpdxId())).findFirst()
+				.get();
+		List<SpdxFile> files = pkg.getFiles().collect(Collectors.toList());
+		assertEquals(578, files.size());
+		for (SpdxFile live : files) {
+			SpdxFile snapshot = live.materialize();
+			assertTrue(snapshot.isMaterialized());
+			assertEquals(live, snapshot);
+			assertEquals(live.getFileName(), snapshot.getFileName());
+			assertEquals(live.getFileTypes(), snapshot.getFileTypes());
+			assertEquals(live.getChecksums(), snapshot.getChecksums());
+			assertEquals(live.getContributors(), snapshot.getContributors());
+			assertEquals(live.getComment(), snapshot.getComment());
+			assertEquals(live.getCopyrightText(), snapshot.getCopyrightText());
+			assertEquals(live.getNoticeText(), snapshot.getNoticeText());
+		}
+	}
+
+	@Test
+	public void testMaterializedDocumentMatchesLive() {
+		Dataset dataset = TestUtils.getDefaultDataSet();
+		SpdxDocument live = Read.Document.get(dataset);
+		SpdxDocument snapshot = live.materialize();
+		assertTrue(snapshot.isMaterialized());
+		assertTrue(snapshot.getCreationInfo().isMaterialized());
+		assertEquals(live.getName(), snapshot.getName());
+		assertEquals(live.getDocumentNamespace(), snapshot.getDocumentNamespace());
+		assertEquals(live.getComment(), snapshot.getComment());
+		assertEquals(live.getSpecVersion(), snapshot.getSpecVersion());
+		assertEquals(live.getCreationInfo().getCreationDate(), snapshot.getCreationInfo().getCreationDate());
+		assertEquals(live.getCreationInfo().getComment(), snapshot.getCreationInfo().getComment());
+		assertEquals(live.getCreationInfo().getCreators(), snapshot.getCreationInfo().getCreators());
+	}
+
+	@Test
+	public void testSnapshotIsUnaffectedByLaterWrites() {
+		final String baseUrl = "http://example.org/snapshot";
+		final String packageUri = baseUrl + "#SPDXRef-pkg";
+		Dataset dataset = DatasetFactory.createTxnMem();
+		Write.applyUpdatesInOneTransaction(dataset,
+				Write.New.document(baseUrl, "SPDXRef-doc", "Snapshot", Creator.tool("SpdXtra")),
+				Write.Document.addPackage(baseUrl, "SPDXRef-doc", "SPDXRef-pkg", "Before"),
+				Write.Package.checksums(packageUri, "0123456789abcdef0123456789abcdef01234567"));
+
+		SpdxPackage snapshot;
+		try (DatasetAutoAbortTransaction transaction = DatasetAutoAbortTransaction.begin(dataset, ReadWrite.READ)) {
+			snapshot = new SpdxPackage(dataset.getDefaultModel().getResource(packageUri)).materialize();
+		}
+
+		Write.applyUpdatesInOneTransaction(dataset, Write.Package.name(packageUri, "After"),
+				Write.Package.version(packageUri, "2.0"));
+
+		assertEquals("Before", snapshot.getName());
+		assertEquals(Optional.empty(), snapshot.getVersionInfo());
+		assertEquals(1, snapshot.getChecksums().size());
+		assertEquals(Checksum.Algorithm.SHA1, snapshot.getChecksums().iterator().next().getAlgorithm());
+		try (DatasetAutoAbortTransaction transaction = DatasetAutoAbortTransaction.begin(dataset, ReadWrite.READ)) {
+			SpdxPackage live = new SpdxPackage(dataset.getDefaultModel().getResource(packageUri));
+			assertEquals("After", live.getName());
+			assertEquals(Optional.of("2.0"), live.getVersionInfo());
+		}
+	}
+}
@@ -4,8 +4,14 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
@@ -13,13 +19,20 @@ import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.jena.query.Dataset;
+import org.apache.jena.query.DatasetFactory;
 import org.apache.jena.query.ReadWrite;
 import org.apache.jena.rdf.model.Model;
+import org.apache.jena.rdf.model.ModelFactory;
 import org.apache.jena.rdf.model.Resource;
+import org.apache.jena.riot.Lang;
+import org.apache.jena.riot.RDFDataMgr;
+import org.apache.jena.tdb.TDBFactory;
+import org.apache.jena.vocabulary.RDFS;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
@@ -65,6 +78,78 @@ public class TestModelOperations {
 		assertTrue(StringUtils.contains(jsonLd, "\"rdfs\" : \"http://www.w3.org/2000/01/rdf-schema#\""));
 	}
 
+	@Test
+	public void testStreamingJsonLd() throws IOException {
+		Dataset dataset = TestUtils.getDefaultDataSet();
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		Read.outputJsonLd(dataset, out);
+		String jsonLd = new String(out.toByteArray(), StandardCharsets.UTF_8);
+		assertTrue(StringUtils.contains(jsonLd, "@graph"));
+		assertTrue(StringUtils.contains(jsonLd, "\"rdfs\" : \"http://www.w3.org/2000/01/rdf-schema#\""));
+
+		// The streamed JSON-LD must describe exactly the same graph
+		Model roundTripped = ModelFactory.createDefaultModel();
+		RDFDataMgr.read(roundTripped, new ByteArrayInputStream(out.toByteArray()), Lang.JSONLD);
+		try (DatasetAutoAbortTransaction t = DatasetAutoAbortTransaction.begin(dataset, ReadWrite.READ)) {
+			assertEquals(dataset.getDefaultModel().size(), roundTripped.size());
+			assertTrue(dataset.getDefaultModel().isIsomorphicWith(roundTripped));
+		}
+	}
+
+	private static void assertStreamedJsonLdIsomorphic(Model model) throws IOException {
+		Dataset dataset = DatasetFactory.createTxnMem();
+		Write.applyUpdatesInOneTransaction(dataset, m -> m.add(model));
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		Read.outputJsonLd(dataset, out);
+		Model roundTripped = ModelFactory.createDefaultModel();
+		RDFDataMgr.read(roundTripped, new ByteArrayInputStream(out.toByteArray()), Lang.JSONLD);
+		assertEquals(model.size(), roundTripped.size());
+		assertTrue(model.isIsomorphicWith(roundTripped));
+	}
+
+	@Test
+	public void testStreamingJsonLdSelfReferencingBlankNode() throws IOException {
+		Model model = ModelFactory.createDefaultModel();
+		Resource blank = model.createResource();
+		blank.addProperty(RDFS.label, "self").addProperty(RDFS.seeAlso, blank);
+		assertStreamedJsonLdIsomorphic(model);
+	}
+
+	@Test
+	public void testStreamingJsonLdBlankNodeCycle() throws IOException {
+		Model model = ModelFactory.createDefaultModel();
+		Resource first = model.createResource();
+		Resource second = model.createResource();
+		// Referenced once, but only from the cycle
+		Resource leaf = model.createResource().addProperty(RDFS.label, "leaf");
+		first.addProperty(RDFS.label, "first").addProperty(RDFS.seeAlso, second);
+		second.addProperty(RDFS.label, "second").addProperty(RDFS.seeAlso, first).addProperty(RDFS.member, leaf);
+		assertStreamedJsonLdIsomorphic(model);
+	}
+
+	@Test
+	public void testBulkLoadIntoNewDataset() throws IOException, URISyntaxException {
+		Path spdxPath = Paths.get(
+				TestModelOperations.class.getClassLoader().getResource("spdx-tools-2.0.0-RC1.spdx.rdf").toURI());
+		Path datasetPath = Files.createTempDirectory("spdxtraBulkLoad");
+		tmpToCleanUp.add(datasetPath);
+		AtomicLong reportedTriples = new AtomicLong();
+
+		Dataset bulkLoaded = Write.rdfIntoNewDataset(spdxPath, datasetPath,
+				(triples, triplesPerSecond) -> reportedTriples.set(triples));
+		Dataset expected = TestUtils.getDefaultDataSet();
+		try (DatasetAutoAbortTransaction t = DatasetAutoAbortTransaction.begin(bulkLoaded, ReadWrite.READ);
+				DatasetAutoAbortTransaction t2 = DatasetAutoAbortTransaction.begin(expected, ReadWrite.READ)) {
+			Model model = bulkLoaded.getDefaultModel();
+			assertEquals(expected.getDefaultModel().size(), reportedTriples.get());
+			assertTrue(model.isIsomorphicWith(expected.getDefaultModel()));
+			assertEquals("http://spdx.org/documents/spdx-toolsv2.0-rc1#", model.getNsPrefixURI(""));
+			assertEquals(SpdxUris.SPDX_TERMS, model.getNsPrefixURI("spdx"));
+		}
+		assertEquals("SPDX tools", Document.get(bulkLoaded).getName());
+		TDBFactory.release(bulkLoaded);
+	}
+
 	@Test
 	public void testSpdxDocumentInfoAndRelationships() {
 		Dataset dataset = TestUtils.getDefaultDataSet();
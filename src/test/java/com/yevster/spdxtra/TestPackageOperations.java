@@ -1,6 +1,7 @@
 package com.yevster.spdxtra;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
@@ -16,6 +17,7 @@ import java.util.stream.Stream;
 import org.apache.jena.ext.com.google.common.collect.Sets;
 import org.apache.jena.query.Dataset;
 import org.apache.jena.query.DatasetFactory;
+import org.apache.jena.query.ReadWrite;
 import org.apache.jena.rdf.model.RDFNode;
 import org.apache.jena.rdf.model.Resource;
 import org.apache.jena.rdf.model.Statement;
@@ -53,6 +55,47 @@ public class TestPackageOperations {
 		assertEquals(578, files.size());
 	}
 
+	@Test
+	public void testParallelFileRead() {
+		Dataset dataset = TestUtils.getDefaultDataSet();
+		SpdxPackage pkg = Read.getAllPackages(dataset).filter((p) -> "SPDXRef-1".equals(p.getSpdxId())).findFirst().get();
+		Set<String> sequential = pkg.getFiles().map(SpdxFile::getFileName).collect(Collectors.toSet());
+		Set<String> parallel = pkg.getFiles().parallel().map(SpdxFile::getFileName).collect(Collectors.toSet());
+		assertEquals(578, sequential.size());
+		assertEquals(sequential, parallel);
+
+		try (Stream<SpdxPackage> packages = Read.streamAllPackages(dataset)) {
+			assertEquals(Read.getAllPackages(dataset).count(), packages.parallel().count());
+		}
+	}
+
+	@Test
+	public void testStreamingPackageRead() {
+		Dataset dataset = TestUtils.getDefaultDataSet();
+		try (Stream<SpdxPackage> packages = Read.streamAllPackages(dataset)) {
+			assertTrue(dataset.isInTransaction());
+			SpdxPackage pkg = packages.filter((p) -> "SPDXRef-1".equals(p.getSpdxId())).findFirst().get();
+			assertEquals("SPDX tools", pkg.getName());
+			try (Stream<Relationship> relationships = Read.streamRelationships(dataset, pkg)) {
+				// Joins the transaction of the enclosing stream.
+				assertEquals(18, relationships.count());
+			}
+			assertTrue(dataset.isInTransaction());
+		}
+		assertFalse(dataset.isInTransaction());
+
+		// The read transaction is over, so writes can proceed.
+		Write.applyUpdatesInOneTransaction(dataset,
+				Write.New.document("http://example.org/streaming", "SPDXRef-streaming", "Streaming", Creator.tool("Test")));
+
+		try (DatasetAutoAbortTransaction transaction = DatasetAutoAbortTransaction.begin(dataset, ReadWrite.READ)) {
+			try (Stream<SpdxPackage> packages = Read.streamAllPackages(dataset)) {
+				assertEquals(Read.getAllPackages(dataset).count(), packages.count());
+			}
+			assertTrue(dataset.isInTransaction());
+		}
+	}
+
 	@Test
 	public void testPackageFieldUpdates() {
 		Dataset dataset = TestUtils.getDefaultDataSet();
@@ -295,6 +338,12 @@ public class TestPackageOperations {
 		SpdxPackage pkg = new SpdxPackage(dataset.getDefaultModel().getResource(baseUrl + "#" + packageSpdxId));
 		assertNotNull(pkg);
 		assertEquals(expectedPackageVerificationCode, pkg.getPackageVerificationCode().get());
+		assertEquals(expectedPackageVerificationCode,
+				PackageVerificationCode.compute(dataset, baseUrl + "#" + packageSpdxId));
+
+		// Standalone, in any order.
+		assertEquals(expectedPackageVerificationCode, new PackageVerificationCode().addFile("./file2.exe", file2sha1)
+				.addFile("./file1.txt", file1sha1).compute());
 
 		// Set the filesAnalyzed to true explicitly, ensure the same result.
 		Write.applyUpdatesInOneTransaction(dataset, Write.Package.filesAnalyzed(baseUrl + "#" + packageSpdxId, true),
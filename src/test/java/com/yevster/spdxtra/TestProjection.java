@@ -0,0 +1,114 @@
+package com.yevster.spdxtra;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.apache.jena.query.Dataset;
+import org.apache.jena.query.DatasetFactory;
+import org.apache.jena.rdf.model.Resource;
+import org.apache.jena.rdf.model.ResourceFactory;
+import org.junit.Test;
+
+import com.yevster.spdxtra.Projection.FileField;
+import com.yevster.spdxtra.Projection.Row;
+import com.yevster.spdxtra.model.Checksum;
+import com.yevster.spdxtra.model.Creator;
+import com.yevster.spdxtra.model.SpdxFile;
+import com.yevster.spdxtra.model.SpdxPackage;
+import com.yevster.spdxtra.model.write.License;
+
+public class TestProjection {
+
+	@Test
+	public void testFileProjectionMatchesModel() {
+		Dataset dataset = TestUtils.getDefaultDataSet();
+		List<SpdxPackage> packages = Read.getAllPackages(dataset).collect(Collectors.toList());
+		Map<String, Row> rows;
+		try (Stream<Row> stream = Projection.files(dataset, FileField.PACKAGE, FileField.NAME, FileField.SHA1,
+				FileField.SHA256, FileField.FILE_TYPES)) {
+			// Read up front
+			assertFalse(dataset.isInTransaction());
+			rows = stream.collect(Collectors.toMap(Row::getUri, Function.identity()));
+		}
+
+		int files = 0;
+		for (SpdxPackage pkg : packages) {
+			for (SpdxFile file : pkg.getFiles().collect(Collectors.toList())) {
+				++files;
+				Row row = rows.get(file.getUri());
+				assertEquals(file.getSpdxId(), row.getSpdxId());
+				assertEquals(Arrays.asList(pkg.getUri()), row.getAll(FileField.PACKAGE));
+				assertEquals(Optional.of(file.getFileName()), row.get(FileField.NAME));
+				assertEquals(file.getChecksums().stream().filter(c -> c.getAlgorithm() == Checksum.Algorithm.SHA1)
+						.map(Checksum::getDigest).findFirst(), row.get(FileField.SHA1));
+				assertEquals(Optional.empty(), row.get(FileField.SHA256));
+				assertEquals(file.getFileTypes().stream().map(Enum::name).collect(Collectors.toSet()),
+						row.getAll(FileField.FILE_TYPES).stream().collect(Collectors.toSet()));
+			}
+		}
+		// One row per file, however many values its fields have
+		assertEquals(578, files);
+		assertEquals(files, rows.size());
+	}
+
+	@Test
+	public void testLicensesRenderedAsExpressions() {
+		final String baseUrl = "http://example.org/projection";
+		final String fileUri = baseUrl + "#SPDXRef-file";
+		final String otherFileUri = baseUrl + "#SPDXRef-other";
+		License apache = LicenseList.INSTANCE.getListedLicenseById("Apache-2.0").get();
+		License mit = LicenseList.INSTANCE.getListedLicenseById("MIT").get();
+		License bsd = LicenseList.INSTANCE.getListedLicenseById("BSD-3-Clause").get();
+		Dataset dataset = DatasetFactory.createTxnMem();
+		Write.applyUpdatesInOneTransaction(dataset,
+				Write.New.document(baseUrl, "SPDXRef-doc", "Projection", Creator.tool("SpdXtra")),
+				Write.Document.addPackage(baseUrl, "SPDXRef-doc", "SPDXRef-pkg", "Licensed"),
+				Write.Package.addFile(baseUrl, "SPDXRef-pkg", "SPDXRef-file", "./file"),
+				Write.Package.addFile(baseUrl, "SPDXRef-pkg", "SPDXRef-other", "./other"),
+				Write.Package.concludedLicense(baseUrl + "#SPDXRef-pkg", License.NOASSERTION),
+				Write.File.concludedLicense(fileUri, License.and(License.or(mit, apache), bsd)));
+		// Two distinct, but equal, disjunctive sets in one conjunctive set
+		Write.applyUpdatesInOneTransaction(dataset, model -> {
+			Resource disjunctive = ResourceFactory.createResource(SpdxUris.SPDX_TERMS + "DisjunctiveLicenseSet");
+			Resource conjunctive = model.createResource(
+					ResourceFactory.createResource(SpdxUris.SPDX_TERMS + "ConjunctiveLicenseSet"));
+			for (int i = 0; i < 2; ++i) {
+				conjunctive.addProperty(SpdxProperties.LICENSE_MEMBER, model.createResource(disjunctive)
+						.addProperty(SpdxProperties.LICENSE_MEMBER, apache.getRdfNode(model))
+						.addProperty(SpdxProperties.LICENSE_MEMBER, mit.getRdfNode(model)));
+			}
+			conjunctive.addProperty(SpdxProperties.LICENSE_MEMBER, bsd.getRdfNode(model));
+			Resource otherFile = model.getResource(otherFileUri);
+			otherFile.removeAll(SpdxProperties.LICENSE_CONCLUDED);
+			otherFile.addProperty(SpdxProperties.LICENSE_CONCLUDED, conjunctive);
+		});
+
+		Map<String, Row> rows;
+		try (Stream<Row> stream = Projection.files(dataset, FileField.CONCLUDED_LICENSE, FileField.MD5)) {
+			rows = stream.collect(Collectors.toMap(Row::getUri, Function.identity()));
+		}
+		assertEquals(2, rows.size());
+		assertEquals(Optional.of("(Apache-2.0 OR MIT) AND BSD-3-Clause"),
+				rows.get(fileUri).get(FileField.CONCLUDED_LICENSE));
+		// Collapsed, as in the canonical form of the expression
+		assertEquals(Optional.of("(Apache-2.0 OR MIT) AND BSD-3-Clause"),
+				rows.get(otherFileUri).get(FileField.CONCLUDED_LICENSE));
+		assertEquals(Optional.empty(), rows.get(fileUri).get(FileField.MD5));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testUnprojectedField() {
+		Dataset dataset = TestUtils.getDefaultDataSet();
+		try (Stream<Row> rows = Projection.files(dataset, FileField.NAME)) {
+			rows.findFirst().get().get(FileField.SHA1);
+		}
+	}
+}
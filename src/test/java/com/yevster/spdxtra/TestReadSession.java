@@ -0,0 +1,107 @@
+package com.yevster.spdxtra;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.apache.jena.query.Dataset;
+import org.apache.jena.query.DatasetFactory;
+import org.apache.jena.query.ReadWrite;
+import org.junit.Test;
+
+import com.yevster.spdxtra.model.Creator;
+import com.yevster.spdxtra.model.Relationship;
+import com.yevster.spdxtra.model.SpdxDocument;
+import com.yevster.spdxtra.model.SpdxPackage;
+
+public class TestReadSession {
+
+	@Test
+	public void testSessionHoldsOneTransaction() {
+		Dataset dataset = TestUtils.getDefaultDataSet();
+		String documentName = Read.Document.get(dataset).getName();
+		List<SpdxPackage> packages;
+		try (ReadSession session = ReadSession.open(dataset)) {
+			assertTrue(session.ownsTransaction());
+			assertTrue(dataset.isInTransaction());
+			SpdxDocument document = session.getDocument();
+			assertEquals(documentName, document.getName());
+			try (Stream<SpdxPackage> stream = session.getAllPackages()) {
+				packages = stream.collect(Collectors.toList());
+			}
+			// Streams joined the session's transaction, and left it open.
+			assertTrue(dataset.isInTransaction());
+			SpdxPackage pkg = packages.stream().filter(p -> "SPDXRef-1".equals(p.getSpdxId())).findFirst().get();
+			assertEquals("SPDX tools", pkg.getName());
+			assertEquals(578, pkg.getFiles().count());
+			try (Stream<Relationship> relationships = session.getRelationships(document,
+					Relationship.Type.DESCRIBES)) {
+				assertTrue(relationships.count() > 0);
+			}
+			assertTrue(session.lookupResourceByUri(pkg.getUri()).isPresent());
+			assertFalse(session.lookupResourceByUri(pkg.getUri() + "-missing").isPresent());
+		}
+		assertFalse(dataset.isInTransaction());
+	}
+
+	@Test
+	public void testSessionJoinsWriteTransaction() {
+		final String baseUrl = "http://example.org/session";
+		final Dataset dataset = DatasetFactory.createTxnMem();
+		final AtomicReference<String> name = new AtomicReference<>();
+		Write.applyUpdatesInOneTransaction(dataset,
+				Write.New.document(baseUrl, "SPDXRef-doc", "In session", Creator.tool("SpdXtra")),
+				Write.Document.addPackage(baseUrl, "SPDXRef-doc", "SPDXRef-pkg", "Package"), m -> {
+					// Reads, inside the update, see the uncommitted writes.
+					try (ReadSession session = ReadSession.open(dataset)) {
+						assertFalse(session.ownsTransaction());
+						name.set(session.getDocument().getName());
+						assertTrue(Read.lookupResourceByUri(dataset, baseUrl + "#SPDXRef-pkg").isPresent());
+					}
+					assertTrue(dataset.isInTransaction());
+				});
+		assertEquals("In session", name.get());
+		assertEquals("In session", Read.Document.get(dataset).getName());
+	}
+
+	@Test
+	public void testReadCallsJoinCallersTransaction() {
+		Dataset dataset = TestUtils.getDefaultDataSet();
+		String documentName = Read.Document.get(dataset).getName();
+		try (DatasetAutoAbortTransaction transaction = DatasetAutoAbortTransaction.begin(dataset, ReadWrite.READ)) {
+			assertEquals(documentName, Read.Document.get(dataset).getName());
+			assertEquals(Optional.empty(), Read.lookupResourceByUri(dataset, "http://example.org#SPDXRef-none"));
+			assertTrue(dataset.isInTransaction());
+		}
+	}
+
+	@Test
+	public void testLaterSessionSeesOtherThreadsCommits() throws InterruptedException {
+		final String baseUrl = "http://example.org/session";
+		final Dataset dataset = DatasetFactory.createTxnMem();
+		Write.applyUpdatesInOneTransaction(dataset,
+				Write.New.document(baseUrl, "SPDXRef-doc", "Session", Creator.tool("SpdXtra")));
+		assertFalse(Read.lookupResourceByUri(dataset, baseUrl + "#SPDXRef-pkg").isPresent());
+		Thread writer = new Thread(() -> Write.applyUpdatesInOneTransaction(dataset,
+				Write.Document.addPackage(baseUrl, "SPDXRef-doc", "SPDXRef-pkg", "Package")));
+		writer.start();
+		writer.join();
+		// Not the view of the dataset this thread read before
+		assertTrue(Read.lookupResourceByUri(dataset, baseUrl + "#SPDXRef-pkg").isPresent());
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testClosedSession() {
+		ReadSession session = ReadSession.open(TestUtils.getDefaultDataSet());
+		session.close();
+		// Closing again has no effect
+		session.close();
+		session.getDocument();
+	}
+}
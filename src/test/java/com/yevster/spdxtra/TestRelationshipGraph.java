@@ -0,0 +1,124 @@
+package com.yevster.spdxtra;
+
+import static com.yevster.spdxtra.TestUtils.PACKAGE_URI;
+import static com.yevster.spdxtra.TestUtils.fileUri;
+import static com.yevster.spdxtra.TestUtils.packageContainingFiles;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+
+import org.apache.jena.query.Dataset;
+import org.apache.jena.query.DatasetFactory;
+import org.junit.Test;
+
+import com.yevster.spdxtra.model.Relationship;
+
+public class TestRelationshipGraph {
+
+	private static List<String> fileUris(int... files) {
+		return Arrays.stream(files).mapToObj(TestUtils::fileUri).collect(Collectors.toList());
+	}
+
+	@Test
+	public void testTraversals() {
+		Dataset dataset = DatasetFactory.createTxnMem();
+		BulkRelationshipWriter relationships = packageContainingFiles(dataset, 6);
+		relationships.add(fileUri(0), fileUri(1), Relationship.Type.DYNAMIC_LINK);
+		relationships.add(fileUri(0), fileUri(2), Relationship.Type.STATIC_LINK);
+		relationships.add(fileUri(1), fileUri(3), Relationship.Type.DYNAMIC_LINK);
+		relationships.add(fileUri(2), fileUri(4), Relationship.Type.DYNAMIC_LINK);
+		relationships.add(fileUri(3), fileUri(4), Relationship.Type.STATIC_LINK);
+		relationships.write();
+
+		RelationshipGraph links = RelationshipGraph.of(dataset, Relationship.Type.DYNAMIC_LINK,
+				Relationship.Type.STATIC_LINK);
+		assertEquals(5, links.getEdgeCount());
+		List<String> breadthFirst = links.breadthFirst(fileUri(0));
+		assertEquals(fileUris(0), breadthFirst.subList(0, 1));
+		assertEquals(new HashSet<>(fileUris(1, 2)), new HashSet<>(breadthFirst.subList(1, 3)));
+		assertEquals(new HashSet<>(fileUris(3, 4)), new HashSet<>(breadthFirst.subList(3, 5)));
+		// Relationships are followed in the order of their types.
+		assertEquals(fileUris(0, 1, 3, 4, 2), links.depthFirst(fileUri(0)));
+		assertEquals(fileUris(5), links.depthFirst(fileUri(5)));
+		assertEquals(fileUris(5), links.breadthFirst(fileUri(5)));
+
+		assertEquals(new HashSet<>(fileUris(3, 4)), new HashSet<>(links.closure(fileUri(1))));
+		assertEquals(new HashSet<>(fileUris(3, 4)), new HashSet<>(links.closure(fileUris(1, 3))));
+		assertTrue(links.closure(fileUri(5)).isEmpty());
+		assertFalse(links.hasCycle());
+
+		RelationshipGraph contents = RelationshipGraph.of(dataset, Relationship.Type.CONTAINS,
+				Relationship.Type.DYNAMIC_LINK);
+		assertEquals(6, contents.closure(PACKAGE_URI).size());
+		assertEquals(fileUris(3), contents.closure(fileUri(1)));
+	}
+
+	@Test
+	public void testCycles() {
+		Dataset dataset = DatasetFactory.createTxnMem();
+		BulkRelationshipWriter relationships = packageContainingFiles(dataset, 6);
+		relationships.add(fileUri(0), fileUri(0), Relationship.Type.ANCESTOR_OF);
+		relationships.add(fileUri(1), fileUri(2), Relationship.Type.ANCESTOR_OF);
+		relationships.add(fileUri(2), fileUri(3), Relationship.Type.ANCESTOR_OF);
+		relationships.add(fileUri(3), fileUri(1), Relationship.Type.ANCESTOR_OF);
+		relationships.add(fileUri(3), fileUri(4), Relationship.Type.ANCESTOR_OF);
+		relationships.add(fileUri(4), fileUri(5), Relationship.Type.DESCENDANT_OF);
+		relationships.write();
+
+		RelationshipGraph ancestry = RelationshipGraph.of(dataset, Relationship.Type.ANCESTOR_OF);
+		List<List<String>> cycles = ancestry.getCycles();
+		assertEquals(2, cycles.size());
+		assertTrue(cycles.contains(fileUris(0)));
+		assertTrue(cycles.stream().anyMatch(c -> new HashSet<>(c).equals(new HashSet<>(fileUris(1, 2, 3)))));
+		assertTrue(ancestry.hasCycle());
+		assertEquals(new HashSet<>(fileUris(1, 2, 3, 4)), new HashSet<>(ancestry.closure(fileUri(2))));
+
+		relationships.add(fileUri(5), fileUri(4), Relationship.Type.DESCENDANT_OF);
+		relationships.write();
+		assertEquals(Arrays.asList(new HashSet<>(fileUris(4, 5))),
+				RelationshipGraph.of(dataset, Relationship.Type.DESCENDANT_OF).getCycles().stream()
+						.map(HashSet::new).collect(Collectors.toList()));
+	}
+
+	@Test
+	public void testLargeGraphs() {
+		final int fileCount = 3 * RelationshipGraph.PARALLEL_THRESHOLD;
+		Dataset dataset = DatasetFactory.createTxnMem();
+		BulkRelationshipWriter relationships = packageContainingFiles(dataset, fileCount);
+		// One long cycle through all the files
+		for (int i = 0; i < fileCount; ++i) {
+			relationships.add(fileUri(i), fileUri((i + 1) % fileCount), Relationship.Type.DYNAMIC_LINK);
+		}
+		relationships.write();
+
+		ForkJoinPool pool = new ForkJoinPool(3);
+		ForkJoinPool singleThread = new ForkJoinPool(1);
+		try {
+			RelationshipGraph graph = RelationshipGraph.of(dataset, Relationship.Type.CONTAINS,
+					Relationship.Type.DYNAMIC_LINK);
+			// The files are expanded in parallel, but reached only once.
+			List<String> parallel = graph.pool(pool).breadthFirst(PACKAGE_URI);
+			assertEquals(fileCount + 1, parallel.size());
+			assertEquals(fileCount + 1, new HashSet<>(parallel).size());
+			assertEquals(fileCount, graph.closure(PACKAGE_URI).size());
+			assertEquals(new HashSet<>(parallel),
+					new HashSet<>(graph.pool(singleThread).breadthFirst(PACKAGE_URI)));
+
+			RelationshipGraph links = RelationshipGraph.of(dataset, Relationship.Type.DYNAMIC_LINK);
+			assertEquals(fileCount, links.depthFirst(fileUri(0)).size());
+			assertEquals(fileUri(fileCount - 1), links.depthFirst(fileUri(0)).get(fileCount - 1));
+			List<List<String>> cycles = links.getCycles();
+			assertEquals(1, cycles.size());
+			assertEquals(fileCount, cycles.get(0).size());
+		} finally {
+			pool.shutdown();
+			singleThread.shutdown();
+		}
+	}
+}
@@ -0,0 +1,115 @@
+package com.yevster.spdxtra;
+
+import static com.yevster.spdxtra.TestUtils.BASE_URL;
+import static com.yevster.spdxtra.TestUtils.DOCUMENT_URI;
+import static com.yevster.spdxtra.TestUtils.PACKAGE_URI;
+import static com.yevster.spdxtra.TestUtils.fileUri;
+import static com.yevster.spdxtra.TestUtils.packageContainingFiles;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+import org.apache.jena.query.Dataset;
+import org.apache.jena.query.DatasetFactory;
+import org.apache.jena.query.ReadWrite;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.yevster.spdxtra.model.Relationship;
+import com.yevster.spdxtra.model.SpdxElement;
+import com.yevster.spdxtra.model.SpdxFile;
+import com.yevster.spdxtra.model.SpdxPackage;
+
+public class TestRelationshipIndex {
+	private Dataset dataset;
+
+	@Before
+	public void createPackage() {
+		dataset = DatasetFactory.createTxnMem();
+		BulkRelationshipWriter relationships = packageContainingFiles(dataset, 4);
+		relationships.add(DOCUMENT_URI, PACKAGE_URI, Relationship.Type.DESCRIBES);
+		relationships.add(PACKAGE_URI, DOCUMENT_URI, Relationship.Type.DESCRIBED_BY);
+		relationships.add(fileUri(1), fileUri(0), Relationship.Type.STATIC_LINK);
+		relationships.add(fileUri(2), fileUri(0), Relationship.Type.STATIC_LINK);
+		relationships.add(fileUri(3), fileUri(0), Relationship.Type.DYNAMIC_LINK);
+		relationships.write();
+	}
+
+	private static List<String> sorted(List<String> uris) {
+		return uris.stream().sorted().collect(Collectors.toList());
+	}
+
+	@Test
+	public void testLookups() {
+		RelationshipIndex index = RelationshipIndex.of(dataset);
+		// DESCRIBES, DESCRIBED_BY, 4 CONTAINS, 3 links
+		assertEquals(9, index.size());
+		assertEquals(sorted(Arrays.asList(fileUri(1), fileUri(2))),
+				sorted(index.getSources(fileUri(0), Relationship.Type.STATIC_LINK)));
+		assertEquals(Collections.singletonList(fileUri(3)),
+				index.getSources(fileUri(0), Relationship.Type.DYNAMIC_LINK));
+		assertEquals(4, index.getSources(fileUri(0)).size());
+		assertEquals(Collections.singletonList(DOCUMENT_URI), index.getSources(PACKAGE_URI));
+		assertTrue(index.getSources(fileUri(0), Relationship.Type.COPY_OF).isEmpty());
+		assertTrue(index.getSources(BASE_URL + "#SPDXRef-missing").isEmpty());
+
+		assertEquals(4, index.getTargets(PACKAGE_URI, Relationship.Type.CONTAINS).size());
+		assertEquals(Collections.singletonList(DOCUMENT_URI),
+				index.getTargets(PACKAGE_URI, Relationship.Type.DESCRIBED_BY));
+		assertEquals(5, index.getTargets(PACKAGE_URI).size());
+		assertTrue(index.getTargets(fileUri(0)).isEmpty());
+	}
+
+	@Test
+	public void testSnapshot() {
+		RelationshipIndex index = RelationshipIndex.of(dataset);
+		Write.applyUpdatesInOneTransaction(dataset,
+				Write.addRelationship(fileUri(3), fileUri(0), Optional.empty(), Relationship.Type.STATIC_LINK));
+		assertEquals(2, index.getSources(fileUri(0), Relationship.Type.STATIC_LINK).size());
+		assertEquals(3, RelationshipIndex.of(dataset).getSources(fileUri(0), Relationship.Type.STATIC_LINK).size());
+
+		// Uncommitted changes are seen in the write transaction only.
+		try (DatasetAutoAbortTransaction transaction = DatasetAutoAbortTransaction.begin(dataset, ReadWrite.WRITE)) {
+			Write.addRelationship(fileUri(2), fileUri(0), Optional.empty(), Relationship.Type.DYNAMIC_LINK)
+					.apply(dataset.getDefaultModel());
+			assertEquals(2, RelationshipIndex.of(dataset).getSources(fileUri(0), Relationship.Type.DYNAMIC_LINK)
+					.size());
+		}
+		assertEquals(1, RelationshipIndex.of(dataset).getSources(fileUri(0), Relationship.Type.DYNAMIC_LINK).size());
+	}
+
+	@Test
+	public void testRelationshipSources() {
+		SpdxElement file = new SpdxFile(Read.lookupResourceByUri(dataset, fileUri(0)).get());
+		List<SpdxElement> linkers = Read.getRelationshipSources(dataset, file, Relationship.Type.STATIC_LINK)
+				.collect(Collectors.toList());
+		assertEquals(2, linkers.size());
+		assertTrue(linkers.stream().allMatch(e -> e instanceof SpdxFile));
+
+		List<SpdxElement> containers = Read.getRelationshipSources(dataset, file, Relationship.Type.CONTAINS)
+				.collect(Collectors.toList());
+		assertEquals(1, containers.size());
+		assertTrue(containers.get(0) instanceof SpdxPackage);
+		assertEquals(PACKAGE_URI, containers.get(0).getUri());
+	}
+
+	@Test
+	public void testRelationshipSourcesSeeWrites() {
+		SpdxElement file = new SpdxFile(Read.lookupResourceByUri(dataset, fileUri(0)).get());
+		Write.applyUpdatesInOneTransaction(dataset,
+				Write.addRelationship(fileUri(3), fileUri(0), Optional.empty(), Relationship.Type.STATIC_LINK));
+		assertEquals(3, Read.getRelationshipSources(dataset, file, Relationship.Type.STATIC_LINK).count());
+
+		try (DatasetAutoAbortTransaction transaction = DatasetAutoAbortTransaction.begin(dataset, ReadWrite.WRITE)) {
+			Write.addRelationship(fileUri(2), fileUri(0), Optional.empty(), Relationship.Type.DYNAMIC_LINK)
+					.apply(dataset.getDefaultModel());
+			assertEquals(2, Read.getRelationshipSources(dataset, file, Relationship.Type.DYNAMIC_LINK).count());
+		}
+		assertEquals(1, Read.getRelationshipSources(dataset, file, Relationship.Type.DYNAMIC_LINK).count());
+	}
+}
@@ -7,11 +7,18 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.Iterator;
+import java.util.stream.IntStream;
 
 import org.apache.jena.query.Dataset;
 import org.apache.jena.tdb.TDBFactory;
 
+import com.yevster.spdxtra.model.Creator;
+import com.yevster.spdxtra.model.Relationship;
+
 public class TestUtils {
+	public static final String BASE_URL = "http://example.org/test";
+	public static final String DOCUMENT_URI = BASE_URL + "#SPDXRef-doc";
+	public static final String PACKAGE_URI = BASE_URL + "#SPDXRef-pkg";
 
 	public static Dataset getDefaultDataSet() {
 		try {
@@ -39,4 +46,40 @@ public class TestUtils {
 		return sb.toString();
 	}
 
+	/**
+	 * The URI of the file with the provided index in
+	 * {@link #createPackageOfFiles(Dataset, int)}.
+	 */
+	public static String fileUri(int i) {
+		return BASE_URL + "#SPDXRef-" + i;
+	}
+
+	/**
+	 * Creates a document at {@link #BASE_URL} with a package at
+	 * {@link #PACKAGE_URI}, and adds the files SPDXRef-0 to SPDXRef-(fileCount -
+	 * 1) to the package.
+	 */
+	public static void createPackageOfFiles(Dataset dataset, int fileCount) {
+		Write.applyUpdatesInOneTransaction(dataset,
+				Write.New.document(BASE_URL, "SPDXRef-doc", "Test", Creator.tool("SpdXtra")),
+				Write.Document.addPackage(BASE_URL, "SPDXRef-doc", "SPDXRef-pkg", "Package"));
+		BulkFileBuilder files = BulkFileBuilder.forDataset(dataset, BASE_URL);
+		BatchingUpdateApplier.forDataset(dataset).apply(IntStream.range(0, fileCount)
+				.mapToObj(i -> files.addFile("SPDXRef-pkg", "SPDXRef-" + i, "./" + i + ".c")));
+	}
+
+	/**
+	 * Creates the package of {@link #createPackageOfFiles(Dataset, int)} and
+	 * returns a writer with a pending CONTAINS relationship from the package to
+	 * each file.
+	 */
+	public static BulkRelationshipWriter packageContainingFiles(Dataset dataset, int fileCount) {
+		createPackageOfFiles(dataset, fileCount);
+		BulkRelationshipWriter relationships = BulkRelationshipWriter.forDataset(dataset);
+		for (int i = 0; i < fileCount; ++i) {
+			relationships.add(PACKAGE_URI, fileUri(i), Relationship.Type.CONTAINS);
+		}
+		return relationships;
+	}
+
 }
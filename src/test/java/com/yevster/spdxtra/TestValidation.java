@@ -1,5 +1,14 @@
 package com.yevster.spdxtra;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Optional;
+import java.util.Random;
+import java.util.regex.Pattern;
+
+import org.apache.commons.lang3.StringUtils;
 import org.junit.Test;
 
 import com.yevster.spdxtra.model.Creator;
@@ -43,4 +52,83 @@ public class TestValidation {
 	public void nullStringPropertyValue(){
 		Write.Package.summary("http://legaluri.com#SPDXRef-1", null);
 	}
+
+	/**
+	 * The email pattern Validate used to apply, to check that the hand-written
+	 * validator accepts the same addresses.
+	 */
+	private static final Pattern formerEmailPattern = Pattern.compile(
+			"^[A-Za-z0-9](([_\\.\\-]?[a-zA-Z0-9]+)*)@([A-Za-z0-9]+)(([\\.\\-]?[a-zA-Z0-9]+)*)\\.([A-Za-z]{2,})$");
+
+	@Test
+	public void emailMatchesFormerPattern() {
+		Random random = new Random(42);
+		char[] alphabet = "aZ9_.-@x".toCharArray();
+		int accepted = 0;
+		for (int n = 0; n < 200_000; ++n) {
+			char[] email = new char[1 + random.nextInt(10)];
+			for (int i = 0; i < email.length; ++i) {
+				email[i] = alphabet[random.nextInt(alphabet.length)];
+			}
+			String candidate = new String(email);
+			boolean expected = formerEmailPattern.matcher(candidate).matches();
+			assertEquals(candidate, expected, Validate.isEmail(candidate));
+			if (expected)
+				++accepted;
+		}
+		assertTrue("Too few valid addresses generated: " + accepted, accepted > 50);
+
+		assertTrue(Validate.isEmail("aEinstein@princeton.edu"));
+		assertTrue(Validate.isEmail("first.last-name_x@mail.example-domain.org"));
+		assertFalse(Validate.isEmail("a..b@example.org"));
+		assertFalse(Validate.isEmail("a@example.c"));
+		assertFalse(Validate.isEmail("a@example.c0m"));
+		assertFalse(Validate.isEmail("a@b@example.org"));
+		assertFalse(Validate.isEmail("_a@example.org"));
+		assertFalse(Validate.isEmail(null));
+	}
+
+	@Test(timeout = 2000)
+	public void adversarialInputsFailFast() {
+		// Made the former email pattern backtrack exponentially.
+		String nearMiss = StringUtils.repeat('a', 1_000_000) + "!";
+		assertFalse(Validate.isEmail(nearMiss));
+		assertFalse(Validate.isEmail(StringUtils.repeat("a.", 500_000) + "@x"));
+		try {
+			Creator.fromString("Person: Mallory (" + StringUtils.repeat('a', 100_000) + "!)");
+			throw new AssertionError("Expected the creator to be rejected");
+		} catch (IllegalArgumentException expected) {
+		}
+		assertEquals(Creator.person("Mallory", Optional.of("m@example.org")),
+				Creator.fromString("Person: Mallory (m@example.org)"));
+	}
+
+	@Test
+	public void identifiersAndUris() {
+		assertTrue(Validate.isSpdxElementId("SPDXRef-1"));
+		assertFalse(Validate.isSpdxElementId("SPDXRef1"));
+		assertFalse(Validate.isSpdxElementId("SPDXRef-a:b"));
+		assertFalse(Validate.isSpdxElementId(null));
+		assertTrue(Validate.isSpdxLicenseId("LicenseRef-Foo"));
+		assertFalse(Validate.isSpdxLicenseId("LicenseRef-a#b"));
+		assertFalse(Validate.isSpdxLicenseId("SPDXRef-1"));
+		assertTrue(Validate.isBaseUrl("http://example.org:7100/doc"));
+		assertFalse(Validate.isBaseUrl(" \t"));
+		assertFalse(Validate.isBaseUrl("http://example.org#"));
+		assertTrue(Validate.isSpdxElementUri("http://example.org#SPDXRef-1"));
+		assertFalse(Validate.isSpdxElementUri("http://example.org"));
+		assertFalse(Validate.isSpdxElementUri("#SPDXRef-1"));
+		assertFalse(Validate.isSpdxElementUri("http://example.org#SPDXRef-1#SPDXRef-2"));
+		assertFalse(Validate.isSpdxElementUri("http://example.org##SPDXRef-1"));
+	}
+
+	@Test
+	public void elementUriFailureNamesCause() {
+		try {
+			Validate.spdxElementUri("http://example.org#Ref-1");
+			throw new AssertionError("Expected the URI to be rejected");
+		} catch (IllegalArgumentException e) {
+			assertTrue(e.getCause() instanceof IllegalArgumentException);
+		}
+	}
 }
@@ -3,6 +3,7 @@ package com.yevster.spdxtra.model;
 import static org.junit.Assert.*;
 
 import com.google.common.collect.ImmutableSet;
+import com.yevster.spdxtra.DatasetAutoAbortTransaction;
 import com.yevster.spdxtra.LicenseList;
 import com.yevster.spdxtra.NoneNoAssertionOrValue.AbsentValue;
 import com.yevster.spdxtra.Read;
@@ -32,6 +33,7 @@ import java.nio.file.Paths;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 import java.util.stream.Stream;
 
 /**
@@ -166,4 +168,71 @@ public class CompoundLicenseTest {
 
 	}
 
+	private long countLicenseSets(Dataset ds) {
+		try (DatasetAutoAbortTransaction t = DatasetAutoAbortTransaction.begin(ds, ReadWrite.READ)) {
+			return MiscUtils.toLinearStream(ds.getDefaultModel().listSubjectsWithProperty(SpdxProperties.LICENSE_MEMBER))
+					.count();
+		}
+	}
+
+	@Test
+	// Structurally equal licenses, written in separate transactions, share a
+	// single license set
+	public void testLicenseSetsSharedAcrossTransactions() {
+		License apache = LicenseList.INSTANCE.getListedLicenseById("Apache-2.0").get();
+		License gpl = LicenseList.INSTANCE.getListedLicenseById("GPL-2.0").get();
+		Write.applyUpdatesInOneTransaction(dataset,
+				Write.Package.addFile(documentNamespace, pkgSpdxId, "SPDXRef-File1", "file1"),
+				Write.Package.addFile(documentNamespace, pkgSpdxId, "SPDXRef-File2", "file2"),
+				Write.Package.addFile(documentNamespace, pkgSpdxId, "SPDXRef-File3", "file3"));
+		Write.applyUpdatesInOneTransaction(dataset,
+				Write.File.concludedLicense(documentNamespace + "#SPDXRef-File1", License.and(apache, gpl)));
+		Write.applyUpdatesInOneTransaction(dataset,
+				Write.File.concludedLicense(documentNamespace + "#SPDXRef-File2", License.and(gpl, apache)),
+				Write.File.concludedLicense(documentNamespace + "#SPDXRef-File3", License.or(apache, gpl)));
+		assertEquals(2, countLicenseSets(dataset));
+
+		// A license set from an aborted transaction is not reused
+		License nested = License.or(License.and(apache, gpl), License.NOASSERTION);
+		try {
+			Write.applyUpdatesInOneTransaction(dataset,
+					Write.File.concludedLicense(documentNamespace + "#SPDXRef-File1", nested), m -> {
+						throw new IllegalStateException("Abort!");
+					});
+			fail();
+		} catch (IllegalStateException e) {
+			// Expected
+		}
+		Write.applyUpdatesInOneTransaction(dataset,
+				Write.File.concludedLicense(documentNamespace + "#SPDXRef-File1", nested));
+		assertEquals(3, countLicenseSets(dataset));
+		Resource fileLicense = Read.lookupResourceByUri(dataset, documentNamespace + "#SPDXRef-File1").get()
+				.getProperty(SpdxProperties.LICENSE_CONCLUDED).getResource();
+		assertEquals(2, MiscUtils.toLinearStream(fileLicense.listProperties(SpdxProperties.LICENSE_MEMBER)).count());
+	}
+
+	@Test
+	// Shared licenses can be written to several datasets at once
+	public void testLicenseSetsWrittenInParallel() {
+		License shared = License.or(License.and(LicenseList.INSTANCE.getListedLicenseById("Apache-2.0").get(),
+				LicenseList.INSTANCE.getListedLicenseById("MIT").get()), License.NOASSERTION);
+		List<Dataset> datasets = IntStream.range(0, 8).mapToObj(i -> {
+			Dataset ds = DatasetFactory.createTxnMem();
+			Write.applyUpdatesInOneTransaction(ds,
+					Write.New.document(documentNamespace, documentSpdxId, "Doc " + i, Creator.tool("Test")),
+					Write.Document.addDescribedPackage(documentNamespace, documentSpdxId, pkgSpdxId, "Pkg " + i));
+			return ds;
+		}).collect(Collectors.toList());
+
+		datasets.parallelStream().forEach(ds -> {
+			for (int batch = 0; batch < 10; ++batch) {
+				Write.applyUpdatesInOneTransaction(ds, Write.Package.concludedLicense(pkgUri, shared),
+						Write.Package.declaredLicense(pkgUri, shared));
+			}
+		});
+		for (Dataset ds : datasets) {
+			assertEquals(2, countLicenseSets(ds));
+		}
+	}
+
 }
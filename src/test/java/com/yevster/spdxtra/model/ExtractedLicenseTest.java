@@ -11,6 +11,8 @@ import java.util.stream.Stream;
 import org.apache.jena.ext.com.google.common.collect.Sets;
 import org.apache.jena.query.Dataset;
 import org.apache.jena.query.DatasetFactory;
+import org.apache.jena.rdf.listeners.StatementListener;
+import org.apache.jena.rdf.model.ModelChangedListener;
 import org.apache.jena.rdf.model.Resource;
 import org.apache.jena.rdf.model.Statement;
 import org.junit.Before;
@@ -95,4 +97,48 @@ public class ExtractedLicenseTest {
 
 	}
 
+	@Test
+	public void testWrittenOnce() {
+		final String licenseUri = documentNamespace + "#LicenseRef-Once";
+		Write.applyUpdatesInOneTransaction(dataset,
+				Write.Package.addFile(documentNamespace, pkgSpdxId, "SPDXRef-File1", "file1"),
+				Write.Package.addFile(documentNamespace, pkgSpdxId, "SPDXRef-File2", "file2"));
+		License license = License.extracted("Once is enough.", "Once", documentNamespace, "LicenseRef-Once");
+		Write.applyUpdatesInOneTransaction(dataset, Write.Package.declaredLicense(pkgUri, license));
+
+		// Referencing it again, in other transactions, from equal license
+		// objects, only adds the referencing statements.
+		final List<Statement> added = new LinkedList<>();
+		final List<Statement> removed = new LinkedList<>();
+		ModelChangedListener listener = new StatementListener() {
+			@Override
+			public void addedStatement(Statement s) {
+				added.add(s);
+			}
+
+			@Override
+			public void removedStatement(Statement s) {
+				removed.add(s);
+			}
+		};
+		License same = License.extracted("Once is enough.", "Once", documentNamespace, "LicenseRef-Once");
+		Write.applyUpdatesInOneTransaction(dataset, m -> m.register(listener),
+				Write.File.concludedLicense(documentNamespace + "#SPDXRef-File1", license),
+				Write.File.concludedLicense(documentNamespace + "#SPDXRef-File2", same),
+				Write.File.addLicenseInfoInFile(documentNamespace + "#SPDXRef-File2", license));
+		assertEquals(3, added.size());
+		assertEquals(0, removed.size());
+
+		// A different text for the same ID replaces the old one
+		added.clear();
+		License changed = License.extracted("Twice is better.", "Twice", documentNamespace, "LicenseRef-Once");
+		Write.applyUpdatesInOneTransaction(dataset, m -> m.register(listener),
+				Write.File.concludedLicense(documentNamespace + "#SPDXRef-File1", changed));
+		Resource licenseResource = Read.lookupResourceByUri(dataset, licenseUri).get();
+		assertEquals("Twice is better.", licenseResource.getProperty(SpdxProperties.LICENSE_EXTRACTED_TEXT).getString());
+		assertEquals(1, MiscUtils.toLinearStream(licenseResource.listProperties(SpdxProperties.LICENSE_EXTRACTED_TEXT))
+				.count());
+		assertEquals(1, MiscUtils.toLinearStream(licenseResource.listProperties(SpdxProperties.NAME)).count());
+	}
+
 }
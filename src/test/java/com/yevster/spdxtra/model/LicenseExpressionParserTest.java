@@ -0,0 +1,105 @@
+package com.yevster.spdxtra.model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.apache.jena.query.Dataset;
+import org.apache.jena.query.DatasetFactory;
+import org.apache.jena.rdf.model.Resource;
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.yevster.spdxtra.LicenseList;
+import com.yevster.spdxtra.Read;
+import com.yevster.spdxtra.SpdxProperties;
+import com.yevster.spdxtra.Write;
+import com.yevster.spdxtra.model.write.License;
+import com.yevster.spdxtra.model.write.LicenseExpressionParser;
+import com.yevster.spdxtra.util.MiscUtils;
+
+/**
+ * @author yevster
+ */
+public class LicenseExpressionParserTest {
+	private final LicenseExpressionParser parser = LicenseExpressionParser.create();
+
+	@Test
+	public void testSingleLicense() {
+		assertSame(LicenseList.INSTANCE.getListedLicenseById("MIT").get(), parser.parse("MIT"));
+		assertSame(LicenseList.INSTANCE.getListedLicenseById("MIT").get(), parser.parse(" ( (MIT) ) "));
+		assertSame(License.NONE, parser.parse("NONE"));
+		assertSame(License.NOASSERTION, parser.parse("NOASSERTION"));
+	}
+
+	@Test
+	public void testPrecedence() {
+		assertEquals("((Apache-2.0) OR (MIT)) AND (BSD-3-Clause)",
+				parser.parse("(MIT OR Apache-2.0) AND BSD-3-Clause").getPrettyName());
+		// AND binds tighter than OR
+		assertEquals("((Apache-2.0) AND (BSD-3-Clause)) OR (MIT)",
+				parser.parse("MIT OR Apache-2.0 AND BSD-3-Clause").getPrettyName());
+	}
+
+	@Test
+	public void testCanonicalization() {
+		License license = parser.parse("MIT OR Apache-2.0");
+		assertEquals("(Apache-2.0) OR (MIT)", license.getPrettyName());
+		// Reordered, regrouped, duplicated and parenthesized the same license
+		assertSame(license, parser.parse("(Apache-2.0 OR MIT)"));
+		assertSame(license, parser.parse("Apache-2.0 OR (MIT OR Apache-2.0)"));
+		assertSame(license, parser.parse("MIT OR MIT OR Apache-2.0"));
+		assertEquals("(Apache-2.0) AND (BSD-3-Clause) AND (MIT)",
+				parser.parse("MIT AND (BSD-3-Clause AND (Apache-2.0 AND MIT))").getPrettyName());
+		assertEquals(5, parser.getCacheMisses());
+
+		parser.parse("MIT OR Apache-2.0");
+		assertEquals(1, parser.getCacheHits());
+	}
+
+	@Test
+	public void testLicenseRefs() {
+		LicenseExpressionParser documentParser = LicenseExpressionParser.forDocument("http://example.org/expr",
+				ImmutableMap.of("LicenseRef-Mine", "All mine!"));
+		License license = documentParser.parse("LicenseRef-Mine AND GPL-2.0");
+
+		Dataset dataset = DatasetFactory.createTxnMem();
+		Write.applyUpdatesInOneTransaction(dataset,
+				Write.New.document("http://example.org/expr", "SPDXRef-1", "Expressions", Creator.tool("Test")),
+				Write.Document.addDescribedPackage("http://example.org/expr", "SPDXRef-1", "SPDXRef-2", "Pkg"),
+				Write.Package.concludedLicense("http://example.org/expr#SPDXRef-2", license));
+		Resource licenseResource = Read.lookupResourceByUri(dataset, "http://example.org/expr#SPDXRef-2").get()
+				.getProperty(SpdxProperties.LICENSE_CONCLUDED).getResource();
+		Set<String> members = MiscUtils.toLinearStream(licenseResource.listProperties(SpdxProperties.LICENSE_MEMBER))
+				.map(s -> s.getObject().toString()).collect(Collectors.toSet());
+		assertEquals(ImmutableSet.of("http://spdx.org/licenses/GPL-2.0", "http://example.org/expr#LicenseRef-Mine"),
+				members);
+	}
+
+	@Test
+	public void testInvalidExpressions() {
+		for (String invalid : new String[] { "", "  ", "MIT AND", "OR MIT", "(MIT", "MIT)", "MIT Apache-2.0",
+				"MIT AND AND Apache-2.0", "No-Such-License", "LicenseRef-Unknown", "GPL-2.0 WITH Classpath-exception-2.0",
+				"MIT & Apache-2.0", "mit or apache-2.0" }) {
+			try {
+				parser.parse(invalid);
+				fail("Parsed invalid expression " + invalid);
+			} catch (IllegalArgumentException e) {
+				// Expected
+			}
+		}
+	}
+
+	@Test
+	public void testCacheSize() {
+		LicenseExpressionParser uncached = LicenseExpressionParser.create().cacheSize(0);
+		uncached.parse("MIT");
+		uncached.parse("MIT");
+		assertEquals(0, uncached.getCacheHits());
+		assertEquals(2, uncached.getCacheMisses());
+	}
+}
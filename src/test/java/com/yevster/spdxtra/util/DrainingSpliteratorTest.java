@@ -0,0 +1,49 @@
+package com.yevster.spdxtra.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import java.util.Spliterator;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.junit.Test;
+
+public class DrainingSpliteratorTest {
+
+	private static List<Integer> numbers(int count) {
+		return IntStream.range(0, count).boxed().collect(Collectors.toList());
+	}
+
+	@Test
+	public void testSequentialTraversalIsLazy() {
+		List<Integer> source = numbers(10);
+		DrainingSpliterator<Integer> spliterator = new DrainingSpliterator<>(source.iterator());
+		assertTrue(spliterator.tryAdvance(i -> assertEquals(0, i.intValue())));
+		assertEquals(Long.MAX_VALUE, spliterator.estimateSize());
+		assertEquals(0, spliterator.characteristics() & Spliterator.SIZED);
+	}
+
+	@Test
+	public void testSplitsEvenly() {
+		DrainingSpliterator<Integer> spliterator = new DrainingSpliterator<>(numbers(1000).iterator());
+		spliterator.tryAdvance(i -> {
+		});
+		Spliterator<Integer> prefix = spliterator.trySplit();
+		assertNotNull(prefix);
+		assertTrue((spliterator.characteristics() & Spliterator.SIZED) != 0);
+		assertEquals(999, prefix.estimateSize() + spliterator.estimateSize());
+		assertTrue(Math.abs(prefix.estimateSize() - spliterator.estimateSize()) <= 1);
+		prefix.tryAdvance(i -> assertEquals(1, i.intValue()));
+	}
+
+	@Test
+	public void testParallelStreamKeepsOrder() {
+		List<Integer> source = numbers(100_000);
+		List<Integer> result = MiscUtils.toSplittableStream(source.iterator()).parallel().map(i -> i * 2)
+				.collect(Collectors.toList());
+		assertEquals(source.stream().map(i -> i * 2).collect(Collectors.toList()), result);
+	}
+}